@@ -0,0 +1,54 @@
+package com.insuscan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.MealEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Recorded inputs for the benchmarks (src/jmh/resources/fixtures)
+ */
+public final class Fixtures {
+
+    private Fixtures() {}
+
+    public static String text(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A completed 4-item meal, as stored after scan -> confirm -> complete
+    public static MealEntity completedMeal() {
+        try {
+            return new ObjectMapper().readValue(text("meal-completed.json"), MealEntity.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Raw OpenAI chat completion for a vision request (content is fenced JSON)
+    public static String openAiVisionResponse() {
+        return text("openai-vision-response.json");
+    }
+
+    // Upload-sized payload (bytes are random so nothing compresses or short-circuits)
+    public static byte[] imageBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        // JPEG SOI marker, so content sniffing sees an image
+        bytes[0] = (byte) 0xFF;
+        bytes[1] = (byte) 0xD8;
+        bytes[2] = (byte) 0xFF;
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.insuscan.calculation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InsulinCalculator.calculate for a complete profile with correction and a sick-day
+ * adjustment, and for an empty profile (defaults + missing-field list).
+ *
+ * ./gradlew jmh -Pjmh.includes=InsulinCalculatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InsulinCalculatorBenchmark {
+
+    private final InsulinCalculator calculator = new InsulinCalculator();
+
+    private final CalculationParams fullProfile = new CalculationParams.Builder()
+            .withInsulinCarbRatio("1:10")
+            .withCorrectionFactor(50f)
+            .withTargetGlucose(100)
+            .withTotalCarbs(59.2f)
+            .withCurrentGlucose(165)
+            .withActivityLevel("light")
+            .withSickDayPercent(15)
+            .withLightExercisePercent(10)
+            .build();
+
+    private final CalculationParams emptyProfile = new CalculationParams.Builder()
+            .withTotalCarbs(42.5f)
+            .build();
+
+    @Benchmark
+    public CalculationResult fullProfile() {
+        return calculator.calculate(fullProfile);
+    }
+
+    @Benchmark
+    public CalculationResult defaultsProfile() {
+        return calculator.calculate(emptyProfile);
+    }
+
+    // Builder + calculate, as the scan and recalculate endpoints do per request
+    @Benchmark
+    public CalculationResult buildAndCalculate() {
+        return calculator.calculate(new CalculationParams.Builder()
+                .withInsulinCarbRatio(10f)
+                .withCorrectionFactor(50f)
+                .withTargetGlucose(100)
+                .withTotalCarbs(59.2f)
+                .withCurrentGlucose(165)
+                .build());
+    }
+}
@@ -0,0 +1,54 @@
+package com.insuscan.converter;
+
+import com.insuscan.Fixtures;
+import com.insuscan.boundary.MealBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MealConverter.toBoundary, run for every meal in scan and single-meal responses, and
+ * toSummaryBoundary, run for every meal in history lists.
+ *
+ * ./gradlew jmh -Pjmh.includes=MealConverterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MealConverterBenchmark {
+
+    // toBoundary does not touch the id generator
+    private final MealConverter converter = new MealConverter(null);
+    private final MealEntity meal = Fixtures.completedMeal();
+    private final MealSummaryEntity summary = summaryOf(meal);
+
+    @Benchmark
+    public MealBoundary toBoundary() {
+        return converter.toBoundary(meal);
+    }
+
+    @Benchmark
+    public MealSummaryBoundary toSummaryBoundary() {
+        return converter.toSummaryBoundary(summary);
+    }
+
+    private static MealSummaryEntity summaryOf(MealEntity meal) {
+        MealSummaryEntity summary = new MealSummaryEntity();
+        summary.setId(meal.getId());
+        summary.setUserId(meal.getUserId());
+        summary.setScannedAt(meal.getScannedAt());
+        summary.setTotalCarbs(meal.getTotalCarbs());
+        summary.setStatus(meal.getStatus());
+        summary.setRecommendedDose(meal.getRecommendedDose());
+        summary.setActualDose(meal.getActualDose());
+        return summary;
+    }
+}
@@ -0,0 +1,77 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.Fixtures;
+import com.insuscan.data.MealEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History queries against the in-memory backend for one user with a long meal history
+ * (three meals a day), spread over a few other users.
+ *
+ * ./gradlew jmh -Pjmh.includes=InMemoryMealRepositoryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InMemoryMealRepositoryBenchmark {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+
+    @Param({"3000"})
+    public int mealsPerUser;
+
+    private final InMemoryMealRepository repository = new InMemoryMealRepository(new ObjectMapper());
+    private final String userId = "user0@example.com";
+    private long newest;
+    private String secondPageToken;
+
+    @Setup
+    public void setUp() {
+        newest = System.currentTimeMillis();
+        for (int user = 0; user < 4; user++) {
+            for (int i = 0; i < mealsPerUser; i++) {
+                MealEntity meal = Fixtures.completedMeal();
+                meal.setId("insuscan_" + user + "_" + i);
+                meal.setUserId("user" + user + "@example.com");
+                meal.setScannedAt(new Date(newest - (i / 3) * DAY - (i % 3) * 5 * HOUR));
+                repository.save(meal);
+            }
+        }
+        secondPageToken = repository.findByUserIdAfter(userId, null, 20).getNextPageToken();
+    }
+
+    @Benchmark
+    public CursorPage<MealEntity> firstPage() {
+        return repository.findByUserIdAfter(userId, null, 20);
+    }
+
+    @Benchmark
+    public CursorPage<MealEntity> secondPage() {
+        return repository.findByUserIdAfter(userId, secondPageToken, 20);
+    }
+
+    // A week in the middle of the history
+    @Benchmark
+    public List<MealEntity> weekRange() {
+        long to = newest - 100 * DAY;
+        return repository.findByUserIdAndDateRange(userId, new Date(to - 7 * DAY), new Date(to), 0, 50);
+    }
+
+    @Benchmark
+    public long countByUserId() {
+        return repository.countByUserId(userId);
+    }
+}
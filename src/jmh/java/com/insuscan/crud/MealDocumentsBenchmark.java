@@ -0,0 +1,60 @@
+package com.insuscan.crud;
+
+import com.insuscan.Fixtures;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity <-> Firestore field map conversion done on every meal save and read,
+ * and the field copy the in-memory backend makes instead. summaryFromMap is the list-screen
+ * read of a select()-projected document.
+ *
+ * ./gradlew jmh -Pjmh.includes=MealDocumentsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MealDocumentsBenchmark {
+
+    private final MealEntity meal = Fixtures.completedMeal();
+    private final Map<String, Object> document = MealDocuments.toMap(meal);
+    private final Map<String, Object> summaryDocument = project(document);
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return MealDocuments.toMap(meal);
+    }
+
+    @Benchmark
+    public MealEntity fromMap() {
+        return MealDocuments.fromMap(document);
+    }
+
+    @Benchmark
+    public MealEntity copy() {
+        return MealDocuments.copy(meal);
+    }
+
+    @Benchmark
+    public MealSummaryEntity summaryFromMap() {
+        return MealDocuments.summaryFromMap(summaryDocument);
+    }
+
+    private static Map<String, Object> project(Map<String, Object> document) {
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : MealDocuments.SUMMARY_FIELDS) {
+            projected.put(field, document.get(field));
+        }
+        return projected;
+    }
+}
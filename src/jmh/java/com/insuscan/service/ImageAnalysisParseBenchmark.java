@@ -0,0 +1,50 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.Fixtures;
+import com.insuscan.boundary.FoodRecognitionResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a recorded OpenAI vision response into recognized food items:
+ * envelope (choices[0].message.content) and the fenced items JSON inside it.
+ *
+ * ./gradlew jmh -Pjmh.includes=ImageAnalysisParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImageAnalysisParseBenchmark {
+
+    // Only the WebClient builder and ObjectMapper are used by the parse path
+    private final ImageAnalysisServiceImpl service = new ImageAnalysisServiceImpl(
+            WebClient.builder(), new ObjectMapper(), null, null, null, null, "http://localhost");
+
+    private final String response = Fixtures.openAiVisionResponse();
+    private final String content = service.extractContentFromResponse(response);
+
+    @Benchmark
+    public String extractContent() {
+        return service.extractContentFromResponse(response);
+    }
+
+    @Benchmark
+    public List<FoodRecognitionResult.RecognizedFoodItem> parseFoods() throws Exception {
+        return service.parseFoodsFromOpenAi(content);
+    }
+
+    // What analyzeImageAsync does with each response body
+    @Benchmark
+    public List<FoodRecognitionResult.RecognizedFoodItem> extractAndParse() throws Exception {
+        return service.parseFoodsFromOpenAi(service.extractContentFromResponse(response));
+    }
+}
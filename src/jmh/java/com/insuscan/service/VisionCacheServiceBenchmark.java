@@ -0,0 +1,43 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VisionCacheService.hashImage (Base64 decode + SHA-256) for phone-camera upload sizes.
+ *
+ * ./gradlew jmh -Pjmh.includes=VisionCacheServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VisionCacheServiceBenchmark {
+
+    // After client-side resize uploads are typically 150-600 KB
+    @Param({"350000"})
+    public int imageBytes;
+
+    private final VisionCacheService cache = new VisionCacheService(new ObjectMapper());
+    private String base64Image;
+
+    @Setup
+    public void setUp() {
+        base64Image = Base64.getEncoder().encodeToString(Fixtures.imageBytes(imageBytes));
+    }
+
+    @Benchmark
+    public String hashImage() {
+        return cache.hashImage(base64Image);
+    }
+}
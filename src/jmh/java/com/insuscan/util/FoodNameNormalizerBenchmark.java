@@ -0,0 +1,68 @@
+package com.insuscan.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FoodNameNormalizer vs. the previous implementation, over names as the vision
+ * model returns them (exact synonyms, multi-word dishes, unknown foods).
+ *
+ * ./gradlew jmh -Pjmh.includes=FoodNameNormalizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FoodNameNormalizerBenchmark {
+
+    private static final String[] NAMES = {
+            "Banana",
+            "White rice",
+            "Grilled Chicken Breast",
+            "a bowl of spaghetti with tomato sauce",
+            "French Fries",
+            "Mixed Vegetables",
+            "the steak, cooked",
+            "Roasted sweet potato wedges",
+            "Greek yogurt with honey",
+            "Pineapple"
+    };
+
+    private final FoodNameNormalizer current = new FoodNameNormalizer();
+    private final LegacyFoodNameNormalizer legacy = new LegacyFoodNameNormalizer();
+
+    @Benchmark
+    public void normalize(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(current.normalize(name));
+        }
+    }
+
+    @Benchmark
+    public void normalizeLegacy(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(legacy.normalize(name));
+        }
+    }
+
+    // NutritionDataServiceImpl calls normalize, then getSearchTerms on the result
+    @Benchmark
+    public void searchTerms(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(current.getSearchTerms(current.normalize(name)));
+        }
+    }
+
+    @Benchmark
+    public void searchTermsLegacy(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(legacy.getSearchTerms(legacy.normalize(name)));
+        }
+    }
+}
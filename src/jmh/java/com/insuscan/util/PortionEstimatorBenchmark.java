@@ -0,0 +1,82 @@
+package com.insuscan.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of PortionEstimator's category lookup (memoised, uncached index,
+ * previous HashMap scan) and of distributePortions for a typical 4-item plate.
+ *
+ * ./gradlew jmh -Pjmh.includes=PortionEstimatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PortionEstimatorBenchmark {
+
+    private static final String[] NAMES = {
+            "Grilled Chicken Breast",
+            "White Rice",
+            "Steamed Broccoli",
+            "Tomato Sauce",
+            "Roasted Potatoes",
+            "Cornbread",
+            "Greek Yogurt",
+            "Pineapple"
+    };
+
+    private final PortionEstimator current = new PortionEstimator();
+    private final LegacyPortionEstimator legacy = new LegacyPortionEstimator();
+
+    private final List<PortionEstimator.FoodItem> plate = new ArrayList<>();
+    private final List<LegacyPortionEstimator.FoodItem> legacyPlate = new ArrayList<>();
+
+    public PortionEstimatorBenchmark() {
+        float[] confidence = {0.92f, 0.88f, 0.75f, 0.6f};
+        Float[] estimate = {150f, 180f, null, 40f};
+        for (int i = 0; i < 4; i++) {
+            plate.add(new PortionEstimator.FoodItem(NAMES[i], confidence[i], estimate[i]));
+            legacyPlate.add(new LegacyPortionEstimator.FoodItem(NAMES[i], confidence[i], estimate[i]));
+        }
+    }
+
+    @Benchmark
+    public void categoryMemoised(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(current.getFoodCategory(name));
+        }
+    }
+
+    @Benchmark
+    public void categoryIndexUncached(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(PortionEstimator.CATEGORY_INDEX.resolve(name));
+        }
+    }
+
+    @Benchmark
+    public void categoryLegacy(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(legacy.getFoodCategory(name));
+        }
+    }
+
+    @Benchmark
+    public Object distributePortions() {
+        return current.distributePortions(plate, 450f);
+    }
+
+    @Benchmark
+    public Object distributePortionsLegacy() {
+        return legacy.distributePortions(legacyPlate, 450f);
+    }
+}
@@ -0,0 +1,67 @@
+package com.insuscan.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples (microseconds) and error count for one endpoint
+ */
+final class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[4096];
+    private int count;
+    private long errors;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized void record(long micros) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = micros;
+    }
+
+    synchronized void error() {
+        errors++;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(name, sorted, errors);
+    }
+
+    static final class Snapshot {
+        final String name;
+        final long count;
+        final long errors;
+        final double p50Ms;
+        final double p95Ms;
+        final double p99Ms;
+        final double maxMs;
+
+        Snapshot(String name, long[] sorted, long errors) {
+            this.name = name;
+            this.count = sorted.length;
+            this.errors = errors;
+            this.p50Ms = percentile(sorted, 0.50);
+            this.p95Ms = percentile(sorted, 0.95);
+            this.p99Ms = percentile(sorted, 0.99);
+            this.maxMs = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+        }
+    }
+}
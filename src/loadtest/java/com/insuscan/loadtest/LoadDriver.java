@@ -0,0 +1,273 @@
+package com.insuscan.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load driver: each virtual user repeats scan -> confirm -> history
+ * against a running server (normally --spring.profiles.active=loadtest with the
+ * upstream stubs), then prints throughput and p50/p95/p99 per endpoint.
+ * Requests started during the warmup are not recorded.
+ *
+ * ./gradlew loadtest -Ploadtest.args="--concurrency=64 --duration=2m"
+ *
+ * Options (defaults): --base-url (http://localhost:9693), --system-id (insuscan),
+ * --users (20), --concurrency (32), --warmup (15s), --duration (60s), --think-time (0ms),
+ * --scan-path (/vision/analyze), --distinct-images (true: every scan misses the vision cache),
+ * --history-size (10), --timeout (120s)
+ */
+public class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final String systemId;
+    private final int users;
+    private final String scanPath;
+    private final boolean distinctImages;
+    private final int historySize;
+    private final Duration timeout;
+    private final Duration thinkTime;
+
+    private final HttpClient client;
+    private final byte[] image;
+    private final AtomicLong imageCounter = new AtomicLong();
+
+    private final LatencyRecorder scan = new LatencyRecorder("scan");
+    private final LatencyRecorder confirm = new LatencyRecorder("confirm");
+    private final LatencyRecorder history = new LatencyRecorder("history");
+
+    private volatile long measureFromNanos;
+    private volatile long stopAtNanos;
+
+    LoadDriver(LoadTestArgs options) throws IOException {
+        this.baseUrl = options.get("base-url", "http://localhost:9693");
+        this.systemId = options.get("system-id", "insuscan");
+        this.users = options.getInt("users", 20);
+        this.scanPath = options.get("scan-path", "/vision/analyze");
+        this.distinctImages = options.getBoolean("distinct-images", true);
+        this.historySize = options.getInt("history-size", 10);
+        this.timeout = options.getDuration("timeout", Duration.ofSeconds(120));
+        this.thinkTime = options.getDuration("think-time", Duration.ZERO);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.image = sampleJpeg();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestArgs options = new LoadTestArgs(args);
+        int concurrency = options.getInt("concurrency", 32);
+        Duration warmup = options.getDuration("warmup", Duration.ofSeconds(15));
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(60));
+
+        LoadDriver driver = new LoadDriver(options);
+        driver.createUsers();
+        driver.run(concurrency, warmup, duration);
+    }
+
+    // Users with a full profile, so scans take the personalised path; existing users are reused
+    void createUsers() throws Exception {
+        for (int i = 0; i < users; i++) {
+            String body = MAPPER.writeValueAsString(Map.of(
+                    "email", email(i),
+                    "role", "PATIENT",
+                    "userName", "Load Test " + i,
+                    "insulinCarbRatio", "1:10",
+                    "correctionFactor", 50,
+                    "targetGlucose", 100));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                    .header("Content-Type", "application/json")
+                    .timeout(timeout)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 500) {
+                throw new IllegalStateException("Could not create load test user: HTTP " + response.statusCode()
+                        + " " + response.body());
+            }
+        }
+        System.out.printf("%d users ready%n", users);
+    }
+
+    void run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + warmup.toNanos();
+        stopAtNanos = measureFromNanos + duration.toNanos();
+        System.out.printf("Running %d virtual users against %s: %ds warmup, %ds measured%n",
+                concurrency, baseUrl, warmup.toSeconds(), duration.toSeconds());
+
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int w = 0; w < concurrency; w++) {
+            String email = email(w % users);
+            workers.submit(() -> loop(email));
+        }
+        workers.shutdown();
+        workers.awaitTermination(warmup.toSeconds() + duration.toSeconds() + timeout.toSeconds() + 10, TimeUnit.SECONDS);
+        workers.shutdownNow();
+
+        report(duration);
+    }
+
+    private void loop(String email) {
+        while (System.nanoTime() < stopAtNanos) {
+            String mealId = scan(email);
+            if (mealId != null) {
+                confirm(mealId);
+            }
+            history(email);
+            if (!thinkTime.isZero()) {
+                try {
+                    Thread.sleep(thinkTime);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the new meal's id, or null when the scan failed or did not save a meal
+    private String scan(String email) {
+        String boundary = "----insuscan-loadtest-" + Long.toHexString(System.nanoTime());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + scanPath + "?email=" + email))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, nextImage())))
+                .build();
+        String body = send(scan, request);
+        if (body == null) {
+            return null;
+        }
+        try {
+            JsonNode mealId = MAPPER.readTree(body).path("mealId").path("mealId");
+            return mealId.isMissingNode() || mealId.isNull() ? null : mealId.asText();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void confirm(String mealId) {
+        send(confirm, HttpRequest.newBuilder(URI.create(baseUrl + "/meals/" + systemId + "/" + mealId
+                        + "/confirm?currentGlucose=145&activityLevel=normal"))
+                .timeout(timeout)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    private void history(String email) {
+        send(history, HttpRequest.newBuilder(URI.create(baseUrl + "/meals/user/" + systemId + "/" + email
+                        + "?page=0&size=" + historySize))
+                .timeout(timeout)
+                .GET()
+                .build());
+    }
+
+    // Body on 2xx, null otherwise; latency is recorded only after the warmup
+    private String send(LatencyRecorder recorder, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean measured = start >= measureFromNanos && start < stopAtNanos;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long micros = (System.nanoTime() - start) / 1000;
+            if (response.statusCode() / 100 != 2) {
+                if (measured) recorder.error();
+                return null;
+            }
+            if (measured) recorder.record(micros);
+            return response.body();
+        } catch (IOException e) {
+            if (measured) recorder.error();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void report(Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.println();
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "ok", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        List<LatencyRecorder.Snapshot> snapshots = new ArrayList<>();
+        for (LatencyRecorder recorder : List.of(scan, confirm, history)) {
+            snapshots.add(recorder.snapshot());
+        }
+        for (LatencyRecorder.Snapshot s : snapshots) {
+            System.out.printf("%-10s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    s.name, s.count, s.errors, s.count / seconds, s.p50Ms, s.p95Ms, s.p99Ms, s.maxMs);
+        }
+    }
+
+    // Distinct bytes after the JPEG end marker change the image hash (and so miss the
+    // vision cache) without changing the decoded picture
+    private byte[] nextImage() {
+        if (!distinctImages) {
+            return image;
+        }
+        return ByteBuffer.allocate(image.length + Long.BYTES)
+                .put(image)
+                .putLong(imageCounter.incrementAndGet())
+                .array();
+    }
+
+    private static byte[] multipart(String boundary, byte[] jpeg) {
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"meal.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(headBytes.length + jpeg.length + tailBytes.length)
+                .put(headBytes)
+                .put(jpeg)
+                .put(tailBytes)
+                .array();
+    }
+
+    // Phone-camera sized JPEG with enough detail to compress like a real photo (~250 KB)
+    private static byte[] sampleJpeg() throws IOException {
+        BufferedImage picture = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = picture.createGraphics();
+        g.setColor(new Color(235, 230, 220));
+        g.fillRect(0, 0, 1600, 1200);
+        g.setColor(Color.WHITE);
+        g.fillOval(300, 100, 1000, 1000);
+        Random random = new Random(42);
+        for (int i = 0; i < 4000; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            g.fillOval(400 + random.nextInt(800), 200 + random.nextInt(800), 4 + random.nextInt(30), 4 + random.nextInt(30));
+        }
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(picture, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static String email(int user) {
+        return "loadtest-" + user + "@example.com";
+    }
+}
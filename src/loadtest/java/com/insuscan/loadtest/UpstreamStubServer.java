@@ -0,0 +1,100 @@
+package com.insuscan.loadtest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+import com.github.tomakehurst.wiremock.http.FixedDelayDistribution;
+import com.github.tomakehurst.wiremock.http.LogNormal;
+import com.github.tomakehurst.wiremock.http.UniformDistribution;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * Replays recorded OpenAI and USDA responses (src/loadtest/resources/stubs) with
+ * configurable latency, so scans can be load tested without real quota.
+ * Matches the base URLs in application-loadtest.properties.
+ *
+ * Latency specs: lognormal:<median-ms>:<sigma> | uniform:<min-ms>:<max-ms> | fixed:<ms>
+ *
+ * ./gradlew loadtestStubs -Ploadtest.args="--openai-vision=lognormal:2500:0.35 --usda=fixed:150"
+ */
+public class UpstreamStubServer {
+
+    public static void main(String[] args) {
+        LoadTestArgs options = new LoadTestArgs(args);
+        int port = options.getInt("port", 8089);
+        int threads = options.getInt("threads", 200);
+
+        DelayDistribution vision = delay(options.get("openai-vision", "lognormal:2500:0.35"));
+        DelayDistribution judge = delay(options.get("openai-judge", "lognormal:900:0.4"));
+        DelayDistribution usda = delay(options.get("usda", "lognormal:250:0.5"));
+
+        // Asynchronous responses: delayed stubs must not hold a Jetty thread each
+        WireMockServer server = new WireMockServer(WireMockConfiguration.options()
+                .port(port)
+                .containerThreads(threads)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(threads)
+                .disableRequestJournal());
+
+        // OpenAI: all calls go to /chat/completions, told apart by the request body
+        server.stubFor(post(urlPathEqualTo("/openai/v1/chat/completions"))
+                .atPriority(1)
+                .withRequestBody(containing("image_url"))
+                .willReturn(okJson(stub("openai-vision.json")).withRandomDelay(vision)));
+        server.stubFor(post(urlPathEqualTo("/openai/v1/chat/completions"))
+                .atPriority(2)
+                .withRequestBody(containing("TARGETS (Visual Analysis)"))
+                .willReturn(okJson(stub("openai-judge-batch.json")).withRandomDelay(judge)));
+        server.stubFor(post(urlPathEqualTo("/openai/v1/chat/completions"))
+                .atPriority(3)
+                .willReturn(okJson(stub("openai-judge-single.json")).withRandomDelay(judge)));
+
+        // USDA: every search returns the same candidates, which the judge stubs pick from
+        server.stubFor(post(urlPathEqualTo("/usda/fdc/v1/foods/search"))
+                .willReturn(okJson(stub("usda-search.json")).withRandomDelay(usda)));
+        server.stubFor(get(urlPathMatching("/usda/fdc/v1/food/[0-9]+"))
+                .willReturn(okJson(stub("usda-food.json")).withRandomDelay(usda)));
+
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.printf("Upstream stubs listening on http://localhost:%d (openai-vision %s, openai-judge %s, usda %s)%n",
+                port, options.get("openai-vision", "lognormal:2500:0.35"),
+                options.get("openai-judge", "lognormal:900:0.4"), options.get("usda", "lognormal:250:0.5"));
+    }
+
+    static DelayDistribution delay(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "lognormal":
+                return new LogNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            case "uniform":
+                return new UniformDistribution(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            case "fixed":
+                return new FixedDelayDistribution(Long.parseLong(parts[1]));
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+
+    private static String stub(String name) {
+        try (InputStream in = UpstreamStubServer.class.getResourceAsStream("/stubs/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing stub response: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
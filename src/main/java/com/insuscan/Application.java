@@ -2,12 +2,14 @@ package com.insuscan;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.boot.CommandLineRunner;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 	@Value("${openai.api.key}")
     private String openAiKey;
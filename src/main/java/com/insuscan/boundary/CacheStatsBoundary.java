@@ -0,0 +1,49 @@
+package com.insuscan.boundary;
+
+// Snapshot of an in-process cache's size and hit/miss counters
+public class CacheStatsBoundary {
+    private String name;
+    private long entries;
+    private long estimatedBytes;
+    private long hits;              // served from memory
+    private long diskHits;          // served from the on-disk tier
+    private long misses;            // caller had to go to the upstream API
+    private long coalesced;         // misses that joined an in-flight upstream call for the same key
+    private long evictions;         // removed to stay within size bounds
+    private long expirations;       // removed because TTL passed
+
+    public CacheStatsBoundary() {}
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getEntries() { return entries; }
+    public void setEntries(long entries) { this.entries = entries; }
+
+    public long getEstimatedBytes() { return estimatedBytes; }
+    public void setEstimatedBytes(long estimatedBytes) { this.estimatedBytes = estimatedBytes; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getDiskHits() { return diskHits; }
+    public void setDiskHits(long diskHits) { this.diskHits = diskHits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getCoalesced() { return coalesced; }
+    public void setCoalesced(long coalesced) { this.coalesced = coalesced; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public long getExpirations() { return expirations; }
+    public void setExpirations(long expirations) { this.expirations = expirations; }
+
+    // Fraction of lookups answered without an upstream call (memory + disk)
+    public double getHitRate() {
+        long total = hits + diskHits + misses;
+        return total == 0 ? 0.0 : (double) (hits + diskHits) / total;
+    }
+}
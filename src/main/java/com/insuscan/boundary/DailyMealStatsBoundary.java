@@ -0,0 +1,37 @@
+package com.insuscan.boundary;
+
+import java.time.LocalDate;
+
+// Meal totals for one day (days without meals are not listed)
+public class DailyMealStatsBoundary {
+    private LocalDate date;
+    private int mealCount;
+    private float totalCarbs;               // grams
+    private float totalRecommendedDose;     // units
+    private float totalActualDose;          // units
+    private int sickModeCount;
+    private int stressModeCount;
+
+    public DailyMealStatsBoundary() {}
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int getMealCount() { return mealCount; }
+    public void setMealCount(int mealCount) { this.mealCount = mealCount; }
+
+    public float getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(float totalCarbs) { this.totalCarbs = totalCarbs; }
+
+    public float getTotalRecommendedDose() { return totalRecommendedDose; }
+    public void setTotalRecommendedDose(float totalRecommendedDose) { this.totalRecommendedDose = totalRecommendedDose; }
+
+    public float getTotalActualDose() { return totalActualDose; }
+    public void setTotalActualDose(float totalActualDose) { this.totalActualDose = totalActualDose; }
+
+    public int getSickModeCount() { return sickModeCount; }
+    public void setSickModeCount(int sickModeCount) { this.sickModeCount = sickModeCount; }
+
+    public int getStressModeCount() { return stressModeCount; }
+    public void setStressModeCount(int stressModeCount) { this.stressModeCount = stressModeCount; }
+}
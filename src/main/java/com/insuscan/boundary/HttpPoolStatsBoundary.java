@@ -0,0 +1,43 @@
+package com.insuscan.boundary;
+
+// Snapshot of one outbound connection pool (per upstream and remote address)
+public class HttpPoolStatsBoundary {
+    private String name;            // pool name: openai, usda
+    private String remoteAddress;
+    private int acquired;           // connections currently in use
+    private int idle;               // open connections ready for reuse
+    private int allocated;          // acquired + idle
+    private int pendingAcquire;     // requests waiting for a connection
+    private int maxAllocated;
+    private int maxPendingAcquire;
+    private long connectionsOpened; // new connections (TCP + TLS handshakes) since startup
+
+    public HttpPoolStatsBoundary() {}
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getRemoteAddress() { return remoteAddress; }
+    public void setRemoteAddress(String remoteAddress) { this.remoteAddress = remoteAddress; }
+
+    public int getAcquired() { return acquired; }
+    public void setAcquired(int acquired) { this.acquired = acquired; }
+
+    public int getIdle() { return idle; }
+    public void setIdle(int idle) { this.idle = idle; }
+
+    public int getAllocated() { return allocated; }
+    public void setAllocated(int allocated) { this.allocated = allocated; }
+
+    public int getPendingAcquire() { return pendingAcquire; }
+    public void setPendingAcquire(int pendingAcquire) { this.pendingAcquire = pendingAcquire; }
+
+    public int getMaxAllocated() { return maxAllocated; }
+    public void setMaxAllocated(int maxAllocated) { this.maxAllocated = maxAllocated; }
+
+    public int getMaxPendingAcquire() { return maxPendingAcquire; }
+    public void setMaxPendingAcquire(int maxPendingAcquire) { this.maxPendingAcquire = maxPendingAcquire; }
+
+    public long getConnectionsOpened() { return connectionsOpened; }
+    public void setConnectionsOpened(long connectionsOpened) { this.connectionsOpened = connectionsOpened; }
+}
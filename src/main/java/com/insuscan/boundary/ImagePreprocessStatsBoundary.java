@@ -0,0 +1,19 @@
+package com.insuscan.boundary;
+
+// Snapshot of the upload preprocessing done before vision calls
+public class ImagePreprocessStatsBoundary {
+    private boolean enabled;
+    private long imagesProcessed;   // uploads sent re-encoded instead of as the original
+    private long bytesSaved;        // original minus re-encoded size, summed over those uploads
+
+    public ImagePreprocessStatsBoundary() {}
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getImagesProcessed() { return imagesProcessed; }
+    public void setImagesProcessed(long imagesProcessed) { this.imagesProcessed = imagesProcessed; }
+
+    public long getBytesSaved() { return bytesSaved; }
+    public void setBytesSaved(long bytesSaved) { this.bytesSaved = bytesSaved; }
+}
@@ -0,0 +1,51 @@
+package com.insuscan.boundary;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Meal totals for a date range (both ends inclusive), overall and per day
+public class MealStatsBoundary {
+    private LocalDate from;
+    private LocalDate to;
+    private int mealCount;
+    private float totalCarbs;               // grams
+    private float totalRecommendedDose;     // units
+    private float totalActualDose;          // units
+    private int sickModeCount;
+    private int stressModeCount;
+    private List<DailyMealStatsBoundary> days;   // oldest first
+
+    public MealStatsBoundary() {}
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public int getMealCount() { return mealCount; }
+    public void setMealCount(int mealCount) { this.mealCount = mealCount; }
+
+    public float getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(float totalCarbs) { this.totalCarbs = totalCarbs; }
+
+    public float getTotalRecommendedDose() { return totalRecommendedDose; }
+    public void setTotalRecommendedDose(float totalRecommendedDose) { this.totalRecommendedDose = totalRecommendedDose; }
+
+    public float getTotalActualDose() { return totalActualDose; }
+    public void setTotalActualDose(float totalActualDose) { this.totalActualDose = totalActualDose; }
+
+    public int getSickModeCount() { return sickModeCount; }
+    public void setSickModeCount(int sickModeCount) { this.sickModeCount = sickModeCount; }
+
+    public int getStressModeCount() { return stressModeCount; }
+    public void setStressModeCount(int stressModeCount) { this.stressModeCount = stressModeCount; }
+
+    public List<DailyMealStatsBoundary> getDays() { return days; }
+    public void setDays(List<DailyMealStatsBoundary> days) { this.days = days; }
+
+    // Average carbs per day with meals
+    public float getAverageDailyCarbs() {
+        return days == null || days.isEmpty() ? 0f : totalCarbs / days.size();
+    }
+}
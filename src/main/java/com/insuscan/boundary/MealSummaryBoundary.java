@@ -0,0 +1,35 @@
+package com.insuscan.boundary;
+
+import com.insuscan.enums.MealStatus;
+import java.util.Date;
+
+// Meal list item: the MealBoundary fields history screens show.
+// The full meal (food items, dose breakdown) comes from GET /meals/{systemId}/{mealId}.
+public class MealSummaryBoundary {
+    private MealIdBoundary mealId;
+    private Date scannedAt;
+    private Float totalCarbs;               // grams
+    private MealStatus status;
+    private Float recommendedDose;          // units
+    private Float actualDose;               // units
+
+    public MealSummaryBoundary() {}
+
+    public MealIdBoundary getMealId() { return mealId; }
+    public void setMealId(MealIdBoundary mealId) { this.mealId = mealId; }
+
+    public Date getScannedAt() { return scannedAt; }
+    public void setScannedAt(Date scannedAt) { this.scannedAt = scannedAt; }
+
+    public Float getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(Float totalCarbs) { this.totalCarbs = totalCarbs; }
+
+    public MealStatus getStatus() { return status; }
+    public void setStatus(MealStatus status) { this.status = status; }
+
+    public Float getRecommendedDose() { return recommendedDose; }
+    public void setRecommendedDose(Float recommendedDose) { this.recommendedDose = recommendedDose; }
+
+    public Float getActualDose() { return actualDose; }
+    public void setActualDose(Float actualDose) { this.actualDose = actualDose; }
+}
@@ -8,6 +8,12 @@ public class NutritionInfo {
  private String servingSize;        // e.g. "1 cup", "100g"
  private float servingSizeGrams;
  private boolean found;             // did we find this food?
+ // Per 100 grams; null when the source did not report them (local mirror, fallback data)
+ private Float fiberPer100g;
+ private Float sugarsPer100g;
+ private Float fatPer100g;
+ private Float proteinPer100g;
+ private Float kcalPer100g;
 
  public NutritionInfo() {}
 
@@ -30,6 +36,29 @@ public class NutritionInfo {
  public boolean isFound() { return found; }
  public void setFound(boolean found) { this.found = found; }
 
+ public Float getFiberPer100g() { return fiberPer100g; }
+ public void setFiberPer100g(Float fiberPer100g) { this.fiberPer100g = fiberPer100g; }
+
+ public Float getSugarsPer100g() { return sugarsPer100g; }
+ public void setSugarsPer100g(Float sugarsPer100g) { this.sugarsPer100g = sugarsPer100g; }
+
+ public Float getFatPer100g() { return fatPer100g; }
+ public void setFatPer100g(Float fatPer100g) { this.fatPer100g = fatPer100g; }
+
+ public Float getProteinPer100g() { return proteinPer100g; }
+ public void setProteinPer100g(Float proteinPer100g) { this.proteinPer100g = proteinPer100g; }
+
+ public Float getKcalPer100g() { return kcalPer100g; }
+ public void setKcalPer100g(Float kcalPer100g) { this.kcalPer100g = kcalPer100g; }
+
+ // Carbs minus fibre; same as carbsPer100g when fibre is unknown
+ public float getNetCarbsPer100g() {
+     if (fiberPer100g == null) {
+         return carbsPer100g;
+     }
+     return Math.max(0f, carbsPer100g - fiberPer100g);
+ }
+
  // Calculate carbs for a specific weight
  public float calculateCarbs(float weightGrams) {
      return (carbsPer100g * weightGrams) / 100f;
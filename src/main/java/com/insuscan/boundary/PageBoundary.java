@@ -0,0 +1,27 @@
+package com.insuscan.boundary;
+
+import java.util.List;
+
+// Response DTO for cursor-paginated lists; pass nextPageToken back as pageToken to get the next page
+public class PageBoundary<T> {
+    private List<T> items;
+    private String nextPageToken;   // null when there are no more pages
+    private boolean hasMore;
+
+    public PageBoundary() {}
+
+    public PageBoundary(List<T> items, String nextPageToken) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+        this.hasMore = nextPageToken != null;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextPageToken() { return nextPageToken; }
+    public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
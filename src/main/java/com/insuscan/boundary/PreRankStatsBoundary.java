@@ -0,0 +1,25 @@
+package com.insuscan.boundary;
+
+// Counters of the local candidate pre-ranker that runs before the semantic judge
+public class PreRankStatsBoundary {
+    private long decided;           // obvious match picked locally = judge call avoided
+    private long deferred;          // left to the judge (margin below threshold)
+    private double minMargin;
+
+    public PreRankStatsBoundary() {}
+
+    public long getDecided() { return decided; }
+    public void setDecided(long decided) { this.decided = decided; }
+
+    public long getDeferred() { return deferred; }
+    public void setDeferred(long deferred) { this.deferred = deferred; }
+
+    public double getMinMargin() { return minMargin; }
+    public void setMinMargin(double minMargin) { this.minMargin = minMargin; }
+
+    // Fraction of multi-candidate lookups that did not need the judge
+    public double getAvoidedRate() {
+        long total = decided + deferred;
+        return total == 0 ? 0.0 : (double) decided / total;
+    }
+}
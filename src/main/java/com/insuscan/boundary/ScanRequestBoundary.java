@@ -1,9 +1,14 @@
 package com.insuscan.boundary;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.insuscan.image.ImageData;
+
 // Request DTO for scanning a meal image
 public class ScanRequestBoundary {
     private String imageBase64;     // Base64 encoded image
     private String imageUrl;        // Or URL to image
+    @JsonIgnore
+    private ImageData image;        // Or uploaded bytes (multipart endpoints, not part of the JSON API)
     private UserIdBoundary userId;
     
     // Optional portion analysis hints
@@ -29,6 +34,19 @@ public class ScanRequestBoundary {
         this.imageUrl = imageUrl;
     }
 
+    public ImageData getImage() {
+        return image;
+    }
+
+    public void setImage(ImageData image) {
+        this.image = image;
+    }
+
+    // True if any image source is set
+    public boolean hasImage() {
+        return image != null || imageBase64 != null || imageUrl != null;
+    }
+
     public UserIdBoundary getUserId() {
         return userId;
     }
@@ -57,7 +75,7 @@ public class ScanRequestBoundary {
     public String toString() {
         return "ScanRequestBoundary{" +
                 "userId=" + userId +
-                ", hasImage=" + (imageBase64 != null || imageUrl != null) +
+                ", hasImage=" + hasImage() +
                 '}';
     }
 }
@@ -0,0 +1,63 @@
+package com.insuscan.boundary;
+
+// Snapshot of one upstream API's circuit breaker, bulkhead and adaptive timeout
+public class UpstreamStateBoundary {
+    private String name;
+    private String state;           // CLOSED, OPEN or HALF_OPEN
+    private int inFlight;
+    private int maxConcurrent;
+    private long timeoutMs;         // current per-attempt timeout
+    private long p50LatencyMs;
+    private long p99LatencyMs;
+    private double failureRate;     // over the breaker's sliding window
+    private long calls;
+    private long failures;
+    private long timeouts;
+    private long retries;           // 429 retries
+    private long rejectedOpen;      // failed fast, circuit open
+    private long rejectedBulkhead;  // failed fast, no free slot
+
+    public UpstreamStateBoundary() {}
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+    public long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+    public long getP50LatencyMs() { return p50LatencyMs; }
+    public void setP50LatencyMs(long p50LatencyMs) { this.p50LatencyMs = p50LatencyMs; }
+
+    public long getP99LatencyMs() { return p99LatencyMs; }
+    public void setP99LatencyMs(long p99LatencyMs) { this.p99LatencyMs = p99LatencyMs; }
+
+    public double getFailureRate() { return failureRate; }
+    public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+
+    public long getCalls() { return calls; }
+    public void setCalls(long calls) { this.calls = calls; }
+
+    public long getFailures() { return failures; }
+    public void setFailures(long failures) { this.failures = failures; }
+
+    public long getTimeouts() { return timeouts; }
+    public void setTimeouts(long timeouts) { this.timeouts = timeouts; }
+
+    public long getRetries() { return retries; }
+    public void setRetries(long retries) { this.retries = retries; }
+
+    public long getRejectedOpen() { return rejectedOpen; }
+    public void setRejectedOpen(long rejectedOpen) { this.rejectedOpen = rejectedOpen; }
+
+    public long getRejectedBulkhead() { return rejectedBulkhead; }
+    public void setRejectedBulkhead(long rejectedBulkhead) { this.rejectedBulkhead = rejectedBulkhead; }
+}
@@ -0,0 +1,18 @@
+package com.insuscan.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    // Virtual-thread executor for fan-out of blocking external calls (USDA, OpenAI judge).
+    // Each task gets its own virtual thread, so a blocked WebClient call costs no platform thread.
+    @Bean(name = "scanExecutor", destroyMethod = "shutdown")
+    public ExecutorService scanExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
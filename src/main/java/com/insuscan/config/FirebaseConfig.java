@@ -2,6 +2,7 @@ package com.insuscan.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
@@ -9,6 +10,7 @@ import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,7 +18,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+// Not loaded with insuscan.storage.backend=memory, so no credentials or emulator are needed
 @Configuration
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "firestore", matchIfMissing = true)
 public class FirebaseConfig {
 
     private static final Logger log = LoggerFactory.getLogger(FirebaseConfig.class);
@@ -28,8 +32,16 @@ public class FirebaseConfig {
     @Value("${firebase.project.id:insuscan-project}")
     private String projectId;
 
+    // host:port of a Firestore emulator; when set no credentials are loaded (load tests, local runs)
+    @Value("${firebase.emulator.host:}")
+    private String emulatorHost;
+
     @PostConstruct
     public void initialize() {
+        if (useEmulator()) {
+            log.info("Using Firestore emulator at {} for project: {}", emulatorHost, projectId);
+            return;
+        }
         synchronized (FirebaseConfig.class) {
             try {
                 if (FirebaseApp.getApps().isEmpty()) {
@@ -77,6 +89,13 @@ public class FirebaseConfig {
 
     @Bean(destroyMethod = "")
     public Firestore firestore() {
+        if (useEmulator()) {
+            return FirestoreOptions.newBuilder()
+                    .setProjectId(projectId)
+                    .setEmulatorHost(emulatorHost)
+                    .build()
+                    .getService();
+        }
         synchronized (FirebaseConfig.class) {
             // Ensure Firebase app is initialized
             if (FirebaseApp.getApps().isEmpty()) {
@@ -103,4 +122,8 @@ public class FirebaseConfig {
             return firestore;
         }
     }
+
+    private boolean useEmulator() {
+        return emulatorHost != null && !emulatorHost.isBlank();
+    }
 }
@@ -1,13 +1,45 @@
 package com.insuscan.config;
 
+import com.insuscan.util.HttpPoolMetrics;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * Outbound HTTP: one named Reactor Netty connection pool per upstream (openai, usda),
+ * shared by every WebClient that talks to it, with keep-alive, idle eviction, gzip
+ * and HTTP/2 (negotiated via ALPN, HTTP/1.1 otherwise).
+ *
+ * Settings come from insuscan.http.<upstream>.*, see application.properties.
+ * Pool gauges are collected by HttpPoolMetrics (GET /admin/http-pools).
+ */
 @Configuration
 public class WebClientConfig {
 
+    public static final String OPENAI = "openai";
+    public static final String USDA = "usda";
+
+    private final Environment environment;
+    private final HttpPoolMetrics poolMetrics;
+
+    public WebClientConfig(Environment environment, HttpPoolMetrics poolMetrics) {
+        this.environment = environment;
+        this.poolMetrics = poolMetrics;
+    }
+
     @Bean
+    @Primary
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
@@ -16,4 +48,62 @@ public class WebClientConfig {
     public WebClient webClient(WebClient.Builder builder) {
         return builder.build();
     }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openAiConnectionProvider() {
+        return connectionProvider(OPENAI, 64);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider usdaConnectionProvider() {
+        return connectionProvider(USDA, 32);
+    }
+
+    // Prototype: each service gets its own builder (baseUrl etc.) over the shared pool
+    @Bean
+    @Scope("prototype")
+    public WebClient.Builder openAiWebClientBuilder(
+            @Qualifier("openAiConnectionProvider") ConnectionProvider connectionProvider) {
+        return pooledBuilder(OPENAI, connectionProvider);
+    }
+
+    @Bean
+    @Scope("prototype")
+    public WebClient.Builder usdaWebClientBuilder(
+            @Qualifier("usdaConnectionProvider") ConnectionProvider connectionProvider) {
+        return pooledBuilder(USDA, connectionProvider);
+    }
+
+    private ConnectionProvider connectionProvider(String name, int defaultMaxConnections) {
+        String prefix = "insuscan.http." + name + ".";
+        return ConnectionProvider.builder(name)
+                .maxConnections(environment.getProperty(prefix + "max-connections", Integer.class, defaultMaxConnections))
+                .pendingAcquireMaxCount(environment.getProperty(prefix + "pending-acquire-max", Integer.class, 256))
+                .pendingAcquireTimeout(Duration.ofMillis(
+                        environment.getProperty(prefix + "pending-acquire-timeout-ms", Long.class, 5000L)))
+                // Close idle connections before the server / load balancer does, so we never reuse a dead one
+                .maxIdleTime(Duration.ofMillis(environment.getProperty(prefix + "max-idle-ms", Long.class, 55000L)))
+                .maxLifeTime(Duration.ofMillis(environment.getProperty(prefix + "max-life-ms", Long.class, 600000L)))
+                .evictInBackground(Duration.ofSeconds(30))
+                .lifo()
+                .metrics(true, () -> poolMetrics)
+                .build();
+    }
+
+    private WebClient.Builder pooledBuilder(String name, ConnectionProvider connectionProvider) {
+        String prefix = "insuscan.http." + name + ".";
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .compress(environment.getProperty(prefix + "compress", Boolean.class, true))
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        environment.getProperty(prefix + "connect-timeout-ms", Integer.class, 5000))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .doOnConnected(connection -> poolMetrics.connectionOpened(name));
+
+        if (environment.getProperty(prefix + "http2", Boolean.class, true)) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
 }
@@ -3,9 +3,17 @@ package com.insuscan.controller;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import com.insuscan.boundary.HttpPoolStatsBoundary;
+import com.insuscan.boundary.ImagePreprocessStatsBoundary;
+import com.insuscan.boundary.PageBoundary;
+import com.insuscan.boundary.UpstreamStateBoundary;
 import com.insuscan.boundary.UserBoundary;
+import com.insuscan.image.ImagePreprocessor;
 import com.insuscan.service.MealService;
+import com.insuscan.service.MealStatsService;
 import com.insuscan.service.UserService;
+import com.insuscan.util.HttpPoolMetrics;
+import com.insuscan.util.UpstreamGuards;
 
 import java.util.List;
 
@@ -16,10 +24,20 @@ public class AdminController {
 
     private final UserService userService;
     private final MealService mealService;
+    private final MealStatsService mealStatsService;
+    private final UpstreamGuards upstreamGuards;
+    private final HttpPoolMetrics httpPoolMetrics;
+    private final ImagePreprocessor imagePreprocessor;
 
-    public AdminController(UserService userService, MealService mealService) {
+    public AdminController(UserService userService, MealService mealService, MealStatsService mealStatsService,
+                           UpstreamGuards upstreamGuards, HttpPoolMetrics httpPoolMetrics,
+                           ImagePreprocessor imagePreprocessor) {
         this.userService = userService;
         this.mealService = mealService;
+        this.mealStatsService = mealStatsService;
+        this.upstreamGuards = upstreamGuards;
+        this.httpPoolMetrics = httpPoolMetrics;
+        this.imagePreprocessor = imagePreprocessor;
     }
 
     // GET /admin/users - Get all users (paginated)
@@ -34,6 +52,19 @@ public class AdminController {
         return userService.getAllUsers(adminSystemId, adminEmail, page, size);
     }
 
+    // GET /admin/users/page - Get users, cursor-paginated (optional role filter)
+    @GetMapping(
+        path = "/users/page",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public PageBoundary<UserBoundary> getUsersPage(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return userService.getUsersPage(adminSystemId, adminEmail, role, pageToken, size);
+    }
+
     // DELETE /admin/users - Delete all users
     @DeleteMapping(path = "/users")
     public void deleteAllUsers(
@@ -69,4 +100,60 @@ public class AdminController {
             @PathVariable("email") String email) {
         mealService.deleteAllMealsForUser(adminSystemId, adminEmail, systemId, email);
     }
+
+    // POST /admin/meals/stats/{systemId}/{email}/rebuild - Recompute a user's daily rollups
+    // from their meals (meals saved before rollups existed, or after a failed rollup write)
+    @PostMapping(path = "/meals/stats/{systemId}/{email:.+}/rebuild")
+    public int rebuildMealStats(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail,
+            @PathVariable("systemId") String systemId,
+            @PathVariable("email") String email) {
+        userService.verifyAdminAccess(adminSystemId, adminEmail);
+        return mealStatsService.rebuildForUser(systemId, email);
+    }
+
+    // GET /admin/meals/stats/failed - Users whose rollups missed a write that is still being retried
+    @GetMapping(
+        path = "/meals/stats/failed",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<String> getUsersWithFailedRollups(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail) {
+        userService.verifyAdminAccess(adminSystemId, adminEmail);
+        return mealStatsService.getUsersWithFailedRollups();
+    }
+
+    // GET /admin/resilience - Circuit breaker, bulkhead and timeout state per upstream API
+    @GetMapping(
+        path = "/resilience",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<UpstreamStateBoundary> getResilienceState(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail) {
+        userService.verifyAdminAccess(adminSystemId, adminEmail);
+        return upstreamGuards.getStates();
+    }
+
+    // GET /admin/http-pools - Outbound connection pool usage per upstream
+    @GetMapping(
+        path = "/http-pools",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<HttpPoolStatsBoundary> getHttpPoolStats(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail) {
+        userService.verifyAdminAccess(adminSystemId, adminEmail);
+        return httpPoolMetrics.getStats();
+    }
+
+    // GET /admin/image-preprocessing - Uploads re-encoded before vision calls and bytes saved
+    @GetMapping(
+        path = "/image-preprocessing",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImagePreprocessStatsBoundary getImagePreprocessStats(
+            @RequestParam("adminSystemId") String adminSystemId,
+            @RequestParam("adminEmail") String adminEmail) {
+        userService.verifyAdminAccess(adminSystemId, adminEmail);
+        return imagePreprocessor.getStats();
+    }
 }
@@ -1,6 +1,11 @@
 package com.insuscan.controller;
 
+import com.insuscan.boundary.CacheStatsBoundary;
 import com.insuscan.boundary.NutritionInfo;
+import com.insuscan.boundary.PreRankStatsBoundary;
+import com.insuscan.exception.InsuScanNotFoundException;
+import com.insuscan.service.CandidatePreRanker;
+import com.insuscan.service.JudgeVerdictCache;
 import com.insuscan.service.NutritionDataService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,9 +25,14 @@ public class FoodController {
 
     private static final Logger log = LoggerFactory.getLogger(FoodController.class);
     private final NutritionDataService nutritionDataService;
+    private final JudgeVerdictCache judgeVerdictCache;
+    private final CandidatePreRanker candidatePreRanker;
 
-    public FoodController(NutritionDataService nutritionDataService) {
+    public FoodController(NutritionDataService nutritionDataService, JudgeVerdictCache judgeVerdictCache,
+                          CandidatePreRanker candidatePreRanker) {
         this.nutritionDataService = nutritionDataService;
+        this.judgeVerdictCache = judgeVerdictCache;
+        this.candidatePreRanker = candidatePreRanker;
     }
 
     // Search for food items - reuses existing searchFoods()
@@ -48,4 +58,29 @@ public class FoodController {
         
         return nutritionDataService.getNutritionInfo(foodName);
     }
+
+    // Get a single food by USDA fdcId (cache, local mirror, then USDA API)
+    @Operation(summary = "Get nutrition info by USDA fdcId")
+    @GetMapping(path = "/{fdcId:\\d+}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public NutritionInfo getByFdcId(
+            @Parameter(description = "USDA FoodData Central id", required = true)
+            @PathVariable("fdcId") String fdcId) {
+
+        return nutritionDataService.getByFdcId(fdcId)
+                .orElseThrow(() -> new InsuScanNotFoundException("Food not found: " + fdcId));
+    }
+
+    // Semantic judge verdict cache counters (hit rate = LLM calls saved)
+    @Operation(summary = "Get semantic judge verdict cache statistics")
+    @GetMapping(path = "/judge-cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CacheStatsBoundary getJudgeCacheStats() {
+        return judgeVerdictCache.getStats();
+    }
+
+    // How many judge calls the local pre-ranker avoided
+    @Operation(summary = "Get semantic judge pre-ranker statistics")
+    @GetMapping(path = "/judge/prerank/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PreRankStatsBoundary getPreRankStats() {
+        return candidatePreRanker.getStats();
+    }
 }
@@ -7,8 +7,12 @@ import org.springframework.web.bind.annotation.*;
 
 import com.insuscan.boundary.FoodItemBoundary;
 import com.insuscan.boundary.MealBoundary;
+import com.insuscan.boundary.MealStatsBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
+import com.insuscan.boundary.PageBoundary;
 import com.insuscan.exception.InsuScanNotFoundException;
 import com.insuscan.service.MealService;
+import com.insuscan.service.MealStatsService;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,9 +23,11 @@ import java.util.List;
 public class MealController {
 
     private final MealService mealService;
+    private final MealStatsService mealStatsService;
 
-    public MealController(MealService mealService) {
+    public MealController(MealService mealService, MealStatsService mealStatsService) {
         this.mealService = mealService;
+        this.mealStatsService = mealStatsService;
     }
 
     // POST /meals/{systemId}/{email} - Create new meal from scan
@@ -47,11 +53,11 @@ public class MealController {
                 "Meal not found: " + mealId));
     }
 
-    // GET /meals/user/{systemId}/{email} - Get meals for user
+    // GET /meals/user/{systemId}/{email} - Get meal summaries for user (full meal: GET /meals/{systemId}/{mealId})
     @GetMapping(
         path = "/user/{systemId}/{email:.+}",
         produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<MealBoundary> getMealsByUser(
+    public List<MealSummaryBoundary> getMealsByUser(
             @PathVariable("systemId") String systemId,
             @PathVariable("email") String email,
             @RequestParam(value = "page", defaultValue = "0") int page,
@@ -59,11 +65,24 @@ public class MealController {
         return mealService.getMealsByUser(systemId, email, page, size);
     }
 
-    // GET /meals/recent/{systemId}/{email} - Get recent meals for user
+    // GET /meals/user/{systemId}/{email}/page - Get meals for user, cursor-paginated
+    // (pass the returned nextPageToken as pageToken; deep pages cost the same as the first)
+    @GetMapping(
+        path = "/user/{systemId}/{email:.+}/page",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public PageBoundary<MealBoundary> getMealsByUserPage(
+            @PathVariable("systemId") String systemId,
+            @PathVariable("email") String email,
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return mealService.getMealsByUserPage(systemId, email, pageToken, size);
+    }
+
+    // GET /meals/recent/{systemId}/{email} - Get summaries of recent meals for user
     @GetMapping(
         path = "/recent/{systemId}/{email:.+}",
         produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<MealBoundary> getRecentMeals(
+    public List<MealSummaryBoundary> getRecentMeals(
             @PathVariable("systemId") String systemId,
             @PathVariable("email") String email,
             @RequestParam(value = "count", defaultValue = "5") int count) {
@@ -120,6 +139,20 @@ public class MealController {
         return mealService.getMealsByDateRange(systemId, email, from, to, page, size);
     }
 
+    // GET /meals/user/{systemId}/{email}/by-date/page - Date range, cursor-paginated
+    @GetMapping(
+        path = "/user/{systemId}/{email:.+}/by-date/page",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public PageBoundary<MealBoundary> getMealsByDateRangePage(
+            @PathVariable("systemId") String systemId,
+            @PathVariable("email") String email,
+            @RequestParam("from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return mealService.getMealsByDateRangePage(systemId, email, from, to, pageToken, size);
+    }
+
     // PUT /meals/{systemId}/{mealId}/portion - Update portion analysis
     @PutMapping(
         path = "/{systemId}/{mealId}/portion",
@@ -146,6 +179,19 @@ public class MealController {
         mealService.deleteMeal(systemId, mealId);
     }
 
+    // GET /meals/stats/{systemId}/{email}?from&to - Daily carb / insulin totals (dates inclusive),
+    // read from per-day rollups: cost grows with the number of days, not meals
+    @GetMapping(
+        path = "/stats/{systemId}/{email:.+}",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public MealStatsBoundary getMealStats(
+            @PathVariable("systemId") String systemId,
+            @PathVariable("email") String email,
+            @RequestParam("from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        return mealStatsService.getStats(systemId, email, from, to);
+    }
+
     // GET /meals/count/{systemId}/{email} - Get meal count for user
     @GetMapping(path = "/count/{systemId}/{email:.+}")
     public long getMealCount(
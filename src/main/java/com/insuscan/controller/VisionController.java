@@ -1,7 +1,9 @@
 package com.insuscan.controller;
 
+import com.insuscan.boundary.CacheStatsBoundary;
 import com.insuscan.boundary.FoodRecognitionResult;
 import com.insuscan.boundary.MealBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
 import com.insuscan.boundary.NutritionInfo;
 import com.insuscan.boundary.ScanRequestBoundary;
 import com.insuscan.boundary.UserIdBoundary;
@@ -10,10 +12,13 @@ import com.insuscan.crud.MealRepository;
 import com.insuscan.data.MealEntity;
 import com.insuscan.enums.MealStatus;
 import com.insuscan.exception.InsuScanNotFoundException;
+import com.insuscan.image.ImageData;
 import com.insuscan.service.ImageAnalysisService;
 import com.insuscan.service.MealService;
+import com.insuscan.service.MealStatsService;
 import com.insuscan.service.NutritionDataService;
 import com.insuscan.service.ScanService;
+import com.insuscan.service.VisionCacheService;
 import com.insuscan.util.MealIdGenerator;
 import com.insuscan.util.NumberUtils;
 import com.insuscan.util.PortionEstimator;
@@ -30,10 +35,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
@@ -47,32 +54,38 @@ public class VisionController {
     
     private final ScanService scanService;
     private final MealService mealService;
+    private final MealStatsService mealStatsService;
     private final ImageAnalysisService imageAnalysisService;
     private final MealRepository mealRepository;
     private final MealConverter mealConverter;
     private final MealIdGenerator mealIdGenerator;
     private final PortionEstimator portionEstimator;
     private final NutritionDataService nutritionDataService;
+    private final VisionCacheService visionCacheService;
 
     @Value("${spring.application.name}")
     private String systemId;
 
     public VisionController(ScanService scanService, 
                            MealService mealService,
+                           MealStatsService mealStatsService,
                            ImageAnalysisService imageAnalysisService,
                            MealRepository mealRepository,
                            MealConverter mealConverter,
                            MealIdGenerator mealIdGenerator,
                            PortionEstimator portionEstimator,
-                           NutritionDataService nutritionDataService) {
+                           NutritionDataService nutritionDataService,
+                           VisionCacheService visionCacheService) {
         this.scanService = scanService;
         this.mealService = mealService;
+        this.mealStatsService = mealStatsService;
         this.imageAnalysisService = imageAnalysisService;
         this.mealRepository = mealRepository;
         this.mealConverter = mealConverter;
         this.mealIdGenerator = mealIdGenerator;
         this.portionEstimator = portionEstimator;
         this.nutritionDataService = nutritionDataService;
+        this.visionCacheService = visionCacheService;
     }
 
     /**
@@ -108,12 +121,11 @@ public class VisionController {
             return ResponseEntity.badRequest().body("No image file provided");
         }
 
-        byte[] bytes = file.getBytes();
-        String base64 = Base64.getEncoder().encodeToString(bytes);
+        ImageData image = readImage(file);
 
         // Build scan request
         ScanRequestBoundary request = new ScanRequestBoundary();
-        request.setImageBase64(base64);
+        request.setImage(image);
         
         UserIdBoundary userIdBoundary = new UserIdBoundary();
         userIdBoundary.setSystemId(systemId);
@@ -128,7 +140,7 @@ public class VisionController {
         } catch (InsuScanNotFoundException e) {
             // User doesn't exist - fall back to simple vision analysis and save basic meal
             log.warn("User not found: {}, saving meal without user profile", email);
-            FoodRecognitionResult visionResult = imageAnalysisService.analyzeImage(base64);
+            FoodRecognitionResult visionResult = imageAnalysisService.analyzeImage(image);
             
             if (!visionResult.isSuccess()) {
                 return ResponseEntity.ok(visionResult);
@@ -144,16 +156,84 @@ public class VisionController {
         } catch (Exception e) {
             log.error("Error during meal scan: ", e);
             // If anything else fails, just return vision result
-            FoodRecognitionResult visionResult = imageAnalysisService.analyzeImage(base64);
+            FoodRecognitionResult visionResult = imageAnalysisService.analyzeImage(image);
             return ResponseEntity.ok(visionResult);
         }
     }
 
     /**
-     * Get all saved vision analyses for a user
+     * Non-blocking variant of /analyze.
+     * Returns a Mono so the servlet thread is released while vision, USDA and the judge run;
+     * fallbacks match the synchronous endpoint.
+     */
+    @Operation(summary = "Analyze meal image (async)", description = "Same as /analyze, but the request thread is released while external APIs are called")
+    @PostMapping(
+        path = "/analyze-async",
+        consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<?>> analyzeImageAsync(
+            @Parameter(description = "Image file to analyze (JPEG, PNG, etc.)", required = true)
+            @RequestPart("file") MultipartFile file,
+            
+            @Parameter(description = "User email for personalized calculations (optional, defaults to test@example.com)", example = "test@example.com")
+            @RequestParam(value = "email", required = false, defaultValue = "test@example.com") String email,
+            
+            @Parameter(description = "User's estimated total meal weight in grams (optional, helps with portion estimation)", example = "300")
+            @RequestParam(value = "estimatedWeightGrams", required = false) Float estimatedWeightGrams,
+            
+            @Parameter(description = "User's confidence in weight estimate (0.0 to 1.0, optional)", example = "0.8")
+            @RequestParam(value = "portionConfidence", required = false) Float portionConfidence
+    ) throws IOException {
+        
+        if (file == null || file.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("No image file provided"));
+        }
+
+        ImageData image = readImage(file);
+        String imageName = file.getOriginalFilename();
+
+        ScanRequestBoundary request = new ScanRequestBoundary();
+        request.setImage(image);
+        
+        UserIdBoundary userIdBoundary = new UserIdBoundary();
+        userIdBoundary.setSystemId(systemId);
+        userIdBoundary.setEmail(email);
+        request.setUserId(userIdBoundary);
+
+        return scanService.scanMealWithPortionAsync(request, estimatedWeightGrams, portionConfidence)
+                .<ResponseEntity<?>>map(meal -> {
+                    log.info("Meal scanned successfully (async) for user: {}", email);
+                    return ResponseEntity.ok(meal);
+                })
+                .onErrorResume(InsuScanNotFoundException.class, e -> {
+                    // User doesn't exist - fall back to simple vision analysis and save basic meal
+                    log.warn("User not found: {}, saving meal without user profile", email);
+                    return imageAnalysisService.analyzeImageAsync(image).<ResponseEntity<?>>flatMap(visionResult -> {
+                        if (!visionResult.isSuccess()) {
+                            return Mono.just(ResponseEntity.ok(visionResult));
+                        }
+                        // Nutrition lookups in saveBasicMeal are still synchronous
+                        return Mono.fromCallable(() -> saveBasicMeal(visionResult, email, imageName))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .<ResponseEntity<?>>map(meal -> {
+                                    log.info("Saved basic meal for email: {} (mealId: {})", email, meal.getId());
+                                    return ResponseEntity.ok(mealConverter.toBoundary(meal));
+                                });
+                    });
+                })
+                .onErrorResume(e -> !(e instanceof InsuScanNotFoundException), e -> {
+                    log.error("Error during async meal scan: ", e);
+                    return imageAnalysisService.analyzeImageAsync(image)
+                            .<ResponseEntity<?>>map(ResponseEntity::ok);
+                });
+    }
+
+    /**
+     * Get summaries of saved vision analyses for a user (full analysis: /saved/{mealId})
      */
     @GetMapping(path = "/saved", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<MealBoundary> getSavedAnalyses(
+    public List<MealSummaryBoundary> getSavedAnalyses(
             @RequestParam(value = "email", required = false) String email,
             @RequestParam(value = "userId", required = false) String userId,
             @RequestParam(value = "limit", required = false, defaultValue = "10") int limit
@@ -193,6 +273,18 @@ public class VisionController {
                 .orElseThrow(() -> new RuntimeException("Meal not found: " + mealId));
     }
     
+    /**
+     * Vision cache size and hit/miss/eviction counters.
+     * Every hit, and every coalesced miss, is one OpenAI vision call that was not paid for.
+     */
+    @Operation(summary = "Vision cache statistics")
+    @GetMapping(path = "/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CacheStatsBoundary getCacheStats() {
+        CacheStatsBoundary stats = visionCacheService.getStats();
+        stats.setCoalesced(imageAnalysisService.getCoalescedCalls());
+        return stats;
+    }
+
     /**
      * Serve the test vision HTML page
      */
@@ -204,6 +296,13 @@ public class VisionController {
                 .body(resource);
     }
     
+    // Read the upload once, hashing it on the way in
+    private ImageData readImage(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ImageData.fromStream(in, file.getSize(), file.getContentType());
+        }
+    }
+
     private MealEntity saveBasicMeal(FoodRecognitionResult result, String email, String imageName) {
         MealEntity meal = new MealEntity();
         meal.setId(mealIdGenerator.generateMealId(systemId));
@@ -284,7 +383,9 @@ public class VisionController {
         meal.setTotalCarbs(NumberUtils.roundTo2Decimals(totalCarbs));
         meal.setStatus(MealStatus.PENDING);
         
-        return mealRepository.save(meal);
+        MealEntity saved = mealRepository.create(meal);
+        mealStatsService.mealSaved(saved);
+        return saved;
     }
     
 }
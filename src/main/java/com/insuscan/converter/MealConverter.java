@@ -6,8 +6,10 @@ import org.springframework.stereotype.Component;
 import com.insuscan.boundary.FoodItemBoundary;
 import com.insuscan.boundary.MealBoundary;
 import com.insuscan.boundary.MealIdBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
 import com.insuscan.boundary.UserIdBoundary;
 import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
 import com.insuscan.enums.MealStatus;
 import com.insuscan.util.MealIdGenerator;
 import com.insuscan.util.NumberUtils;
@@ -28,6 +30,38 @@ public class MealConverter {
         this.mealIdGenerator = mealIdGenerator;
     }
 
+    // Convert a meal summary to its list item boundary
+    public MealSummaryBoundary toSummaryBoundary(MealSummaryEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        MealSummaryBoundary boundary = new MealSummaryBoundary();
+        if (entity.getId() != null) {
+            boundary.setMealId(toMealIdBoundary(entity.getId()));
+        }
+        boundary.setScannedAt(entity.getScannedAt());
+        boundary.setTotalCarbs(entity.getTotalCarbs());
+        boundary.setStatus(entity.getStatus());
+        boundary.setRecommendedDose(entity.getRecommendedDose());
+        boundary.setActualDose(entity.getActualDose());
+        return boundary;
+    }
+
+    // Parse composite meal ID (systemId_mealUuid)
+    private MealIdBoundary toMealIdBoundary(String id) {
+        MealIdBoundary mealId = new MealIdBoundary();
+        String[] parts = id.split("_", 2);
+        if (parts.length == 2) {
+            mealId.setSystemId(parts[0]);
+            mealId.setMealId(parts[1]);
+        } else {
+            mealId.setSystemId(systemId);
+            mealId.setMealId(id);
+        }
+        return mealId;
+    }
+
     // Convert MealEntity to MealBoundary for API responses
     public MealBoundary toBoundary(MealEntity entity) {
         if (entity == null) {
@@ -36,18 +70,8 @@ public class MealConverter {
 
         MealBoundary boundary = new MealBoundary();
 
-        // Parse composite meal ID (systemId_mealUuid)
         if (entity.getId() != null) {
-            MealIdBoundary mealId = new MealIdBoundary();
-            String[] parts = entity.getId().split("_", 2);
-            if (parts.length == 2) {
-                mealId.setSystemId(parts[0]);
-                mealId.setMealId(parts[1]);
-            } else {
-                mealId.setSystemId(systemId);
-                mealId.setMealId(entity.getId());
-            }
-            boundary.setMealId(mealId);
+            boundary.setMealId(toMealIdBoundary(entity.getId()));
         }
 
         // Parse composite user ID (systemId_email)
@@ -0,0 +1,20 @@
+package com.insuscan.crud;
+
+import java.util.List;
+
+// One page of a keyset-paginated query; nextPageToken is null on the last page
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextPageToken;
+
+    public CursorPage(List<T> items, String nextPageToken) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextPageToken() { return nextPageToken; }
+
+    public boolean hasMore() { return nextPageToken != null; }
+}
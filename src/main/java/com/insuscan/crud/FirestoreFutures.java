@@ -0,0 +1,26 @@
+package com.insuscan.crud;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import reactor.core.publisher.Mono;
+
+// Bridges Firestore ApiFuture results into Reactor without parking a thread on get()
+final class FirestoreFutures {
+
+    private FirestoreFutures() {}
+
+    static <T> Mono<T> toMono(ApiFuture<T> future) {
+        return Mono.create(sink -> ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                sink.error(t);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                sink.success(result);
+            }
+        }, Runnable::run));
+    }
+}
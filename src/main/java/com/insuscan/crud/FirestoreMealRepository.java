@@ -0,0 +1,653 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import com.insuscan.enums.MealStatus;
+import com.insuscan.exception.InsuScanInvalidInputException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreMealRepository implements MealRepository {
+    
+    private static final Logger log = LoggerFactory.getLogger(FirestoreMealRepository.class);
+    private static final String COLLECTION_NAME = "meals";
+
+    // scannedAt desc then id desc, as the indexed queries order; meals without scannedAt last
+    private static final Comparator<MealEntity> NEWEST_FIRST = Comparator
+            .comparing(MealEntity::getScannedAt, Comparator.nullsFirst(Comparator.<Date>naturalOrder()))
+            .thenComparing(MealEntity::getId)
+            .reversed();
+    
+    private final Firestore firestore;
+    private final ObjectMapper objectMapper;
+
+    // Write-behind mode: saves are acknowledged after a local journal append and
+    // written to Firestore in batches (see MealWriteBehind)
+    @Value("${insuscan.meals.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${insuscan.meals.write-behind.journal-dir:meal-journal}")
+    private String journalDir;
+
+    @Value("${insuscan.meals.write-behind.batch-size:500}")
+    private int writeBehindBatchSize;
+
+    // Above this many pending meals, saves go straight to Firestore again (back-pressure);
+    // a meal that is already pending keeps going through the buffer
+    @Value("${insuscan.meals.write-behind.max-pending:10000}")
+    private int writeBehindMaxPending;
+
+    @Value("${insuscan.meals.write-behind.fsync:true}")
+    private boolean journalFsync;
+
+    private MealWriteBehind writeBehind;  // null when disabled
+
+    public FirestoreMealRepository(Firestore firestore, ObjectMapper objectMapper) {
+        this.firestore = firestore;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void initWriteBehind() {
+        if (!writeBehindEnabled) {
+            return;
+        }
+        MealWriteBehind buffer = new MealWriteBehind(firestore, COLLECTION_NAME, MealDocuments::toMap,
+                objectMapper, Paths.get(journalDir), writeBehindBatchSize, journalFsync);
+        try {
+            buffer.open();
+            writeBehind = buffer;
+            log.info("Meal write-behind enabled, journal at {}", Paths.get(journalDir).toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Could not open meal journal {}, saving meals synchronously: {}", journalDir, e.getMessage());
+        }
+    }
+
+    // Time trigger for write-behind; size trigger is handled inside the buffer
+    @Scheduled(fixedDelayString = "${insuscan.meals.write-behind.flush-interval-ms:200}")
+    public void flushPendingWrites() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    @PreDestroy
+    public void closeWriteBehind() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    // Save or update a meal
+    @Override
+    public MealEntity save(MealEntity meal) {
+        if (useWriteBehind(meal.getId())) {
+            try {
+                return writeBehind.enqueue(meal);
+            } catch (IOException e) {
+                log.error("Error journaling meal: {}", meal.getId(), e);
+                throw new RuntimeException("Failed to save meal", e);
+            }
+        }
+        try {
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(meal.getId());
+            docRef.set(MealDocuments.toMap(meal)).get();
+            log.debug("Saved meal: {}", meal.getId());
+            return meal;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error saving meal: {}", meal.getId(), e);
+            throw new RuntimeException("Failed to save meal", e);
+        }
+    }
+
+    // Save or update a meal without blocking the caller
+    @Override
+    public Mono<MealEntity> saveAsync(MealEntity meal) {
+        if (useWriteBehind(meal.getId())) {
+            // Only a local journal append; keep the (possibly fsync'ing) write off the event loop
+            return Mono.fromCallable(() -> save(meal)).subscribeOn(Schedulers.boundedElastic());
+        }
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(meal.getId());
+        return FirestoreFutures.toMono(docRef.set(MealDocuments.toMap(meal)))
+                .doOnSuccess(result -> log.debug("Saved meal: {}", meal.getId()))
+                .doOnError(e -> log.error("Error saving meal: {}", meal.getId(), e))
+                .onErrorMap(e -> new RuntimeException("Failed to save meal", e))
+                .thenReturn(meal);
+    }
+
+    // Insert a new meal. In write-behind mode only pending meals are checked for the id
+    // (the batch flush writes with set()); otherwise Firestore rejects an existing id.
+    @Override
+    public MealEntity create(MealEntity meal) {
+        if (useWriteBehind(meal.getId())) {
+            if (writeBehind.contains(meal.getId())) {
+                throw new IllegalStateException("Meal already exists: " + meal.getId());
+            }
+            return save(meal);
+        }
+        try {
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(meal.getId());
+            docRef.create(MealDocuments.toMap(meal)).get();
+            log.debug("Created meal: {}", meal.getId());
+            return meal;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error creating meal: {}", meal.getId(), e);
+            throw new RuntimeException("Failed to create meal", e);
+        }
+    }
+
+    @Override
+    public Mono<MealEntity> createAsync(MealEntity meal) {
+        if (useWriteBehind(meal.getId())) {
+            return Mono.fromCallable(() -> create(meal)).subscribeOn(Schedulers.boundedElastic());
+        }
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(meal.getId());
+        return FirestoreFutures.toMono(docRef.create(MealDocuments.toMap(meal)))
+                .doOnSuccess(result -> log.debug("Created meal: {}", meal.getId()))
+                .doOnError(e -> log.error("Error creating meal: {}", meal.getId(), e))
+                .onErrorMap(e -> new RuntimeException("Failed to create meal", e))
+                .thenReturn(meal);
+    }
+
+    // Find meal by ID
+    @Override
+    public Optional<MealEntity> findById(String id) {
+        if (writeBehind != null) {
+            Optional<MealEntity> pending = writeBehind.get(id);
+            if (pending.isPresent()) {
+                return pending;
+            }
+        }
+        try {
+            DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            if (doc.exists()) {
+                return Optional.of(mapToEntity(doc));
+            }
+            return Optional.empty();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error finding meal: {}", id, e);
+            throw new RuntimeException("Failed to find meal", e);
+        }
+    }
+
+    // Check if meal exists
+    @Override
+    public boolean existsById(String id) {
+        if (writeBehind != null && writeBehind.contains(id)) {
+            return true;
+        }
+        try {
+            DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            return doc.exists();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error checking meal existence: {}", id, e);
+            throw new RuntimeException("Failed to check meal existence", e);
+        }
+    }
+
+    // Find meals by user ID with pagination
+    @Override
+    public List<MealEntity> findByUserId(String userId, int page, int size) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING)
+                    .offset(page * size)
+                    .limit(size);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            // If index error, fall back to query without orderBy and sort in memory
+            if (e.getMessage() != null && e.getMessage().contains("index")) {
+                log.warn("Composite index not found for paginated query, using fallback query (slower). userId={}", userId);
+
+                try {
+                    // Firestore has no server-side offset without ordering; emulate it:
+                    // fetch enough items, sort, then slice.
+                    int offset = Math.max(0, page * size);
+                    int fetchLimit = Math.min(1000, offset + size); // safety cap
+
+                    Query fallbackQuery = firestore.collection(COLLECTION_NAME)
+                            .whereEqualTo("userId", userId)
+                            .limit(fetchLimit);
+
+                    List<MealEntity> meals = executeQuery(fallbackQuery);
+
+                    // Sort by scannedAt descending in memory
+                    meals.sort((a, b) -> {
+                        if (a.getScannedAt() == null && b.getScannedAt() == null) return 0;
+                        if (a.getScannedAt() == null) return 1;
+                        if (b.getScannedAt() == null) return -1;
+                        return b.getScannedAt().compareTo(a.getScannedAt());
+                    });
+
+                    // Slice page
+                    if (offset >= meals.size()) return List.of();
+                    int toIndex = Math.min(meals.size(), offset + size);
+                    return meals.subList(offset, toIndex);
+                } catch (Exception fallbackError) {
+                    log.error("Fallback paginated query also failed for user: {}", userId, fallbackError);
+                    throw new RuntimeException("Failed to find meals (fallback)", fallbackError);
+                }
+            }
+
+            log.error("Error finding meals by user: {}", userId, e);
+            throw new RuntimeException("Failed to find meals", e);
+        }
+    }
+
+    /**
+     * Keyset pagination over a user's meals, newest first.
+     * Pass the previous page's token to continue (null for the first page); every page
+     * costs size + 1 document reads no matter how deep it is.
+     * Without the (userId, scannedAt) index the first page falls back to meal id order.
+     * That is only roughly chronological (failed-scan ids carry no sequence, and NNN sorts
+     * out of place once it outgrows its padding), so each such page is sorted by scannedAt
+     * in memory; the order across pages stays approximate.
+     */
+    @Override
+    public CursorPage<MealEntity> findByUserIdAfter(String userId, String pageToken, int size) {
+        PageTokens.Cursor cursor = pageToken != null ? PageTokens.decode(pageToken) : null;
+        CollectionReference collection = firestore.collection(COLLECTION_NAME);
+        Query byUser = collection.whereEqualTo("userId", userId);
+
+        if (cursor == null || cursor.isTimeOrdered()) {
+            try {
+                Query query = byUser
+                        .orderBy("scannedAt", Query.Direction.DESCENDING)
+                        .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+                if (cursor != null) {
+                    query = query.startAfter(cursor.timestamp, collection.document(cursor.documentId));
+                }
+                return executePage(query, size, PageTokens.MODE_TIME);
+            } catch (Exception e) {
+                if (cursor != null || e.getMessage() == null || !e.getMessage().contains("index")) {
+                    log.error("Error finding meals page by user: {}", userId, e);
+                    throw new RuntimeException("Failed to find meals", e);
+                }
+                log.warn("Composite index not found for keyset query, paging by meal id instead. userId={}", userId);
+            }
+        }
+
+        try {
+            Query query = byUser.orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+            if (cursor != null) {
+                query = query.startAfter(collection.document(cursor.documentId));
+            }
+            // The token still points at the last meal by id, so only the items are reordered
+            CursorPage<MealEntity> page = executePage(query, size, PageTokens.MODE_ID);
+            List<MealEntity> items = new ArrayList<>(page.getItems());
+            items.sort(NEWEST_FIRST);
+            return new CursorPage<>(items, page.getNextPageToken());
+        } catch (Exception e) {
+            log.error("Error finding meals page by user (id order): {}", userId, e);
+            throw new RuntimeException("Failed to find meals", e);
+        }
+    }
+
+    // Keyset pagination over a user's meals in [from, to), newest first
+    @Override
+    public CursorPage<MealEntity> findByUserIdAndDateRangeAfter(String userId, Date from, Date to,
+                                                                String pageToken, int size) {
+        PageTokens.Cursor cursor = pageToken != null ? PageTokens.decode(pageToken) : null;
+        if (cursor != null && !cursor.isTimeOrdered()) {
+            throw new InsuScanInvalidInputException("Invalid page token");
+        }
+        try {
+            CollectionReference collection = firestore.collection(COLLECTION_NAME);
+            Query query = collection
+                    .whereEqualTo("userId", userId)
+                    .whereGreaterThanOrEqualTo("scannedAt", from)
+                    .whereLessThan("scannedAt", to)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+            if (cursor != null) {
+                query = query.startAfter(cursor.timestamp, collection.document(cursor.documentId));
+            }
+            return executePage(query, size, PageTokens.MODE_TIME);
+        } catch (Exception e) {
+            log.error("Error finding meals page by date range", e);
+            throw new RuntimeException("Failed to find meals by date range", e);
+        }
+    }
+
+    // Find all meals by user ID
+    @Override
+    public List<MealEntity> findByUserId(String userId) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding meals by user: {}", userId, e);
+            throw new RuntimeException("Failed to find meals", e);
+        }
+    }
+
+    // Find recent meals by user (ordered by scanned date desc)
+    @Override
+    public List<MealEntity> findRecentByUserId(String userId, int limit) {
+        try {
+            // Try query with orderBy first (requires composite index)
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING)
+                    .limit(limit);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            // If index error, fall back to query without orderBy and sort in memory
+            if (e.getMessage() != null && e.getMessage().contains("index")) {
+                log.warn("Composite index not found, using fallback query (slower). Create index at: {}", 
+                        e.getMessage().contains("create it here") ? "Firebase Console" : "Firebase Console");
+                
+                try {
+                    // Fallback: query without orderBy, then sort in memory
+                    Query fallbackQuery = firestore.collection(COLLECTION_NAME)
+                            .whereEqualTo("userId", userId)
+                            .limit(limit * 2); // Get more to account for no ordering
+                    
+                    List<MealEntity> meals = executeQuery(fallbackQuery);
+                    
+                    // Sort by scannedAt descending in memory
+                    meals.sort((a, b) -> {
+                        if (a.getScannedAt() == null && b.getScannedAt() == null) return 0;
+                        if (a.getScannedAt() == null) return 1;
+                        if (b.getScannedAt() == null) return -1;
+                        return b.getScannedAt().compareTo(a.getScannedAt());
+                    });
+                    
+                    // Return only the requested limit
+                    return meals.stream().limit(limit).collect(java.util.stream.Collectors.toList());
+                } catch (Exception fallbackError) {
+                    log.error("Fallback query also failed for user: {}", userId, fallbackError);
+                    throw new RuntimeException("Failed to find recent meals", fallbackError);
+                }
+            } else {
+                log.error("Error finding recent meals by user: {}", userId, e);
+                throw new RuntimeException("Failed to find recent meals", e);
+            }
+        }
+    }
+
+    // Find meal summaries by user ID with pagination
+    @Override
+    public List<MealSummaryEntity> findSummariesByUserId(String userId, int page, int size) {
+        return findSummaries(userId, page * size, size);
+    }
+
+    // Find summaries of a user's latest meals
+    @Override
+    public List<MealSummaryEntity> findRecentSummariesByUserId(String userId, int limit) {
+        return findSummaries(userId, 0, limit);
+    }
+
+    // Find meals by user and status
+    @Override
+    public List<MealEntity> findByUserIdAndStatus(String userId, MealStatus status) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .whereEqualTo("status", status.name());
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding meals by user and status: {} {}", userId, status, e);
+            throw new RuntimeException("Failed to find meals", e);
+        }
+    }
+
+    // Find meals in date range for a user
+    @Override
+    public List<MealEntity> findByUserIdAndDateRange(String userId, Date startDate, Date endDate) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .whereGreaterThanOrEqualTo("scannedAt", startDate)
+                    .whereLessThanOrEqualTo("scannedAt", endDate)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding meals by date range for user: {}", userId, e);
+            throw new RuntimeException("Failed to find meals", e);
+        }
+    }
+
+    // Count meals by user
+    @Override
+    public long countByUserId(String userId) {
+        try {
+            AggregateQuerySnapshot snapshot = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId)
+                    .count()
+                    .get()
+                    .get();
+            return snapshot.getCount();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error counting meals for user: {}", userId, e);
+            throw new RuntimeException("Failed to count meals", e);
+        }
+    }
+
+    // Delete meal by ID
+    @Override
+    public void deleteById(String id) {
+        try {
+            if (writeBehind != null) {
+                writeBehind.discard(id);
+            }
+            firestore.collection(COLLECTION_NAME).document(id).delete().get();
+            log.debug("Deleted meal: {}", id);
+        } catch (InterruptedException | ExecutionException | IOException e) {
+            log.error("Error deleting meal: {}", id, e);
+            throw new RuntimeException("Failed to delete meal", e);
+        }
+    }
+
+    // Delete all meals
+    @Override
+    public void deleteAll() {
+        try {
+            flushBeforeBulkDelete();
+            CollectionReference collection = firestore.collection(COLLECTION_NAME);
+            deleteCollection(collection);
+            log.info("Deleted all meals");
+        } catch (Exception e) {
+            log.error("Error deleting all meals", e);
+            throw new RuntimeException("Failed to delete all meals", e);
+        }
+    }
+
+    // Delete all meals by user
+    @Override
+    public void deleteByUserId(String userId) {
+        try {
+            flushBeforeBulkDelete();
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId);
+            
+            QuerySnapshot snapshot = query.get().get();
+            WriteBatch batch = firestore.batch();
+            
+            for (QueryDocumentSnapshot doc : snapshot.getDocuments()) {
+                batch.delete(doc.getReference());
+            }
+            
+            batch.commit().get();
+            log.debug("Deleted all meals for user: {}", userId);
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error deleting meals for user: {}", userId, e);
+            throw new RuntimeException("Failed to delete meals", e);
+        }
+    }
+
+    // Find recent meals (all users, ordered by scanned date desc)
+    @Override
+    public List<MealEntity> findAllRecent(int limit) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .orderBy("scannedAt", Query.Direction.DESCENDING)
+                    .limit(limit);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding recent meals", e);
+            throw new RuntimeException("Failed to find recent meals", e);
+        }
+    }
+
+    // Over max-pending, saves bypass the buffer - except for a meal that is still in it:
+    // its pending copy would keep serving findById and be flushed over the direct write
+    private boolean useWriteBehind(String id) {
+        return writeBehind != null
+                && (writeBehind.pendingCount() < writeBehindMaxPending || writeBehind.contains(id));
+    }
+
+    // Bulk deletes work on query results, so pending meals must reach Firestore first
+    // or they would be written back after the delete
+    private void flushBeforeBulkDelete() {
+        if (writeBehind != null && !writeBehind.flush()) {
+            throw new RuntimeException("Failed to flush pending meal writes");
+        }
+    }
+
+    // Helper: execute query and return list
+    private List<MealEntity> executeQuery(Query query) throws ExecutionException, InterruptedException {
+        QuerySnapshot snapshot = query.get().get();
+        return snapshot.getDocuments().stream()
+                .map(this::mapToEntity)
+                .collect(Collectors.toList());
+    }
+
+    // Helper: the findByUserId query with a select() field mask, so food items and the dose
+    // breakdown are neither transferred nor deserialised
+    private List<MealSummaryEntity> findSummaries(String userId, int offset, int limit) {
+        Query byUser = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .select(MealDocuments.SUMMARY_FIELDS);
+        try {
+            Query query = byUser
+                    .orderBy("scannedAt", Query.Direction.DESCENDING)
+                    .offset(offset)
+                    .limit(limit);
+            return executeSummaryQuery(query);
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("index")) {
+                log.error("Error finding meal summaries by user: {}", userId, e);
+                throw new RuntimeException("Failed to find meals", e);
+            }
+            log.warn("Composite index not found for summary query, using fallback query (slower). userId={}", userId);
+        }
+
+        try {
+            // Same emulation as findByUserId: fetch enough items, sort, then slice
+            List<MealSummaryEntity> summaries = executeSummaryQuery(byUser.limit(Math.min(1000, offset + limit)));
+            summaries.sort((a, b) -> {
+                if (a.getScannedAt() == null && b.getScannedAt() == null) return 0;
+                if (a.getScannedAt() == null) return 1;
+                if (b.getScannedAt() == null) return -1;
+                return b.getScannedAt().compareTo(a.getScannedAt());
+            });
+            if (offset >= summaries.size()) return List.of();
+            return summaries.subList(offset, Math.min(summaries.size(), offset + limit));
+        } catch (Exception fallbackError) {
+            log.error("Fallback summary query also failed for user: {}", userId, fallbackError);
+            throw new RuntimeException("Failed to find meals (fallback)", fallbackError);
+        }
+    }
+
+    private List<MealSummaryEntity> executeSummaryQuery(Query query) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = query.get().get().getDocuments();
+        List<MealSummaryEntity> summaries = new ArrayList<>(docs.size());
+        for (QueryDocumentSnapshot doc : docs) {
+            MealSummaryEntity summary = MealDocuments.summaryFromMap(doc.getData());
+            if (summary.getId() == null) {
+                summary.setId(doc.getId());
+            }
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    // Helper: fetch one extra document to learn whether another page exists
+    private CursorPage<MealEntity> executePage(Query query, int size, String mode)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = query.limit(size + 1).get().get().getDocuments();
+        boolean hasMore = docs.size() > size;
+        List<QueryDocumentSnapshot> pageDocs = hasMore ? docs.subList(0, size) : docs;
+
+        List<MealEntity> items = pageDocs.stream()
+                .map(this::mapToEntity)
+                .collect(Collectors.toList());
+
+        String nextPageToken = null;
+        if (hasMore) {
+            QueryDocumentSnapshot last = pageDocs.get(pageDocs.size() - 1);
+            nextPageToken = PageTokens.encode(mode, last.getDate("scannedAt"), last.getId());
+        }
+        return new CursorPage<>(items, nextPageToken);
+    }
+
+    // Helper: delete collection in batches
+    private void deleteCollection(CollectionReference collection) throws ExecutionException, InterruptedException {
+        ApiFuture<QuerySnapshot> future = collection.limit(500).get();
+        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
+        
+        while (!docs.isEmpty()) {
+            WriteBatch batch = firestore.batch();
+            for (QueryDocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+            }
+            batch.commit().get();
+            
+            docs = collection.limit(500).get().get().getDocuments();
+        }
+    }
+
+    // Helper: convert Firestore document to entity
+    private MealEntity mapToEntity(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return MealDocuments.fromMap(data != null ? data : Map.of());
+    }
+    
+    @Override
+    public List<MealEntity> findByUserIdAndDateRange(String userId, Date from, Date to, 
+                                                       int page, int size) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .whereGreaterThanOrEqualTo("scannedAt", from)
+                .whereLessThan("scannedAt", to)
+                .orderBy("scannedAt", Query.Direction.DESCENDING)
+                .offset(page * size)
+                .limit(size);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding meals by date range", e);
+            throw new RuntimeException("Failed to find meals by date range", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.insuscan.crud;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.*;
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreMealRollupRepository implements MealRollupRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreMealRollupRepository.class);
+    private static final String COLLECTION_NAME = "meal_daily_rollups";
+
+    private final Firestore firestore;
+
+    public FirestoreMealRollupRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    // Merge-write of the meal's entry only; other meals of the day are left untouched.
+    // A meal that no longer counts (failed, cancelled) has its entry removed instead
+    @Override
+    public void record(MealEntity meal) {
+        if (!MealRollups.counts(meal)) {
+            remove(meal);
+            return;
+        }
+        try {
+            document(meal).set(entryUpdate(meal), SetOptions.merge()).get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error recording meal rollup: {}", meal.getId(), e);
+            throw new RuntimeException("Failed to record meal rollup", e);
+        }
+    }
+
+    @Override
+    public Mono<Void> recordAsync(MealEntity meal) {
+        if (!MealRollups.counts(meal)) {
+            if (meal.getUserId() == null || meal.getScannedAt() == null) {
+                return Mono.empty();
+            }
+            return FirestoreFutures.toMono(document(meal).update(entryPath(meal), FieldValue.delete()))
+                    .onErrorResume(FirestoreMealRollupRepository::isNotFound, e -> Mono.empty())
+                    .doOnError(e -> log.error("Error removing meal rollup: {}", meal.getId(), e))
+                    .onErrorMap(e -> new RuntimeException("Failed to remove meal rollup", e))
+                    .then();
+        }
+        return FirestoreFutures.toMono(document(meal).set(entryUpdate(meal), SetOptions.merge()))
+                .doOnError(e -> log.error("Error recording meal rollup: {}", meal.getId(), e))
+                .onErrorMap(e -> new RuntimeException("Failed to record meal rollup", e))
+                .then();
+    }
+
+    // Update, not a merge-write: deletes only the entry and never creates a missing day document
+    @Override
+    public void remove(MealEntity meal) {
+        if (meal.getUserId() == null || meal.getScannedAt() == null) {
+            return;
+        }
+        try {
+            document(meal).update(entryPath(meal), FieldValue.delete()).get();
+        } catch (ExecutionException e) {
+            if (!isNotFound(e)) {
+                log.error("Error removing meal rollup: {}", meal.getId(), e);
+                throw new RuntimeException("Failed to remove meal rollup", e);
+            }
+        } catch (InterruptedException e) {
+            log.error("Error removing meal rollup: {}", meal.getId(), e);
+            throw new RuntimeException("Failed to remove meal rollup", e);
+        }
+    }
+
+    // One batched read of the day documents by id: O(days), no query index needed
+    @Override
+    public List<DailyRollupEntity> findByUserIdAndDayRange(String userId, LocalDate from, LocalDate to) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            refs.add(firestore.collection(COLLECTION_NAME).document(MealRollups.documentId(userId, day)));
+        }
+        if (refs.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<DocumentSnapshot> docs = firestore.getAll(refs.toArray(new DocumentReference[0])).get();
+            List<DailyRollupEntity> result = new ArrayList<>();
+            LocalDate day = from;
+            for (DocumentSnapshot doc : docs) {
+                Collection<Map<String, Object>> entries = doc.exists() ? entries(doc) : List.of();
+                if (!entries.isEmpty()) {
+                    result.add(MealRollups.sum(userId, day, entries));
+                }
+                day = day.plusDays(1);
+            }
+            return result;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error finding meal rollups for user: {}", userId, e);
+            throw new RuntimeException("Failed to find meal rollups", e);
+        }
+    }
+
+    // Field deletes only, so a day document is never recreated; batched 500 writes at a time
+    @Override
+    public int removeOrphans(String userId, Set<String> mealIds) {
+        try {
+            List<QueryDocumentSnapshot> docs = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("userId", userId).get().get().getDocuments();
+            WriteBatch batch = firestore.batch();
+            int pending = 0;
+            int removed = 0;
+            for (QueryDocumentSnapshot doc : docs) {
+                Object meals = doc.get(MealRollups.MEALS_FIELD);
+                if (!(meals instanceof Map)) {
+                    continue;
+                }
+                for (Object mealId : ((Map<?, ?>) meals).keySet()) {
+                    if (mealIds.contains(mealId)) {
+                        continue;
+                    }
+                    batch.update(doc.getReference(), FieldPath.of(MealRollups.MEALS_FIELD, (String) mealId),
+                            FieldValue.delete());
+                    removed++;
+                    if (++pending == 500) {
+                        batch.commit().get();
+                        batch = firestore.batch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                batch.commit().get();
+            }
+            return removed;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error removing orphaned meal rollups for user: {}", userId, e);
+            throw new RuntimeException("Failed to remove orphaned meal rollups", e);
+        }
+    }
+
+    @Override
+    public void deleteByUserId(String userId) {
+        try {
+            deleteMatching(firestore.collection(COLLECTION_NAME).whereEqualTo("userId", userId));
+            log.debug("Deleted meal rollups for user: {}", userId);
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error deleting meal rollups for user: {}", userId, e);
+            throw new RuntimeException("Failed to delete meal rollups", e);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            deleteMatching(firestore.collection(COLLECTION_NAME));
+            log.info("Deleted all meal rollups");
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error deleting all meal rollups", e);
+            throw new RuntimeException("Failed to delete all meal rollups", e);
+        }
+    }
+
+    private DocumentReference document(MealEntity meal) {
+        LocalDate day = MealRollups.dayOf(meal.getScannedAt());
+        return firestore.collection(COLLECTION_NAME).document(MealRollups.documentId(meal.getUserId(), day));
+    }
+
+    // userId / day are written with every entry so deleteByUserId finds each document
+    private Map<String, Object> entryUpdate(MealEntity meal) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("userId", meal.getUserId());
+        update.put("day", MealRollups.dayOf(meal.getScannedAt()).toString());
+        update.put(MealRollups.MEALS_FIELD, Map.of(meal.getId(), MealRollups.entryToMap(meal)));
+        return update;
+    }
+
+    // FieldPath segments, so dots in a meal id are not read as nesting
+    private FieldPath entryPath(MealEntity meal) {
+        return FieldPath.of(MealRollups.MEALS_FIELD, meal.getId());
+    }
+
+    // Removing from a day document that doesn't exist is a no-op
+    private static boolean isNotFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException
+                    && ((ApiException) cause).getStatusCode().getCode() == StatusCode.Code.NOT_FOUND) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Map<String, Object>> entries(DocumentSnapshot doc) {
+        Object meals = doc.get(MealRollups.MEALS_FIELD);
+        if (!(meals instanceof Map)) {
+            return List.of();
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (Object entry : ((Map<String, Object>) meals).values()) {
+            if (entry instanceof Map) {
+                entries.add((Map<String, Object>) entry);
+            }
+        }
+        return entries;
+    }
+
+    // Helper: delete matching documents in batches
+    private void deleteMatching(Query query) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = query.limit(500).get().get().getDocuments();
+        while (!docs.isEmpty()) {
+            WriteBatch batch = firestore.batch();
+            for (QueryDocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+            }
+            batch.commit().get();
+            docs = query.limit(500).get().get().getDocuments();
+        }
+    }
+}
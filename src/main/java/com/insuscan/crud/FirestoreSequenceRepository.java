@@ -0,0 +1,78 @@
+package com.insuscan.crud;
+
+import com.google.cloud.firestore.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Transactional counters used to allocate meal id sequences.
+ * One document per counter (e.g. "insuscan_20260112"), holding the next free value.
+ */
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreSequenceRepository implements SequenceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreSequenceRepository.class);
+    private static final String COLLECTION_NAME = "meal_sequences";
+    private static final String MEALS_COLLECTION = "meals";
+    private static final String NEXT_FIELD = "next";
+
+    private final Firestore firestore;
+
+    public FirestoreSequenceRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Atomically reserve blockSize consecutive values from the counter.
+     * Returns the first reserved value; the caller owns [start, start + blockSize).
+     *
+     * A counter that does not exist yet is seeded from the highest existing meal id
+     * with the same prefix, so ids created before the counter existed are never reused.
+     */
+    @Override
+    public int reserveBlock(String counterId, int blockSize) {
+        DocumentReference counterRef = firestore.collection(COLLECTION_NAME).document(counterId);
+        try {
+            return firestore.runTransaction(transaction -> {
+                DocumentSnapshot counter = transaction.get(counterRef).get();
+
+                long start;
+                if (counter.exists() && counter.getLong(NEXT_FIELD) != null) {
+                    start = counter.getLong(NEXT_FIELD);
+                } else {
+                    start = highestExistingSequence(transaction, counterId) + 1;
+                }
+
+                transaction.set(counterRef, Map.of(NEXT_FIELD, start + blockSize));
+                return (int) start;
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error reserving sequence block for: {}", counterId, e);
+            throw new RuntimeException("Failed to reserve sequence block", e);
+        }
+    }
+
+    // Numerically highest "<counterId>_NNN" meal id. Ids are not compared as strings:
+    // "_1000" sorts before "_999", so every id with the prefix is read (ids only, no fields).
+    // This runs once per counter, i.e. once per systemId and day.
+    private long highestExistingSequence(Transaction transaction, String counterId)
+            throws ExecutionException, InterruptedException {
+        String prefix = counterId + "_";
+        Query query = firestore.collection(MEALS_COLLECTION)
+                .whereGreaterThanOrEqualTo(FieldPath.documentId(), prefix)
+                .whereLessThan(FieldPath.documentId(), prefix + '\uf8ff')
+                .select(FieldPath.documentId());
+
+        long highest = 0;
+        for (QueryDocumentSnapshot doc : transaction.get(query).get().getDocuments()) {
+            highest = Math.max(highest, MealDocuments.sequenceOf(doc.getId()));
+        }
+        return highest;
+    }
+}
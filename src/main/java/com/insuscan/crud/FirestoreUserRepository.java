@@ -0,0 +1,287 @@
+package com.insuscan.crud;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.insuscan.data.UserEntity;
+import com.insuscan.enums.UserRole;
+import com.insuscan.exception.InsuScanInvalidInputException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreUserRepository implements UserRepository {
+    
+    private static final Logger log = LoggerFactory.getLogger(FirestoreUserRepository.class);
+    private static final String COLLECTION_NAME = "users";
+    
+    private final Firestore firestore;
+
+    public FirestoreUserRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    // Save or update a user
+    @Override
+    public UserEntity save(UserEntity user) {
+        try {
+            user.setUpdatedAt(new Date());
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(user.getId());
+            docRef.set(UserDocuments.toMap(user)).get();
+            log.debug("Saved user: {}", user.getId());
+            return user;
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error saving user: {}", user.getId(), e);
+            throw new RuntimeException("Failed to save user", e);
+        }
+    }
+
+    // Find user by ID
+    @Override
+    public Optional<UserEntity> findById(String id) {
+        try {
+            DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            if (doc.exists()) {
+                return Optional.of(mapToEntity(doc));
+            }
+            return Optional.empty();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error finding user: {}", id, e);
+            throw new RuntimeException("Failed to find user", e);
+        }
+    }
+
+    // Find user by ID without blocking the caller (empty if not found)
+    @Override
+    public Mono<UserEntity> findByIdAsync(String id) {
+        return FirestoreFutures.toMono(firestore.collection(COLLECTION_NAME).document(id).get())
+                .filter(DocumentSnapshot::exists)
+                .map(this::mapToEntity)
+                .doOnError(e -> log.error("Error finding user: {}", id, e))
+                .onErrorMap(e -> new RuntimeException("Failed to find user", e));
+    }
+
+    // Check if user exists
+    @Override
+    public boolean existsById(String id) {
+        try {
+            DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            return doc.exists();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error checking user existence: {}", id, e);
+            throw new RuntimeException("Failed to check user existence", e);
+        }
+    }
+
+    // Find all users with pagination
+    @Override
+    public List<UserEntity> findAll(int page, int size) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .offset(page * size)
+                    .limit(size);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding all users", e);
+            throw new RuntimeException("Failed to find users", e);
+        }
+    }
+
+    // Find users by role with pagination
+    @Override
+    public List<UserEntity> findByRole(UserRole role, int page, int size) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("role", role.name())
+                    .offset(page * size)
+                    .limit(size);
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding users by role: {}", role, e);
+            throw new RuntimeException("Failed to find users by role", e);
+        }
+    }
+
+    // Keyset pagination over all users, newest first (null token = first page)
+    @Override
+    public CursorPage<UserEntity> findAllAfter(String pageToken, int size) {
+        PageTokens.Cursor cursor = pageToken != null ? PageTokens.decode(pageToken) : null;
+        if (cursor != null && !cursor.isTimeOrdered()) {
+            throw new InsuScanInvalidInputException("Invalid page token");
+        }
+        try {
+            CollectionReference collection = firestore.collection(COLLECTION_NAME);
+            Query query = collection
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+            if (cursor != null) {
+                query = query.startAfter(cursor.timestamp, collection.document(cursor.documentId));
+            }
+            return executePage(query, size, PageTokens.MODE_TIME);
+        } catch (Exception e) {
+            log.error("Error finding users page", e);
+            throw new RuntimeException("Failed to find users", e);
+        }
+    }
+
+    // Keyset pagination over users with a role, in document id order (no composite index needed)
+    @Override
+    public CursorPage<UserEntity> findByRoleAfter(UserRole role, String pageToken, int size) {
+        PageTokens.Cursor cursor = pageToken != null ? PageTokens.decode(pageToken) : null;
+        if (cursor != null && cursor.isTimeOrdered()) {
+            throw new InsuScanInvalidInputException("Invalid page token");
+        }
+        try {
+            CollectionReference collection = firestore.collection(COLLECTION_NAME);
+            Query query = collection
+                    .whereEqualTo("role", role.name())
+                    .orderBy(FieldPath.documentId());
+            if (cursor != null) {
+                query = query.startAfter(collection.document(cursor.documentId));
+            }
+            return executePage(query, size, PageTokens.MODE_ID);
+        } catch (Exception e) {
+            log.error("Error finding users page by role: {}", role, e);
+            throw new RuntimeException("Failed to find users by role", e);
+        }
+    }
+
+    // Find all users by role
+    @Override
+    public List<UserEntity> findByRole(UserRole role) {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                    .whereEqualTo("role", role.name());
+            
+            return executeQuery(query);
+        } catch (Exception e) {
+            log.error("Error finding users by role: {}", role, e);
+            throw new RuntimeException("Failed to find users by role", e);
+        }
+    }
+
+    // Delete user by ID
+    @Override
+    public void deleteById(String id) {
+        try {
+            firestore.collection(COLLECTION_NAME).document(id).delete().get();
+            log.debug("Deleted user: {}", id);
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error deleting user: {}", id, e);
+            throw new RuntimeException("Failed to delete user", e);
+        }
+    }
+
+    // Delete all users
+    @Override
+    public void deleteAll() {
+        try {
+            CollectionReference collection = firestore.collection(COLLECTION_NAME);
+            deleteCollection(collection);
+            log.info("Deleted all users");
+        } catch (Exception e) {
+            log.error("Error deleting all users", e);
+            throw new RuntimeException("Failed to delete all users", e);
+        }
+    }
+
+    // Count all users
+    @Override
+    public long count() {
+        try {
+            AggregateQuerySnapshot snapshot = firestore.collection(COLLECTION_NAME)
+                    .count()
+                    .get()
+                    .get();
+            return snapshot.getCount();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error counting users", e);
+            throw new RuntimeException("Failed to count users", e);
+        }
+    }
+
+    // Listen for changes to existing user documents: the callback gets the id and the new
+    // state, or null when the user was deleted. ADDED events (including the initial
+    // snapshot of every user) are skipped.
+    @Override
+    public Registration listenForChanges(BiConsumer<String, UserEntity> onChange) {
+        ListenerRegistration registration = firestore.collection(COLLECTION_NAME).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                log.warn("User change listener error: {}", error.getMessage());
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot doc = change.getDocument();
+                if (change.getType() == DocumentChange.Type.MODIFIED) {
+                    onChange.accept(doc.getId(), mapToEntity(doc));
+                } else if (change.getType() == DocumentChange.Type.REMOVED) {
+                    onChange.accept(doc.getId(), null);
+                }
+            }
+        });
+        return registration::remove;
+    }
+
+    // Helper: execute query and return list
+    private List<UserEntity> executeQuery(Query query) throws ExecutionException, InterruptedException {
+        QuerySnapshot snapshot = query.get().get();
+        return snapshot.getDocuments().stream()
+                .map(this::mapToEntity)
+                .collect(Collectors.toList());
+    }
+
+    // Helper: fetch one extra document to learn whether another page exists
+    private CursorPage<UserEntity> executePage(Query query, int size, String mode)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = query.limit(size + 1).get().get().getDocuments();
+        boolean hasMore = docs.size() > size;
+        List<QueryDocumentSnapshot> pageDocs = hasMore ? docs.subList(0, size) : docs;
+
+        List<UserEntity> items = pageDocs.stream()
+                .map(this::mapToEntity)
+                .collect(Collectors.toList());
+
+        String nextPageToken = null;
+        if (hasMore) {
+            QueryDocumentSnapshot last = pageDocs.get(pageDocs.size() - 1);
+            nextPageToken = PageTokens.encode(mode, last.getDate("createdAt"), last.getId());
+        }
+        return new CursorPage<>(items, nextPageToken);
+    }
+
+    // Helper: delete collection in batches
+    private void deleteCollection(CollectionReference collection) throws ExecutionException, InterruptedException {
+        ApiFuture<QuerySnapshot> future = collection.limit(500).get();
+        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
+        
+        while (!docs.isEmpty()) {
+            WriteBatch batch = firestore.batch();
+            for (QueryDocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+            }
+            batch.commit().get();
+            
+            docs = collection.limit(500).get().get().getDocuments();
+        }
+    }
+
+    // Helper: convert Firestore document to entity
+    private UserEntity mapToEntity(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return UserDocuments.fromMap(data != null ? data : Map.of());
+    }
+}
@@ -0,0 +1,364 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import com.insuscan.enums.MealStatus;
+import com.insuscan.exception.InsuScanInvalidInputException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Embedded meal store for local development, load tests and single-node deployments
+ * (insuscan.storage.backend=memory).
+ *
+ * Meals live in a hash map by id, with skip-list indexes per user and across users in the
+ * MealRepository order, so list/range/keyset queries are a seek plus a walk over the page.
+ * The map holds private copies (persisted fields only, as with Firestore) that are replaced,
+ * never mutated; writers serialise on one lock, readers don't lock.
+ * With insuscan.storage.memory.snapshot-dir set, the data is kept in a JSON snapshot.
+ */
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "memory")
+public class InMemoryMealRepository implements MealRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryMealRepository.class);
+    private static final String SNAPSHOT_FILE = "meals.json";
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, MealEntity> meals = new ConcurrentHashMap<>();
+    private final Map<String, UserMeals> byUser = new ConcurrentHashMap<>();
+    private final NavigableSet<TimeKey> recent = new ConcurrentSkipListSet<>();
+
+    private final Object writeLock = new Object();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Empty = not persisted
+    @Value("${insuscan.storage.memory.snapshot-dir:}")
+    private String snapshotDir;
+
+    public InMemoryMealRepository(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // A user's index plus its size, so countByUserId doesn't walk the skip list
+    private static final class UserMeals {
+        final NavigableSet<TimeKey> keys = new ConcurrentSkipListSet<>();
+        volatile int count;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (snapshotDir == null || snapshotDir.isBlank()) {
+            log.info("In-memory meal store, not persisted");
+            return;
+        }
+        Path file = snapshotFile();
+        try {
+            List<MealEntity> loaded = InMemorySnapshots.read(objectMapper, file, MealEntity.class);
+            synchronized (writeLock) {
+                for (MealEntity meal : loaded) {
+                    put(MealDocuments.copy(meal));
+                }
+            }
+            log.info("In-memory meal store loaded {} meals from {}", loaded.size(), file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load meal snapshot " + file, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${insuscan.storage.memory.snapshot-interval-ms:5000}")
+    public void writeSnapshot() {
+        if (snapshotDir == null || snapshotDir.isBlank() || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            InMemorySnapshots.write(objectMapper, snapshotFile(), new ArrayList<>(meals.values()));
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not write meal snapshot {}: {}", snapshotFile(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void closeSnapshot() {
+        writeSnapshot();
+    }
+
+    // Save or update a meal
+    @Override
+    public MealEntity save(MealEntity meal) {
+        MealEntity stored = MealDocuments.copy(meal);
+        synchronized (writeLock) {
+            put(stored);
+        }
+        dirty.set(true);
+        log.debug("Saved meal: {}", meal.getId());
+        return meal;
+    }
+
+    @Override
+    public Mono<MealEntity> saveAsync(MealEntity meal) {
+        return Mono.fromCallable(() -> save(meal));
+    }
+
+    @Override
+    public MealEntity create(MealEntity meal) {
+        MealEntity stored = MealDocuments.copy(meal);
+        synchronized (writeLock) {
+            if (meals.containsKey(stored.getId())) {
+                throw new IllegalStateException("Meal already exists: " + stored.getId());
+            }
+            put(stored);
+        }
+        dirty.set(true);
+        log.debug("Created meal: {}", meal.getId());
+        return meal;
+    }
+
+    @Override
+    public Mono<MealEntity> createAsync(MealEntity meal) {
+        return Mono.fromCallable(() -> create(meal));
+    }
+
+    @Override
+    public Optional<MealEntity> findById(String id) {
+        MealEntity meal = meals.get(id);
+        return meal != null ? Optional.of(MealDocuments.copy(meal)) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return meals.containsKey(id);
+    }
+
+    @Override
+    public List<MealEntity> findByUserId(String userId, int page, int size) {
+        return scan(userKeys(userId), TimeKey.ANY_TIME, page * size, size);
+    }
+
+    @Override
+    public CursorPage<MealEntity> findByUserIdAfter(String userId, String pageToken, int size) {
+        return page(userKeys(userId), TimeKey.ANY_TIME, pageToken, size);
+    }
+
+    @Override
+    public CursorPage<MealEntity> findByUserIdAndDateRangeAfter(String userId, Date from, Date to,
+                                                                String pageToken, int size) {
+        NavigableSet<TimeKey> range = userKeys(userId).tailSet(TimeKey.atOrBefore(to.getTime() - 1), true);
+        return page(range, from.getTime(), pageToken, size);
+    }
+
+    @Override
+    public List<MealEntity> findByUserId(String userId) {
+        return scan(userKeys(userId), TimeKey.ANY_TIME, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<MealEntity> findRecentByUserId(String userId, int limit) {
+        return scan(userKeys(userId), TimeKey.ANY_TIME, 0, limit);
+    }
+
+    // Built straight from the stored meal, without copying food items
+    @Override
+    public List<MealSummaryEntity> findSummariesByUserId(String userId, int page, int size) {
+        return scan(userKeys(userId), TimeKey.ANY_TIME, page * size, size, MealDocuments::summaryOf);
+    }
+
+    @Override
+    public List<MealSummaryEntity> findRecentSummariesByUserId(String userId, int limit) {
+        return scan(userKeys(userId), TimeKey.ANY_TIME, 0, limit, MealDocuments::summaryOf);
+    }
+
+    @Override
+    public List<MealEntity> findByUserIdAndStatus(String userId, MealStatus status) {
+        List<MealEntity> result = new ArrayList<>();
+        for (TimeKey key : userKeys(userId)) {
+            MealEntity meal = meals.get(key.id);
+            if (meal != null && meal.getStatus() == status && userId.equals(meal.getUserId())) {
+                result.add(MealDocuments.copy(meal));
+            }
+        }
+        result.sort(Comparator.comparing(MealEntity::getId));
+        return result;
+    }
+
+    @Override
+    public List<MealEntity> findByUserIdAndDateRange(String userId, Date startDate, Date endDate) {
+        NavigableSet<TimeKey> range = userKeys(userId).tailSet(TimeKey.atOrBefore(endDate.getTime()), true);
+        return scan(range, startDate.getTime(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<MealEntity> findByUserIdAndDateRange(String userId, Date from, Date to, int page, int size) {
+        NavigableSet<TimeKey> range = userKeys(userId).tailSet(TimeKey.atOrBefore(to.getTime() - 1), true);
+        return scan(range, from.getTime(), page * size, size);
+    }
+
+    @Override
+    public long countByUserId(String userId) {
+        UserMeals userMeals = byUser.get(userId);
+        return userMeals != null ? userMeals.count : 0;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        synchronized (writeLock) {
+            MealEntity removed = meals.remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        }
+        dirty.set(true);
+        log.debug("Deleted meal: {}", id);
+    }
+
+    @Override
+    public void deleteAll() {
+        synchronized (writeLock) {
+            meals.clear();
+            byUser.clear();
+            recent.clear();
+        }
+        dirty.set(true);
+        log.info("Deleted all meals");
+    }
+
+    @Override
+    public void deleteByUserId(String userId) {
+        synchronized (writeLock) {
+            UserMeals userMeals = byUser.remove(userId);
+            if (userMeals != null) {
+                for (TimeKey key : userMeals.keys) {
+                    meals.remove(key.id);
+                    recent.remove(key);
+                }
+            }
+        }
+        dirty.set(true);
+        log.info("Deleted all meals for user: {}", userId);
+    }
+
+    @Override
+    public List<MealEntity> findAllRecent(int limit) {
+        return scan(recent, TimeKey.ANY_TIME, 0, limit);
+    }
+
+    // Highest "<prefix>_NNN" meal sequence, used to seed InMemorySequenceRepository counters
+    long highestSequence(String prefix) {
+        long highest = 0;
+        String idPrefix = prefix + "_";
+        for (String id : meals.keySet()) {
+            if (id.startsWith(idPrefix)) {
+                highest = Math.max(highest, MealDocuments.sequenceOf(id));
+            }
+        }
+        return highest;
+    }
+
+    // Helper: walk an index newest first, stopping at the first key older than oldest
+    private List<MealEntity> scan(NavigableSet<TimeKey> keys, long oldest, int offset, int limit) {
+        return scan(keys, oldest, offset, limit, MealDocuments::copy);
+    }
+
+    private <T> List<T> scan(NavigableSet<TimeKey> keys, long oldest, int offset, int limit,
+                             Function<MealEntity, T> mapper) {
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        int skipped = 0;
+        for (TimeKey key : keys) {
+            if (key.time < oldest || result.size() >= limit) {
+                break;
+            }
+            MealEntity meal = meals.get(key.id);
+            // A key can briefly outlive its meal (or its scannedAt) during a concurrent write
+            if (meal == null || TimeKey.timeOf(meal.getScannedAt()) != key.time) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(mapper.apply(meal));
+        }
+        return result;
+    }
+
+    // Helper: one keyset page, fetching one extra meal to learn whether another page exists
+    private CursorPage<MealEntity> page(NavigableSet<TimeKey> keys, long oldest, String pageToken, int size) {
+        if (pageToken != null) {
+            PageTokens.Cursor cursor = PageTokens.decode(pageToken);
+            if (!cursor.isTimeOrdered()) {
+                throw new InsuScanInvalidInputException("Invalid page token");
+            }
+            keys = keys.tailSet(new TimeKey(cursor.timestamp.getTime(), cursor.documentId), false);
+        }
+
+        List<MealEntity> items = scan(keys, oldest, 0, size + 1);
+        boolean hasMore = items.size() > size;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, size));
+        }
+
+        String nextPageToken = null;
+        if (hasMore) {
+            MealEntity last = items.get(items.size() - 1);
+            // Scans stop before meals without scannedAt, so the last item always has one
+            nextPageToken = PageTokens.encode(PageTokens.MODE_TIME, last.getScannedAt(), last.getId());
+        }
+        return new CursorPage<>(items, nextPageToken);
+    }
+
+    private NavigableSet<TimeKey> userKeys(String userId) {
+        UserMeals userMeals = userId != null ? byUser.get(userId) : null;
+        return userMeals != null ? userMeals.keys : Collections.emptyNavigableSet();
+    }
+
+    // Callers hold writeLock
+    private void put(MealEntity stored) {
+        MealEntity previous = meals.put(stored.getId(), stored);
+        if (previous != null) {
+            unindex(previous);
+        }
+        TimeKey key = TimeKey.of(stored.getScannedAt(), stored.getId());
+        recent.add(key);
+        if (stored.getUserId() != null) {
+            UserMeals userMeals = byUser.computeIfAbsent(stored.getUserId(), id -> new UserMeals());
+            if (userMeals.keys.add(key)) {
+                userMeals.count++;
+            }
+        }
+    }
+
+    // Callers hold writeLock
+    private void unindex(MealEntity stored) {
+        TimeKey key = TimeKey.of(stored.getScannedAt(), stored.getId());
+        recent.remove(key);
+        if (stored.getUserId() != null) {
+            UserMeals userMeals = byUser.get(stored.getUserId());
+            if (userMeals != null && userMeals.keys.remove(key)) {
+                userMeals.count--;
+            }
+        }
+    }
+
+    private Path snapshotFile() {
+        return Paths.get(snapshotDir, SNAPSHOT_FILE);
+    }
+}
@@ -0,0 +1,143 @@
+package com.insuscan.crud;
+
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Rollups for insuscan.storage.backend=memory: per user, a day-ordered map of immutable
+ * per-meal entry maps (see MealRollups). Not snapshotted; rebuilt from the meal store at startup.
+ */
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "memory")
+public class InMemoryMealRollupRepository implements MealRollupRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryMealRollupRepository.class);
+
+    private final InMemoryMealRepository mealRepository;
+    private final Map<String, NavigableMap<LocalDate, Map<String, Map<String, Object>>>> byUser =
+            new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    public InMemoryMealRollupRepository(InMemoryMealRepository mealRepository) {
+        this.mealRepository = mealRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<MealEntity> meals = mealRepository.findAllRecent(Integer.MAX_VALUE);
+        for (MealEntity meal : meals) {
+            record(meal);
+        }
+        if (!meals.isEmpty()) {
+            log.info("Rebuilt meal rollups from {} meals", meals.size());
+        }
+    }
+
+    @Override
+    public void record(MealEntity meal) {
+        if (!MealRollups.counts(meal)) {
+            remove(meal);
+            return;
+        }
+        LocalDate day = MealRollups.dayOf(meal.getScannedAt());
+        Map<String, Object> entry = MealRollups.entryToMap(meal);
+        synchronized (writeLock) {
+            NavigableMap<LocalDate, Map<String, Map<String, Object>>> days =
+                    byUser.computeIfAbsent(meal.getUserId(), id -> new ConcurrentSkipListMap<>());
+            Map<String, Map<String, Object>> entries = new HashMap<>(days.getOrDefault(day, Map.of()));
+            entries.put(meal.getId(), entry);
+            days.put(day, Collections.unmodifiableMap(entries));
+        }
+    }
+
+    @Override
+    public Mono<Void> recordAsync(MealEntity meal) {
+        return Mono.fromRunnable(() -> record(meal));
+    }
+
+    @Override
+    public void remove(MealEntity meal) {
+        if (meal.getUserId() == null || meal.getScannedAt() == null) {
+            return;
+        }
+        LocalDate day = MealRollups.dayOf(meal.getScannedAt());
+        synchronized (writeLock) {
+            NavigableMap<LocalDate, Map<String, Map<String, Object>>> days = byUser.get(meal.getUserId());
+            Map<String, Map<String, Object>> entries = days != null ? days.get(day) : null;
+            if (entries == null || !entries.containsKey(meal.getId())) {
+                return;
+            }
+            if (entries.size() == 1) {
+                days.remove(day);
+            } else {
+                Map<String, Map<String, Object>> remaining = new HashMap<>(entries);
+                remaining.remove(meal.getId());
+                days.put(day, Collections.unmodifiableMap(remaining));
+            }
+        }
+    }
+
+    @Override
+    public List<DailyRollupEntity> findByUserIdAndDayRange(String userId, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Map<String, Map<String, Object>>> days = byUser.get(userId);
+        if (days == null || from.isAfter(to)) {
+            return List.of();
+        }
+        List<DailyRollupEntity> result = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<String, Map<String, Object>>> day : days.subMap(from, true, to, true).entrySet()) {
+            result.add(MealRollups.sum(userId, day.getKey(), day.getValue().values()));
+        }
+        return result;
+    }
+
+    @Override
+    public int removeOrphans(String userId, Set<String> mealIds) {
+        int removed = 0;
+        synchronized (writeLock) {
+            NavigableMap<LocalDate, Map<String, Map<String, Object>>> days = byUser.get(userId);
+            if (days == null) {
+                return 0;
+            }
+            // Skip-list iteration tolerates the puts and removes below
+            for (Map.Entry<LocalDate, Map<String, Map<String, Object>>> day : days.entrySet()) {
+                Map<String, Map<String, Object>> remaining = new HashMap<>(day.getValue());
+                if (!remaining.keySet().retainAll(mealIds)) {
+                    continue;
+                }
+                removed += day.getValue().size() - remaining.size();
+                if (remaining.isEmpty()) {
+                    days.remove(day.getKey());
+                } else {
+                    days.put(day.getKey(), Collections.unmodifiableMap(remaining));
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void deleteByUserId(String userId) {
+        synchronized (writeLock) {
+            byUser.remove(userId);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        synchronized (writeLock) {
+            byUser.clear();
+        }
+    }
+}
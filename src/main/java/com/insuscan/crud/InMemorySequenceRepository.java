@@ -0,0 +1,31 @@
+package com.insuscan.crud;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meal id counters for insuscan.storage.backend=memory. Counters are not persisted: a counter
+ * is seeded from the highest meal id with its prefix the first time it is used after startup.
+ */
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "memory")
+public class InMemorySequenceRepository implements SequenceRepository {
+
+    private final InMemoryMealRepository mealRepository;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public InMemorySequenceRepository(InMemoryMealRepository mealRepository) {
+        this.mealRepository = mealRepository;
+    }
+
+    @Override
+    public int reserveBlock(String counterId, int blockSize) {
+        AtomicLong next = counters.computeIfAbsent(counterId,
+                id -> new AtomicLong(mealRepository.highestSequence(id) + 1));
+        return (int) next.getAndAdd(blockSize);
+    }
+}
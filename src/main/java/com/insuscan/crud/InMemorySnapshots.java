@@ -0,0 +1,33 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * JSON snapshot files for the in-memory backends (insuscan.storage.memory.snapshot-dir)
+ */
+final class InMemorySnapshots {
+
+    private InMemorySnapshots() {}
+
+    static <T> List<T> read(ObjectMapper objectMapper, Path file, Class<T> type) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        return objectMapper.readValue(file.toFile(),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+    }
+
+    // Written to a temp file and renamed, so a crash mid-write keeps the previous snapshot
+    static void write(ObjectMapper objectMapper, Path file, List<?> items) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), items);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
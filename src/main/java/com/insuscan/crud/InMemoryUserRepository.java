@@ -0,0 +1,294 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.UserEntity;
+import com.insuscan.enums.UserRole;
+import com.insuscan.exception.InsuScanInvalidInputException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Embedded user store (insuscan.storage.backend=memory), see InMemoryMealRepository.
+ * Users are kept in id order (role queries) with a createdAt index for the newest-first lists.
+ * Change listeners are called synchronously after the write.
+ */
+@Repository
+@ConditionalOnProperty(name = "insuscan.storage.backend", havingValue = "memory")
+public class InMemoryUserRepository implements UserRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryUserRepository.class);
+    private static final String SNAPSHOT_FILE = "users.json";
+
+    private final ObjectMapper objectMapper;
+
+    private final NavigableMap<String, UserEntity> users = new ConcurrentSkipListMap<>();
+    private final NavigableSet<TimeKey> newest = new ConcurrentSkipListSet<>();
+    private final List<BiConsumer<String, UserEntity>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Object writeLock = new Object();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile int count;
+
+    // Empty = not persisted
+    @Value("${insuscan.storage.memory.snapshot-dir:}")
+    private String snapshotDir;
+
+    public InMemoryUserRepository(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (snapshotDir == null || snapshotDir.isBlank()) {
+            log.info("In-memory user store, not persisted");
+            return;
+        }
+        Path file = snapshotFile();
+        try {
+            List<UserEntity> loaded = InMemorySnapshots.read(objectMapper, file, UserEntity.class);
+            synchronized (writeLock) {
+                for (UserEntity user : loaded) {
+                    put(UserDocuments.copy(user));
+                }
+            }
+            log.info("In-memory user store loaded {} users from {}", loaded.size(), file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load user snapshot " + file, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${insuscan.storage.memory.snapshot-interval-ms:5000}")
+    public void writeSnapshot() {
+        if (snapshotDir == null || snapshotDir.isBlank() || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            InMemorySnapshots.write(objectMapper, snapshotFile(), new ArrayList<>(users.values()));
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not write user snapshot {}: {}", snapshotFile(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void closeSnapshot() {
+        writeSnapshot();
+    }
+
+    // Save or update a user (sets updatedAt)
+    @Override
+    public UserEntity save(UserEntity user) {
+        user.setUpdatedAt(new Date());
+        UserEntity stored = UserDocuments.copy(user);
+        UserEntity previous;
+        synchronized (writeLock) {
+            previous = put(stored);
+        }
+        dirty.set(true);
+        log.debug("Saved user: {}", user.getId());
+        if (previous != null) {
+            notifyListeners(stored.getId(), stored);
+        }
+        return user;
+    }
+
+    @Override
+    public Optional<UserEntity> findById(String id) {
+        UserEntity user = users.get(id);
+        return user != null ? Optional.of(UserDocuments.copy(user)) : Optional.empty();
+    }
+
+    @Override
+    public Mono<UserEntity> findByIdAsync(String id) {
+        return Mono.justOrEmpty(findById(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public List<UserEntity> findAll(int page, int size) {
+        return scan(newest, page * size, size);
+    }
+
+    @Override
+    public List<UserEntity> findByRole(UserRole role, int page, int size) {
+        return scanByRole(users.values(), role, page * size, size);
+    }
+
+    @Override
+    public CursorPage<UserEntity> findAllAfter(String pageToken, int size) {
+        NavigableSet<TimeKey> keys = newest;
+        if (pageToken != null) {
+            PageTokens.Cursor cursor = PageTokens.decode(pageToken);
+            if (!cursor.isTimeOrdered()) {
+                throw new InsuScanInvalidInputException("Invalid page token");
+            }
+            keys = keys.tailSet(new TimeKey(cursor.timestamp.getTime(), cursor.documentId), false);
+        }
+        return toPage(scan(keys, 0, size + 1), size, PageTokens.MODE_TIME);
+    }
+
+    @Override
+    public CursorPage<UserEntity> findByRoleAfter(UserRole role, String pageToken, int size) {
+        Collection<UserEntity> candidates = users.values();
+        if (pageToken != null) {
+            PageTokens.Cursor cursor = PageTokens.decode(pageToken);
+            if (cursor.isTimeOrdered()) {
+                throw new InsuScanInvalidInputException("Invalid page token");
+            }
+            candidates = users.tailMap(cursor.documentId, false).values();
+        }
+        return toPage(scanByRole(candidates, role, 0, size + 1), size, PageTokens.MODE_ID);
+    }
+
+    @Override
+    public List<UserEntity> findByRole(UserRole role) {
+        return scanByRole(users.values(), role, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        UserEntity removed;
+        synchronized (writeLock) {
+            removed = users.remove(id);
+            if (removed != null) {
+                newest.remove(TimeKey.of(removed.getCreatedAt(), removed.getId()));
+                count--;
+            }
+        }
+        dirty.set(true);
+        log.debug("Deleted user: {}", id);
+        if (removed != null) {
+            notifyListeners(id, null);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        List<String> removedIds;
+        synchronized (writeLock) {
+            removedIds = new ArrayList<>(users.keySet());
+            users.clear();
+            newest.clear();
+            count = 0;
+        }
+        dirty.set(true);
+        log.info("Deleted all users");
+        for (String id : removedIds) {
+            notifyListeners(id, null);
+        }
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public Registration listenForChanges(BiConsumer<String, UserEntity> onChange) {
+        listeners.add(onChange);
+        return () -> listeners.remove(onChange);
+    }
+
+    // Helper: walk the createdAt index newest first
+    private List<UserEntity> scan(NavigableSet<TimeKey> keys, int offset, int limit) {
+        List<UserEntity> result = new ArrayList<>(Math.min(limit, 64));
+        int skipped = 0;
+        for (TimeKey key : keys) {
+            if (result.size() >= limit) {
+                break;
+            }
+            UserEntity user = users.get(key.id);
+            // A key can briefly outlive its user during a concurrent write
+            if (user == null || TimeKey.timeOf(user.getCreatedAt()) != key.time) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(UserDocuments.copy(user));
+        }
+        return result;
+    }
+
+    // Helper: users with a role, in id order
+    private List<UserEntity> scanByRole(Collection<UserEntity> candidates, UserRole role, int offset, int limit) {
+        List<UserEntity> result = new ArrayList<>(Math.min(limit, 64));
+        int skipped = 0;
+        for (UserEntity user : candidates) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (user.getRole() != role) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(UserDocuments.copy(user));
+        }
+        return result;
+    }
+
+    // Helper: trim the extra user fetched to learn whether another page exists
+    private CursorPage<UserEntity> toPage(List<UserEntity> users, int size, String mode) {
+        boolean hasMore = users.size() > size;
+        List<UserEntity> items = hasMore ? new ArrayList<>(users.subList(0, size)) : users;
+
+        String nextPageToken = null;
+        if (hasMore) {
+            UserEntity last = items.get(items.size() - 1);
+            nextPageToken = PageTokens.encode(mode,
+                    new Date(TimeKey.timeOf(last.getCreatedAt())), last.getId());
+        }
+        return new CursorPage<>(items, nextPageToken);
+    }
+
+    // Callers hold writeLock; returns the replaced user, if any
+    private UserEntity put(UserEntity stored) {
+        UserEntity previous = users.put(stored.getId(), stored);
+        if (previous != null) {
+            newest.remove(TimeKey.of(previous.getCreatedAt(), previous.getId()));
+        } else {
+            count++;
+        }
+        newest.add(TimeKey.of(stored.getCreatedAt(), stored.getId()));
+        return previous;
+    }
+
+    private void notifyListeners(String id, UserEntity user) {
+        for (BiConsumer<String, UserEntity> listener : listeners) {
+            try {
+                listener.accept(id, user != null ? UserDocuments.copy(user) : null);
+            } catch (RuntimeException e) {
+                log.warn("User change listener failed for {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    private Path snapshotFile() {
+        return Paths.get(snapshotDir, SNAPSHOT_FILE);
+    }
+}
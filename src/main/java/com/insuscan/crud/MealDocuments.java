@@ -0,0 +1,192 @@
+package com.insuscan.crud;
+
+import com.google.cloud.Timestamp;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import com.insuscan.enums.MealStatus;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Meal entity <-> stored field map. Defines which fields a meal persists, for every
+ * backend: Firestore writes the map as a document, the in-memory backend keeps
+ * entity copies made with copy() so both return the same fields.
+ */
+final class MealDocuments {
+
+    // Fields read for list screens (Firestore select() projection)
+    static final String[] SUMMARY_FIELDS =
+            {"id", "userId", "scannedAt", "totalCarbs", "status", "recommendedDose", "actualDose"};
+
+    private static final Pattern SEQUENCE_SUFFIX = Pattern.compile("_(\\d{1,18})$");
+
+    private MealDocuments() {}
+
+    static Map<String, Object> toMap(MealEntity entity) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", entity.getId());
+        map.put("userId", entity.getUserId());
+        map.put("imageUrl", entity.getImageUrl());
+
+        // Convert food items to list of maps
+        if (entity.getFoodItems() != null) {
+            List<Map<String, Object>> foodItemMaps = entity.getFoodItems().stream()
+                    .map(MealDocuments::foodItemToMap)
+                    .collect(Collectors.toList());
+            map.put("foodItems", foodItemMaps);
+        }
+
+        map.put("totalCarbs", entity.getTotalCarbs());
+        map.put("estimatedWeight", entity.getEstimatedWeight());
+        map.put("plateVolumeCm3", entity.getPlateVolumeCm3());
+        map.put("plateDiameterCm", entity.getPlateDiameterCm());
+        map.put("plateDepthCm", entity.getPlateDepthCm());
+        map.put("analysisConfidence", entity.getAnalysisConfidence());
+        map.put("referenceDetected", entity.getReferenceDetected());
+        map.put("recommendedDose", entity.getRecommendedDose());
+        map.put("actualDose", entity.getActualDose());
+        map.put("status", entity.getStatus() != null ? entity.getStatus().name() : null);
+        // Omitted rather than null: Firestore's orderBy("scannedAt") only skips a missing field
+        if (entity.getScannedAt() != null) {
+            map.put("scannedAt", entity.getScannedAt());
+        }
+        map.put("confirmedAt", entity.getConfirmedAt());
+        map.put("completedAt", entity.getCompletedAt());
+        map.put("wasSickMode", entity.getWasSickMode());
+        map.put("wasStressMode", entity.getWasStressMode());
+
+        return map;
+    }
+
+    // Document fields -> entity; numbers arrive as Double or Long, dates as Timestamp
+    @SuppressWarnings("unchecked")
+    static MealEntity fromMap(Map<String, Object> data) {
+        MealEntity entity = new MealEntity();
+        entity.setId((String) data.get("id"));
+        entity.setUserId((String) data.get("userId"));
+        entity.setImageUrl((String) data.get("imageUrl"));
+
+        // Convert food items from list of maps
+        List<Map<String, Object>> foodItemMaps = (List<Map<String, Object>>) data.get("foodItems");
+        if (foodItemMaps != null) {
+            List<MealEntity.FoodItem> foodItems = foodItemMaps.stream()
+                    .map(MealDocuments::mapToFoodItem)
+                    .collect(Collectors.toList());
+            entity.setFoodItems(foodItems);
+        }
+
+        entity.setTotalCarbs(toFloat(data.get("totalCarbs")));
+        entity.setEstimatedWeight(toFloat(data.get("estimatedWeight")));
+        entity.setPlateVolumeCm3(toFloat(data.get("plateVolumeCm3")));
+        entity.setPlateDiameterCm(toFloat(data.get("plateDiameterCm")));
+        entity.setPlateDepthCm(toFloat(data.get("plateDepthCm")));
+        entity.setAnalysisConfidence(toFloat(data.get("analysisConfidence")));
+        entity.setReferenceDetected((Boolean) data.get("referenceDetected"));
+        entity.setRecommendedDose(toFloat(data.get("recommendedDose")));
+        entity.setActualDose(toFloat(data.get("actualDose")));
+
+        String statusStr = (String) data.get("status");
+        if (statusStr != null) {
+            entity.setStatus(MealStatus.valueOf(statusStr));
+        }
+
+        entity.setScannedAt(toDate(data.get("scannedAt")));
+        entity.setConfirmedAt(toDate(data.get("confirmedAt")));
+        entity.setCompletedAt(toDate(data.get("completedAt")));
+        entity.setWasSickMode((Boolean) data.get("wasSickMode"));
+        entity.setWasStressMode((Boolean) data.get("wasStressMode"));
+
+        return entity;
+    }
+
+    // Projected document (SUMMARY_FIELDS) -> summary
+    static MealSummaryEntity summaryFromMap(Map<String, Object> data) {
+        MealSummaryEntity summary = new MealSummaryEntity();
+        summary.setId((String) data.get("id"));
+        summary.setUserId((String) data.get("userId"));
+        summary.setScannedAt(toDate(data.get("scannedAt")));
+        summary.setTotalCarbs(toFloat(data.get("totalCarbs")));
+        String statusStr = (String) data.get("status");
+        if (statusStr != null) {
+            summary.setStatus(MealStatus.valueOf(statusStr));
+        }
+        summary.setRecommendedDose(toFloat(data.get("recommendedDose")));
+        summary.setActualDose(toFloat(data.get("actualDose")));
+        return summary;
+    }
+
+    // Summary of a stored meal, detached from it
+    static MealSummaryEntity summaryOf(MealEntity entity) {
+        MealSummaryEntity summary = new MealSummaryEntity();
+        summary.setId(entity.getId());
+        summary.setUserId(entity.getUserId());
+        summary.setScannedAt(copyDate(entity.getScannedAt()));
+        summary.setTotalCarbs(entity.getTotalCarbs());
+        summary.setStatus(entity.getStatus());
+        summary.setRecommendedDose(entity.getRecommendedDose());
+        summary.setActualDose(entity.getActualDose());
+        return summary;
+    }
+
+    // Persisted fields only, detached from the original (dates included)
+    static MealEntity copy(MealEntity entity) {
+        MealEntity copy = fromMap(toMap(entity));
+        copy.setScannedAt(copyDate(copy.getScannedAt()));
+        copy.setConfirmedAt(copyDate(copy.getConfirmedAt()));
+        copy.setCompletedAt(copyDate(copy.getCompletedAt()));
+        return copy;
+    }
+
+    // Numeric NNN of a systemId_YYYYMMDD_NNN meal id, 0 for ids without one (e.g. systemId_<uuid>)
+    static long sequenceOf(String mealId) {
+        Matcher matcher = SEQUENCE_SUFFIX.matcher(mealId);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static Map<String, Object> foodItemToMap(MealEntity.FoodItem item) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", item.getName());
+        map.put("nameHebrew", item.getNameHebrew());
+        map.put("quantity", item.getQuantity());
+        map.put("carbs", item.getCarbs());
+        map.put("confidence", item.getConfidence());
+        map.put("usdaFdcId", item.getUsdaFdcId());
+        return map;
+    }
+
+    private static MealEntity.FoodItem mapToFoodItem(Map<String, Object> map) {
+        MealEntity.FoodItem item = new MealEntity.FoodItem();
+        item.setName((String) map.get("name"));
+        item.setNameHebrew((String) map.get("nameHebrew"));
+        item.setQuantity(toFloat(map.get("quantity")));
+        item.setCarbs(toFloat(map.get("carbs")));
+        item.setConfidence(toFloat(map.get("confidence")));
+        item.setUsdaFdcId((String) map.get("usdaFdcId"));
+        return item;
+    }
+
+    private static Float toFloat(Object value) {
+        if (value == null) return null;
+        if (value instanceof Float) return (Float) value;
+        if (value instanceof Double) return ((Double) value).floatValue();
+        if (value instanceof Long) return ((Long) value).floatValue();
+        if (value instanceof Integer) return ((Integer) value).floatValue();
+        return null;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Timestamp) return ((Timestamp) value).toDate();
+        if (value instanceof Date) return (Date) value;
+        return null;
+    }
+
+    private static Date copyDate(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+}
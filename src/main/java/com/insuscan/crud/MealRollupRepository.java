@@ -0,0 +1,37 @@
+package com.insuscan.crud;
+
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-user per-day meal rollups (see DailyRollupEntity). Backend follows
+ * insuscan.storage.backend: FirestoreMealRollupRepository or InMemoryMealRollupRepository.
+ *
+ * record is idempotent: call it after every save of a meal with its current state.
+ * A meal's day comes from scannedAt, which never changes after creation.
+ */
+public interface MealRollupRepository {
+
+    // Put the meal's contribution into its day (or take it out if it no longer counts)
+    void record(MealEntity meal);
+
+    Mono<Void> recordAsync(MealEntity meal);
+
+    // Take a deleted meal out of its day
+    void remove(MealEntity meal);
+
+    // Days in [from, to] (both inclusive) that have meals, oldest first
+    List<DailyRollupEntity> findByUserIdAndDayRange(String userId, LocalDate from, LocalDate to);
+
+    // Take out the user's entries for meals not in mealIds (rebuild repair); returns how many
+    int removeOrphans(String userId, Set<String> mealIds);
+
+    void deleteByUserId(String userId);
+
+    void deleteAll();
+}
@@ -0,0 +1,90 @@
+package com.insuscan.crud;
+
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import com.insuscan.enums.MealStatus;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared by the MealRollupRepository backends. A day rollup stores one small entry per meal
+ * (keyed by meal id) rather than running totals, so recording a meal again after an update
+ * simply replaces its entry: no read-before-write, and retries or concurrent updates can't
+ * double count. Totals are the sum of a day's entries.
+ */
+final class MealRollups {
+
+    static final String MEALS_FIELD = "meals";
+
+    private static final DateTimeFormatter DOC_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private MealRollups() {}
+
+    // Whether the meal belongs in its day's rollup at all
+    static boolean counts(MealEntity meal) {
+        return meal.getUserId() != null
+                && meal.getScannedAt() != null
+                && meal.getStatus() != MealStatus.FAILED
+                && meal.getStatus() != MealStatus.CANCELLED;
+    }
+
+    // Same zone as MealServiceImpl's by-date queries
+    static LocalDate dayOf(Date scannedAt) {
+        return scannedAt.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    static String documentId(String userId, LocalDate day) {
+        return userId + "_" + DOC_DAY.format(day);
+    }
+
+    static Map<String, Object> entryToMap(MealEntity meal) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("carbs", meal.getTotalCarbs());
+        entry.put("recommendedDose", meal.getRecommendedDose());
+        entry.put("actualDose", meal.getActualDose());
+        entry.put("sickMode", Boolean.TRUE.equals(meal.getWasSickMode()));
+        entry.put("stressMode", Boolean.TRUE.equals(meal.getWasStressMode()));
+        return Collections.unmodifiableMap(entry);
+    }
+
+    static DailyRollupEntity sum(String userId, LocalDate day, Collection<Map<String, Object>> entries) {
+        double carbs = 0;
+        double recommended = 0;
+        double actual = 0;
+        int sick = 0;
+        int stress = 0;
+        for (Map<String, Object> entry : entries) {
+            carbs += toDouble(entry.get("carbs"));
+            recommended += toDouble(entry.get("recommendedDose"));
+            actual += toDouble(entry.get("actualDose"));
+            if (Boolean.TRUE.equals(entry.get("sickMode"))) {
+                sick++;
+            }
+            if (Boolean.TRUE.equals(entry.get("stressMode"))) {
+                stress++;
+            }
+        }
+
+        DailyRollupEntity rollup = new DailyRollupEntity();
+        rollup.setUserId(userId);
+        rollup.setDay(day);
+        rollup.setMealCount(entries.size());
+        rollup.setTotalCarbs((float) carbs);
+        rollup.setTotalRecommendedDose((float) recommended);
+        rollup.setTotalActualDose((float) actual);
+        rollup.setSickModeCount(sick);
+        rollup.setStressModeCount(stress);
+        return rollup;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
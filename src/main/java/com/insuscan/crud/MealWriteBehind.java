@@ -0,0 +1,387 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.insuscan.data.MealEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for meal saves.
+ *
+ * A save is acknowledged once it is appended to a local journal and held in memory;
+ * Firestore is written later in WriteBatch chunks. Saves of the same meal id are
+ * coalesced, so only the latest version is written. The journal is split in segments:
+ * each flush starts a new segment and deletes the older ones once Firestore has
+ * committed them, and segments left over from a crash are replayed on startup.
+ *
+ * Reads by id see pending (and currently flushing) versions, so findById stays
+ * consistent with save. Query results only include a save once it has been flushed.
+ */
+final class MealWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(MealWriteBehind.class);
+
+    // Firestore limit for a single WriteBatch
+    static final int MAX_BATCH_OPS = 500;
+
+    private static final String SEGMENT_PREFIX = "meals-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Firestore firestore;
+    private final String collectionName;
+    private final Function<MealEntity, Map<String, Object>> toFirestoreMap;
+    private final ObjectMapper objectMapper;
+    private final Path journalDir;
+    private final int batchSize;
+    private final boolean fsync;
+
+    // Guards pending, flushing, segment and journal; journal order always matches pending order
+    private final Object lock = new Object();
+    // Held for the whole flush so deletes cannot race with an in-progress commit
+    private final Object flushLock = new Object();
+
+    private final LinkedHashMap<String, JsonNode> pending = new LinkedHashMap<>();
+    private final LinkedHashMap<String, JsonNode> flushing = new LinkedHashMap<>();
+    private long segment;
+    private FileChannel journal;
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "meal-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    MealWriteBehind(Firestore firestore, String collectionName,
+                    Function<MealEntity, Map<String, Object>> toFirestoreMap,
+                    ObjectMapper objectMapper, Path journalDir, int batchSize, boolean fsync) {
+        this.firestore = firestore;
+        this.collectionName = collectionName;
+        this.toFirestoreMap = toFirestoreMap;
+        this.objectMapper = objectMapper;
+        this.journalDir = journalDir;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_OPS));
+        this.fsync = fsync;
+    }
+
+    /**
+     * Replay journal segments left by a previous run, then open a fresh segment.
+     */
+    void open() throws IOException {
+        Files.createDirectories(journalDir);
+        TreeMap<Long, Path> segments = listSegments();
+
+        int replayed = 0;
+        for (Path file : segments.values()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        applyRecord(objectMapper.readTree(line));
+                        replayed++;
+                    } catch (IOException e) {
+                        // A crash mid-append leaves at most one torn line at the end of a segment
+                        log.warn("Skipping unreadable meal journal record in {}: {}", file.getFileName(), e.getMessage());
+                    }
+                }
+            }
+        }
+
+        synchronized (lock) {
+            segment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+            journal = openSegment(segment);
+        }
+
+        if (replayed > 0) {
+            log.info("Replayed {} meal journal records, {} meals pending", replayed, pendingCount());
+            flush();
+        }
+    }
+
+    /**
+     * Journal the meal and hold it until the next flush. Returns once the record
+     * is on disk (fsync'd when enabled).
+     */
+    MealEntity enqueue(MealEntity meal) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("id", meal.getId());
+        record.set("meal", objectMapper.valueToTree(meal));
+        byte[] line = toLine(record);
+
+        int size;
+        synchronized (lock) {
+            append(line);
+            // Remove first so a re-saved meal moves to the end (keeps flush order = save order)
+            pending.remove(meal.getId());
+            pending.put(meal.getId(), record.get("meal"));
+            size = pending.size();
+        }
+
+        if (size >= batchSize) {
+            requestFlush();
+        }
+        return meal;
+    }
+
+    /**
+     * Drop any pending version of the meal (it is about to be deleted).
+     * A tombstone is journaled so a replay does not bring it back.
+     */
+    void discard(String id) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("id", id);
+        record.put("deleted", true);
+        byte[] line = toLine(record);
+
+        synchronized (flushLock) {
+            synchronized (lock) {
+                boolean wasPending = pending.remove(id) != null;
+                wasPending |= flushing.remove(id) != null;
+                if (wasPending) {
+                    append(line);
+                }
+            }
+        }
+    }
+
+    // Latest not-yet-committed version of a meal; a fresh copy on every call
+    Optional<MealEntity> get(String id) {
+        JsonNode node;
+        synchronized (lock) {
+            node = pending.get(id);
+            if (node == null) {
+                node = flushing.get(id);
+            }
+        }
+        return node != null ? Optional.of(toEntity(node)) : Optional.empty();
+    }
+
+    boolean contains(String id) {
+        synchronized (lock) {
+            return pending.containsKey(id) || flushing.containsKey(id);
+        }
+    }
+
+    int pendingCount() {
+        synchronized (lock) {
+            return pending.size() + flushing.size();
+        }
+    }
+
+    /**
+     * Write everything pending to Firestore.
+     *
+     * @return true if nothing is left pending from before the call
+     */
+    boolean flush() {
+        synchronized (flushLock) {
+            long committedSegment;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return true;
+                }
+                flushing.putAll(pending);
+                pending.clear();
+                // Later saves go to a new segment; the current one can go once this flush commits
+                committedSegment = segment;
+                try {
+                    rotate();
+                } catch (IOException e) {
+                    log.error("Could not rotate meal journal, keeping writes pending", e);
+                    pending.putAll(flushing);
+                    flushing.clear();
+                    return false;
+                }
+            }
+
+            long start = System.currentTimeMillis();
+            List<Map.Entry<String, JsonNode>> entries;
+            synchronized (lock) {
+                entries = new ArrayList<>(flushing.entrySet());
+            }
+
+            CollectionReference collection = firestore.collection(collectionName);
+            int written = 0;
+            try {
+                for (int from = 0; from < entries.size(); from += batchSize) {
+                    List<Map.Entry<String, JsonNode>> chunk =
+                            entries.subList(from, Math.min(entries.size(), from + batchSize));
+                    WriteBatch batch = firestore.batch();
+                    for (Map.Entry<String, JsonNode> entry : chunk) {
+                        batch.set(collection.document(entry.getKey()), toFirestoreMap.apply(toEntity(entry.getValue())));
+                    }
+                    batch.commit().get();
+
+                    synchronized (lock) {
+                        for (Map.Entry<String, JsonNode> entry : chunk) {
+                            flushing.remove(entry.getKey());
+                        }
+                    }
+                    written += chunk.size();
+                }
+            } catch (Exception e) {
+                log.error("Meal write-behind flush failed after {} of {} writes, will retry",
+                        written, entries.size(), e);
+                synchronized (lock) {
+                    // Newer saves made during the flush win over the failed versions
+                    for (Map.Entry<String, JsonNode> entry : flushing.entrySet()) {
+                        pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                    flushing.clear();
+                }
+                return false;
+            }
+
+            deleteSegmentsUpTo(committedSegment);
+            log.debug("Flushed {} meal writes in {}ms", written, System.currentTimeMillis() - start);
+            return true;
+        }
+    }
+
+    /**
+     * Flush what is pending and release the journal. Unflushed records stay on disk for the next start.
+     */
+    void close() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flush()) {
+            log.warn("{} meal writes not flushed on shutdown; they will be replayed from the journal", pendingCount());
+        }
+        synchronized (lock) {
+            try {
+                if (journal != null) journal.close();
+            } catch (IOException e) {
+                log.warn("Error closing meal journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Size trigger: one background flush at a time, further requests while queued are no-ops
+    private void requestFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushQueued.set(false);
+                    flush();
+                });
+            } catch (RuntimeException e) {
+                flushQueued.set(false); // executor shut down; the scheduled/shutdown flush handles it
+            }
+        }
+    }
+
+    private void applyRecord(JsonNode record) {
+        String id = record.path("id").asText(null);
+        if (id == null) return;
+        synchronized (lock) {
+            pending.remove(id);
+            if (!record.path("deleted").asBoolean(false) && record.hasNonNull("meal")) {
+                pending.put(id, record.get("meal"));
+            }
+        }
+    }
+
+    private MealEntity toEntity(JsonNode node) {
+        try {
+            return objectMapper.treeToValue(node, MealEntity.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable pending meal", e);
+        }
+    }
+
+    private byte[] toLine(JsonNode record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    // Caller holds lock
+    private void append(byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        if (fsync) {
+            journal.force(false);
+        }
+    }
+
+    // Caller holds lock
+    private void rotate() throws IOException {
+        FileChannel next = openSegment(segment + 1);
+        journal.close();
+        journal = next;
+        segment++;
+    }
+
+    private FileChannel openSegment(long index) throws IOException {
+        return FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long index) {
+        return journalDir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private void deleteSegmentsUpTo(long index) {
+        try {
+            Iterator<Map.Entry<Long, Path>> it = listSegments().headMap(index, true).entrySet().iterator();
+            while (it.hasNext()) {
+                Files.deleteIfExists(it.next().getValue());
+            }
+        } catch (IOException e) {
+            // Harmless: the records are already in Firestore and replaying them rewrites the same data
+            log.warn("Could not delete flushed meal journal segments: {}", e.getMessage());
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.put(Long.parseLong(number), file);
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        return segments;
+    }
+}
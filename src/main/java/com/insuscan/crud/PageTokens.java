@@ -0,0 +1,65 @@
+package com.insuscan.crud;
+
+import com.insuscan.exception.InsuScanInvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Encodes the position of the last document of a page into an opaque token.
+ *
+ * Token payload: "v1|<mode>|<millis>|<documentId>" (URL-safe Base64).
+ * mode "t" = ordered by a timestamp field then document id,
+ * mode "i" = ordered by document id only (used when the composite index is missing).
+ * The mode is part of the token so a client never resumes with the wrong ordering.
+ */
+final class PageTokens {
+
+    static final String MODE_TIME = "t";
+    static final String MODE_ID = "i";
+
+    private static final String VERSION = "v1";
+
+    private PageTokens() {}
+
+    static String encode(String mode, Date timestamp, String documentId) {
+        String millis = timestamp != null ? String.valueOf(timestamp.getTime()) : "";
+        String payload = VERSION + "|" + mode + "|" + millis + "|" + documentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String token) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = payload.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])
+                    || !(MODE_TIME.equals(parts[1]) || MODE_ID.equals(parts[1])) || parts[3].isEmpty()) {
+                throw new IllegalArgumentException("malformed payload");
+            }
+            Date timestamp = parts[2].isEmpty() ? null : new Date(Long.parseLong(parts[2]));
+            if (MODE_TIME.equals(parts[1]) && timestamp == null) {
+                throw new IllegalArgumentException("missing timestamp");
+            }
+            return new Cursor(parts[1], timestamp, parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new InsuScanInvalidInputException("Invalid page token");
+        }
+    }
+
+    static final class Cursor {
+        final String mode;
+        final Date timestamp;
+        final String documentId;
+
+        Cursor(String mode, Date timestamp, String documentId) {
+            this.mode = mode;
+            this.timestamp = timestamp;
+            this.documentId = documentId;
+        }
+
+        boolean isTimeOrdered() {
+            return MODE_TIME.equals(mode);
+        }
+    }
+}
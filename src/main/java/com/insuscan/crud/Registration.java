@@ -0,0 +1,7 @@
+package com.insuscan.crud;
+
+// Handle for a change listener registered with a repository; remove() stops further callbacks
+@FunctionalInterface
+public interface Registration {
+    void remove();
+}
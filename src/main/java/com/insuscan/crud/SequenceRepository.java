@@ -0,0 +1,15 @@
+package com.insuscan.crud;
+
+/**
+ * Counters used to allocate meal id sequences, one per systemId_YYYYMMDD.
+ * Backend chosen by insuscan.storage.backend (FirestoreSequenceRepository / InMemorySequenceRepository).
+ */
+public interface SequenceRepository {
+
+    /**
+     * Atomically reserve blockSize consecutive values from the counter.
+     * Returns the first reserved value; the caller owns [start, start + blockSize).
+     * A new counter starts above the highest existing meal id with the same prefix.
+     */
+    int reserveBlock(String counterId, int blockSize);
+}
@@ -0,0 +1,47 @@
+package com.insuscan.crud;
+
+import java.util.Date;
+
+/**
+ * Secondary index entry of the in-memory backends, ordered newest first: time descending,
+ * then id descending - the order of Firestore's orderBy(time, DESC).orderBy(documentId, DESC).
+ * A missing time sorts last.
+ */
+final class TimeKey implements Comparable<TimeKey> {
+
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    // Lowest real time: as a scan's oldest bound it leaves out entries without a time,
+    // like Firestore's orderBy leaves out documents without the field
+    static final long ANY_TIME = NO_TIME + 1;
+
+    // Sorts before every real id with the same time
+    private static final String FIRST_ID = "\uffff";
+
+    final long time;
+    final String id;
+
+    TimeKey(long time, String id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    static TimeKey of(Date time, String id) {
+        return new TimeKey(timeOf(time), id);
+    }
+
+    static long timeOf(Date time) {
+        return time != null ? time.getTime() : NO_TIME;
+    }
+
+    // Start of the entries with time <= the given millis
+    static TimeKey atOrBefore(long time) {
+        return new TimeKey(time, FIRST_ID);
+    }
+
+    @Override
+    public int compareTo(TimeKey other) {
+        int byTime = Long.compare(other.time, time);
+        return byTime != 0 ? byTime : other.id.compareTo(id);
+    }
+}
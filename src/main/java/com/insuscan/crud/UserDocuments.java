@@ -0,0 +1,152 @@
+package com.insuscan.crud;
+
+import com.google.cloud.Timestamp;
+import com.insuscan.data.UserEntity;
+import com.insuscan.enums.SyringeType;
+import com.insuscan.enums.UserRole;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * User entity <-> stored field map, shared by the Firestore and in-memory backends
+ * (see MealDocuments).
+ */
+final class UserDocuments {
+
+    private UserDocuments() {}
+
+    static Map<String, Object> toMap(UserEntity entity) {
+        Map<String, Object> map = new HashMap<>();
+        
+        // Base fields
+        map.put("id", entity.getId());
+        map.put("role", entity.getRole() != null ? entity.getRole().name() : null);
+        map.put("userName", entity.getUserName());
+        map.put("avatar", entity.getAvatar());
+        
+        // Medical profile
+        map.put("insulinCarbRatio", entity.getInsulinCarbRatio());
+        map.put("correctionFactor", entity.getCorrectionFactor());
+        map.put("targetGlucose", entity.getTargetGlucose());
+        
+        // Syringe settings
+        map.put("syringeType", entity.getSyringeType() != null ? entity.getSyringeType().name() : null);
+        map.put("customSyringeLength", entity.getCustomSyringeLength());
+        
+        // Personal info
+        map.put("age", entity.getAge());
+        map.put("gender", entity.getGender());
+        map.put("pregnant", entity.getPregnant());
+        map.put("dueDate", entity.getDueDate());
+        
+        // Medical info
+        map.put("diabetesType", entity.getDiabetesType());
+        map.put("insulinType", entity.getInsulinType());
+        map.put("activeInsulinTime", entity.getActiveInsulinTime());
+        
+        // Dose settings
+        map.put("doseRounding", entity.getDoseRounding());
+        
+        // Adjustment factors
+        map.put("sickDayAdjustment", entity.getSickDayAdjustment());
+        map.put("stressAdjustment", entity.getStressAdjustment());
+        map.put("lightExerciseAdjustment", entity.getLightExerciseAdjustment());
+        map.put("intenseExerciseAdjustment", entity.getIntenseExerciseAdjustment());
+        
+        // Preferences
+        map.put("glucoseUnits", entity.getGlucoseUnits());
+        
+        // Timestamps
+        map.put("createdAt", entity.getCreatedAt());
+        map.put("updatedAt", entity.getUpdatedAt());
+        
+        return map;
+    }
+
+    // Document fields -> entity; numbers arrive as Double or Long, dates as Timestamp
+    static UserEntity fromMap(Map<String, Object> data) {
+        UserEntity entity = new UserEntity();
+        
+        // Base fields
+        entity.setId((String) data.get("id"));
+        
+        String roleStr = (String) data.get("role");
+        if (roleStr != null) {
+            entity.setRole(UserRole.valueOf(roleStr));
+        }
+        
+        entity.setUserName((String) data.get("userName"));
+        entity.setAvatar((String) data.get("avatar"));
+        
+        // Medical profile
+        entity.setInsulinCarbRatio(toFloat(data.get("insulinCarbRatio")));
+        entity.setCorrectionFactor(toFloat(data.get("correctionFactor")));
+        entity.setTargetGlucose(toInteger(data.get("targetGlucose")));
+        
+        // Syringe settings
+        String syringeStr = (String) data.get("syringeType");
+        if (syringeStr != null) {
+            entity.setSyringeType(SyringeType.valueOf(syringeStr));
+        }
+        
+        entity.setCustomSyringeLength(toFloat(data.get("customSyringeLength")));
+        
+        // Personal info
+        entity.setAge(toInteger(data.get("age")));
+        
+        entity.setGender((String) data.get("gender"));
+        entity.setPregnant((Boolean) data.get("pregnant"));
+        entity.setDueDate((String) data.get("dueDate"));
+        
+        // Medical info
+        entity.setDiabetesType((String) data.get("diabetesType"));
+        entity.setInsulinType((String) data.get("insulinType"));
+        entity.setActiveInsulinTime(toInteger(data.get("activeInsulinTime")));
+        
+        // Dose settings
+        entity.setDoseRounding((String) data.get("doseRounding"));
+        
+        // Adjustment factors
+        entity.setSickDayAdjustment(toInteger(data.get("sickDayAdjustment")));
+        entity.setStressAdjustment(toInteger(data.get("stressAdjustment")));
+        entity.setLightExerciseAdjustment(toInteger(data.get("lightExerciseAdjustment")));
+        entity.setIntenseExerciseAdjustment(toInteger(data.get("intenseExerciseAdjustment")));
+        
+        // Preferences
+        entity.setGlucoseUnits((String) data.get("glucoseUnits"));
+        
+        // Timestamps
+        entity.setCreatedAt(toDate(data.get("createdAt")));
+        entity.setUpdatedAt(toDate(data.get("updatedAt")));
+        
+        return entity;
+    }
+
+    // Persisted fields only, detached from the original
+    static UserEntity copy(UserEntity entity) {
+        UserEntity copy = fromMap(toMap(entity));
+        copy.setCreatedAt(copyDate(copy.getCreatedAt()));
+        copy.setUpdatedAt(copyDate(copy.getUpdatedAt()));
+        return copy;
+    }
+
+    private static Float toFloat(Object value) {
+        return value instanceof Number ? ((Number) value).floatValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Timestamp) return ((Timestamp) value).toDate();
+        if (value instanceof Date) return (Date) value;
+        return null;
+    }
+
+    private static Date copyDate(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.insuscan.crud;
+
+import com.insuscan.data.UserEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of user profiles (keyed by systemId_email) for the scan and
+ * insulin hot paths, so a warm dose calculation needs no Firestore read.
+ *
+ * LRU bounded by entry count, with a TTL as the upper bound on staleness when another
+ * node changes a profile. UserServiceImpl invalidates on update/delete; with
+ * insuscan.user-cache.listen=true a Firestore listener also refreshes entries on change.
+ * Missing users are not cached. Returned entities are shared: treat them as read-only.
+ */
+@Component
+public class UserProfileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileCache.class);
+
+    private final UserRepository userRepository;
+
+    // Access-ordered map = LRU; guarded by "this"
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(128, 0.75f, true);
+
+    // Bumped on every invalidation; a load that started before it must not fill the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${insuscan.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${insuscan.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${insuscan.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${insuscan.user-cache.listen:false}")
+    private boolean listen;
+
+    private Registration listener;
+
+    public UserProfileCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void startListener() {
+        if (!enabled || !listen) {
+            return;
+        }
+        try {
+            listener = userRepository.listenForChanges(this::onUserChanged);
+            log.info("User profile cache listening for Firestore changes");
+        } catch (Exception e) {
+            log.warn("Could not start user change listener, relying on TTL: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stopListener() {
+        if (listener != null) {
+            listener.remove();
+        }
+    }
+
+    // Same contract as UserRepository.findById
+    public Optional<UserEntity> findById(String id) {
+        if (!enabled) {
+            return userRepository.findById(id);
+        }
+        UserEntity cached = getFresh(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long loadGeneration = generation.get();
+        Optional<UserEntity> loaded = userRepository.findById(id);
+        loaded.ifPresent(user -> put(id, user, loadGeneration));
+        return loaded;
+    }
+
+    // Same contract as UserRepository.findByIdAsync
+    public Mono<UserEntity> findByIdAsync(String id) {
+        if (!enabled) {
+            return userRepository.findByIdAsync(id);
+        }
+        return Mono.defer(() -> {
+            UserEntity cached = getFresh(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long loadGeneration = generation.get();
+            return userRepository.findByIdAsync(id)
+                    .doOnNext(user -> put(id, user, loadGeneration));
+        });
+    }
+
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        synchronized (this) {
+            cache.remove(id);
+        }
+        log.debug("Invalidated cached user profile: {}", id);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (this) {
+            cache.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private UserEntity getFresh(String id) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = cache.get(id);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlSeconds * 1000) {
+                    hits.incrementAndGet();
+                    return entry.user;
+                }
+                cache.remove(id);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void put(String id, UserEntity user, long loadGeneration) {
+        synchronized (this) {
+            // Skip if the profile was invalidated while it was being read
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            cache.put(id, new Entry(user, System.currentTimeMillis()));
+            Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+            while (cache.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    // Listener callback: refresh profiles we already hold, drop deleted ones
+    private void onUserChanged(String id, UserEntity user) {
+        generation.incrementAndGet();
+        synchronized (this) {
+            if (user == null) {
+                cache.remove(id);
+            } else if (cache.containsKey(id)) {
+                cache.put(id, new Entry(user, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private static class Entry {
+        final UserEntity user;
+        final long loadedAt;
+
+        Entry(UserEntity user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.insuscan.data;
+
+import java.time.LocalDate;
+
+// Firestore collection: meal_daily_rollups (one document per user per day)
+// Totals of the user's meals scanned that day; failed and cancelled meals are not counted
+public class DailyRollupEntity {
+
+    private String userId;
+    private LocalDate day;              // in the server's time zone, like the by-date meal queries
+
+    private int mealCount;
+    private float totalCarbs;               // grams
+    private float totalRecommendedDose;     // units, meals with a calculated dose
+    private float totalActualDose;          // units actually injected / confirmed
+    private int sickModeCount;
+    private int stressModeCount;
+
+    public DailyRollupEntity() {}
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public int getMealCount() { return mealCount; }
+    public void setMealCount(int mealCount) { this.mealCount = mealCount; }
+
+    public float getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(float totalCarbs) { this.totalCarbs = totalCarbs; }
+
+    public float getTotalRecommendedDose() { return totalRecommendedDose; }
+    public void setTotalRecommendedDose(float totalRecommendedDose) { this.totalRecommendedDose = totalRecommendedDose; }
+
+    public float getTotalActualDose() { return totalActualDose; }
+    public void setTotalActualDose(float totalActualDose) { this.totalActualDose = totalActualDose; }
+
+    public int getSickModeCount() { return sickModeCount; }
+    public void setSickModeCount(int sickModeCount) { this.sickModeCount = sickModeCount; }
+
+    public int getStressModeCount() { return stressModeCount; }
+    public void setStressModeCount(int stressModeCount) { this.stressModeCount = stressModeCount; }
+}
@@ -0,0 +1,39 @@
+package com.insuscan.data;
+
+import com.insuscan.enums.MealStatus;
+import java.util.Date;
+
+// Projection of a meals document for list screens (no food items / dose breakdown)
+public class MealSummaryEntity {
+
+    private String id;              // Format: systemId_mealUuid
+    private String userId;
+    private Date scannedAt;
+    private Float totalCarbs;
+    private MealStatus status;
+    private Float recommendedDose;
+    private Float actualDose;
+
+    public MealSummaryEntity() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Date getScannedAt() { return scannedAt; }
+    public void setScannedAt(Date scannedAt) { this.scannedAt = scannedAt; }
+
+    public Float getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(Float totalCarbs) { this.totalCarbs = totalCarbs; }
+
+    public MealStatus getStatus() { return status; }
+    public void setStatus(MealStatus status) { this.status = status; }
+
+    public Float getRecommendedDose() { return recommendedDose; }
+    public void setRecommendedDose(Float recommendedDose) { this.recommendedDose = recommendedDose; }
+
+    public Float getActualDose() { return actualDose; }
+    public void setActualDose(Float actualDose) { this.actualDose = actualDose; }
+}
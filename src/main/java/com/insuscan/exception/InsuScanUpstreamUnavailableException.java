@@ -0,0 +1,27 @@
+package com.insuscan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 503 Service Unavailable - an upstream dependency is failing fast (circuit open, bulkhead full,
+// or the meal id sequence store unreachable); the client may retry
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class InsuScanUpstreamUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public InsuScanUpstreamUnavailableException() {
+        super();
+    }
+
+    public InsuScanUpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public InsuScanUpstreamUnavailableException(Exception cause) {
+        super(cause);
+    }
+
+    public InsuScanUpstreamUnavailableException(String message, Exception cause) {
+        super(message, cause);
+    }
+}
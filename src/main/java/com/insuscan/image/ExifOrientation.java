@@ -0,0 +1,83 @@
+package com.insuscan.image;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Minimal JPEG EXIF reader - only extracts the Orientation tag (0x0112) from IFD0.
+ * ImageIO ignores EXIF, so phone photos taken in portrait would otherwise arrive sideways.
+ *
+ * Orientation values: 1 = normal, 2 = mirrored, 3 = 180, 4 = flipped,
+ * 5 = transposed, 6 = rotate 90 CW, 7 = transverse, 8 = rotate 90 CCW.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ExifOrientation() {}
+
+    // Returns 1..8, or NORMAL if the stream is not a JPEG or has no orientation tag
+    static int read(InputStream stream) {
+        try {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return NORMAL; // not a JPEG
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return NORMAL; // start of scan / end of image: no EXIF before the pixels
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (marker == 0xFFE1 && isExif(segment)) {
+                    return parseTiff(segment, 6);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return NORMAL;
+        }
+    }
+
+    private static boolean isExif(byte[] segment) {
+        return segment.length > 14
+                && segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f'
+                && segment[4] == 0 && segment[5] == 0;
+    }
+
+    private static int parseTiff(byte[] data, int base) {
+        boolean littleEndian = data[base] == 'I' && data[base + 1] == 'I';
+        int ifdOffset = readInt(data, base + 4, littleEndian);
+        int ifd = base + ifdOffset;
+        int entries = readShort(data, ifd, littleEndian);
+
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > data.length) break;
+            if (readShort(data, entry, littleEndian) == TAG_ORIENTATION) {
+                int value = readShort(data, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int first = readShort(data, offset, littleEndian);
+        int second = readShort(data, offset + 2, littleEndian);
+        return littleEndian ? (second << 16) | first : (first << 16) | second;
+    }
+}
@@ -0,0 +1,179 @@
+package com.insuscan.image;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Immutable handle to an uploaded image: the raw bytes plus a hash computed once
+ * while the upload was read. Passed through the scan pipeline instead of a Base64
+ * String so the image is never decoded/re-encoded just to hash or forward it.
+ *
+ * The hash is the hex of the first 16 bytes of SHA-256 over the raw image bytes
+ * (the same key VisionCacheService has always used).
+ */
+public final class ImageData {
+
+    private static final int READ_CHUNK_BYTES = 64 * 1024;
+    private static final int HASH_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] bytes;     // never exposed, so the handle stays immutable
+    private final String hash;
+    private final String mimeType;
+
+    private ImageData(byte[] bytes, String hash, String mimeType) {
+        this.bytes = bytes;
+        this.hash = hash;
+        this.mimeType = mimeType != null ? mimeType : "image/jpeg";
+    }
+
+    /**
+     * Read an upload stream once, hashing it as the bytes arrive.
+     *
+     * @param sizeHint expected length (e.g. MultipartFile.getSize()), or -1 if unknown
+     */
+    public static ImageData fromStream(InputStream in, long sizeHint, String mimeType) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[sizeHint > 0 && sizeHint < Integer.MAX_VALUE ? (int) sizeHint : READ_CHUNK_BYTES];
+        int length = 0;
+
+        while (true) {
+            if (length == buffer.length) {
+                // Full: probe for EOF first, so an exact hint means one allocation and no copy
+                int next = in.read();
+                if (next < 0) {
+                    break;
+                }
+                // Stream is longer than the hint - grow (only when the hint was missing/wrong)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                buffer[length] = (byte) next;
+                digest.update((byte) next);
+                length++;
+            }
+            int n = in.read(buffer, length, Math.min(READ_CHUNK_BYTES, buffer.length - length));
+            if (n < 0) {
+                break;
+            }
+            digest.update(buffer, length, n);
+            length += n;
+        }
+
+        byte[] data = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        return new ImageData(data, toHex(digest.digest()), mimeType);
+    }
+
+    /**
+     * Wrap raw bytes that are already in memory (e.g. the output of re-encoding).
+     */
+    public static ImageData fromBytes(byte[] bytes, String mimeType) {
+        byte[] copy = bytes.clone();
+        return new ImageData(copy, toHex(sha256().digest(copy)), mimeType);
+    }
+
+    // Take ownership of a freshly produced array without copying (package-internal producers only)
+    static ImageData wrap(byte[] bytes, String mimeType) {
+        return new ImageData(bytes, toHex(sha256().digest(bytes)), mimeType);
+    }
+
+    /**
+     * Decode a Base64 image, with or without a "data:image/...;base64," prefix.
+     * Used by the JSON scan endpoints, which still receive Base64 from clients.
+     */
+    public static ImageData fromBase64(String base64Image) {
+        String mimeType = null;
+        String data = base64Image;
+        int comma = data.indexOf(',');
+        if (comma >= 0) {
+            String prefix = data.substring(0, comma);
+            if (prefix.startsWith("data:") && prefix.contains(";")) {
+                mimeType = prefix.substring(5, prefix.indexOf(';'));
+            }
+            data = data.substring(comma + 1);
+        }
+        byte[] decoded = Base64.getMimeDecoder().decode(data);
+        return new ImageData(decoded, toHex(sha256().digest(decoded)), mimeType);
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    // Read-only view of the bytes (no copy)
+    public InputStream openStream() {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    // Length of the Base64 encoding (with padding)
+    public int base64Length() {
+        return 4 * ((bytes.length + 2) / 3);
+    }
+
+    /**
+     * Encode the image as Base64 straight into the given stream,
+     * e.g. the buffer of an outgoing request body.
+     */
+    public void writeBase64(OutputStream out) throws IOException {
+        OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out));
+        encoder.write(bytes);
+        encoder.close(); // flushes the final padded quantum, leaves "out" open
+    }
+
+    // For code paths that still need a String (e.g. the legacy JSON API)
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        char[] out = new char[HASH_BYTES * 2];
+        for (int i = 0; i < HASH_BYTES; i++) {
+            out[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            out[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(out);
+    }
+
+    private static class NonClosingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            // intentionally left open
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.insuscan.image;
+
+import com.insuscan.boundary.ImagePreprocessStatsBoundary;
+import com.insuscan.util.ApiLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shrinks uploads before they are sent to the vision model.
+ *
+ * Phone photos (3-8 MB, 4000px+) are decoded with ImageIO, turned upright using the
+ * EXIF orientation, downscaled so the longest edge fits max-edge, and re-encoded as
+ * JPEG at the configured quality. Re-encoding drops all metadata (EXIF, GPS).
+ * If anything fails, or the result is not smaller, the original image is used.
+ */
+@Component
+public class ImagePreprocessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagePreprocessor.class);
+
+    private final ApiLogger apiLogger;
+
+    private final AtomicLong imagesProcessed = new AtomicLong();
+    private final AtomicLong totalBytesSaved = new AtomicLong();
+
+    @Value("${insuscan.image.preprocess.enabled:true}")
+    private boolean enabled;
+
+    @Value("${insuscan.image.max-edge:1024}")
+    private int maxEdge;
+
+    @Value("${insuscan.image.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    public ImagePreprocessor(ApiLogger apiLogger) {
+        this.apiLogger = apiLogger;
+    }
+
+    /**
+     * Return a smaller, upright JPEG version of the image, or the original
+     * when preprocessing is disabled, not possible or not worth it.
+     */
+    public ImageData prepare(ImageData original) {
+        if (!enabled) {
+            return original;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            BufferedImage source = ImageIO.read(original.openStream());
+            if (source == null) {
+                log.debug("No ImageIO reader for {}, sending original", original.getMimeType());
+                return original;
+            }
+
+            int orientation = ExifOrientation.read(original.openStream());
+            BufferedImage scaled = downscale(source, maxEdge);
+            BufferedImage upright = applyOrientation(scaled, orientation);
+            byte[] encoded = encodeJpeg(upright, jpegQuality);
+
+            // Keep the original if re-encoding did not help (already small) and nothing needed fixing
+            if (encoded.length >= original.size() && orientation == ExifOrientation.NORMAL) {
+                log.debug("Re-encoded image is not smaller ({} >= {} bytes), sending original",
+                        encoded.length, original.size());
+                return original;
+            }
+
+            long saved = (long) original.size() - encoded.length;
+            imagesProcessed.incrementAndGet();
+            totalBytesSaved.addAndGet(saved);
+            apiLogger.imagePreprocessed(original.size(), encoded.length,
+                    upright.getWidth(), upright.getHeight(), System.currentTimeMillis() - start);
+
+            return ImageData.wrap(encoded, "image/jpeg");
+        } catch (Exception | OutOfMemoryError e) {
+            log.warn("Image preprocessing failed, sending original: {}", e.toString());
+            return original;
+        }
+    }
+
+    // Counters since startup, shown at GET /admin/image-preprocessing
+    public ImagePreprocessStatsBoundary getStats() {
+        ImagePreprocessStatsBoundary stats = new ImagePreprocessStatsBoundary();
+        stats.setEnabled(enabled);
+        stats.setImagesProcessed(imagesProcessed.get());
+        stats.setBytesSaved(totalBytesSaved.get());
+        return stats;
+    }
+
+    // Halve repeatedly while far above the target (cheap and avoids aliasing), then one final bilinear step
+    private static BufferedImage downscale(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxEdge) {
+            return toRgb(image);
+        }
+
+        double scale = (double) maxEdge / longest;
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = toRgb(image);
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    // JPEG has no alpha: flatten onto white (PNG screenshots, stickers)
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage out = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+
+        AffineTransform transform;
+        switch (orientation) {
+            case 2: transform = new AffineTransform(-1, 0, 0, 1, w, 0); break;   // mirror horizontal
+            case 3: transform = new AffineTransform(-1, 0, 0, -1, w, h); break;  // rotate 180
+            case 4: transform = new AffineTransform(1, 0, 0, -1, 0, h); break;   // mirror vertical
+            case 5: transform = new AffineTransform(0, 1, 1, 0, 0, 0); break;    // transpose
+            case 6: transform = new AffineTransform(0, 1, -1, 0, h, 0); break;   // rotate 90 CW
+            case 7: transform = new AffineTransform(0, -1, -1, 0, h, w); break;  // transverse
+            case 8: transform = new AffineTransform(0, -1, 1, 0, 0, w); break;   // rotate 90 CCW
+            default: return image;
+        }
+
+        boolean swap = orientation >= 5;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            // No metadata passed in -> plain JFIF, EXIF is not carried over
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
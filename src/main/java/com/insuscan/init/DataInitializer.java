@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import com.insuscan.crud.MealRepository;
+import com.insuscan.crud.MealRollupRepository;
 import com.insuscan.crud.UserRepository;
 import com.insuscan.data.MealEntity;
 import com.insuscan.data.UserEntity;
@@ -24,13 +25,16 @@ public class DataInitializer implements CommandLineRunner {
 
     private final UserRepository userRepository;
     private final MealRepository mealRepository;
+    private final MealRollupRepository mealRollupRepository;
 
     @Value("${spring.application.name}")
     private String systemId;
 
-    public DataInitializer(UserRepository userRepository, MealRepository mealRepository) {
+    public DataInitializer(UserRepository userRepository, MealRepository mealRepository,
+                           MealRollupRepository mealRollupRepository) {
         this.userRepository = userRepository;
         this.mealRepository = mealRepository;
+        this.mealRollupRepository = mealRollupRepository;
     }
 
     @Override
@@ -40,6 +44,7 @@ public class DataInitializer implements CommandLineRunner {
 
         // Clear existing data
         mealRepository.deleteAll();
+        mealRollupRepository.deleteAll();
         userRepository.deleteAll();
         System.out.println("Cleared existing data");
 
@@ -130,6 +135,7 @@ public class DataInitializer implements CommandLineRunner {
         meal1.setConfirmedAt(new Date(System.currentTimeMillis() - 86400000));
         meal1.setCompletedAt(new Date(System.currentTimeMillis() - 86400000));
         mealRepository.save(meal1);
+        mealRollupRepository.record(meal1);
         System.out.println("Created completed meal: breakfast");
 
         // Meal 2 - Confirmed lunch
@@ -154,6 +160,7 @@ public class DataInitializer implements CommandLineRunner {
         meal2.setScannedAt(new Date(System.currentTimeMillis() - 3600000)); // 1 hour ago
         meal2.setConfirmedAt(new Date(System.currentTimeMillis() - 3600000));
         mealRepository.save(meal2);
+        mealRollupRepository.record(meal2);
         System.out.println("Created confirmed meal: lunch");
 
         // Meal 3 - Pending dinner
@@ -172,6 +179,7 @@ public class DataInitializer implements CommandLineRunner {
         meal3.setStatus(MealStatus.PENDING);
         meal3.setScannedAt(new Date()); // Now
         mealRepository.save(meal3);
+        mealRollupRepository.record(meal3);
         System.out.println("Created pending meal: dinner");
 
         System.out.println("Created 3 demo meals");
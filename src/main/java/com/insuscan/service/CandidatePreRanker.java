@@ -0,0 +1,243 @@
+package com.insuscan.service;
+
+import com.insuscan.boundary.FoodRecognitionResult;
+import com.insuscan.boundary.NutritionInfo;
+import com.insuscan.boundary.PreRankStatsBoundary;
+import com.insuscan.util.FoodTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic scoring of USDA candidates against a vision target, mirroring the
+ * rules of the LLM judge prompt (form check, state match, fat check, plain-version
+ * fallback). When the best candidate clearly beats the runner-up ("Banana" vs
+ * "Bananas, raw" / "Banana chips") it is picked locally and the judge is not called.
+ */
+@Component
+public class CandidatePreRanker {
+
+    // Score weights; a full token match is worth 1.0
+    private static final double LEADING_MATCH_BONUS = 0.15;
+    private static final double EXTRA_WORD_PENALTY = 0.03;
+    private static final int MAX_PENALIZED_EXTRA_WORDS = 10;
+    private static final double STATE_EXACT_BONUS = 0.30;
+    private static final double STATE_COOKED_BONUS = 0.15;
+    private static final double RAW_WHEN_COOKED_PENALTY = 0.30;
+    private static final double RAW_WHEN_RAW_BONUS = 0.10;
+    private static final double FORM_PENALTY = 0.50;
+    private static final double FAT_MATCH_BONUS = 0.15;
+
+    // Visual state -> description words that count as an exact state match
+    private static final Map<String, Set<String>> STATE_WORDS = Map.of(
+            "ROASTED", Set.of("roasted", "baked"),
+            "BAKED", Set.of("baked", "roasted"),
+            "BOILED", Set.of("boiled", "cooked"),
+            "FRIED", Set.of("fried"),
+            "GRILLED", Set.of("grilled", "broiled"),
+            "STEAMED", Set.of("steamed", "cooked"),
+            "COOKED", Set.of("cooked", "boiled"));
+
+    private static final Set<String> COOKED_WORDS = Set.of(
+            "cooked", "boiled", "roasted", "baked", "fried", "grilled", "broiled",
+            "steamed", "stewed", "braised", "sauteed", "microwaved");
+
+    // Rule 1 + 4: processed forms that are rarely what a plate photo shows (as FoodTokenizer stems them)
+    private static final Set<String> FORM_WORDS = Set.of(
+            "flour", "powder", "babyfood", "baby", "bread", "chip",
+            "cracker", "dehydrated", "juice", "snack");
+
+    // Rule 3: descriptions that account for added fat
+    private static final Set<String> FAT_WORDS = Set.of("oil", "fat", "butter", "fried", "margarine");
+    private static final Set<String> FAT_FLAGS = Set.of("HIGH_FAT", "OIL", "FRIED");
+
+    // USDA filler words that say nothing about the food itself (as FoodTokenizer stems them)
+    private static final Set<String> NEUTRAL_WORDS = Set.of(
+            "raw", "and", "or", "with", "without", "of", "in", "ns", "as", "to", "nfs", "fresh", "all", "variety");
+
+    private final AtomicLong decided = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    @Value("${insuscan.judge.prerank.enabled:true}")
+    private boolean enabled;
+
+    // Minimum score gap between the best and second-best candidate to skip the judge
+    @Value("${insuscan.judge.prerank.min-margin:0.25}")
+    private double minMargin;
+
+    /**
+     * Returns the fdcId of an obvious winner, or null when the judge should decide.
+     * A winner must contain every word of the base ingredient and beat the
+     * runner-up by at least min-margin.
+     */
+    public String pickObviousMatch(FoodRecognitionResult.RecognizedFoodItem target, List<NutritionInfo> candidates) {
+        if (!enabled || candidates == null || candidates.size() < 2) {
+            return null;
+        }
+
+        Target scored = new Target(target);
+        if (scored.baseTokens.isEmpty()) {
+            deferred.incrementAndGet();
+            return null;
+        }
+
+        NutritionInfo best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double secondScore = Double.NEGATIVE_INFINITY;
+        boolean bestCoversBase = false;
+
+        for (NutritionInfo candidate : candidates) {
+            List<String> description = FoodTokenizer.tokenize(candidate.getFoodName());
+            double score = score(scored, description);
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = candidate;
+                bestCoversBase = description.containsAll(scored.baseTokens);
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        if (best != null && bestCoversBase && bestScore - secondScore >= minMargin) {
+            decided.incrementAndGet();
+            return best.getFdcId();
+        }
+        deferred.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Highest-scoring candidate regardless of margin, for when the judge is unavailable
+     * (circuit open, timeout). Not counted in the decided/deferred stats.
+     */
+    public String bestGuess(FoodRecognitionResult.RecognizedFoodItem target, List<NutritionInfo> candidates) {
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        Target scored = new Target(target);
+        NutritionInfo best = candidates.get(0);
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (NutritionInfo candidate : candidates) {
+            double score = score(scored, FoodTokenizer.tokenize(candidate.getFoodName()));
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best.getFdcId();
+    }
+
+    /**
+     * Judge calls avoided (decided) vs. lookups left to the judge (deferred)
+     */
+    public PreRankStatsBoundary getStats() {
+        PreRankStatsBoundary stats = new PreRankStatsBoundary();
+        stats.setDecided(decided.get());
+        stats.setDeferred(deferred.get());
+        stats.setMinMargin(minMargin);
+        return stats;
+    }
+
+    double score(Target target, List<String> description) {
+        Set<String> words = new HashSet<>(description);
+
+        // Token overlap with the base ingredient
+        int matched = 0;
+        for (String token : target.baseTokens) {
+            if (words.contains(token)) matched++;
+        }
+        double score = (double) matched / target.baseTokens.size();
+
+        // USDA names lead with the food itself ("Bananas, raw"), products lead with a brand/dish
+        if (!description.isEmpty() && target.baseTokens.contains(description.get(0))) {
+            score += LEADING_MATCH_BONUS;
+        }
+
+        // Prefer generic entries over long specific ones
+        int extra = 0;
+        for (String word : words) {
+            if (!target.baseTokens.contains(word) && !NEUTRAL_WORDS.contains(word) && !COOKED_WORDS.contains(word)) {
+                extra++;
+            }
+        }
+        score -= EXTRA_WORD_PENALTY * Math.min(extra, MAX_PENALIZED_EXTRA_WORDS);
+
+        // Rule 2: state match
+        if (target.cooked) {
+            Set<String> exact = STATE_WORDS.getOrDefault(target.state, Set.of());
+            if (containsAny(words, exact)) {
+                score += STATE_EXACT_BONUS;
+            } else if (containsAny(words, COOKED_WORDS)) {
+                score += STATE_COOKED_BONUS;
+            }
+            if (words.contains("raw")) {
+                score -= RAW_WHEN_COOKED_PENALTY;
+            }
+        } else if (words.contains("raw")) {
+            // Rule 4: plain/raw is the safe choice when nothing says otherwise
+            score += RAW_WHEN_RAW_BONUS;
+        }
+
+        // Rule 1: processed forms, unless the target itself is that form ("Bread", "Potato chips")
+        for (String word : words) {
+            if (FORM_WORDS.contains(word) && !target.allTokens.contains(word)) {
+                score -= FORM_PENALTY;
+                break;
+            }
+        }
+
+        // Rule 3: fat flags favour descriptions that include the fat
+        if (target.fatty && containsAny(words, FAT_WORDS)) {
+            score += FAT_MATCH_BONUS;
+        }
+        return score;
+    }
+
+    private static boolean containsAny(Set<String> words, Set<String> wanted) {
+        for (String word : wanted) {
+            if (words.contains(word)) return true;
+        }
+        return false;
+    }
+
+    // Target features, computed once per lookup
+    static final class Target {
+        final List<String> baseTokens;
+        final Set<String> allTokens;
+        final String state;
+        final boolean cooked;
+        final boolean fatty;
+
+        Target(FoodRecognitionResult.RecognizedFoodItem item) {
+            String base = item.getBaseIngredient() != null && !item.getBaseIngredient().isBlank()
+                    ? item.getBaseIngredient() : item.getName();
+            List<String> tokens = new ArrayList<>();
+            for (String token : FoodTokenizer.tokenize(base)) {
+                if (!NEUTRAL_WORDS.contains(token) && !tokens.contains(token)) tokens.add(token);
+            }
+            this.baseTokens = tokens;
+
+            this.allTokens = new HashSet<>(tokens);
+            this.allTokens.addAll(FoodTokenizer.tokenize(item.getName()));
+
+            this.state = item.getVisualState() != null ? item.getVisualState().trim().toUpperCase(Locale.ROOT) : "UNKNOWN";
+            this.cooked = STATE_WORDS.containsKey(state);
+
+            boolean fat = "FRIED".equals(state);
+            if (item.getRiskFlags() != null) {
+                for (String flag : item.getRiskFlags()) {
+                    if (flag != null && FAT_FLAGS.contains(flag.trim().toUpperCase(Locale.ROOT))) fat = true;
+                }
+            }
+            this.fatty = fat;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Optional on-disk tier for the in-process caches: one JSON file per key, written with
+ * an atomic rename. Expiry is by file modification time, so the stored entry type does
+ * not need to expose its own timestamp here.
+ */
+final class DiskCacheTier<E> {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCacheTier.class);
+
+    private final String name;
+    private final Path dir;
+    private final Class<E> entryType;
+    private final ObjectMapper objectMapper;
+
+    private DiskCacheTier(String name, Path dir, Class<E> entryType, ObjectMapper objectMapper) {
+        this.name = name;
+        this.dir = dir;
+        this.entryType = entryType;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Create the directory and return the tier, or null (tier disabled) if it cannot be created
+     */
+    static <E> DiskCacheTier<E> open(String name, String dir, Class<E> entryType, ObjectMapper objectMapper) {
+        try {
+            Path path = Paths.get(dir);
+            Files.createDirectories(path);
+            log.info("{} cache disk tier enabled at {}", name, path.toAbsolutePath());
+            return new DiskCacheTier<>(name, path, entryType, objectMapper);
+        } catch (IOException e) {
+            log.warn("Could not create {} cache directory {}, disk tier disabled: {}", name, dir, e.getMessage());
+            return null;
+        }
+    }
+
+    // Stored entry, or null if absent; an unreadable file is removed
+    E read(String key) {
+        Path file = file(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), entryType);
+        } catch (IOException e) {
+            log.warn("Corrupt {} cache file {}, removing: {}", name, file.getFileName(), e.getMessage());
+            delete(key);
+            return null;
+        }
+    }
+
+    void write(String key, E entry) {
+        Path file = file(key);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), entry);
+            // Atomic rename so readers never see a half-written file
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist {} cache entry {}...: {}", name,
+                    key.substring(0, Math.min(8, key.length())), e.getMessage());
+        }
+    }
+
+    void delete(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            log.debug("Failed to delete {} cache file: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete files last written more than ttlMillis before now; returns how many were removed
+     */
+    int deleteExpired(long ttlMillis, long now) {
+        List<Path> expired = new ArrayList<>();
+        int removed = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (now - Files.getLastModifiedTime(file).toMillis() > ttlMillis) {
+                    expired.add(file);
+                }
+            }
+            for (Path file : expired) {
+                if (Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean {} cache directory: {}", name, e.getMessage());
+        }
+        return removed;
+    }
+
+    private Path file(String key) {
+        // Keys are hex hashes, but guard against odd fallback keys
+        return dir.resolve(key.replaceAll("[^a-zA-Z0-9]", "_") + ".json");
+    }
+}
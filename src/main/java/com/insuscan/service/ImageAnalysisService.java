@@ -1,6 +1,8 @@
 package com.insuscan.service;
 
 import com.insuscan.boundary.FoodRecognitionResult;
+import com.insuscan.image.ImageData;
+import reactor.core.publisher.Mono;
 
 // Service for analyzing food images (provider-agnostic)
 public interface ImageAnalysisService {
@@ -8,9 +10,22 @@ public interface ImageAnalysisService {
     // Analyze image from base64 string
     FoodRecognitionResult analyzeImage(String imageBase64);
 
+    // Analyze an uploaded image (bytes + precomputed hash, no Base64 round-trip)
+    FoodRecognitionResult analyzeImage(ImageData image);
+
     // Analyze image from URL
     FoodRecognitionResult analyzeImageFromUrl(String imageUrl);
 
+    // Non-blocking variants - never emit an error, failures come back as FoodRecognitionResult.failure
+    Mono<FoodRecognitionResult> analyzeImageAsync(String imageBase64);
+
+    Mono<FoodRecognitionResult> analyzeImageAsync(ImageData image);
+
+    Mono<FoodRecognitionResult> analyzeImageFromUrlAsync(String imageUrl);
+
     // Check if the underlying provider is configured and usable
     boolean isServiceAvailable();
+
+    // Calls that shared an identical image's in-flight provider call instead of making their own
+    long getCoalescedCalls();
 }
\ No newline at end of file
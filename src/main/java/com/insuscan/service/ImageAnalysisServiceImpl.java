@@ -3,14 +3,32 @@ package com.insuscan.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.insuscan.boundary.FoodRecognitionResult;
+import com.insuscan.exception.InsuScanUpstreamUnavailableException;
+import com.insuscan.image.ImageData;
+import com.insuscan.image.ImagePreprocessor;
 import com.insuscan.util.ApiLogger;
+import com.insuscan.util.SingleFlight;
+import com.insuscan.util.UpstreamGuards;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
-
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -19,10 +37,21 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
 
     private static final Logger log = LoggerFactory.getLogger(ImageAnalysisServiceImpl.class);
 
+    // Stands in for the image URL while the request JSON template is serialized
+    private static final String IMAGE_PLACEHOLDER = "__INSUSCAN_IMAGE__";
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     private final VisionCacheService visionCache;
     private final ApiLogger apiLogger;
+    private final ImagePreprocessor imagePreprocessor;
+    private final UpstreamGuards upstreamGuards;
+
+    // Identical images analysed concurrently (double-tap, client retry) share one OpenAI call
+    private final SingleFlight<String, FoodRecognitionResult> visionFlights = new SingleFlight<>();
+
+    // Request JSON split around the image URL: [0] = before, [1] = after (index 0 strict, 1 relaxed)
+    private byte[][][] requestTemplates;
 
     @Value("${openai.api.key:}")
     private String openAiApiKey;
@@ -30,20 +59,55 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
     @Value("${openai.model:gpt-4o-mini}")
     private String openAiModel;
 
-    public ImageAnalysisServiceImpl(WebClient.Builder webClientBuilder,
-                                   ObjectMapper objectMapper,
-                                   VisionCacheService visionCache,
-                                   ApiLogger apiLogger) {
+    public ImageAnalysisServiceImpl(@Qualifier("openAiWebClientBuilder") WebClient.Builder webClientBuilder,
+                                    ObjectMapper objectMapper,
+                                    VisionCacheService visionCache,
+                                    ApiLogger apiLogger,
+                                    ImagePreprocessor imagePreprocessor,
+                                    UpstreamGuards upstreamGuards,
+                                    @Value("${openai.api.base-url:https://api.openai.com/v1}") String openAiBaseUrl) {
         this.webClient = webClientBuilder
-                .baseUrl("https://api.openai.com/v1")
+                .baseUrl(openAiBaseUrl)
                 .build();
         this.objectMapper = objectMapper;
         this.visionCache = visionCache;
         this.apiLogger = apiLogger;
+        this.imagePreprocessor = imagePreprocessor;
+        this.upstreamGuards = upstreamGuards;
+    }
+
+    @PostConstruct
+    public void initRequestTemplates() throws IOException {
+        requestTemplates = new byte[][][] {
+            splitTemplate(buildOpenAiRequestWithUrl(IMAGE_PLACEHOLDER, true)),
+            splitTemplate(buildOpenAiRequestWithUrl(IMAGE_PLACEHOLDER, false))
+        };
     }
 
     @Override
     public FoodRecognitionResult analyzeImage(String base64Image) {
+        return analyzeImageAsync(base64Image).block();
+    }
+
+    @Override
+    public FoodRecognitionResult analyzeImage(ImageData image) {
+        return analyzeImageAsync(image).block();
+    }
+
+    @Override
+    public Mono<FoodRecognitionResult> analyzeImageAsync(String base64Image) {
+        ImageData image;
+        try {
+            image = ImageData.fromBase64(base64Image);
+        } catch (IllegalArgumentException e) {
+            apiLogger.openaiError("Invalid Base64 image: " + e.getMessage(), e.getClass().getSimpleName());
+            return Mono.just(FoodRecognitionResult.failure("Image data is not valid Base64"));
+        }
+        return analyzeImageAsync(image);
+    }
+
+    @Override
+    public Mono<FoodRecognitionResult> analyzeImageAsync(ImageData image) {
         // Log API key status
         String keyPreview = (openAiApiKey != null && openAiApiKey.length() > 5) 
             ? openAiApiKey.substring(0, 5) : "N/A";
@@ -51,109 +115,140 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
 
         if (!isServiceAvailable()) {
             apiLogger.openaiError("API key not configured", "ConfigurationException");
-            return FoodRecognitionResult.failure("AI provider is not configured");
+            return Mono.just(FoodRecognitionResult.failure("AI provider is not configured"));
         }
 
-        // Check cache first
-        String imageHash = visionCache.hashImage(base64Image);
+        // Check cache first (hash was computed once when the upload was read)
+        String imageHash = image.getHash();
         FoodRecognitionResult cached = visionCache.getCached(imageHash);
         if (cached != null) {
             apiLogger.openaiCacheHit(imageHash);
-            return cached;
+            return Mono.just(cached);
         }
 
-        // Start request
-        apiLogger.openaiStart(openAiModel, base64Image.length());
-        long totalStartTime = System.currentTimeMillis();
-
-        try {
-            // First pass: strict prompt
-            List<FoodRecognitionResult.RecognizedFoodItem> foods = analyzeWithPrompt(base64Image, true);
-
-            // Retry with relaxed prompt if needed
-            if (foods.isEmpty()) {
-                apiLogger.openaiRetry("Strict prompt returned 0 foods");
-                foods = analyzeWithPrompt(base64Image, false);
-            }
-
-            long totalTime = System.currentTimeMillis() - totalStartTime;
-
-            if (foods.isEmpty()) {
-                apiLogger.openaiError("No foods detected even with relaxed prompt", "EmptyResult");
-                return FoodRecognitionResult.failure("No foods detected in image. Try a clearer photo.");
-            }
+        if (visionFlights.isInFlight(imageHash)) {
+            apiLogger.openaiCoalesced(imageHash);
+        }
+        return visionFlights.execute(imageHash, () -> runVisionAnalysis(image, imageHash));
+    }
 
-            // Log parsed foods
-            apiLogger.openaiParsedFoods(foods);
-            apiLogger.openaiSuccess(foods.size(), totalTime);
+    // Runs once per image hash at a time (see visionFlights)
+    private Mono<FoodRecognitionResult> runVisionAnalysis(ImageData image, String imageHash) {
+        // A flight for this hash may have finished between the cache check and now
+        FoodRecognitionResult cached = visionCache.peek(imageHash);
+        if (cached != null) {
+            apiLogger.openaiCacheHit(imageHash);
+            return Mono.just(cached);
+        }
 
-            FoodRecognitionResult result = FoodRecognitionResult.success(foods);
-            visionCache.putCache(imageHash, result);
+        long totalStartTime = System.currentTimeMillis();
 
-            return result;
+        // Downscale/re-encode only on a cache miss (the cache key stays the hash of the upload).
+        // Decoding is CPU heavy, so keep it off the event loop.
+        return Mono.fromCallable(() -> imagePreprocessor.prepare(image))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(prepared -> {
+                    // Start request
+                    apiLogger.openaiStart(openAiModel, prepared.base64Length());
+
+                    // First pass: strict prompt, retry with relaxed prompt if needed
+                    return analyzeWithPrompt(prepared, true)
+                            .flatMap(foods -> {
+                                if (!foods.isEmpty()) {
+                                    return Mono.just(foods);
+                                }
+                                apiLogger.openaiRetry("Strict prompt returned 0 foods");
+                                return analyzeWithPrompt(prepared, false);
+                            });
+                })
+                .map(foods -> {
+                    long totalTime = System.currentTimeMillis() - totalStartTime;
+
+                    if (foods.isEmpty()) {
+                        apiLogger.openaiError("No foods detected even with relaxed prompt", "EmptyResult");
+                        return FoodRecognitionResult.failure("No foods detected in image. Try a clearer photo.");
+                    }
 
-        } catch (RuntimeException e) {
-            apiLogger.openaiError(e.getMessage(), e.getClass().getSimpleName());
-            if (e.getMessage() != null && e.getMessage().contains("Rate limit")) {
-                return FoodRecognitionResult.failure("OpenAI rate limit exceeded. Please wait.");
-            }
-            return FoodRecognitionResult.failure("Image analysis failed: " + e.getMessage());
-        } catch (Exception e) {
-            apiLogger.openaiError(e.getMessage(), e.getClass().getSimpleName());
-            return FoodRecognitionResult.failure("Image analysis failed: " + e.getMessage());
-        }
+                    // Log parsed foods
+                    apiLogger.openaiParsedFoods(foods);
+                    apiLogger.openaiSuccess(foods.size(), totalTime);
+
+                    FoodRecognitionResult result = FoodRecognitionResult.success(foods);
+                    visionCache.putCache(imageHash, result);
+                    return result;
+                })
+                .onErrorResume(e -> {
+                    apiLogger.openaiError(e.getMessage(), e.getClass().getSimpleName());
+                    if (e instanceof WebClientResponseException
+                            && ((WebClientResponseException) e).getStatusCode().value() == 429) {
+                        return Mono.just(FoodRecognitionResult.failure("OpenAI rate limit exceeded. Please wait."));
+                    }
+                    if (e instanceof InsuScanUpstreamUnavailableException) {
+                        return Mono.just(FoodRecognitionResult.failure("AI provider is temporarily unavailable. Please try again shortly."));
+                    }
+                    return Mono.just(FoodRecognitionResult.failure("Image analysis failed: " + e.getMessage()));
+                });
     }
 
     @Override
     public FoodRecognitionResult analyzeImageFromUrl(String imageUrl) {
+        return analyzeImageFromUrlAsync(imageUrl).block();
+    }
+
+    @Override
+    public Mono<FoodRecognitionResult> analyzeImageFromUrlAsync(String imageUrl) {
         apiLogger.apiKeyStatus("OPENAI", isServiceAvailable(), 
             openAiApiKey != null && openAiApiKey.length() > 5 ? openAiApiKey.substring(0, 5) : "N/A");
 
         if (!isServiceAvailable()) {
-            return FoodRecognitionResult.failure("AI provider is not configured");
+            return Mono.just(FoodRecognitionResult.failure("AI provider is not configured"));
         }
 
         apiLogger.openaiStart(openAiModel, 0);
         long startTime = System.currentTimeMillis();
 
-        try {
-            Map<String, Object> requestBody = buildOpenAiRequestWithUrl(imageUrl);
-
-            String response = webClient.post()
-                    .uri("/chat/completions")
-                    .header("Authorization", "Bearer " + openAiApiKey)
-                    .header("Content-Type", "application/json")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                            clientResponse -> clientResponse.bodyToMono(String.class)
-                                    .map(body -> new RuntimeException("OpenAI error: " + body)))
-                    .bodyToMono(String.class)
-                    .block();
-
-            long elapsed = System.currentTimeMillis() - startTime;
-            apiLogger.openaiResponseReceived(elapsed, response != null ? response.length() : 0);
-
-            if (response == null || response.isBlank()) {
-                return FoodRecognitionResult.failure("Provider returned empty response");
-            }
+        Map<String, Object> requestBody = buildOpenAiRequestWithUrl(imageUrl, true);
 
-            String content = extractContentFromResponse(response);
-            apiLogger.openaiRawResponse(content);
+        return upstreamGuards.openAiVision().protect(webClient.post()
+                .uri("/chat/completions")
+                .header("Authorization", "Bearer " + openAiApiKey)
+                .header("Content-Type", "application/json")
+                .bodyValue(requestBody)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> {
+                            if (clientResponse.statusCode().value() == 429) {
+                                return clientResponse.createException();
+                            }
+                            return clientResponse.bodyToMono(String.class)
+                                    .map(body -> new RuntimeException("OpenAI error: " + body));
+                        })
+                .bodyToMono(String.class))
+                .defaultIfEmpty("")
+                .flatMap(response -> Mono.fromCallable(() -> {
+                    long elapsed = System.currentTimeMillis() - startTime;
+                    apiLogger.openaiResponseReceived(elapsed, response.length());
+
+                    if (response.isBlank()) {
+                        return FoodRecognitionResult.failure("Provider returned empty response");
+                    }
 
-            if (content == null || content.isBlank()) {
-                return FoodRecognitionResult.failure("Could not extract content from response");
-            }
+                    String content = extractContentFromResponse(response);
+                    apiLogger.openaiRawResponse(content);
 
-            List<FoodRecognitionResult.RecognizedFoodItem> foods = parseFoodsFromOpenAi(content);
-            apiLogger.openaiParsedFoods(foods);
+                    if (content == null || content.isBlank()) {
+                        return FoodRecognitionResult.failure("Could not extract content from response");
+                    }
 
-            return FoodRecognitionResult.success(foods);
+                    List<FoodRecognitionResult.RecognizedFoodItem> foods = parseFoodsFromOpenAi(content);
+                    apiLogger.openaiParsedFoods(foods);
 
-        } catch (Exception e) {
-            apiLogger.openaiError(e.getMessage(), e.getClass().getSimpleName());
-            return FoodRecognitionResult.failure("Image analysis failed: " + e.getMessage());
-        }
+                    return FoodRecognitionResult.success(foods);
+                }))
+                .onErrorResume(e -> {
+                    apiLogger.openaiError(e.getMessage(), e.getClass().getSimpleName());
+                    return Mono.just(FoodRecognitionResult.failure("Image analysis failed: " + e.getMessage()));
+                });
     }
 
     @Override
@@ -161,69 +256,98 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
         return openAiApiKey != null && !openAiApiKey.isBlank();
     }
 
-    private List<FoodRecognitionResult.RecognizedFoodItem> analyzeWithPrompt(String base64Image, boolean strict) throws Exception {
-        Map<String, Object> requestBody = buildOpenAiRequestWithBase64(base64Image, strict);
+    @Override
+    public long getCoalescedCalls() {
+        return visionFlights.getCoalesced();
+    }
 
+    private Mono<List<FoodRecognitionResult.RecognizedFoodItem>> analyzeWithPrompt(ImageData image, boolean strict) {
         log.debug("[OPENAI] Sending {} prompt request...", strict ? "STRICT" : "RELAXED");
         long startTime = System.currentTimeMillis();
 
-        String response = webClient.post()
+        return upstreamGuards.openAiVision().protect(webClient.post()
                 .uri("/chat/completions")
                 .header("Authorization", "Bearer " + openAiApiKey)
                 .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
+                // Body is built per subscription, Base64 is encoded straight into its buffer
+                .body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> buildOpenAiRequestBody(image, strict))))
                 .retrieve()
                 .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
                         clientResponse -> {
                             if (clientResponse.statusCode().value() == 429) {
-                                return clientResponse.bodyToMono(String.class)
-                                        .map(body -> new RuntimeException("Rate limit exceeded: " + body));
+                                // Keep status and Retry-After headers for the guard's 429 retry
+                                return clientResponse.createException();
                             }
                             return clientResponse.bodyToMono(String.class)
                                     .map(body -> new RuntimeException("OpenAI API error: " + body));
                         })
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(String.class))
+                .defaultIfEmpty("")
+                .flatMap(response -> Mono.fromCallable(() -> {
+                    long elapsed = System.currentTimeMillis() - startTime;
+                    apiLogger.openaiResponseReceived(elapsed, response.length());
+
+                    if (response.isBlank()) {
+                        throw new IllegalStateException("Provider returned empty response");
+                    }
 
-        long elapsed = System.currentTimeMillis() - startTime;
-        apiLogger.openaiResponseReceived(elapsed, response != null ? response.length() : 0);
+                    String content = extractContentFromResponse(response);
+                    apiLogger.openaiRawResponse(content);
 
-        if (response == null || response.isBlank()) {
-            throw new IllegalStateException("Provider returned empty response");
-        }
+                    if (content == null || content.isBlank()) {
+                        throw new IllegalStateException("Could not extract content from OpenAI response");
+                    }
 
-        String content = extractContentFromResponse(response);
-        apiLogger.openaiRawResponse(content);
+                    return parseFoodsFromOpenAi(content);
+                }));
+    }
 
-        if (content == null || content.isBlank()) {
-            throw new IllegalStateException("Could not extract content from OpenAI response");
+    /**
+     * Request JSON for an inline image, written into a single exactly-sized buffer:
+     * template head + "data:<mime>;base64," + encoded image + template tail.
+     * Base64 output is JSON-safe, so no escaping pass is needed.
+     */
+    private DataBuffer buildOpenAiRequestBody(ImageData image, boolean strict) {
+        byte[][] template = requestTemplates[strict ? 0 : 1];
+        byte[] urlPrefix = ("data:" + safeMimeType(image.getMimeType()) + ";base64,").getBytes(StandardCharsets.US_ASCII);
+
+        int length = template[0].length + urlPrefix.length + image.base64Length() + template[1].length;
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(length);
+        try (OutputStream out = buffer.asOutputStream()) {
+            out.write(template[0]);
+            out.write(urlPrefix);
+            image.writeBase64(out);
+            out.write(template[1]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return parseFoodsFromOpenAi(content);
+        return buffer;
     }
 
-    private Map<String, Object> buildOpenAiRequestWithBase64(String base64Image, boolean strict) {
-        String prompt = buildPrompt(strict);
-
-        Map<String, Object> textContent = Map.of("type", "text", "text", prompt);
-        Map<String, Object> imageUrlObj = Map.of("url", "data:image/jpeg;base64," + base64Image);
-        Map<String, Object> imageContent = Map.of("type", "image_url", "image_url", imageUrlObj);
-
-        Map<String, Object> userMessage = Map.of(
-                "role", "user",
-                "content", List.of(textContent, imageContent)
-        );
+    private byte[][] splitTemplate(Map<String, Object> request) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        byte[] marker = IMAGE_PLACEHOLDER.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i <= json.length - marker.length; i++) {
+            if (Arrays.equals(json, i, i + marker.length, marker, 0, marker.length)) {
+                return new byte[][] {
+                    Arrays.copyOfRange(json, 0, i),
+                    Arrays.copyOfRange(json, i + marker.length, json.length)
+                };
+            }
+        }
+        throw new IllegalStateException("Image placeholder missing from request template");
+    }
 
-        return Map.of(
-                "model", openAiModel,
-                "messages", List.of(userMessage),
-                "temperature", 0.2,
-                "max_tokens", 600
-        );
+    // The MIME type goes into the JSON unescaped, so only allow plain type/subtype characters
+    private static String safeMimeType(String mimeType) {
+        if (mimeType != null && mimeType.matches("image/[a-zA-Z0-9.+-]+")) {
+            return mimeType;
+        }
+        return "image/jpeg";
     }
 
-    private Map<String, Object> buildOpenAiRequestWithUrl(String imageUrl) {
-        String prompt = buildPrompt(true);
+    private Map<String, Object> buildOpenAiRequestWithUrl(String imageUrl, boolean strict) {
+        String prompt = buildPrompt(strict);
 
         Map<String, Object> textContent = Map.of("type", "text", "text", prompt);
         Map<String, Object> imageUrlObj = Map.of("url", imageUrl);
@@ -284,7 +408,8 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
                 """;
     }
 
-    private List<FoodRecognitionResult.RecognizedFoodItem> parseFoodsFromOpenAi(String rawResponse) throws Exception {
+    // Package-private for ImageAnalysisParseBenchmark
+    List<FoodRecognitionResult.RecognizedFoodItem> parseFoodsFromOpenAi(String rawResponse) throws Exception {
         String jsonText = extractFirstJsonObject(rawResponse);
 
         JsonNode root = objectMapper.readTree(jsonText);
@@ -333,7 +458,7 @@ public class ImageAnalysisServiceImpl implements ImageAnalysisService {
         return results;
     }
 
-    private String extractContentFromResponse(String rawResponse) {
+    String extractContentFromResponse(String rawResponse) {
         try {
             JsonNode root = objectMapper.readTree(rawResponse);
             JsonNode choices = root.get("choices");
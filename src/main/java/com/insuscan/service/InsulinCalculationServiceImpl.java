@@ -2,7 +2,7 @@ package com.insuscan.service;
 
 import com.insuscan.boundary.InsulinCalculationBoundary;
 import com.insuscan.boundary.UserIdBoundary;
-import com.insuscan.crud.UserRepository;
+import com.insuscan.crud.UserProfileCache;
 import com.insuscan.data.UserEntity;
 import com.insuscan.util.ApiLogger;
 import com.insuscan.calculation.InsulinCalculator;
@@ -22,7 +22,7 @@ public class InsulinCalculationServiceImpl implements InsulinCalculationService
 
     private static final Logger log = LoggerFactory.getLogger(InsulinCalculationServiceImpl.class);
     
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     private final ApiLogger apiLogger;
 
     
@@ -40,8 +40,8 @@ public class InsulinCalculationServiceImpl implements InsulinCalculationService
     private static final int LOW_GLUCOSE_THRESHOLD = InsulinDefaults.LOW_GLUCOSE_THRESHOLD;
     private static final int HIGH_GLUCOSE_THRESHOLD = InsulinDefaults.HIGH_GLUCOSE_THRESHOLD;
 
-    public InsulinCalculationServiceImpl(UserRepository userRepository, ApiLogger apiLogger) {
-        this.userRepository = userRepository;
+    public InsulinCalculationServiceImpl(UserProfileCache userProfileCache, ApiLogger apiLogger) {
+        this.userProfileCache = userProfileCache;
         this.apiLogger = apiLogger;
     }
 
@@ -196,7 +196,7 @@ public class InsulinCalculationServiceImpl implements InsulinCalculationService
         try {
             String userDocId = (userId.getSystemId() != null ? userId.getSystemId() : systemId) 
                     + "_" + userId.getEmail();
-            return userRepository.findById(userDocId).orElse(null);
+            return userProfileCache.findById(userDocId).orElse(null);
         } catch (Exception e) {
             log.warn("Failed to load user profile: {}", e.getMessage());
             return null;
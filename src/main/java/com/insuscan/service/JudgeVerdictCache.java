@@ -0,0 +1,309 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.CacheStatsBoundary;
+import com.insuscan.boundary.FoodRecognitionResult;
+import com.insuscan.boundary.NutritionInfo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches semantic judge verdicts (chosen fdcId) so repeat foods skip the LLM call.
+ *
+ * The judge runs at temperature 0 and its prompt is fully determined by the target's
+ * name, base ingredient, visual state, risk flags and the candidate fdcIds, so those
+ * (plus the model) form the key. The key is canonical: case, whitespace and ordering of
+ * flags/candidates do not matter.
+ *
+ * Memory tier: LRU bounded by entry count, with TTL expiry.
+ * Disk tier (optional, DiskCacheTier): one small JSON file per key, so verdicts survive restarts.
+ */
+@Service
+public class JudgeVerdictCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JudgeVerdictCache.class);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Rough per-entry overhead (map node, entry object, strings) used when estimating size
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final ObjectMapper objectMapper;
+
+    // Access-ordered map = LRU; guarded by "this"
+    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes = 0;
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Value("${insuscan.judge-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${insuscan.judge-cache.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${insuscan.judge-cache.ttl-days:30}")
+    private long ttlDays;
+
+    @Value("${insuscan.judge-cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${insuscan.judge-cache.disk.dir:judge-cache}")
+    private String diskDir;
+
+    private DiskCacheTier<DiskEntry> disk;  // null when disabled
+
+    public JudgeVerdictCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void initDiskTier() {
+        if (enabled && diskEnabled) {
+            disk = DiskCacheTier.open("judge", diskDir, DiskEntry.class, objectMapper);
+        }
+    }
+
+    /**
+     * Canonical cache key for a judge call: SHA-256 (hex) of
+     * model | name | base ingredient | state | sorted risk flags | sorted candidate fdcIds.
+     * The name is part of the prompt ("Item: ..."), so "rice pudding" and "fried rice"
+     * with base ingredient "rice" get separate verdicts.
+     */
+    public String keyFor(String model, FoodRecognitionResult.RecognizedFoodItem target, List<NutritionInfo> candidates) {
+        TreeSet<String> flags = new TreeSet<>();
+        if (target.getRiskFlags() != null) {
+            for (String flag : target.getRiskFlags()) {
+                if (flag != null && !flag.isBlank()) flags.add(normalize(flag));
+            }
+        }
+        TreeSet<String> fdcIds = new TreeSet<>();
+        for (NutritionInfo candidate : candidates) {
+            if (candidate.getFdcId() != null) fdcIds.add(candidate.getFdcId().trim());
+        }
+
+        String canonical = String.join("|",
+                normalize(model),
+                normalize(target.getName()),
+                normalize(target.getBaseIngredient()),
+                normalize(target.getVisualState()),
+                String.join(",", flags),
+                String.join(",", fdcIds));
+        return sha256Hex(canonical);
+    }
+
+    /**
+     * Cached fdcId for the key, or null if not found/expired
+     */
+    public String get(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.createdAt, now)) {
+                    hits.incrementAndGet();
+                    return entry.fdcId;
+                }
+                removeEntry(key);
+                expirations.incrementAndGet();
+            }
+        }
+
+        // Memory miss - try the disk tier and promote on hit
+        DiskEntry fromDisk = readFromDisk(key);
+        if (fromDisk != null && !isExpired(fromDisk.createdAt, now)) {
+            diskHits.incrementAndGet();
+            synchronized (this) {
+                putInMemory(key, fromDisk.fdcId, fromDisk.createdAt);
+            }
+            return fromDisk.fdcId;
+        }
+        if (fromDisk != null) {
+            deleteFromDisk(key);
+            expirations.incrementAndGet();
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store a verdict. Only real judge answers should be cached, not error fallbacks.
+     */
+    public void put(String key, String fdcId) {
+        if (!enabled || key == null || fdcId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            putInMemory(key, fdcId, now);
+        }
+        writeToDisk(key, fdcId, now);
+    }
+
+    /**
+     * Clear expired entries from memory and disk (runs periodically)
+     */
+    @Scheduled(fixedDelayString = "${insuscan.judge-cache.cleanup-interval-ms:3600000}")
+    public void clearExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CacheEntry> entry = it.next();
+                if (isExpired(entry.getValue().createdAt, now)) {
+                    currentBytes -= entry.getValue().sizeBytes;
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+
+        if (disk != null) {
+            removed += disk.deleteExpired(ttlMillis(), now);
+        }
+
+        if (removed > 0) {
+            expirations.addAndGet(removed);
+            log.debug("Cleared {} expired judge cache entries", removed);
+        }
+    }
+
+    /**
+     * Current size and hit/miss counters
+     */
+    public synchronized CacheStatsBoundary getStats() {
+        CacheStatsBoundary stats = new CacheStatsBoundary();
+        stats.setName("judge");
+        stats.setEntries(cache.size());
+        stats.setEstimatedBytes(currentBytes);
+        stats.setHits(hits.get());
+        stats.setDiskHits(diskHits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        stats.setExpirations(expirations.get());
+        return stats;
+    }
+
+    // ===== Memory tier (caller holds the lock) =====
+
+    private void putInMemory(String key, String fdcId, long createdAt) {
+        removeEntry(key);
+
+        CacheEntry entry = new CacheEntry(fdcId, createdAt, estimateSize(key, fdcId));
+        cache.put(key, entry);
+        currentBytes += entry.sizeBytes;
+
+        Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator();
+        while (cache.size() > maxEntries && it.hasNext()) {
+            Map.Entry<String, CacheEntry> eldest = it.next();
+            currentBytes -= eldest.getValue().sizeBytes;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(String key) {
+        CacheEntry old = cache.remove(key);
+        if (old != null) {
+            currentBytes -= old.sizeBytes;
+        }
+    }
+
+    private static long estimateSize(String key, String fdcId) {
+        return ENTRY_OVERHEAD_BYTES + 2L * key.length() + 2L * fdcId.length();
+    }
+
+    // ===== Disk tier =====
+
+    private DiskEntry readFromDisk(String key) {
+        return disk != null ? disk.read(key) : null;
+    }
+
+    private void writeToDisk(String key, String fdcId, long createdAt) {
+        if (disk != null) {
+            DiskEntry entry = new DiskEntry();
+            entry.createdAt = createdAt;
+            entry.fdcId = fdcId;
+            disk.write(key, entry);
+        }
+    }
+
+    private void deleteFromDisk(String key) {
+        if (disk != null) {
+            disk.delete(key);
+        }
+    }
+
+    private boolean isExpired(long createdAt, long now) {
+        return now - createdAt > ttlMillis();
+    }
+
+    private long ttlMillis() {
+        return ttlDays * 24L * 60 * 60 * 1000;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] out = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                out[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                out[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(out);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class CacheEntry {
+        final String fdcId;
+        final long createdAt;
+        final long sizeBytes;
+
+        CacheEntry(String fdcId, long createdAt, long sizeBytes) {
+            this.fdcId = fdcId;
+            this.createdAt = createdAt;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    // JSON shape of a disk-tier file
+    static class DiskEntry {
+        public long createdAt;
+        public String fdcId;
+    }
+}
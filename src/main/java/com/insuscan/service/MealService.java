@@ -2,6 +2,8 @@ package com.insuscan.service;
 
 import com.insuscan.boundary.FoodItemBoundary;
 import com.insuscan.boundary.MealBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
+import com.insuscan.boundary.PageBoundary;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -16,8 +18,11 @@ public interface MealService {
     // Get meal by ID
     Optional<MealBoundary> getMealById(String systemId, String mealId);
 
-    // Get all meals for a user (with pagination)
-    List<MealBoundary> getMealsByUser(String systemId, String email, int page, int size);
+    // Get meal summaries for a user (with pagination); full meals via getMealById
+    List<MealSummaryBoundary> getMealsByUser(String systemId, String email, int page, int size);
+
+    // Get meals for a user, cursor-paginated (pageToken null = first page)
+    PageBoundary<MealBoundary> getMealsByUserPage(String systemId, String email, String pageToken, int size);
 
     // Update meal with detected food items
     MealBoundary updateFoodItems(String systemId, String mealId, List<FoodItemBoundary> foodItems);
@@ -46,8 +51,8 @@ public interface MealService {
     // Delete all meals (admin only)
     void deleteAllMeals(String adminSystemId, String adminEmail);
 
-    // Get recent meals for user (last N)
-    List<MealBoundary> getRecentMeals(String systemId, String email, int count);
+    // Get summaries of the user's recent meals (last N)
+    List<MealSummaryBoundary> getRecentMeals(String systemId, String email, int count);
 
     // Get meal count for user
     long getMealCountForUser(String systemId, String email);
@@ -55,4 +60,8 @@ public interface MealService {
     List<MealBoundary> getMealsByDateRange(String systemId, String email, 
             LocalDate from, LocalDate to, 
             int page, int size);
+
+    PageBoundary<MealBoundary> getMealsByDateRangePage(String systemId, String email,
+            LocalDate from, LocalDate to,
+            String pageToken, int size);
 }
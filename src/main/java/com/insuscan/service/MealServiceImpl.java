@@ -5,9 +5,12 @@ import org.springframework.stereotype.Service;
 
 import com.insuscan.boundary.FoodItemBoundary;
 import com.insuscan.boundary.MealBoundary;
+import com.insuscan.boundary.MealSummaryBoundary;
+import com.insuscan.boundary.PageBoundary;
+import com.insuscan.crud.CursorPage;
 import com.insuscan.converter.MealConverter;
 import com.insuscan.crud.MealRepository;
-import com.insuscan.crud.UserRepository;
+import com.insuscan.crud.UserProfileCache;
 import com.insuscan.data.MealEntity;
 import com.insuscan.data.UserEntity;
 import com.insuscan.enums.MealStatus;
@@ -31,16 +34,19 @@ import java.util.stream.Collectors;
 public class MealServiceImpl implements MealService {
 
     private final MealRepository mealRepository;
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     private final MealConverter mealConverter;
+    private final MealStatsService mealStatsService;
 
     @Value("${spring.application.name}")
     private String systemId;
 
-    public MealServiceImpl(MealRepository mealRepository, UserRepository userRepository, MealConverter mealConverter) {
+    public MealServiceImpl(MealRepository mealRepository, UserProfileCache userProfileCache,
+                           MealConverter mealConverter, MealStatsService mealStatsService) {
         this.mealRepository = mealRepository;
-        this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
         this.mealConverter = mealConverter;
+        this.mealStatsService = mealStatsService;
     }
 
     @Override
@@ -50,14 +56,15 @@ public class MealServiceImpl implements MealService {
 
         // Verify user exists
         String userId = userSystemId + "_" + userEmail;
-        if (!userRepository.existsById(userId)) {
+        if (!userProfileCache.existsById(userId)) {
             throw new InsuScanNotFoundException("User not found: " + userEmail);
         }
 
         // Create new meal entity
         MealEntity entity = mealConverter.createNewMealEntity(userEmail, imageUrl);
         
-        MealEntity saved = mealRepository.save(entity);
+        MealEntity saved = mealRepository.create(entity);
+        mealStatsService.mealSaved(saved);
         return mealConverter.toBoundary(saved);
     }
 
@@ -72,18 +79,29 @@ public class MealServiceImpl implements MealService {
     }
 
     @Override
-    public List<MealBoundary> getMealsByUser(String systemId, String email, int page, int size) {
+    public List<MealSummaryBoundary> getMealsByUser(String systemId, String email, int page, int size) {
         InputValidators.validateSystemId(systemId);
         InputValidators.validateEmail(email);
 
         String userId = systemId + "_" + email;
 
-        return mealRepository.findByUserId(userId, page, size)
+        return mealRepository.findSummariesByUserId(userId, page, size)
             .stream()
-            .map(mealConverter::toBoundary)
+            .map(mealConverter::toSummaryBoundary)
             .collect(Collectors.toList());
     }
 
+    @Override
+    public PageBoundary<MealBoundary> getMealsByUserPage(String systemId, String email, String pageToken, int size) {
+        InputValidators.validateSystemId(systemId);
+        InputValidators.validateEmail(email);
+        InputValidators.validatePageSize(size);
+
+        String userId = systemId + "_" + email;
+
+        return toPageBoundary(mealRepository.findByUserIdAfter(userId, pageToken, size));
+    }
+
     @Override
     public MealBoundary updateFoodItems(String systemId, String mealId, List<FoodItemBoundary> foodItems) {
         InputValidators.validateSystemId(systemId);
@@ -105,6 +123,7 @@ public class MealServiceImpl implements MealService {
         mealConverter.calculateTotals(entity);
 
         MealEntity saved = mealRepository.save(entity);
+        mealStatsService.mealSaved(saved);
         return mealConverter.toBoundary(saved);
     }
 
@@ -120,7 +139,7 @@ public class MealServiceImpl implements MealService {
         .orElseThrow(() -> new InsuScanNotFoundException("Meal not found: " + mealId));
 
     // Get user profile for calculation params
-    UserEntity user = userRepository.findById(meal.getUserId())
+    UserEntity user = userProfileCache.findById(meal.getUserId())
         .orElseThrow(() -> new InsuScanNotFoundException("User not found for meal"));
 
     // Store user context at meal time
@@ -186,6 +205,7 @@ public class MealServiceImpl implements MealService {
     meal.setConfirmedAt(new Date());
 
     MealEntity saved = mealRepository.save(meal);
+    mealStatsService.mealSaved(saved);
     return mealConverter.toBoundary(saved);
 }
 
@@ -208,6 +228,7 @@ public class MealServiceImpl implements MealService {
         meal.setCompletedAt(new Date());
 
         MealEntity saved = mealRepository.save(meal);
+        mealStatsService.mealSaved(saved);
         return mealConverter.toBoundary(saved);
     }
 
@@ -241,11 +262,12 @@ public class MealServiceImpl implements MealService {
         InputValidators.validateNotEmpty(mealId, "mealId");
 
         String id = systemId + "_" + mealId;
-        if (!mealRepository.existsById(id)) {
-            throw new InsuScanNotFoundException("Meal not found: " + mealId);
-        }
+        // Loaded rather than existence-checked: the rollup needs the meal's user and day
+        MealEntity meal = mealRepository.findById(id)
+            .orElseThrow(() -> new InsuScanNotFoundException("Meal not found: " + mealId));
 
         mealRepository.deleteById(id);
+        mealStatsService.mealDeleted(meal);
     }
 
     @Override
@@ -255,24 +277,26 @@ public class MealServiceImpl implements MealService {
 
         String targetUserId = targetSystemId + "_" + targetEmail;
         mealRepository.deleteByUserId(targetUserId);
+        mealStatsService.allMealsDeletedForUser(targetUserId);
     }
 
     @Override
     public void deleteAllMeals(String adminSystemId, String adminEmail) {
         verifyAdminAccess(adminSystemId, adminEmail);
         mealRepository.deleteAll();
+        mealStatsService.allMealsDeleted();
     }
 
     @Override
-    public List<MealBoundary> getRecentMeals(String systemId, String email, int count) {
+    public List<MealSummaryBoundary> getRecentMeals(String systemId, String email, int count) {
         InputValidators.validateSystemId(systemId);
         InputValidators.validateEmail(email);
 
         String userId = systemId + "_" + email;
 
-        return mealRepository.findRecentByUserId(userId, count)
+        return mealRepository.findRecentSummariesByUserId(userId, count)
             .stream()
-            .map(mealConverter::toBoundary)
+            .map(mealConverter::toSummaryBoundary)
             .collect(Collectors.toList());
     }
 
@@ -292,7 +316,7 @@ public class MealServiceImpl implements MealService {
         InputValidators.validateEmail(email);
 
         String id = systemId + "_" + email;
-        UserEntity admin = userRepository.findById(id)
+        UserEntity admin = userProfileCache.findById(id)
             .orElseThrow(() -> new InsuScanNotFoundException("Admin user not found: " + email));
 
         if (admin.getRole() != UserRole.ADMIN) {
@@ -319,4 +343,27 @@ public class MealServiceImpl implements MealService {
             .map(mealConverter::toBoundary)
             .collect(Collectors.toList());
     }
+
+    @Override
+    public PageBoundary<MealBoundary> getMealsByDateRangePage(String systemId, String email,
+                                                             LocalDate from, LocalDate to,
+                                                             String pageToken, int size) {
+        InputValidators.validateSystemId(systemId);
+        InputValidators.validateEmail(email);
+        InputValidators.validatePageSize(size);
+
+        String userId = systemId + "_" + email;
+
+        Date fromDate = Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date toDate = Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        return toPageBoundary(mealRepository.findByUserIdAndDateRangeAfter(userId, fromDate, toDate, pageToken, size));
+    }
+
+    private PageBoundary<MealBoundary> toPageBoundary(CursorPage<MealEntity> page) {
+        List<MealBoundary> items = page.getItems().stream()
+            .map(mealConverter::toBoundary)
+            .collect(Collectors.toList());
+        return new PageBoundary<>(items, page.getNextPageToken());
+    }
 }
@@ -0,0 +1,34 @@
+package com.insuscan.service;
+
+import com.insuscan.boundary.MealStatsBoundary;
+import com.insuscan.data.MealEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Daily meal analytics, served from precomputed per-day rollups
+public interface MealStatsService {
+
+    // Totals for a user's meals scanned between from and to (both inclusive)
+    MealStatsBoundary getStats(String systemId, String email, LocalDate from, LocalDate to);
+
+    // Keep rollups current: call after each meal save / before each meal delete.
+    // Writes are queued and run in order on a background thread; failures are never
+    // surfaced to the meal write but kept and retried (see getUsersWithFailedRollups).
+    void mealSaved(MealEntity meal);
+
+    Mono<Void> mealSavedAsync(MealEntity meal);
+
+    void mealDeleted(MealEntity meal);
+
+    void allMealsDeletedForUser(String userId);
+
+    void allMealsDeleted();
+
+    // Recompute a user's rollups from their meals (backfill / repair); returns the number of meals read
+    int rebuildForUser(String systemId, String email);
+
+    // Users with a rollup write that failed and has not been retried successfully yet (rebuild candidates)
+    List<String> getUsersWithFailedRollups();
+}
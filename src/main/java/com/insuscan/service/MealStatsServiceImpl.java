@@ -0,0 +1,271 @@
+package com.insuscan.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.insuscan.boundary.DailyMealStatsBoundary;
+import com.insuscan.boundary.MealStatsBoundary;
+import com.insuscan.crud.MealRepository;
+import com.insuscan.crud.MealRollupRepository;
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import com.insuscan.exception.InsuScanInvalidInputException;
+import com.insuscan.util.InputValidators;
+import com.insuscan.util.NumberUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class MealStatsServiceImpl implements MealStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(MealStatsServiceImpl.class);
+    private static final int MAX_QUEUED_WRITES = 10000;
+
+    private final MealRollupRepository rollupRepository;
+    private final MealRepository mealRepository;
+
+    // Rollup writes run here, one at a time in submission order, off the request thread
+    private final ThreadPoolExecutor rollupWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_QUEUED_WRITES), r -> {
+                Thread t = new Thread(r, "meal-rollups");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Latest failed write per meal id, retried by retryFailedWrites
+    private final Map<String, FailedWrite> failedWrites = new ConcurrentHashMap<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    // Longest range one stats request may cover (one rollup read per day)
+    @Value("${insuscan.meal-stats.max-days:366}")
+    private int maxDays;
+
+    public MealStatsServiceImpl(MealRollupRepository rollupRepository, MealRepository mealRepository) {
+        this.rollupRepository = rollupRepository;
+        this.mealRepository = mealRepository;
+    }
+
+    @Override
+    public MealStatsBoundary getStats(String systemId, String email, LocalDate from, LocalDate to) {
+        InputValidators.validateSystemId(systemId);
+        InputValidators.validateEmail(email);
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InsuScanInvalidInputException("Invalid date range: from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new InsuScanInvalidInputException("Date range too long. Maximum is " + maxDays + " days");
+        }
+
+        String userId = systemId + "_" + email;
+        List<DailyRollupEntity> rollups = rollupRepository.findByUserIdAndDayRange(userId, from, to);
+
+        MealStatsBoundary stats = new MealStatsBoundary();
+        stats.setFrom(from);
+        stats.setTo(to);
+        List<DailyMealStatsBoundary> days = new ArrayList<>(rollups.size());
+        double carbs = 0;
+        double recommended = 0;
+        double actual = 0;
+        for (DailyRollupEntity rollup : rollups) {
+            days.add(toBoundary(rollup));
+            stats.setMealCount(stats.getMealCount() + rollup.getMealCount());
+            stats.setSickModeCount(stats.getSickModeCount() + rollup.getSickModeCount());
+            stats.setStressModeCount(stats.getStressModeCount() + rollup.getStressModeCount());
+            carbs += rollup.getTotalCarbs();
+            recommended += rollup.getTotalRecommendedDose();
+            actual += rollup.getTotalActualDose();
+        }
+        stats.setTotalCarbs(NumberUtils.roundTo2Decimals((float) carbs));
+        stats.setTotalRecommendedDose(NumberUtils.roundTo2Decimals((float) recommended));
+        stats.setTotalActualDose(NumberUtils.roundTo2Decimals((float) actual));
+        stats.setDays(days);
+        return stats;
+    }
+
+    @Override
+    public void mealSaved(MealEntity meal) {
+        submitWrite(meal, false);
+    }
+
+    @Override
+    public Mono<Void> mealSavedAsync(MealEntity meal) {
+        return Mono.fromRunnable(() -> mealSaved(meal));
+    }
+
+    @Override
+    public void mealDeleted(MealEntity meal) {
+        submitWrite(meal, true);
+    }
+
+    @Override
+    public void allMealsDeletedForUser(String userId) {
+        submit(() -> {
+            failedWrites.values().removeIf(failed -> userId.equals(failed.meal.getUserId()));
+            try {
+                rollupRepository.deleteByUserId(userId);
+            } catch (RuntimeException e) {
+                log.warn("Meal rollups not deleted for user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void allMealsDeleted() {
+        submit(() -> {
+            failedWrites.clear();
+            try {
+                rollupRepository.deleteAll();
+            } catch (RuntimeException e) {
+                log.warn("Meal rollups not deleted: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Retry failed rollup writes on the writer thread, so a newer write of the same meal
+    // that ran in between (and cleared the failure) is never overwritten by the old one
+    @Scheduled(fixedDelayString = "${insuscan.meal-stats.retry-interval-ms:30000}")
+    public void retryFailedWrites() {
+        if (failedWrites.isEmpty()) {
+            return;
+        }
+        submit(() -> {
+            int retried = 0;
+            for (FailedWrite failed : new ArrayList<>(failedWrites.values())) {
+                if (failedWrites.remove(failed.meal.getId(), failed)) {
+                    writeRollup(failed);
+                    retried++;
+                }
+            }
+            log.info("Retried {} failed meal rollup writes, {} still failing", retried, failedWrites.size());
+        });
+    }
+
+    @Override
+    public List<String> getUsersWithFailedRollups() {
+        Set<String> userIds = new TreeSet<>();
+        for (FailedWrite failed : failedWrites.values()) {
+            userIds.add(failed.meal.getUserId());
+        }
+        return new ArrayList<>(userIds);
+    }
+
+    @PreDestroy
+    public void stopRollupWriter() {
+        rollupWriter.shutdown();
+        try {
+            rollupWriter.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!failedWrites.isEmpty()) {
+            log.warn("{} meal rollup writes failed and were not retried; run the stats rebuild for their users",
+                    failedWrites.size());
+        }
+    }
+
+    private void submitWrite(MealEntity meal, boolean removal) {
+        FailedWrite write = new FailedWrite(meal, removal, writeSequence.incrementAndGet());
+        try {
+            rollupWriter.execute(() -> writeRollup(write));
+        } catch (RejectedExecutionException e) {
+            keepFailed(write);
+            log.warn("Meal rollup queue full, {} left for retry", meal.getId());
+        }
+    }
+
+    // Runs on the writer thread; a failure is kept for retryFailedWrites
+    private void writeRollup(FailedWrite write) {
+        try {
+            if (write.removal) {
+                rollupRepository.remove(write.meal);
+            } else {
+                rollupRepository.record(write.meal);
+            }
+            // Clears an older failure of this meal, never a newer one
+            failedWrites.computeIfPresent(write.meal.getId(), (id, failed) -> failed.sequence <= write.sequence ? null : failed);
+        } catch (RuntimeException e) {
+            keepFailed(write);
+            log.warn("Meal rollup not updated for {}, will retry: {}", write.meal.getId(), e.getMessage());
+        }
+    }
+
+    private void keepFailed(FailedWrite write) {
+        failedWrites.merge(write.meal.getId(), write, (old, current) -> old.sequence > current.sequence ? old : current);
+    }
+
+    // Bulk deletes run on the caller thread when the queue is full
+    private void submit(Runnable task) {
+        try {
+            rollupWriter.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    @Override
+    public int rebuildForUser(String systemId, String email) {
+        InputValidators.validateSystemId(systemId);
+        InputValidators.validateEmail(email);
+
+        // Re-record in place, then drop entries of meals that no longer exist: stats read
+        // during the rebuild never see a user's days emptied
+        String userId = systemId + "_" + email;
+        long startSequence = writeSequence.get();
+        List<MealEntity> meals = mealRepository.findByUserId(userId);
+        Set<String> mealIds = new HashSet<>();
+        for (MealEntity meal : meals) {
+            rollupRepository.record(meal);
+            mealIds.add(meal.getId());
+        }
+        int orphans = rollupRepository.removeOrphans(userId, mealIds);
+        // Failures from before the rebuild are repaired by it
+        failedWrites.values().removeIf(failed ->
+                userId.equals(failed.meal.getUserId()) && failed.sequence <= startSequence);
+        log.info("Rebuilt meal rollups for {} from {} meals, removed {} orphaned entries",
+                userId, meals.size(), orphans);
+        return meals.size();
+    }
+
+    private DailyMealStatsBoundary toBoundary(DailyRollupEntity rollup) {
+        DailyMealStatsBoundary day = new DailyMealStatsBoundary();
+        day.setDate(rollup.getDay());
+        day.setMealCount(rollup.getMealCount());
+        day.setTotalCarbs(NumberUtils.roundTo2Decimals(rollup.getTotalCarbs()));
+        day.setTotalRecommendedDose(NumberUtils.roundTo2Decimals(rollup.getTotalRecommendedDose()));
+        day.setTotalActualDose(NumberUtils.roundTo2Decimals(rollup.getTotalActualDose()));
+        day.setSickModeCount(rollup.getSickModeCount());
+        day.setStressModeCount(rollup.getStressModeCount());
+        return day;
+    }
+
+    // A meal's latest rollup write; sequence orders writes of the same meal
+    private static final class FailedWrite {
+        final MealEntity meal;
+        final boolean removal;
+        final long sequence;
+
+        FailedWrite(MealEntity meal, boolean removal, long sequence) {
+            this.meal = meal;
+            this.removal = removal;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.insuscan.service;
 
 import com.insuscan.boundary.NutritionInfo;
+import reactor.core.publisher.Mono;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface NutritionDataService {
     
@@ -13,5 +16,17 @@ public interface NutritionDataService {
 
     List<NutritionInfo> searchCandidates(String baseIngredient);
 
+    // Non-blocking candidate search - emits an empty list on failure
+    Mono<List<NutritionInfo>> searchCandidatesAsync(String baseIngredient);
+
+    // Id-addressed lookup: fdcId cache, then the local mirror, then the USDA API (empty if unknown)
+    Optional<NutritionInfo> getByFdcId(String fdcId);
+
+    // Non-blocking variant of getByFdcId - completes empty if unknown or on failure
+    Mono<NutritionInfo> getByFdcIdAsync(String fdcId);
+
+    // Local fallback table lookup only - never calls the remote API
+    NutritionInfo getFallbackNutrition(String foodName);
+
     boolean isServiceAvailable();
 }
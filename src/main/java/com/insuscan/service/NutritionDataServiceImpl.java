@@ -1,13 +1,19 @@
 package com.insuscan.service;
 
 import com.insuscan.boundary.NutritionInfo;
+import com.insuscan.usda.UsdaLocalMirror;
+import com.insuscan.usda.UsdaNutrientParser;
+import com.insuscan.usda.UsdaNutrientVector;
 import com.insuscan.util.ApiLogger;
 import com.insuscan.util.FoodNameNormalizer;
+import com.insuscan.util.UpstreamGuards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 
@@ -19,27 +25,42 @@ public class NutritionDataServiceImpl implements NutritionDataService {
     private final WebClient webClient;
     private final FoodNameNormalizer foodNameNormalizer;
     private final ApiLogger apiLogger;
+    private final UsdaLocalMirror usdaLocalMirror;
+    private final UpstreamGuards upstreamGuards;
 
     @Value("${insuscan.usda.api.key:}")
     private String apiKey;
 
-    private static final String USDA_BASE_URL = "https://api.nal.usda.gov/fdc/v1";
+    // Overridable (insuscan.usda.api.base-url) so load tests can point at a local stub
+    private final String usdaBaseUrl;
+
+    @Value("${insuscan.usda.fdc-cache.max-entries:5000}")
+    private int fdcCacheMaxEntries;
+
+    // fdcId -> NutritionInfo for every food seen in a search; access-ordered = LRU, guarded by itself
+    private final LinkedHashMap<String, NutritionInfo> byFdcId = new LinkedHashMap<>(512, 0.75f, true);
 
     // Fallback data for common foods when API unavailable
     private static final Map<String, NutritionInfo> FALLBACK_DATA = initFallbackData();
 
-    public NutritionDataServiceImpl(WebClient.Builder webClientBuilder, 
-                                   FoodNameNormalizer foodNameNormalizer,
-                                   ApiLogger apiLogger) {
+    public NutritionDataServiceImpl(@Qualifier("usdaWebClientBuilder") WebClient.Builder webClientBuilder,
+                                    FoodNameNormalizer foodNameNormalizer,
+                                    ApiLogger apiLogger,
+                                    UsdaLocalMirror usdaLocalMirror,
+                                    UpstreamGuards upstreamGuards,
+                                    @Value("${insuscan.usda.api.base-url:https://api.nal.usda.gov/fdc/v1}") String usdaBaseUrl) {
     	int bufferSize = 16 * 1024 * 1024; 
 
         this.webClient = webClientBuilder
-                .baseUrl(USDA_BASE_URL)
+                .baseUrl(usdaBaseUrl)
                 .codecs(configurer -> configurer.defaultCodecs()
                         .maxInMemorySize(bufferSize)) 
                 .build();
         this.foodNameNormalizer = foodNameNormalizer;
         this.apiLogger = apiLogger;
+        this.usdaLocalMirror = usdaLocalMirror;
+        this.upstreamGuards = upstreamGuards;
+        this.usdaBaseUrl = usdaBaseUrl;
     }
 
     @Override
@@ -56,12 +77,12 @@ public class NutritionDataServiceImpl implements NutritionDataService {
         // Log the lookup start
         apiLogger.usdaStart(foodName, normalizedName, searchTerms);
 
-        // Check if API is available
+        // Check if USDA data is available (local mirror or API)
         if (!isServiceAvailable()) {
             String keyPreview = apiKey != null && apiKey.length() > 5 ? apiKey.substring(0, 5) : "N/A";
             apiLogger.apiKeyStatus("USDA", false, keyPreview);
             
-            // No API key - use fallback
+            // No API key and no local mirror - use fallback
             NutritionInfo fallback = getFallbackNutrition(foodName);
             if (fallback.isFound()) {
                 apiLogger.usdaFallbackHit(foodName, fallback.getCarbsPer100g());
@@ -71,7 +92,7 @@ public class NutritionDataServiceImpl implements NutritionDataService {
             return fallback;
         }
 
-        // API is available - try USDA first!
+        // USDA is available - try it first (local mirror, then API on a miss)
         try {
             for (String term : searchTerms) {
                 apiLogger.usdaApiCall(term);
@@ -166,33 +187,51 @@ public class NutritionDataServiceImpl implements NutritionDataService {
         return searchFoodsInternal(query, maxResults);
     }
 
-    @SuppressWarnings("unchecked")
     private List<NutritionInfo> searchFoodsInternal(String query, int maxResults) {
-        try {
-            // --- MEDICAL GRADE CONFIGURATION ---
-            Map<String, Object> requestBody = Map.of(
-                "query", query,
-                // Fetch enough results to ensure the correct item is present
-                "pageSize", Math.max(maxResults, 20), 
-                // ONLY use lab-verified data (No "Branded" or user-submitted data)
-                "dataType", List.of("Foundation", "SR Legacy"), 
-                // STRICT MODE: "Apple" should not return "Apple Pie"
-                "requireAllWords", true 
-            );
-
-            Map response = webClient.post()
-                .uri(USDA_BASE_URL + "/foods/search?api_key=" + apiKey)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Map.class)
-                .block();
-
-            return parseSearchResponse(response);
+        return searchFoodsInternalAsync(query, maxResults).block();
+    }
 
-        } catch (Exception e) {
-            apiLogger.usdaError("USDA Search Failed: " + e.getMessage());
-            return List.of();
+    private Mono<List<NutritionInfo>> searchFoodsInternalAsync(String query, int maxResults) {
+        // Local mirror first: same data types and requireAllWords semantics, no network
+        if (usdaLocalMirror.isLoaded()) {
+            long start = System.nanoTime();
+            List<NutritionInfo> local = usdaLocalMirror.search(query, Math.max(maxResults, 20));
+            if (!local.isEmpty()) {
+                apiLogger.usdaLocalHit(query, local.size(), (System.nanoTime() - start) / 1000);
+                remember(local);
+                return Mono.just(local);
+            }
         }
+
+        // Remote API only for misses, and only when we have a key
+        if (!hasApiKey()) {
+            return Mono.just(List.of());
+        }
+
+        // --- MEDICAL GRADE CONFIGURATION ---
+        Map<String, Object> requestBody = Map.of(
+            "query", query,
+            // Fetch enough results to ensure the correct item is present
+            "pageSize", Math.max(maxResults, 20), 
+            // ONLY use lab-verified data (No "Branded" or user-submitted data)
+            "dataType", List.of("Foundation", "SR Legacy"), 
+            // STRICT MODE: "Apple" should not return "Apple Pie"
+            "requireAllWords", true 
+        );
+
+        // Guarded: an open usda circuit fails fast here, and getNutritionInfo falls back to FALLBACK_DATA
+        return upstreamGuards.usda().protect(webClient.post()
+            .uri(usdaBaseUrl + "/foods/search?api_key=" + apiKey)
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToMono(byte[].class))
+            .map(this::parseSearchResponse)
+            .doOnNext(this::remember)
+            .defaultIfEmpty(List.of())
+            .onErrorResume(e -> {
+                apiLogger.usdaError("USDA Search Failed: " + e.getMessage());
+                return Mono.just(List.of());
+            });
     }
     
     /**
@@ -201,8 +240,13 @@ public class NutritionDataServiceImpl implements NutritionDataService {
      * Uses strictly "Foundation" and "SR Legacy" data types.
      */
     public List<NutritionInfo> searchCandidates(String baseIngredient) {
+        return searchCandidatesAsync(baseIngredient).block();
+    }
+
+    @Override
+    public Mono<List<NutritionInfo>> searchCandidatesAsync(String baseIngredient) {
         if (baseIngredient == null || baseIngredient.trim().isEmpty()) {
-            return List.of();
+            return Mono.just(List.of());
         }
         
         // 1. Normalize: Remove special chars to ensure clean search
@@ -210,53 +254,103 @@ public class NutritionDataServiceImpl implements NutritionDataService {
         
         // 2. Fetch 25 candidates (The "Wide Net" strategy)
         apiLogger.usdaApiCall("Candidate Search: " + cleanQuery);
-        return searchFoodsInternal(cleanQuery, 20);
+        return searchFoodsInternalAsync(cleanQuery, 20);
     }
 
+    // True when lookups can hit real USDA data: the local mirror or the remote API
     @Override
     public boolean isServiceAvailable() {
+        return usdaLocalMirror.isLoaded() || hasApiKey();
+    }
+
+    private boolean hasApiKey() {
         return apiKey != null && !apiKey.isEmpty();
     }
 
-    @SuppressWarnings("unchecked")
-    private List<NutritionInfo> parseSearchResponse(Map response) {
-        List<NutritionInfo> results = new ArrayList<>();
+    @Override
+    public Optional<NutritionInfo> getByFdcId(String fdcId) {
+        return getByFdcIdAsync(fdcId).blockOptional();
+    }
 
-        try {
-            List<Map> foods = (List<Map>) response.get("foods");
-            if (foods == null) return results;
-
-            for (Map food : foods) {
-                NutritionInfo info = new NutritionInfo();
-                info.setFound(true);
-                info.setFdcId(String.valueOf(food.get("fdcId")));
-                info.setFoodName((String) food.get("description"));
-
-                List<Map> nutrients = (List<Map>) food.get("foodNutrients");
-                if (nutrients != null) {
-                    for (Map nutrient : nutrients) {
-                        String name = (String) nutrient.get("nutrientName");
-                        Number value = (Number) nutrient.get("value");
-
-                        if (name == null || value == null) continue;
-
-                        if (name.toLowerCase().contains("carbohydrate")) {
-                            info.setCarbsPer100g(value.floatValue());
-                        }
-                    }
-                }
+    @Override
+    public Mono<NutritionInfo> getByFdcIdAsync(String fdcId) {
+        if (fdcId == null || fdcId.isBlank()) {
+            return Mono.empty();
+        }
+        String id = fdcId.trim();
 
-                results.add(info);
+        synchronized (byFdcId) {
+            NutritionInfo cached = byFdcId.get(id);
+            if (cached != null) {
+                return Mono.just(cached);
             }
+        }
 
+        Optional<NutritionInfo> local = usdaLocalMirror.getByFdcId(id);
+        if (local.isPresent()) {
+            remember(List.of(local.get()));
+            return Mono.just(local.get());
+        }
+
+        // fdcIds are numeric; anything else cannot exist upstream
+        if (!hasApiKey() || !id.chars().allMatch(Character::isDigit)) {
+            return Mono.empty();
+        }
+
+        apiLogger.usdaApiCall("Food by id: " + id);
+        return upstreamGuards.usda().protect(webClient.get()
+            .uri(usdaBaseUrl + "/food/" + id + "?format=abridged&api_key=" + apiKey)
+            .retrieve()
+            .bodyToMono(byte[].class))
+            .flatMap(body -> Mono.justOrEmpty(parseFoodResponse(body)))
+            .doOnNext(info -> remember(List.of(info)))
+            .onErrorResume(e -> {
+                apiLogger.usdaError("USDA Food Lookup Failed: " + e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private void remember(List<NutritionInfo> foods) {
+        synchronized (byFdcId) {
+            for (NutritionInfo info : foods) {
+                if (info.isFound() && info.getFdcId() != null) {
+                    byFdcId.put(info.getFdcId(), info);
+                }
+            }
+            Iterator<Map.Entry<String, NutritionInfo>> it = byFdcId.entrySet().iterator();
+            while (byFdcId.size() > fdcCacheMaxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    // Single food from GET /food/{fdcId}; streamed, see UsdaNutrientParser
+    private NutritionInfo parseFoodResponse(byte[] body) {
+        try {
+            UsdaNutrientVector food = UsdaNutrientParser.parseFood(body);
+            return food != null ? food.toNutritionInfo() : null;
         } catch (Exception e) {
-            log.error("Failed to parse USDA response: {}", e.getMessage());
+            log.error("Failed to parse USDA food response: {}", e.getMessage());
+            return null;
         }
+    }
 
+    // Search hits with carbs, fibre, sugars, fat, protein and kcal; streamed, see UsdaNutrientParser
+    private List<NutritionInfo> parseSearchResponse(byte[] body) {
+        List<NutritionInfo> results = new ArrayList<>();
+        try {
+            for (UsdaNutrientVector food : UsdaNutrientParser.parseSearch(body)) {
+                results.add(food.toNutritionInfo());
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse USDA response: {}", e.getMessage());
+        }
         return results;
     }
 
-    private NutritionInfo getFallbackNutrition(String foodName) {
+    @Override
+    public NutritionInfo getFallbackNutrition(String foodName) {
         if (foodName == null || foodName.trim().isEmpty()) {
             return NutritionInfo.notFound(foodName);
         }
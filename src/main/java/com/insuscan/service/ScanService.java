@@ -2,6 +2,7 @@ package com.insuscan.service;
 
 import com.insuscan.boundary.MealBoundary;
 import com.insuscan.boundary.ScanRequestBoundary;
+import reactor.core.publisher.Mono;
 
 // Main scanning service that orchestrates the full workflow
 public interface ScanService {
@@ -13,4 +14,9 @@ public interface ScanService {
     MealBoundary scanMealWithPortion(ScanRequestBoundary request, 
                                       Float estimatedWeightGrams,
                                       Float portionConfidence);
+
+    // Non-blocking scan: vision -> portions -> candidate search -> judge -> save
+    Mono<MealBoundary> scanMealWithPortionAsync(ScanRequestBoundary request,
+                                                Float estimatedWeightGrams,
+                                                Float portionConfidence);
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.insuscan.service;
 import com.insuscan.boundary.*;
 import com.insuscan.converter.MealConverter;
 import com.insuscan.crud.MealRepository;
-import com.insuscan.crud.UserRepository;
+import com.insuscan.crud.UserProfileCache;
 import com.insuscan.data.MealEntity;
 import com.insuscan.data.UserEntity;
 import com.insuscan.enums.MealStatus;
@@ -18,10 +18,20 @@ import com.insuscan.calculation.InsulinCalculator;
 import com.insuscan.calculation.CalculationParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ScanServiceImpl implements ScanService {
@@ -32,15 +42,21 @@ public class ScanServiceImpl implements ScanService {
     private final NutritionDataService nutritionDataService;
     private final SemanticMatchingService semanticMatchingService; // <-- NEW JUDGE
     private final MealRepository mealRepository;
-    private final UserRepository userRepository;
+    private final MealStatsService mealStatsService;
+    private final UserProfileCache userProfileCache;
     private final MealConverter mealConverter;
     private final MealIdGenerator mealIdGenerator;
     private final PortionEstimator portionEstimator;
     private final ApiLogger apiLogger;
+    private final ExecutorService scanExecutor;
 
     @Value("${spring.application.name}")
     private String systemId;
 
+    // Time budget for resolving a scan's food items (search + batched judge + lookup share it)
+    @Value("${insuscan.scan.item-timeout-ms:8000}")
+    private long itemTimeoutMs;
+
     private static final float DEFAULT_PORTION_WEIGHT = 150f;
 
     public ScanServiceImpl(
@@ -48,20 +64,24 @@ public class ScanServiceImpl implements ScanService {
             NutritionDataService nutritionDataService,
             SemanticMatchingService semanticMatchingService, // <-- Inject Judge
             MealRepository mealRepository,
-            UserRepository userRepository,
+            MealStatsService mealStatsService,
+            UserProfileCache userProfileCache,
             MealConverter mealConverter,
             MealIdGenerator mealIdGenerator,
             PortionEstimator portionEstimator,
-            ApiLogger apiLogger) {
+            ApiLogger apiLogger,
+            @Qualifier("scanExecutor") ExecutorService scanExecutor) {
         this.imageAnalysisService = imageAnalysisService;
         this.nutritionDataService = nutritionDataService;
         this.semanticMatchingService = semanticMatchingService;
         this.mealRepository = mealRepository;
-        this.userRepository = userRepository;
+        this.mealStatsService = mealStatsService;
+        this.userProfileCache = userProfileCache;
         this.mealConverter = mealConverter;
         this.mealIdGenerator = mealIdGenerator;
         this.portionEstimator = portionEstimator;
         this.apiLogger = apiLogger;
+        this.scanExecutor = scanExecutor;
     }
 
     @Override
@@ -80,14 +100,10 @@ public class ScanServiceImpl implements ScanService {
 
         // Start timing and logging
         long scanStartTime = System.currentTimeMillis();
-        apiLogger.scanStart(
-            userId.getEmail(),
-            request.getImageBase64() != null || request.getImageUrl() != null,
-            estimatedWeightGrams
-        );
+        logScanStart(request, estimatedWeightGrams);
 
         // Verify user exists
-        UserEntity user = userRepository.findById(userDocId)
+        UserEntity user = userProfileCache.findById(userDocId)
             .orElseThrow(() -> new InsuScanNotFoundException(
                 "User not found: " + userId.getEmail()));
 
@@ -96,18 +112,209 @@ public class ScanServiceImpl implements ScanService {
         // Step 1: Analyze image (Medical Vision)
         apiLogger.scanStep(1, "ANALYZING IMAGE (MEDICAL VISION)");
         FoodRecognitionResult visionResult = analyzeImage(request);
-        
-        if (!visionResult.isSuccess()) {
-            apiLogger.scanFailed("VISION", visionResult.getErrorMessage());
+
+        if (isFailedVision(visionResult)) {
             return createFailedMeal(userDocId, request.getImageUrl());
         }
 
+        // Step 2: Calculate portion sizes
+        Map<String, Float> distributedPortions = calculatePortions(visionResult, estimatedWeightGrams);
+
+        // Step 3: Get nutrition data (INTEGRATING THE JUDGE)
+        apiLogger.scanStep(3, "SEMANTIC NUTRITION MATCHING");
+        List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods = visionResult.getDetectedFoods();
+        List<NutritionInfo> resolvedNutrition = resolveNutritionConcurrently(detectedFoods);
+        ScanItems items = buildFoodItems(detectedFoods, resolvedNutrition, distributedPortions);
+
+        // Step 4: Calculate insulin dose
+        DoseOutcome dose = calculateDose(user, items.totalCarbs, userId);
+
+        // Step 5: Save meal
+        apiLogger.scanStep(5, "SAVING MEAL TO DATABASE");
+        MealEntity meal = buildMeal(mealIdGenerator.generateMealId(systemId), userDocId, request,
+                items, dose, estimatedWeightGrams, portionConfidence);
+
+        MealEntity saved = mealRepository.create(meal);
+        mealStatsService.mealSaved(saved);
+        return completeScan(saved, items, dose, scanStartTime);
+    }
+
+    @Override
+    public Mono<MealBoundary> scanMealWithPortionAsync(ScanRequestBoundary request,
+                                                       Float estimatedWeightGrams,
+                                                       Float portionConfidence) {
+        return Mono.defer(() -> {
+            validateScanRequest(request);
+
+            UserIdBoundary userId = request.getUserId();
+            String userDocId = userId.getSystemId() + "_" + userId.getEmail();
+
+            long scanStartTime = System.currentTimeMillis();
+            logScanStart(request, estimatedWeightGrams);
+
+            return userProfileCache.findByIdAsync(userDocId)
+                .switchIfEmpty(Mono.error(() -> new InsuScanNotFoundException(
+                    "User not found: " + userId.getEmail())))
+                .flatMap(user -> {
+                    log.info("Starting MEDICAL-GRADE scan (async) for user: {}", userId.getEmail());
+
+                    // Step 1: Analyze image (Medical Vision)
+                    apiLogger.scanStep(1, "ANALYZING IMAGE (MEDICAL VISION)");
+                    return analyzeImageAsync(request).flatMap(visionResult -> {
+                        if (isFailedVision(visionResult)) {
+                            return createFailedMealAsync(userDocId, request.getImageUrl());
+                        }
+
+                        // Step 2: Calculate portion sizes (CPU only)
+                        Map<String, Float> distributedPortions = calculatePortions(visionResult, estimatedWeightGrams);
+
+                        // Step 3: Candidate search for all items, one judge call for the meal
+                        apiLogger.scanStep(3, "SEMANTIC NUTRITION MATCHING");
+                        List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods = visionResult.getDetectedFoods();
+
+                        return resolveNutritionAsync(detectedFoods)
+                            .flatMap(resolvedNutrition -> {
+                                ScanItems items = buildFoodItems(detectedFoods, resolvedNutrition, distributedPortions);
+
+                                // Step 4: Calculate insulin dose
+                                DoseOutcome dose = calculateDose(user, items.totalCarbs, userId);
+
+                                // Step 5: Save meal
+                                apiLogger.scanStep(5, "SAVING MEAL TO DATABASE");
+                                return generateMealIdAsync()
+                                    .map(mealId -> buildMeal(mealId, userDocId, request,
+                                            items, dose, estimatedWeightGrams, portionConfidence))
+                                    .flatMap(mealRepository::createAsync)
+                                    .flatMap(saved -> mealStatsService.mealSavedAsync(saved).thenReturn(saved))
+                                    .map(saved -> completeScan(saved, items, dose, scanStartTime));
+                            });
+                    });
+                });
+        });
+    }
+
+    /**
+     * Non-blocking nutrition resolution for all items, sharing one time budget:
+     * candidate search for every item at once, one batched judge call for the meal,
+     * then the judge's pick is taken from each candidate list. An item whose search
+     * fails or does not finish in time falls back to the local nutrition table.
+     */
+    private Mono<List<NutritionInfo>> resolveNutritionAsync(List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods) {
+        long deadline = System.currentTimeMillis() + itemTimeoutMs;
+
+        // A. Fetch Candidates (Retrieval); an empty Optional marks a failed search
+        return Flux.fromIterable(detectedFoods)
+            .flatMapSequential(detected -> nutritionDataService.searchCandidatesAsync(detected.getBaseIngredient())
+                .map(Optional::of)
+                .timeout(remaining(deadline))
+                .onErrorResume(e -> {
+                    log.warn("Candidate search failed for '{}': {}", detected.getName(), e.getMessage());
+                    return Mono.just(Optional.empty());
+                }))
+            .collectList()
+            .flatMap(candidateLists -> {
+                // B. The Judge Decides - one call for the whole meal
+                Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem =
+                    candidatesToJudge(detectedFoods, candidateLists);
+                Map<String, NutritionInfo> candidatesById = indexByFdcId(candidatesByItem);
+                // Only the LLM part is bounded: cached and pre-ranked verdicts survive a late judge
+                return semanticMatchingService.findBestMatchesAsync(detectedFoods, candidatesByItem, remaining(deadline))
+                    .onErrorResume(e -> {
+                        log.warn("Semantic judge failed, using first candidates: {}", e.getMessage());
+                        return Mono.just(Map.of());
+                    })
+                    // C. Winner per item
+                    .flatMap(verdicts -> Flux.range(0, detectedFoods.size())
+                        .flatMapSequential(i -> resolveWinnerAsync(detectedFoods.get(i), candidateLists.get(i),
+                                verdicts, candidatesById)
+                            .timeout(remaining(deadline))
+                            .onErrorResume(e -> {
+                                log.warn("Nutrition resolution failed for '{}': {}", detectedFoods.get(i).getName(), e.getMessage());
+                                return Mono.just(nutritionDataService.getFallbackNutrition(detectedFoods.get(i).getName()));
+                            }))
+                        .collectList());
+            });
+    }
+
+    private Mono<NutritionInfo> resolveWinnerAsync(FoodRecognitionResult.RecognizedFoodItem detected,
+                                                   Optional<List<NutritionInfo>> searchResult,
+                                                   Map<FoodRecognitionResult.RecognizedFoodItem, String> verdicts,
+                                                   Map<String, NutritionInfo> candidatesById) {
+        if (searchResult.isEmpty()) {
+            return Mono.just(nutritionDataService.getFallbackNutrition(detected.getName()));
+        }
+        List<NutritionInfo> candidates = searchResult.get();
+        if (candidates.isEmpty()) {
+            // Name lookup walks several search terms synchronously; keep it off the event loop
+            return Mono.fromCallable(() -> nutritionDataService.getNutritionInfo(detected.getName()))
+                .subscribeOn(Schedulers.boundedElastic());
+        }
+        String bestFdcId = verdicts.get(detected);
+        if (bestFdcId == null) {
+            return Mono.just(candidates.get(0));
+        }
+        NutritionInfo winner = candidatesById.get(bestFdcId);
+        if (winner != null) {
+            return Mono.just(winner);
+        }
+        // Judge named an id outside this request's candidates: resolve it by id, not by name
+        return nutritionDataService.getByFdcIdAsync(bestFdcId)
+            .defaultIfEmpty(candidates.get(0));
+    }
+
+    // Items that have candidates, in detection order
+    private Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesToJudge(
+            List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods,
+            List<Optional<List<NutritionInfo>>> candidateLists) {
+        Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem = new LinkedHashMap<>();
+        for (int i = 0; i < detectedFoods.size(); i++) {
+            Optional<List<NutritionInfo>> candidates = candidateLists.get(i);
+            if (candidates.isPresent() && !candidates.get().isEmpty()) {
+                candidatesByItem.put(detectedFoods.get(i), candidates.get());
+            }
+        }
+        return candidatesByItem;
+    }
+
+    private static Duration remaining(long deadline) {
+        return Duration.ofMillis(Math.max(1, deadline - System.currentTimeMillis()));
+    }
+
+    // Per-request fdcId -> candidate map; the judge's winner already carries its nutrition data
+    private Map<String, NutritionInfo> indexByFdcId(
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem) {
+        Map<String, NutritionInfo> candidatesById = new HashMap<>();
+        for (List<NutritionInfo> candidates : candidatesByItem.values()) {
+            for (NutritionInfo candidate : candidates) {
+                if (candidate.getFdcId() != null) {
+                    candidatesById.putIfAbsent(candidate.getFdcId(), candidate);
+                }
+            }
+        }
+        return candidatesById;
+    }
+
+    private void logScanStart(ScanRequestBoundary request, Float estimatedWeightGrams) {
+        apiLogger.scanStart(
+            request.getUserId().getEmail(),
+            request.hasImage(),
+            estimatedWeightGrams
+        );
+    }
+
+    private boolean isFailedVision(FoodRecognitionResult visionResult) {
+        if (!visionResult.isSuccess()) {
+            apiLogger.scanFailed("VISION", visionResult.getErrorMessage());
+            return true;
+        }
         if (visionResult.getDetectedFoods().isEmpty()) {
             apiLogger.scanFailed("VISION", "0 foods detected");
-            return createFailedMeal(userDocId, request.getImageUrl());
+            return true;
         }
+        return false;
+    }
 
-        // Step 2: Calculate portion sizes (Logic remains same)
+    private Map<String, Float> calculatePortions(FoodRecognitionResult visionResult, Float estimatedWeightGrams) {
         apiLogger.scanStep(2, "CALCULATING PORTION SIZES");
         List<PortionEstimator.FoodItem> portionItems = new ArrayList<>();
         float totalVisionPortions = 0f;
@@ -131,37 +338,19 @@ public class ScanServiceImpl implements ScanService {
                 : estimateTotalWeightFromFoodTypes(portionItems);
         }
 
-        Map<String, Float> distributedPortions = portionEstimator.distributePortions(
-                portionItems, totalWeightToDistribute);
+        return portionEstimator.distributePortions(portionItems, totalWeightToDistribute);
+    }
 
-        // Step 3: Get nutrition data (INTEGRATING THE JUDGE)
-        apiLogger.scanStep(3, "SEMANTIC NUTRITION MATCHING");
+    // Turns resolved nutrition into meal food items (index-aligned with detectedFoods)
+    private ScanItems buildFoodItems(List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods,
+                                     List<NutritionInfo> resolvedNutrition,
+                                     Map<String, Float> distributedPortions) {
         List<MealEntity.FoodItem> foodItems = new ArrayList<>();
         float totalCarbs = 0f;
 
-        for (FoodRecognitionResult.RecognizedFoodItem detected : visionResult.getDetectedFoods()) {
-            
-            // --- NEW LOGIC START ---
-            NutritionInfo finalNutrition = null;
-            
-            // A. Fetch Candidates (Step 2 - Retrieval)
-            List<NutritionInfo> candidates = nutritionDataService.searchCandidates(detected.getBaseIngredient());
-            
-            if (!candidates.isEmpty()) {
-                // B. The Judge Decides (Step 3 - Semantic Matching)
-                String bestFdcId = semanticMatchingService.findBestMatch(detected, candidates);
-                
-                // C. Get Full Data for Winner
-                if (bestFdcId != null) {
-                    finalNutrition = nutritionDataService.getNutritionInfo(bestFdcId); // Fetch by ID specifically
-                } else {
-                    finalNutrition = candidates.get(0); // Fallback to first candidate
-                }
-            } else {
-                // Fallback: If search fails, try old direct lookup or fallback map
-                finalNutrition = nutritionDataService.getNutritionInfo(detected.getName());
-            }
-            // --- NEW LOGIC END ---
+        for (int i = 0; i < detectedFoods.size(); i++) {
+            FoodRecognitionResult.RecognizedFoodItem detected = detectedFoods.get(i);
+            NutritionInfo finalNutrition = resolvedNutrition.get(i);
 
             MealEntity.FoodItem item = new MealEntity.FoodItem();
             item.setName(detected.getName());
@@ -207,13 +396,12 @@ public class ScanServiceImpl implements ScanService {
         }
 
         log.info("Total carbs (Calculated): {}g", totalCarbs);
+        return new ScanItems(foodItems, totalCarbs);
+    }
 
-        // Step 4: Calculate insulin dose
+    private DoseOutcome calculateDose(UserEntity user, float totalCarbs, UserIdBoundary userId) {
         apiLogger.scanStep(4, "CALCULATING INSULIN DOSE");
-        Float recommendedDose = null;
-        boolean profileComplete = false;
-        List<String> missingFields = new ArrayList<>();
-        String insulinMessage = null;
+        DoseOutcome outcome = new DoseOutcome();
 
         if (totalCarbs > 0) {
             String userEmail = userId != null ? userId.getEmail() : null;
@@ -256,50 +444,162 @@ public class ScanServiceImpl implements ScanService {
                     apiLogger.insulinCalcWarning(result.getWarning());
                 }
 
-                recommendedDose = result.getRoundedDose();
-                profileComplete = true;
+                outcome.recommendedDose = result.getRoundedDose();
+                outcome.profileComplete = true;
 
-                apiLogger.insulinCalcResult(recommendedDose, true, null);
-                log.info("Calculated recommended insulin dose: {} units", recommendedDose);
+                apiLogger.insulinCalcResult(outcome.recommendedDose, true, null);
+                log.info("Calculated recommended insulin dose: {} units", outcome.recommendedDose);
 
             } else {
                 // Profile incomplete - skip calculation
-                missingFields = params.getMissingFields();
-                insulinMessage = "Complete your medical profile to get insulin recommendations";
+                outcome.missingFields = params.getMissingFields();
+                outcome.insulinMessage = "Complete your medical profile to get insulin recommendations";
 
-                apiLogger.insulinCalcSkipped(missingFields);
-                apiLogger.insulinCalcResult(null, false, insulinMessage);
+                apiLogger.insulinCalcSkipped(outcome.missingFields);
+                apiLogger.insulinCalcResult(null, false, outcome.insulinMessage);
             }
         }
+        return outcome;
+    }
 
-        // Step 5: Save meal
-        apiLogger.scanStep(5, "SAVING MEAL TO DATABASE");
+    private MealEntity buildMeal(String mealId, String userDocId, ScanRequestBoundary request,
+                                 ScanItems items, DoseOutcome dose,
+                                 Float estimatedWeightGrams, Float portionConfidence) {
         MealEntity meal = new MealEntity();
-        meal.setId(mealIdGenerator.generateMealId(systemId));
+        meal.setId(mealId);
         meal.setUserId(userDocId);
         meal.setImageUrl(request.getImageUrl());
-        meal.setFoodItems(foodItems);
-        meal.setTotalCarbs(NumberUtils.roundTo2Decimals(totalCarbs));
-        meal.setRecommendedDose(recommendedDose);
+        meal.setFoodItems(items.foodItems);
+        meal.setTotalCarbs(NumberUtils.roundTo2Decimals(items.totalCarbs));
+        meal.setRecommendedDose(dose.recommendedDose);
         meal.setStatus(MealStatus.PENDING);
         
         if (estimatedWeightGrams != null) meal.setEstimatedWeight(estimatedWeightGrams);
         if (portionConfidence != null) meal.setAnalysisConfidence(portionConfidence);
 
         // Set profile status for client
-        meal.setProfileComplete(profileComplete);
-        meal.setMissingProfileFields(missingFields);
-        meal.setInsulinMessage(insulinMessage);
-        
-        MealEntity saved = mealRepository.save(meal);
-        log.info("Meal saved: {}", meal.getId());
+        meal.setProfileComplete(dose.profileComplete);
+        meal.setMissingProfileFields(dose.missingFields);
+        meal.setInsulinMessage(dose.insulinMessage);
+        return meal;
+    }
+
+    private MealBoundary completeScan(MealEntity saved, ScanItems items, DoseOutcome dose, long scanStartTime) {
+        log.info("Meal saved: {}", saved.getId());
 
         long totalTime = System.currentTimeMillis() - scanStartTime;
-        apiLogger.scanComplete(foodItems.size(), totalCarbs, recommendedDose, totalTime);
+        apiLogger.scanComplete(items.foodItems.size(), items.totalCarbs, dose.recommendedDose, totalTime);
 
         return mealConverter.toBoundary(saved);
     }
 
+    /**
+     * Resolves nutrition for every detected item in three steps sharing one time budget:
+     * candidate search for all items at once, one batched judge call for the whole meal,
+     * then the winner is taken from the candidates (name lookups for items without any). An item that fails or does not finish in time
+     * falls back to the local nutrition table.
+     */
+    private List<NutritionInfo> resolveNutritionConcurrently(
+            List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods) {
+        long deadline = System.currentTimeMillis() + itemTimeoutMs;
+
+        // A. Fetch Candidates (Retrieval)
+        List<Callable<Optional<List<NutritionInfo>>>> searches = new ArrayList<>();
+        for (FoodRecognitionResult.RecognizedFoodItem detected : detectedFoods) {
+            searches.add(() -> Optional.of(nutritionDataService.searchCandidates(detected.getBaseIngredient())));
+        }
+        List<Optional<List<NutritionInfo>>> candidateLists = new ArrayList<>();
+        for (Optional<List<NutritionInfo>> searchResult : invokeAllUntil(searches, detectedFoods, deadline)) {
+            candidateLists.add(searchResult != null ? searchResult : Optional.empty());
+        }
+
+        // B. The Judge Decides (Semantic Matching) - one call for the whole meal
+        Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem =
+                candidatesToJudge(detectedFoods, candidateLists);
+        Map<FoodRecognitionResult.RecognizedFoodItem, String> verdicts = Map.of();
+        if (!candidatesByItem.isEmpty() && deadline > System.currentTimeMillis()) {
+            // Only the LLM part is bounded: cached and pre-ranked verdicts survive a late judge
+            verdicts = semanticMatchingService.findBestMatchesAsync(detectedFoods, candidatesByItem, remaining(deadline))
+                    .onErrorResume(e -> {
+                        log.warn("Semantic judge failed, using first candidates: {}", e.getMessage());
+                        return Mono.just(Map.of());
+                    })
+                    .blockOptional()
+                    .orElse(Map.of());
+        }
+
+        // C. Winner per item - taken from the candidates, only name lookups need I/O
+        Map<String, NutritionInfo> candidatesById = indexByFdcId(candidatesByItem);
+        List<Callable<NutritionInfo>> lookups = new ArrayList<>();
+        for (int i = 0; i < detectedFoods.size(); i++) {
+            FoodRecognitionResult.RecognizedFoodItem detected = detectedFoods.get(i);
+            Optional<List<NutritionInfo>> searchResult = candidateLists.get(i);
+            String bestFdcId = verdicts.get(detected);
+
+            if (searchResult.isEmpty()) {
+                lookups.add(() -> null); // search failed or timed out
+            } else if (searchResult.get().isEmpty()) {
+                // Fallback: If search fails, try old direct lookup or fallback map
+                lookups.add(() -> nutritionDataService.getNutritionInfo(detected.getName()));
+            } else {
+                List<NutritionInfo> candidates = searchResult.get();
+                NutritionInfo winner = bestFdcId != null ? candidatesById.get(bestFdcId) : candidates.get(0);
+                if (winner != null) {
+                    lookups.add(() -> winner);
+                } else {
+                    // Judge named an id outside this request's candidates: resolve it by id, not by name
+                    lookups.add(() -> nutritionDataService.getByFdcId(bestFdcId).orElse(candidates.get(0)));
+                }
+            }
+        }
+
+        List<NutritionInfo> results = invokeAllUntil(lookups, detectedFoods, deadline);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, nutritionDataService.getFallbackNutrition(detectedFoods.get(i).getName()));
+            }
+        }
+        return results;
+    }
+
+    // Runs one task per item in parallel until the deadline; a failed or unfinished task yields null
+    private <T> List<T> invokeAllUntil(List<Callable<T>> tasks,
+                                       List<FoodRecognitionResult.RecognizedFoodItem> detectedFoods,
+                                       long deadline) {
+        List<Future<T>> futures;
+        try {
+            // invokeAll preserves task order and cancels whatever is still running at the deadline
+            futures = scanExecutor.invokeAll(tasks, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Nutrition resolution interrupted, using fallback data for all items");
+            futures = List.of();
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            FoodRecognitionResult.RecognizedFoodItem detected = detectedFoods.get(i);
+            T result = null;
+
+            if (i < futures.size()) {
+                Future<T> future = futures.get(i);
+                try {
+                    if (!future.isCancelled()) {
+                        result = future.get();
+                    } else {
+                        log.warn("Nutrition resolution timed out after {}ms for '{}'", itemTimeoutMs, detected.getName());
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Nutrition resolution failed for '{}': {}", detected.getName(), e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
     private float estimateTotalWeightFromFoodTypes(List<PortionEstimator.FoodItem> items) {
         float total = 0f;
         for (PortionEstimator.FoodItem item : items) {
@@ -315,20 +615,49 @@ public class ScanServiceImpl implements ScanService {
         InputValidators.validateSystemId(request.getUserId().getSystemId());
         InputValidators.validateEmail(request.getUserId().getEmail());
 
-        if (request.getImageBase64() == null && request.getImageUrl() == null) {
+        if (!request.hasImage()) {
             throw new InsuScanInvalidInputException("Image data required");
         }
     }
 
     private FoodRecognitionResult analyzeImage(ScanRequestBoundary request) {
-        if (request.getImageBase64() != null) {
+        if (request.getImage() != null) {
+            return imageAnalysisService.analyzeImage(request.getImage());
+        } else if (request.getImageBase64() != null) {
             return imageAnalysisService.analyzeImage(request.getImageBase64());
         } else {
             return imageAnalysisService.analyzeImageFromUrl(request.getImageUrl());
         }
     }
 
+    private Mono<FoodRecognitionResult> analyzeImageAsync(ScanRequestBoundary request) {
+        if (request.getImage() != null) {
+            return imageAnalysisService.analyzeImageAsync(request.getImage());
+        } else if (request.getImageBase64() != null) {
+            return imageAnalysisService.analyzeImageAsync(request.getImageBase64());
+        } else {
+            return imageAnalysisService.analyzeImageFromUrlAsync(request.getImageUrl());
+        }
+    }
+
+    // Ids come from a leased block in memory; a block refill is a blocking Firestore transaction,
+    // so run it on the blocking-friendly scheduler
+    private Mono<String> generateMealIdAsync() {
+        return Mono.fromCallable(() -> mealIdGenerator.generateMealId(systemId))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
     private MealBoundary createFailedMeal(String userDocId, String imageUrl) {
+        MealEntity saved = mealRepository.create(buildFailedMeal(userDocId, imageUrl));
+        return mealConverter.toBoundary(saved);
+    }
+
+    private Mono<MealBoundary> createFailedMealAsync(String userDocId, String imageUrl) {
+        return mealRepository.createAsync(buildFailedMeal(userDocId, imageUrl))
+            .map(mealConverter::toBoundary);
+    }
+
+    private MealEntity buildFailedMeal(String userDocId, String imageUrl) {
         MealEntity meal = new MealEntity();
         String mealUuid = UUID.randomUUID().toString();
         meal.setId(systemId + "_" + mealUuid);
@@ -337,7 +666,25 @@ public class ScanServiceImpl implements ScanService {
         meal.setFoodItems(new ArrayList<>());
         meal.setTotalCarbs(0f);
         meal.setStatus(MealStatus.FAILED);
-        MealEntity saved = mealRepository.save(meal);
-        return mealConverter.toBoundary(saved);
+        return meal;
+    }
+
+    // Food items and their (unrounded) carb total for one scan
+    private static class ScanItems {
+        final List<MealEntity.FoodItem> foodItems;
+        final float totalCarbs;
+
+        ScanItems(List<MealEntity.FoodItem> foodItems, float totalCarbs) {
+            this.foodItems = foodItems;
+            this.totalCarbs = totalCarbs;
+        }
+    }
+
+    // Result of the insulin step; defaults mean "no dose calculated"
+    private static class DoseOutcome {
+        Float recommendedDose;
+        boolean profileComplete;
+        List<String> missingFields = new ArrayList<>();
+        String insulinMessage;
     }
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.insuscan.service;
 
 import com.insuscan.boundary.FoodRecognitionResult;
 import com.insuscan.boundary.NutritionInfo;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 public interface SemanticMatchingService {
     /**
@@ -11,4 +15,37 @@ public interface SemanticMatchingService {
      * Returns null if no good match is found.
      */
     String findBestMatch(FoodRecognitionResult.RecognizedFoodItem visualTarget, List<NutritionInfo> candidates);
+
+    /**
+     * Non-blocking variant of findBestMatch.
+     * Completes empty if no good match is found.
+     */
+    Mono<String> findBestMatchAsync(FoodRecognitionResult.RecognizedFoodItem visualTarget, List<NutritionInfo> candidates);
+
+    /**
+     * Judges all items of a meal in a single LLM call (single-candidate items, cached
+     * verdicts and obvious local matches skip it). Returns the chosen fdcId per item; items without
+     * candidates are left out. Items the batch answer does not cover are judged one by one;
+     * if the batch call itself fails, the remaining items get the best local score.
+     */
+    Map<FoodRecognitionResult.RecognizedFoodItem, String> findBestMatches(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem);
+
+    /**
+     * Non-blocking variant of findBestMatches.
+     */
+    Mono<Map<FoodRecognitionResult.RecognizedFoodItem, String>> findBestMatchesAsync(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem);
+
+    /**
+     * findBestMatchesAsync with only the LLM calls bounded by timeout. Verdicts resolved
+     * locally, and LLM verdicts that arrived in time, are kept; items still open when the
+     * time is up get the best local score. Never errors.
+     */
+    Mono<Map<FoodRecognitionResult.RecognizedFoodItem, String>> findBestMatchesAsync(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem,
+            Duration timeout);
 }
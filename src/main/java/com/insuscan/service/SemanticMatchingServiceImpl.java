@@ -5,14 +5,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.insuscan.boundary.FoodRecognitionResult;
 import com.insuscan.boundary.NutritionInfo;
 import com.insuscan.util.ApiLogger;
+import com.insuscan.util.UpstreamGuard;
+import com.insuscan.util.UpstreamGuards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +34,9 @@ public class SemanticMatchingServiceImpl implements SemanticMatchingService {
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     private final ApiLogger apiLogger;
+    private final JudgeVerdictCache verdictCache;
+    private final CandidatePreRanker preRanker;
+    private final UpstreamGuards upstreamGuards;
 
     @Value("${openai.api.key:}")
     private String openAiApiKey;
@@ -30,58 +44,239 @@ public class SemanticMatchingServiceImpl implements SemanticMatchingService {
     @Value("${openai.model:gpt-4o-mini}")
     private String openAiModel;
 
-    public SemanticMatchingServiceImpl(WebClient.Builder webClientBuilder,
+    public SemanticMatchingServiceImpl(@Qualifier("openAiWebClientBuilder") WebClient.Builder webClientBuilder,
                                        ObjectMapper objectMapper,
-                                       ApiLogger apiLogger) {
+                                       ApiLogger apiLogger,
+                                       JudgeVerdictCache verdictCache,
+                                       CandidatePreRanker preRanker,
+                                       UpstreamGuards upstreamGuards,
+                                       @Value("${openai.api.base-url:https://api.openai.com/v1}") String openAiBaseUrl) {
         this.webClient = webClientBuilder
-                .baseUrl("https://api.openai.com/v1")
+                .baseUrl(openAiBaseUrl)
                 .build();
         this.objectMapper = objectMapper;
         this.apiLogger = apiLogger;
+        this.verdictCache = verdictCache;
+        this.preRanker = preRanker;
+        this.upstreamGuards = upstreamGuards;
     }
 
     @Override
     public String findBestMatch(FoodRecognitionResult.RecognizedFoodItem visualTarget, List<NutritionInfo> candidates) {
+        return findBestMatchAsync(visualTarget, candidates).block();
+    }
+
+    @Override
+    public Mono<String> findBestMatchAsync(FoodRecognitionResult.RecognizedFoodItem visualTarget, List<NutritionInfo> candidates) {
         if (candidates == null || candidates.isEmpty()) {
-            return null;
+            return Mono.empty();
         }
 
         // Optimization: If only 1 candidate exists, verify it loosely or just return it
         if (candidates.size() == 1) {
-            return candidates.get(0).getFdcId();
+            return Mono.just(candidates.get(0).getFdcId());
+        }
+
+        // Same target + same candidates = same verdict at temperature 0
+        String cacheKey = verdictCache.keyFor(openAiModel, visualTarget, candidates);
+        String cached = verdictCache.get(cacheKey);
+        if (cached != null) {
+            apiLogger.judgeCacheHit(visualTarget.getName(), cached);
+            return Mono.just(cached);
+        }
+
+        // Obvious winner by local scoring - no need to ask the judge
+        String obvious = preRanker.pickObviousMatch(visualTarget, candidates);
+        if (obvious != null) {
+            apiLogger.judgePreRanked(visualTarget.getName(), obvious);
+            return Mono.just(obvious);
+        }
+
+        return judge(visualTarget, candidates, cacheKey);
+    }
+
+    @Override
+    public Map<FoodRecognitionResult.RecognizedFoodItem, String> findBestMatches(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem) {
+        return findBestMatchesAsync(targets, candidatesByItem).block();
+    }
+
+    @Override
+    public Mono<Map<FoodRecognitionResult.RecognizedFoodItem, String>> findBestMatchesAsync(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem) {
+        return findBestMatchesAsync(targets, candidatesByItem, null);
+    }
+
+    @Override
+    public Mono<Map<FoodRecognitionResult.RecognizedFoodItem, String>> findBestMatchesAsync(
+            List<FoodRecognitionResult.RecognizedFoodItem> targets,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem,
+            Duration timeout) {
+        Map<FoodRecognitionResult.RecognizedFoodItem, String> verdicts = new LinkedHashMap<>();
+        Map<FoodRecognitionResult.RecognizedFoodItem, String> cacheKeys = new LinkedHashMap<>();
+
+        // Settle whatever needs no LLM call: single candidates, cached verdicts, obvious winners
+        for (FoodRecognitionResult.RecognizedFoodItem target : targets) {
+            List<NutritionInfo> candidates = candidatesByItem.get(target);
+            if (candidates == null || candidates.isEmpty()) {
+                continue;
+            }
+            if (candidates.size() == 1) {
+                verdicts.put(target, candidates.get(0).getFdcId());
+                continue;
+            }
+            String cacheKey = verdictCache.keyFor(openAiModel, target, candidates);
+            String cached = verdictCache.get(cacheKey);
+            if (cached != null) {
+                apiLogger.judgeCacheHit(target.getName(), cached);
+                verdicts.put(target, cached);
+                continue;
+            }
+            String obvious = preRanker.pickObviousMatch(target, candidates);
+            if (obvious != null) {
+                apiLogger.judgePreRanked(target.getName(), obvious);
+                verdicts.put(target, obvious);
+            } else {
+                cacheKeys.put(target, cacheKey);
+            }
+        }
+
+        List<FoodRecognitionResult.RecognizedFoodItem> toJudge = new ArrayList<>(cacheKeys.keySet());
+        if (toJudge.isEmpty()) {
+            return Mono.just(verdicts);
+        }
+
+        // Judge unavailable: every item would fail fast anyway, so score them all locally
+        if (upstreamGuards.openAiJudge().getState() == UpstreamGuard.State.OPEN) {
+            log.warn("[JUDGE] Circuit open, {} items matched by local score", toJudge.size());
+            return Mono.just(withLocalGuesses(verdicts, toJudge, Map.of(), candidatesByItem));
+        }
+
+        // Filled as LLM verdicts arrive, so a timeout keeps the ones already in
+        Map<FoodRecognitionResult.RecognizedFoodItem, String> judged = new ConcurrentHashMap<>();
+        Mono<Void> llm = toJudge.size() == 1
+                ? judgeInto(judged, toJudge.get(0), candidatesByItem, cacheKeys)
+                : judgeBatchInto(judged, toJudge, candidatesByItem, cacheKeys);
+        if (timeout != null) {
+            llm = llm.timeout(timeout)
+                    .onErrorResume(TimeoutException.class, e -> {
+                        log.warn("[JUDGE] No verdict within {}ms, {} of {} items matched by local score",
+                                timeout.toMillis(), toJudge.size() - judged.size(), toJudge.size());
+                        return Mono.empty();
+                    });
+        }
+        return llm.then(Mono.fromSupplier(() -> withLocalGuesses(verdicts, toJudge, judged, candidatesByItem)));
+    }
+
+    // One call for the whole meal; items the answer leaves out are judged one by one.
+    // A failed call (transport, timeout, bulkhead) is not retried per item - the caller scores locally
+    private Mono<Void> judgeBatchInto(Map<FoodRecognitionResult.RecognizedFoodItem, String> judged,
+                                      List<FoodRecognitionResult.RecognizedFoodItem> toJudge,
+                                      Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem,
+                                      Map<FoodRecognitionResult.RecognizedFoodItem, String> cacheKeys) {
+        apiLogger.openaiStart("SEMANTIC_JUDGE_BATCH", toJudge.size());
+        long startTime = System.currentTimeMillis();
+        String prompt = buildBatchJudgePrompt(toJudge, candidatesByItem);
+
+        return callJudge(prompt)
+                .map(this::parseBatchVerdicts)
+                .onErrorResume(e -> {
+                    log.error("[JUDGE] Batch judge failed, {} items matched by local score: {}",
+                            toJudge.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .flatMap(batchVerdicts -> {
+                    List<FoodRecognitionResult.RecognizedFoodItem> unanswered = new ArrayList<>();
+                    for (int i = 0; i < toJudge.size(); i++) {
+                        FoodRecognitionResult.RecognizedFoodItem target = toJudge.get(i);
+                        String fdcId = batchVerdicts.get(i + 1);
+                        if (fdcId != null && isCandidate(fdcId, candidatesByItem.get(target))) {
+                            judged.put(target, fdcId);
+                            verdictCache.put(cacheKeys.get(target), fdcId);
+                        } else {
+                            unanswered.add(target);
+                        }
+                    }
+                    log.info("[JUDGE] Batch verdict: {}/{} items in {}ms", toJudge.size() - unanswered.size(),
+                            toJudge.size(), System.currentTimeMillis() - startTime);
+
+                    return Flux.fromIterable(unanswered)
+                            .flatMap(target -> judgeInto(judged, target, candidatesByItem, cacheKeys))
+                            .then();
+                });
+    }
+
+    private Mono<Void> judgeInto(Map<FoodRecognitionResult.RecognizedFoodItem, String> judged,
+                                 FoodRecognitionResult.RecognizedFoodItem target,
+                                 Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem,
+                                 Map<FoodRecognitionResult.RecognizedFoodItem, String> cacheKeys) {
+        return judge(target, candidatesByItem.get(target), cacheKeys.get(target))
+                .doOnNext(fdcId -> judged.put(target, fdcId))
+                .then();
+    }
+
+    // Local verdicts plus the LLM's; anything the LLM did not answer gets the best local score
+    private Map<FoodRecognitionResult.RecognizedFoodItem, String> withLocalGuesses(
+            Map<FoodRecognitionResult.RecognizedFoodItem, String> verdicts,
+            List<FoodRecognitionResult.RecognizedFoodItem> toJudge,
+            Map<FoodRecognitionResult.RecognizedFoodItem, String> judged,
+            Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem) {
+        Map<FoodRecognitionResult.RecognizedFoodItem, String> result = new LinkedHashMap<>(verdicts);
+        for (FoodRecognitionResult.RecognizedFoodItem target : toJudge) {
+            String fdcId = judged.get(target);
+            result.put(target, fdcId != null ? fdcId : preRanker.bestGuess(target, candidatesByItem.get(target)));
         }
+        return result;
+    }
 
+    // Single-item judge call; caches real verdicts, falls back to the first candidate on failure
+    private Mono<String> judge(FoodRecognitionResult.RecognizedFoodItem visualTarget,
+                               List<NutritionInfo> candidates, String cacheKey) {
         apiLogger.openaiStart("SEMANTIC_JUDGE", candidates.size());
         long startTime = System.currentTimeMillis();
 
-        try {
-            // 1. Build the "Trial" (The Prompt)
-            String prompt = buildJudgePrompt(visualTarget, candidates);
-            Map<String, Object> requestBody = buildRequestBody(prompt);
-
-            // 2. Call the Judge (OpenAI)
-            String response = webClient.post()
-                    .uri("/chat/completions")
-                    .header("Authorization", "Bearer " + openAiApiKey)
-                    .header("Content-Type", "application/json")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            // 3. Parse the Verdict
-            String bestFdcId = parseJudgeVerdict(response);
-            
-            long elapsed = System.currentTimeMillis() - startTime;
-            log.info("[JUDGE] Verdict: Selected ID {} for target '{}' (in {}ms)", bestFdcId, visualTarget.getName(), elapsed);
-
-            return bestFdcId;
+        // 1. Build the "Trial" (The Prompt)
+        String prompt = buildJudgePrompt(visualTarget, candidates);
 
-        } catch (Exception e) {
-            log.error("[JUDGE] Failed to rank candidates: {}", e.getMessage());
-            // Fallback: If judge fails, return the first item (safest fallback)
-            return candidates.get(0).getFdcId();
+        // 2. Call the Judge (OpenAI)
+        return callJudge(prompt)
+                // 3. Parse the Verdict
+                .flatMap(response -> Mono.justOrEmpty(parseJudgeVerdict(response)))
+                .doOnNext(bestFdcId -> {
+                    long elapsed = System.currentTimeMillis() - startTime;
+                    log.info("[JUDGE] Verdict: Selected ID {} for target '{}' (in {}ms)", bestFdcId, visualTarget.getName(), elapsed);
+                    // Only cache ids that are actually among the candidates (not hallucinated ones)
+                    if (isCandidate(bestFdcId, candidates)) {
+                        verdictCache.put(cacheKey, bestFdcId);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("[JUDGE] Failed to rank candidates: {}", e.getMessage());
+                    // Fallback: best local score (same rules as the prompt), not cached
+                    return Mono.just(preRanker.bestGuess(visualTarget, candidates));
+                });
+    }
+
+    // Breaker, bulkhead, adaptive timeout and 429 retry come from the shared openai-judge guard
+    private Mono<String> callJudge(String prompt) {
+        return upstreamGuards.openAiJudge().protect(webClient.post()
+                .uri("/chat/completions")
+                .header("Authorization", "Bearer " + openAiApiKey)
+                .header("Content-Type", "application/json")
+                .bodyValue(buildRequestBody(prompt))
+                .retrieve()
+                .bodyToMono(String.class));
+    }
+
+    private boolean isCandidate(String fdcId, List<NutritionInfo> candidates) {
+        for (NutritionInfo candidate : candidates) {
+            if (fdcId.equals(candidate.getFdcId())) {
+                return true;
+            }
         }
+        return false;
     }
 
     private String buildJudgePrompt(FoodRecognitionResult.RecognizedFoodItem target, List<NutritionInfo> candidates) {
@@ -127,6 +322,45 @@ public class SemanticMatchingServiceImpl implements SemanticMatchingService {
         );
     }
 
+    // All items of a meal in one prompt; the instructions are sent once instead of per item
+    private String buildBatchJudgePrompt(List<FoodRecognitionResult.RecognizedFoodItem> targets,
+                                         Map<FoodRecognitionResult.RecognizedFoodItem, List<NutritionInfo>> candidatesByItem) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < targets.size(); i++) {
+            FoodRecognitionResult.RecognizedFoodItem target = targets.get(i);
+            String risks = target.getRiskFlags() != null ? String.join(", ", target.getRiskFlags()) : "NONE";
+            String state = target.getVisualState() != null ? target.getVisualState() : "UNKNOWN";
+
+            items.append(String.format("[%d] Item: %s | State: %s | Risk Flags: [%s] | Base Ingredient: %s%n",
+                    i + 1, target.getName(), state, risks, target.getBaseIngredient()));
+            for (NutritionInfo c : candidatesByItem.get(target)) {
+                items.append(String.format("- ID: %s | Name: %s%n", c.getFdcId(), c.getFoodName()));
+            }
+            items.append('\n');
+        }
+
+        return String.format("""
+                You are a Clinical Nutrition Data Matcher.
+                
+                TARGETS (Visual Analysis), each followed by its CANDIDATE LIST (From USDA Database):
+                %s
+                TASK:
+                For EACH target, select the SINGLE fdcId from THAT target's own candidate list that represents the most scientifically accurate nutritional match.
+                
+                LOGIC RULES (apply to each target independently):
+                1. FORM CHECK: If target is a whole vegetable/fruit, DISCARD 'Flour', 'Powder', 'Baby Food', 'Bread'.
+                2. STATE MATCH: If target state is cooked (e.g. 'ROASTED', 'BOILED', 'FRIED'), prioritize items with descriptions like 'Roasted', 'Baked', 'Cooked'. Avoid 'Raw' unless no cooked option exists.
+                3. FAT CHECK: If Risk Flags contain 'HIGH_FAT' or 'OIL', prefer items mentioning 'oil', 'fat added', or preparation methods involving fat.
+                4. SAFETY FALLBACK: If uncertain, choose the 'Plain/Raw' version rather than a processed product (like chips/bread).
+                
+                OUTPUT:
+                Return STRICT JSON ONLY, an array with one verdict per target number:
+                [ { "item": 1, "best_match_id": "12345" }, { "item": 2, "best_match_id": "67890" } ]
+                """,
+                items
+        );
+    }
+
     private Map<String, Object> buildRequestBody(String prompt) {
         return Map.of(
                 "model", openAiModel,
@@ -138,6 +372,38 @@ public class SemanticMatchingServiceImpl implements SemanticMatchingService {
         );
     }
 
+    // Target number (1-based) -> chosen fdcId; missing or malformed entries are left out
+    private Map<Integer, String> parseBatchVerdicts(String jsonResponse) {
+        Map<Integer, String> verdicts = new HashMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(jsonResponse);
+            JsonNode choices = root.get("choices");
+            if (choices == null || choices.isEmpty()) {
+                return verdicts;
+            }
+            String content = choices.get(0).get("message").get("content").asText();
+
+            // Extract the array from content (handle potential markdown or a wrapping object)
+            int start = content.indexOf('[');
+            int end = content.lastIndexOf(']');
+            if (start < 0 || end <= start) {
+                log.warn("[JUDGE] Batch response has no verdict array");
+                return verdicts;
+            }
+            JsonNode array = objectMapper.readTree(content.substring(start, end + 1));
+            for (JsonNode verdict : array) {
+                JsonNode item = verdict.get("item");
+                JsonNode id = verdict.get("best_match_id");
+                if (item != null && item.canConvertToInt() && id != null && !id.isNull()) {
+                    verdicts.put(item.asInt(), id.asText());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse batch judge response", e);
+        }
+        return verdicts;
+    }
+
     private String parseJudgeVerdict(String jsonResponse) {
         try {
             JsonNode root = objectMapper.readTree(jsonResponse);
@@ -1,6 +1,7 @@
 package com.insuscan.service;
 
 import com.insuscan.boundary.NewUserBoundary;
+import com.insuscan.boundary.PageBoundary;
 import com.insuscan.boundary.UserBoundary;
 
 import java.util.List;
@@ -21,6 +22,10 @@ public interface UserService {
     // Get all users (admin only, with pagination)
     List<UserBoundary> getAllUsers(String adminSystemId, String adminEmail, int page, int size);
 
+    // Get users (admin only), cursor-paginated; role is optional (null = all roles)
+    PageBoundary<UserBoundary> getUsersPage(String adminSystemId, String adminEmail,
+                                            String role, String pageToken, int size);
+
     // Delete all users (admin only)
     void deleteAllUsers(String adminSystemId, String adminEmail);
 
@@ -35,4 +40,7 @@ public interface UserService {
 
     // Delete single user (admin only)
     void deleteUser(String adminSystemId, String adminEmail, String targetSystemId, String targetEmail);
+
+    // Throws unless systemId/email belongs to an existing ADMIN user
+    void verifyAdminAccess(String systemId, String email);
 }
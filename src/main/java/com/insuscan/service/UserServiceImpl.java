@@ -6,8 +6,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.insuscan.boundary.NewUserBoundary;
+import com.insuscan.boundary.PageBoundary;
 import com.insuscan.boundary.UserBoundary;
 import com.insuscan.converter.UserConverter;
+import com.insuscan.crud.CursorPage;
+import com.insuscan.crud.UserProfileCache;
 import com.insuscan.crud.UserRepository;
 import com.insuscan.data.UserEntity;
 import com.insuscan.enums.UserRole;
@@ -28,14 +31,17 @@ public class UserServiceImpl implements UserService {
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
     
     private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     private final UserConverter userConverter;
     private final ApiLogger apiLogger;
 
     @Value("${spring.application.name}")
     private String systemId;
 
-    public UserServiceImpl(UserRepository userRepository, UserConverter userConverter,ApiLogger apiLogger) {
+    public UserServiceImpl(UserRepository userRepository, UserProfileCache userProfileCache,
+                           UserConverter userConverter, ApiLogger apiLogger) {
         this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
         this.userConverter = userConverter;
         this.apiLogger = apiLogger;
     }
@@ -179,6 +185,7 @@ public class UserServiceImpl implements UserService {
         existing.setUpdatedAt(new Date());
         apiLogger.logUserEntityBeforeSave(existing);
         UserEntity saved = userRepository.save(existing);
+        userProfileCache.invalidate(id);
         return userConverter.toBoundary(saved);
     }
 
@@ -193,12 +200,34 @@ public class UserServiceImpl implements UserService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public PageBoundary<UserBoundary> getUsersPage(String adminSystemId, String adminEmail,
+                                                   String role, String pageToken, int size) {
+        // Verify admin access
+        verifyAdminAccess(adminSystemId, adminEmail);
+        InputValidators.validatePageSize(size);
+
+        CursorPage<UserEntity> page;
+        if (role != null && !role.isBlank()) {
+            InputValidators.validateRole(role);
+            page = userRepository.findByRoleAfter(UserRole.valueOf(role.toUpperCase()), pageToken, size);
+        } else {
+            page = userRepository.findAllAfter(pageToken, size);
+        }
+
+        List<UserBoundary> items = page.getItems().stream()
+            .map(userConverter::toBoundary)
+            .collect(Collectors.toList());
+        return new PageBoundary<>(items, page.getNextPageToken());
+    }
+
     @Override
     public void deleteAllUsers(String adminSystemId, String adminEmail) {
         // Verify admin access
         verifyAdminAccess(adminSystemId, adminEmail);
 
         userRepository.deleteAll();
+        userProfileCache.invalidateAll();
     }
 
     @Override
@@ -237,6 +266,7 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.deleteById(targetId);
+        userProfileCache.invalidate(targetId);
     }
 
     @Override
@@ -287,7 +317,8 @@ public class UserServiceImpl implements UserService {
     }
 
     // Verify the requesting user has admin privileges
-    private void verifyAdminAccess(String systemId, String email) {
+    @Override
+    public void verifyAdminAccess(String systemId, String email) {
         InputValidators.validateSystemId(systemId);
         InputValidators.validateEmail(email);
 
@@ -1,32 +1,77 @@
 package com.insuscan.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.CacheStatsBoundary;
 import com.insuscan.boundary.FoodRecognitionResult;
+import com.insuscan.image.ImageData;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.security.MessageDigest;
-import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Caches vision analysis results by image hash to ensure consistency
  * for repeated scans of the same image.
+ *
+ * Memory tier: LRU bounded by entry count and estimated bytes, with TTL expiry.
+ * Disk tier (optional): one JSON file per hash, so paid-for results survive restarts.
  */
 @Service
 public class VisionCacheService {
 
     private static final Logger log = LoggerFactory.getLogger(VisionCacheService.class);
-    
-    // Cache: image hash -> vision result
-    private final Map<String, FoodRecognitionResult> cache = new ConcurrentHashMap<>();
-    
-    // Cache: image hash -> cached timestamp (for expiration)
-    private final Map<String, Long> cacheTimestamps = new ConcurrentHashMap<>();
-    
-    // Cache expiration: 24 hours
-    private static final long CACHE_EXPIRATION_MS = 24 * 60 * 60 * 1000;
+
+    // Rough per-object overhead used when estimating entry size
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int ITEM_OVERHEAD_BYTES = 96;
+
+    private final ObjectMapper objectMapper;
+
+    // Access-ordered map = LRU; guarded by "this"
+    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes = 0;
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Value("${insuscan.vision-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${insuscan.vision-cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${insuscan.vision-cache.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${insuscan.vision-cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${insuscan.vision-cache.disk.dir:vision-cache}")
+    private String diskDir;
+
+    private DiskCacheTier<DiskEntry> disk;  // null when disabled
+
+    public VisionCacheService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void initDiskTier() {
+        if (diskEnabled) {
+            disk = DiskCacheTier.open("vision", diskDir, DiskEntry.class, objectMapper);
+        }
+    }
 
     /**
      * Get cached result or null if not found/expired
@@ -35,61 +80,75 @@ public class VisionCacheService {
         if (imageHash == null) {
             return null;
         }
-        
-        FoodRecognitionResult cached = cache.get(imageHash);
-        if (cached == null) {
-            return null;
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            CacheEntry entry = cache.get(imageHash);
+            if (entry != null) {
+                if (!isExpired(entry.createdAt, now)) {
+                    hits.incrementAndGet();
+                    log.info("Using cached vision result for image hash: {}...", shortHash(imageHash));
+                    return entry.result;
+                }
+                removeEntry(imageHash);
+                expirations.incrementAndGet();
+                log.debug("Cache expired for image hash: {}...", shortHash(imageHash));
+            }
         }
-        
-        // Check expiration
-        Long timestamp = cacheTimestamps.get(imageHash);
-        if (timestamp != null && System.currentTimeMillis() - timestamp > CACHE_EXPIRATION_MS) {
-            cache.remove(imageHash);
-            cacheTimestamps.remove(imageHash);
-            log.debug("Cache expired for image hash: {}", imageHash.substring(0, 8) + "...");
+
+        // Memory miss - try the disk tier and promote on hit
+        DiskEntry fromDisk = readFromDisk(imageHash);
+        if (fromDisk != null && !isExpired(fromDisk.createdAt, now)) {
+            diskHits.incrementAndGet();
+            synchronized (this) {
+                putInMemory(imageHash, fromDisk.result, fromDisk.createdAt);
+            }
+            log.info("Using disk-cached vision result for image hash: {}...", shortHash(imageHash));
+            return fromDisk.result;
+        }
+        if (fromDisk != null) {
+            deleteFromDisk(imageHash);
+            expirations.incrementAndGet();
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Memory-only lookup that does not touch the hit/miss counters.
+     * Used to re-check right before starting an upstream call.
+     */
+    public synchronized FoodRecognitionResult peek(String imageHash) {
+        CacheEntry entry = imageHash != null ? cache.get(imageHash) : null;
+        if (entry == null || isExpired(entry.createdAt, System.currentTimeMillis())) {
             return null;
         }
-        
-        log.info("Using cached vision result for image hash: {}...", imageHash.substring(0, 8));
-        return cached;
+        return entry.result;
     }
 
     /**
      * Store result in cache
      */
     public void putCache(String imageHash, FoodRecognitionResult result) {
-        if (imageHash != null && result != null) {
-            cache.put(imageHash, result);
-            cacheTimestamps.put(imageHash, System.currentTimeMillis());
-            log.debug("Cached vision result for image hash: {}...", imageHash.substring(0, 8));
+        if (imageHash == null || result == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            putInMemory(imageHash, result, now);
         }
+        writeToDisk(imageHash, result, now);
+        log.debug("Cached vision result for image hash: {}...", shortHash(imageHash));
     }
 
     /**
-     * Generate hash from base64 image string
+     * Generate hash from base64 image string.
+     * Uploads already carry their hash (ImageData.getHash), this is for Base64 callers.
      */
     public String hashImage(String base64Image) {
         try {
-            // Remove data URL prefix if present
-            String imageData = base64Image;
-            if (imageData.contains(",")) {
-                imageData = imageData.substring(imageData.indexOf(",") + 1);
-            }
-            
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] imageBytes = Base64.getDecoder().decode(imageData);
-            byte[] hashBytes = digest.digest(imageBytes);
-            
-            // Return first 16 bytes as hex string (sufficient for uniqueness)
-            StringBuilder hexString = new StringBuilder();
-            for (int i = 0; i < Math.min(16, hashBytes.length); i++) {
-                String hex = Integer.toHexString(0xff & hashBytes[i]);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return ImageData.fromBase64(base64Image).getHash();
         } catch (Exception e) {
             log.error("Failed to hash image", e);
             // Fallback: use first 32 chars of base64 as hash
@@ -98,16 +157,147 @@ public class VisionCacheService {
     }
 
     /**
-     * Clear expired entries (can be called periodically)
+     * Clear expired entries from memory and disk (runs periodically)
      */
+    @Scheduled(fixedDelayString = "${insuscan.vision-cache.cleanup-interval-ms:3600000}")
     public void clearExpired() {
         long now = System.currentTimeMillis();
-        cacheTimestamps.entrySet().removeIf(entry -> {
-            if (now - entry.getValue() > CACHE_EXPIRATION_MS) {
-                cache.remove(entry.getKey());
-                return true;
+        int removed = 0;
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CacheEntry> entry = it.next();
+                if (isExpired(entry.getValue().createdAt, now)) {
+                    currentBytes -= entry.getValue().sizeBytes;
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+
+        if (disk != null) {
+            removed += disk.deleteExpired(ttlMillis(), now);
+        }
+
+        if (removed > 0) {
+            expirations.addAndGet(removed);
+            log.debug("Cleared {} expired vision cache entries", removed);
+        }
+    }
+
+    /**
+     * Current size and hit/miss counters
+     */
+    public synchronized CacheStatsBoundary getStats() {
+        CacheStatsBoundary stats = new CacheStatsBoundary();
+        stats.setName("vision");
+        stats.setEntries(cache.size());
+        stats.setEstimatedBytes(currentBytes);
+        stats.setHits(hits.get());
+        stats.setDiskHits(diskHits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        stats.setExpirations(expirations.get());
+        return stats;
+    }
+
+    // ===== Memory tier (caller holds the lock) =====
+
+    private void putInMemory(String imageHash, FoodRecognitionResult result, long createdAt) {
+        removeEntry(imageHash);
+
+        CacheEntry entry = new CacheEntry(result, createdAt, estimateSize(imageHash, result));
+        cache.put(imageHash, entry);
+        currentBytes += entry.sizeBytes;
+
+        // Evict least-recently-used entries until within both bounds
+        Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator();
+        while ((cache.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, CacheEntry> eldest = it.next();
+            if (eldest.getKey().equals(imageHash)) {
+                continue; // never evict the entry we just added
             }
-            return false;
-        });
+            currentBytes -= eldest.getValue().sizeBytes;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(String imageHash) {
+        CacheEntry old = cache.remove(imageHash);
+        if (old != null) {
+            currentBytes -= old.sizeBytes;
+        }
+    }
+
+    private static long estimateSize(String key, FoodRecognitionResult result) {
+        long size = ENTRY_OVERHEAD_BYTES + 2L * key.length();
+        size += 2L * length(result.getErrorMessage());
+        for (FoodRecognitionResult.RecognizedFoodItem item : result.getDetectedFoods()) {
+            size += ITEM_OVERHEAD_BYTES;
+            size += 2L * length(item.getName());
+            size += 2L * length(item.getBaseIngredient());
+            size += 2L * length(item.getVisualState());
+            for (String flag : item.getRiskFlags()) {
+                size += 2L * length(flag) + 16;
+            }
+        }
+        return size;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    // ===== Disk tier =====
+
+    private DiskEntry readFromDisk(String imageHash) {
+        return disk != null ? disk.read(imageHash) : null;
+    }
+
+    private void writeToDisk(String imageHash, FoodRecognitionResult result, long createdAt) {
+        if (disk != null) {
+            DiskEntry entry = new DiskEntry();
+            entry.createdAt = createdAt;
+            entry.result = result;
+            disk.write(imageHash, entry);
+        }
+    }
+
+    private void deleteFromDisk(String imageHash) {
+        if (disk != null) {
+            disk.delete(imageHash);
+        }
+    }
+
+    private boolean isExpired(long createdAt, long now) {
+        return now - createdAt > ttlMillis();
+    }
+
+    private long ttlMillis() {
+        return ttlHours * 60 * 60 * 1000;
+    }
+
+    private static String shortHash(String imageHash) {
+        return imageHash.substring(0, Math.min(8, imageHash.length()));
+    }
+
+    private static class CacheEntry {
+        final FoodRecognitionResult result;
+        final long createdAt;
+        final long sizeBytes;
+
+        CacheEntry(FoodRecognitionResult result, long createdAt, long sizeBytes) {
+            this.result = result;
+            this.createdAt = createdAt;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    // JSON shape of a disk-tier file
+    static class DiskEntry {
+        public long createdAt;
+        public FoodRecognitionResult result;
     }
 }
@@ -0,0 +1,295 @@
+package com.insuscan.usda;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Loads USDA FoodData Central bulk downloads (Foundation + SR Legacy) and
+ * reads/writes the compact local store used by {@link UsdaLocalMirror}.
+ *
+ * Supported inputs:
+ * - JSON dumps (FoodData_Central_foundation_food_json_*.json, FoodData_Central_sr_legacy_food_json_*.json),
+ *   streamed food-by-food so the 200 MB files never sit in memory as one tree
+ * - CSV dump directories containing food.csv and food_nutrient.csv
+ */
+public class UsdaBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(UsdaBulkImporter.class);
+
+    // Nutrient ids: "Carbohydrate, by difference" is preferred, "by summation" is used by some Foundation foods
+    private static final int CARBS_BY_DIFFERENCE_ID = 1005;
+    private static final int CARBS_BY_SUMMATION_ID = 1050;
+    private static final String CARBS_BY_DIFFERENCE_NUMBER = "205";
+    private static final String CARBS_BY_SUMMATION_NUMBER = "205.2";
+
+    private static final Set<String> CSV_DATA_TYPES = Set.of("foundation_food", "sr_legacy_food");
+
+    private static final int STORE_MAGIC = 0x55534441; // "USDA"
+    private static final int STORE_VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+
+    public UsdaBulkImporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Import every configured dump; later files win on duplicate fdcIds.
+     */
+    public List<UsdaFoodRecord> importAll(List<Path> sources) throws IOException {
+        Map<Integer, UsdaFoodRecord> byId = new LinkedHashMap<>();
+        for (Path source : sources) {
+            List<UsdaFoodRecord> records = Files.isDirectory(source)
+                    ? importCsvDirectory(source)
+                    : importJson(source);
+            log.info("[USDA-LOCAL] Imported {} foods from {}", records.size(), source);
+            for (UsdaFoodRecord record : records) {
+                byId.put(record.getFdcId(), record);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    // ===================== JSON =====================
+
+    public List<UsdaFoodRecord> importJson(Path file) throws IOException {
+        List<UsdaFoodRecord> records = new ArrayList<>();
+        try (InputStream in = open(file);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            // Top level is { "FoundationFoods": [ ... ] } or { "SRLegacyFoods": [ ... ] }
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected USDA JSON layout in " + file);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                JsonToken value = parser.nextToken();
+                if (value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    // One food at a time - small tree, discarded right after
+                    JsonNode food = objectMapper.readTree(parser);
+                    UsdaFoodRecord record = fromJson(food);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    private UsdaFoodRecord fromJson(JsonNode food) {
+        if (!food.has("fdcId") || !food.has("description")) {
+            return null;
+        }
+        Float byDifference = null;
+        Float bySummation = null;
+
+        JsonNode nutrients = food.get("foodNutrients");
+        if (nutrients != null && nutrients.isArray()) {
+            for (JsonNode fn : nutrients) {
+                JsonNode nutrient = fn.get("nutrient");
+                JsonNode amount = fn.get("amount");
+                if (nutrient == null || amount == null || !amount.isNumber()) continue;
+
+                int id = nutrient.path("id").asInt(-1);
+                String number = nutrient.path("number").asText("");
+                if (id == CARBS_BY_DIFFERENCE_ID || CARBS_BY_DIFFERENCE_NUMBER.equals(number)) {
+                    byDifference = (float) amount.asDouble();
+                } else if (id == CARBS_BY_SUMMATION_ID || CARBS_BY_SUMMATION_NUMBER.equals(number)) {
+                    bySummation = (float) amount.asDouble();
+                }
+            }
+        }
+
+        Float carbs = byDifference != null ? byDifference : bySummation;
+        if (carbs == null) {
+            return null; // without carbs the food is useless for dosing
+        }
+        return new UsdaFoodRecord(food.get("fdcId").asInt(), food.get("description").asText(), carbs);
+    }
+
+    // ===================== CSV =====================
+
+    public List<UsdaFoodRecord> importCsvDirectory(Path dir) throws IOException {
+        Path foodCsv = dir.resolve("food.csv");
+        Path nutrientCsv = dir.resolve("food_nutrient.csv");
+        if (!Files.exists(foodCsv) || !Files.exists(nutrientCsv)) {
+            throw new IOException("CSV dump directory must contain food.csv and food_nutrient.csv: " + dir);
+        }
+
+        // 1. Foods of the lab-verified data types
+        Map<Integer, String> descriptions = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(foodCsv, StandardCharsets.UTF_8)) {
+            Map<String, Integer> header = readHeader(reader);
+            int idCol = column(header, "fdc_id");
+            int typeCol = column(header, "data_type");
+            int descCol = column(header, "description");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> row = parseCsvLine(line);
+                if (row.size() <= Math.max(idCol, Math.max(typeCol, descCol))) continue;
+                if (!CSV_DATA_TYPES.contains(row.get(typeCol))) continue;
+                descriptions.put(Integer.parseInt(row.get(idCol)), row.get(descCol));
+            }
+        }
+
+        // 2. Carb amounts for those foods
+        Map<Integer, Float> byDifference = new HashMap<>();
+        Map<Integer, Float> bySummation = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(nutrientCsv, StandardCharsets.UTF_8)) {
+            Map<String, Integer> header = readHeader(reader);
+            int idCol = column(header, "fdc_id");
+            int nutrientCol = column(header, "nutrient_id");
+            int amountCol = column(header, "amount");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> row = parseCsvLine(line);
+                if (row.size() <= Math.max(idCol, Math.max(nutrientCol, amountCol))) continue;
+
+                int nutrientId = parseIntOr(row.get(nutrientCol), -1);
+                if (nutrientId != CARBS_BY_DIFFERENCE_ID && nutrientId != CARBS_BY_SUMMATION_ID) continue;
+
+                int fdcId = parseIntOr(row.get(idCol), -1);
+                if (!descriptions.containsKey(fdcId) || row.get(amountCol).isEmpty()) continue;
+
+                float amount = Float.parseFloat(row.get(amountCol));
+                (nutrientId == CARBS_BY_DIFFERENCE_ID ? byDifference : bySummation).put(fdcId, amount);
+            }
+        }
+
+        List<UsdaFoodRecord> records = new ArrayList<>();
+        for (Map.Entry<Integer, String> food : descriptions.entrySet()) {
+            Float carbs = byDifference.getOrDefault(food.getKey(), bySummation.get(food.getKey()));
+            if (carbs != null) {
+                records.add(new UsdaFoodRecord(food.getKey(), food.getValue(), carbs));
+            }
+        }
+        records.sort(Comparator.comparingInt(UsdaFoodRecord::getFdcId));
+        return records;
+    }
+
+    private static Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Empty CSV file");
+        }
+        if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1); // strip BOM
+        }
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names = parseCsvLine(line);
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i), i);
+        }
+        return header;
+    }
+
+    private static int column(Map<String, Integer> header, String name) throws IOException {
+        Integer index = header.get(name);
+        if (index == null) {
+            throw new IOException("CSV column missing: " + name);
+        }
+        return index;
+    }
+
+    // RFC 4180 style: quoted fields, doubled quotes inside quotes
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int parseIntOr(String value, int defaultValue) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    // ===================== Compact store =====================
+
+    // Gzipped binary: magic, version, count, then (fdcId, carbs, description) per food
+    public void writeStore(Path storePath, List<UsdaFoodRecord> records) throws IOException {
+        Path parent = storePath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = storePath.resolveSibling(storePath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(STORE_MAGIC);
+            out.writeInt(STORE_VERSION);
+            out.writeInt(records.size());
+            for (UsdaFoodRecord record : records) {
+                out.writeInt(record.getFdcId());
+                out.writeFloat(record.getCarbsPer100g());
+                out.writeUTF(record.getDescription());
+            }
+        }
+        Files.move(tmp, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public List<UsdaFoodRecord> readStore(Path storePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(storePath))))) {
+            if (in.readInt() != STORE_MAGIC || in.readInt() != STORE_VERSION) {
+                throw new IOException("Unrecognized USDA local store format: " + storePath);
+            }
+            int count = in.readInt();
+            List<UsdaFoodRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int fdcId = in.readInt();
+                float carbs = in.readFloat();
+                String description = in.readUTF();
+                records.add(new UsdaFoodRecord(fdcId, description, carbs));
+            }
+            return records;
+        }
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
+}
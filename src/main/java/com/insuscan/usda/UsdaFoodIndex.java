@@ -0,0 +1,175 @@
+package com.insuscan.usda;
+
+import com.insuscan.boundary.NutritionInfo;
+
+import java.util.*;
+
+/**
+ * Immutable in-memory inverted index over USDA food descriptions.
+ * Records are stored column-wise (parallel primitive arrays) and every
+ * description token points at a sorted posting list of record indexes.
+ *
+ * Query semantics mirror the USDA search call with requireAllWords=true:
+ * every query word must match a description token, either exactly or as a prefix
+ * ("apple" matches "apples").
+ */
+public class UsdaFoodIndex {
+
+    private final int[] fdcIds;
+    private final String[] descriptions;
+    private final float[] carbsPer100g;
+    private final Map<String, Integer> positionByFdcId;
+
+    // Sorted vocabulary + posting lists (parallel arrays)
+    private final String[] vocabulary;
+    private final int[][] postings;
+
+    private UsdaFoodIndex(int[] fdcIds, String[] descriptions, float[] carbsPer100g) {
+        this.fdcIds = fdcIds;
+        this.descriptions = descriptions;
+        this.carbsPer100g = carbsPer100g;
+        this.positionByFdcId = new HashMap<>(fdcIds.length * 2);
+
+        TreeMap<String, List<Integer>> tokenDocs = new TreeMap<>();
+        for (int i = 0; i < fdcIds.length; i++) {
+            positionByFdcId.put(String.valueOf(fdcIds[i]), i);
+            for (String token : new LinkedHashSet<>(tokenize(descriptions[i]))) {
+                tokenDocs.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        this.vocabulary = tokenDocs.keySet().toArray(new String[0]);
+        this.postings = new int[vocabulary.length][];
+        int t = 0;
+        for (List<Integer> docs : tokenDocs.values()) {
+            postings[t++] = docs.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static UsdaFoodIndex build(List<UsdaFoodRecord> records) {
+        int n = records.size();
+        int[] ids = new int[n];
+        String[] names = new String[n];
+        float[] carbs = new float[n];
+        for (int i = 0; i < n; i++) {
+            UsdaFoodRecord r = records.get(i);
+            ids[i] = r.getFdcId();
+            names[i] = r.getDescription();
+            carbs[i] = r.getCarbsPer100g();
+        }
+        return new UsdaFoodIndex(ids, names, carbs);
+    }
+
+    public int size() {
+        return fdcIds.length;
+    }
+
+    public List<UsdaFoodRecord> records() {
+        List<UsdaFoodRecord> list = new ArrayList<>(fdcIds.length);
+        for (int i = 0; i < fdcIds.length; i++) {
+            list.add(new UsdaFoodRecord(fdcIds[i], descriptions[i], carbsPer100g[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Search descriptions; every query word must match (exact token or prefix).
+     * Results are ranked: more exact-word hits first, then a leading-word match,
+     * then shorter descriptions (USDA base items like "Rice, white, cooked" before mixes).
+     */
+    public List<NutritionInfo> search(String query, int maxResults) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || maxResults <= 0) {
+            return List.of();
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet wordDocs = docsForWord(word);
+            if (matches == null) {
+                matches = wordDocs;
+            } else {
+                matches.and(wordDocs);
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<int[]> scored = new ArrayList<>();
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            scored.add(new int[] { doc, score(doc, words) });
+        }
+        scored.sort((a, b) -> {
+            if (a[1] != b[1]) return Integer.compare(b[1], a[1]);
+            int byLength = Integer.compare(descriptions[a[0]].length(), descriptions[b[0]].length());
+            if (byLength != 0) return byLength;
+            return Integer.compare(fdcIds[a[0]], fdcIds[b[0]]);
+        });
+
+        List<NutritionInfo> results = new ArrayList<>(Math.min(maxResults, scored.size()));
+        for (int i = 0; i < scored.size() && i < maxResults; i++) {
+            results.add(toNutritionInfo(scored.get(i)[0]));
+        }
+        return results;
+    }
+
+    // Direct lookup by USDA fdcId
+    public Optional<NutritionInfo> getByFdcId(String fdcId) {
+        Integer position = fdcId != null ? positionByFdcId.get(fdcId) : null;
+        return position != null ? Optional.of(toNutritionInfo(position)) : Optional.empty();
+    }
+
+    private BitSet docsForWord(String word) {
+        BitSet docs = new BitSet(fdcIds.length);
+        // First vocabulary entry >= word; all prefix matches follow contiguously
+        int pos = Arrays.binarySearch(vocabulary, word);
+        if (pos < 0) pos = -pos - 1;
+        for (int t = pos; t < vocabulary.length && vocabulary[t].startsWith(word); t++) {
+            for (int doc : postings[t]) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+
+    private int score(int doc, List<String> words) {
+        List<String> tokens = tokenize(descriptions[doc]);
+        int score = 0;
+        for (String word : words) {
+            if (tokens.contains(word)) score += 10;
+        }
+        if (!tokens.isEmpty() && tokens.get(0).startsWith(words.get(0))) {
+            score += 5;
+        }
+        return score;
+    }
+
+    private NutritionInfo toNutritionInfo(int doc) {
+        NutritionInfo info = new NutritionInfo();
+        info.setFound(true);
+        info.setFdcId(String.valueOf(fdcIds[doc]));
+        info.setFoodName(descriptions[doc]);
+        info.setCarbsPer100g(carbsPer100g[doc]);
+        return info;
+    }
+
+    // Lowercase alphanumeric words
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean alnum = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (alnum && start < 0) {
+                start = i;
+            } else if (!alnum && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
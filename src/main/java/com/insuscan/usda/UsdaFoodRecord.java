@@ -0,0 +1,20 @@
+package com.insuscan.usda;
+
+// One food from the USDA bulk dumps, reduced to what carb counting needs
+public class UsdaFoodRecord {
+    private final int fdcId;
+    private final String description;
+    private final float carbsPer100g;
+
+    public UsdaFoodRecord(int fdcId, String description, float carbsPer100g) {
+        this.fdcId = fdcId;
+        this.description = description;
+        this.carbsPer100g = carbsPer100g;
+    }
+
+    public int getFdcId() { return fdcId; }
+
+    public String getDescription() { return description; }
+
+    public float getCarbsPer100g() { return carbsPer100g; }
+}
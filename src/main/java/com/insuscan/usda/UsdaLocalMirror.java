@@ -0,0 +1,136 @@
+package com.insuscan.usda;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.NutritionInfo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Local copy of the USDA Foundation + SR Legacy data sets.
+ *
+ * On startup the compact store is loaded if present; otherwise the configured
+ * bulk dumps are imported and the store is written for the next start.
+ * When nothing is configured the mirror stays empty and callers use the remote API.
+ */
+@Component
+public class UsdaLocalMirror {
+
+    private static final Logger log = LoggerFactory.getLogger(UsdaLocalMirror.class);
+
+    private final UsdaBulkImporter importer;
+
+    @Value("${insuscan.usda.local.enabled:true}")
+    private boolean enabled;
+
+    @Value("${insuscan.usda.local.store-path:usda-local.bin.gz}")
+    private String storePath;
+
+    // Comma separated: JSON dump files (optionally .gz) and/or CSV dump directories
+    @Value("${insuscan.usda.local.import-paths:}")
+    private String importPaths;
+
+    private volatile UsdaFoodIndex index;
+
+    public UsdaLocalMirror(ObjectMapper objectMapper) {
+        this.importer = new UsdaBulkImporter(objectMapper);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            log.info("[USDA-LOCAL] Local mirror disabled");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Path store = Paths.get(storePath);
+            List<Path> sources = parseImportPaths();
+
+            List<UsdaFoodRecord> records;
+            if (Files.exists(store) && !isStale(store, sources)) {
+                records = importer.readStore(store);
+            } else if (!sources.isEmpty()) {
+                records = importer.importAll(sources);
+                importer.writeStore(store, records);
+                log.info("[USDA-LOCAL] Wrote compact store {} ({} bytes)", store, Files.size(store));
+            } else {
+                log.info("[USDA-LOCAL] No local store or bulk dumps configured, using remote API only");
+                return;
+            }
+
+            index = UsdaFoodIndex.build(records);
+            log.info("[USDA-LOCAL] Loaded {} foods in {}ms", index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // A broken mirror must never stop the app - the remote API still works
+            log.error("[USDA-LOCAL] Failed to load local mirror: {}", e.getMessage());
+            index = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    public int size() {
+        UsdaFoodIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Same semantics as the USDA search call with requireAllWords=true.
+     * Returns an empty list when the mirror is not loaded.
+     */
+    public List<NutritionInfo> search(String query, int maxResults) {
+        UsdaFoodIndex current = index;
+        return current != null ? current.search(query, maxResults) : List.of();
+    }
+
+    public Optional<NutritionInfo> getByFdcId(String fdcId) {
+        UsdaFoodIndex current = index;
+        return current != null ? current.getByFdcId(fdcId) : Optional.empty();
+    }
+
+    private List<Path> parseImportPaths() {
+        List<Path> paths = new ArrayList<>();
+        if (importPaths == null || importPaths.isBlank()) {
+            return paths;
+        }
+        for (String p : importPaths.split(",")) {
+            String trimmed = p.trim();
+            if (trimmed.isEmpty()) continue;
+            Path path = Paths.get(trimmed);
+            if (Files.exists(path)) {
+                paths.add(path);
+            } else {
+                log.warn("[USDA-LOCAL] Import path not found, skipping: {}", trimmed);
+            }
+        }
+        return paths;
+    }
+
+    // Re-import when a dump is newer than the store (e.g. a new USDA release was dropped in)
+    private boolean isStale(Path store, List<Path> sources) {
+        try {
+            long storeTime = Files.getLastModifiedTime(store).toMillis();
+            for (Path source : sources) {
+                if (Files.getLastModifiedTime(source).toMillis() > storeTime) {
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("[USDA-LOCAL] Could not compare timestamps: {}", e.getMessage());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+package com.insuscan.usda;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser for FoodData Central API responses. Walks the token stream once and
+ * fills a {@link UsdaNutrientVector} per food, without building Map/List or JsonNode trees.
+ *
+ * Handles the three nutrient layouts the API returns:
+ * - /foods/search:            {nutrientId, nutrientNumber, value}
+ * - /food/{id}?format=abridged: {number, name, amount}
+ * - /food/{id} (full):        {nutrient: {id, number}, amount}
+ */
+public final class UsdaNutrientParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Slot codes: nutrient index * 10 + rank; a lower rank wins when a food reports both
+    private static final int NONE = -1;
+
+    private UsdaNutrientParser() {}
+
+    /**
+     * Foods of a /foods/search response, in response order
+     */
+    public static List<UsdaNutrientVector> parseSearch(byte[] body) throws IOException {
+        List<UsdaNutrientVector> foods = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected USDA search response layout");
+            }
+            byte[] ranks = new byte[UsdaNutrientVector.SIZE];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"foods".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    UsdaNutrientVector food = readFood(parser, ranks);
+                    if (food != null) {
+                        foods.add(food);
+                    }
+                }
+            }
+        }
+        return foods;
+    }
+
+    /**
+     * Single food of a /food/{fdcId} response (abridged or full), or null without an fdcId
+     */
+    public static UsdaNutrientVector parseFood(byte[] body) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected USDA food response layout");
+            }
+            return readFood(parser, new byte[UsdaNutrientVector.SIZE]);
+        }
+    }
+
+    // Parser is on the food's START_OBJECT; leaves it on the matching END_OBJECT
+    private static UsdaNutrientVector readFood(JsonParser parser, byte[] ranks) throws IOException {
+        int fdcId = 0;
+        boolean hasId = false;
+        String description = null;
+        float[] values = new float[UsdaNutrientVector.SIZE];
+        Arrays.fill(values, Float.NaN);
+        Arrays.fill(ranks, Byte.MAX_VALUE);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("fdcId".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                fdcId = parser.getIntValue();
+                hasId = true;
+            } else if ("description".equals(field) && value == JsonToken.VALUE_STRING) {
+                description = parser.getText();
+            } else if ("foodNutrients".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readNutrient(parser, values, ranks);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return hasId ? new UsdaNutrientVector(fdcId, description, values) : null;
+    }
+
+    // Parser is on the nutrient's START_OBJECT; leaves it on the matching END_OBJECT
+    private static void readNutrient(JsonParser parser, float[] values, byte[] ranks) throws IOException {
+        int id = 0;
+        String number = null;
+        float amount = Float.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("nutrientId".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                id = parser.getIntValue();
+            } else if ("nutrientNumber".equals(field) || "number".equals(field)) {
+                number = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            } else if (("value".equals(field) || "amount".equals(field)) && value.isNumeric()) {
+                amount = parser.getFloatValue();
+            } else if ("nutrient".equals(field) && value == JsonToken.START_OBJECT) {
+                // Full format: id/number live one level down
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String inner = parser.currentName();
+                    JsonToken innerValue = parser.nextToken();
+                    if ("id".equals(inner) && innerValue == JsonToken.VALUE_NUMBER_INT) {
+                        id = parser.getIntValue();
+                    } else if ("number".equals(inner) && innerValue == JsonToken.VALUE_STRING) {
+                        number = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (Float.isNaN(amount)) {
+            return;
+        }
+        int slot = number != null ? slotForNumber(number) : NONE;
+        if (slot == NONE) {
+            slot = slotForId(id);
+        }
+        if (slot == NONE) {
+            return;
+        }
+        int nutrient = slot / 10;
+        byte rank = (byte) (slot % 10);
+        if (rank < ranks[nutrient]) {
+            values[nutrient] = amount;
+            ranks[nutrient] = rank;
+        }
+    }
+
+    // Legacy SR nutrient numbers
+    private static int slotForNumber(String number) {
+        switch (number) {
+            case "205":   return UsdaNutrientVector.CARBS * 10;       // Carbohydrate, by difference
+            case "205.2": return UsdaNutrientVector.CARBS * 10 + 1;   // Carbohydrate, by summation
+            case "291":   return UsdaNutrientVector.FIBER * 10;
+            case "269":   return UsdaNutrientVector.SUGARS * 10;      // Sugars, total including NLEA
+            case "269.3": return UsdaNutrientVector.SUGARS * 10 + 1;  // Sugars, Total
+            case "204":   return UsdaNutrientVector.FAT * 10;
+            case "203":   return UsdaNutrientVector.PROTEIN * 10;
+            case "208":   return UsdaNutrientVector.KCAL * 10;        // Energy (kcal)
+            case "958":   return UsdaNutrientVector.KCAL * 10 + 1;    // Energy, Atwater specific factors
+            case "957":   return UsdaNutrientVector.KCAL * 10 + 2;    // Energy, Atwater general factors
+            default:      return NONE;
+        }
+    }
+
+    // FDC nutrient ids, for payloads without a number
+    private static int slotForId(int id) {
+        switch (id) {
+            case 1005: return UsdaNutrientVector.CARBS * 10;
+            case 1050: return UsdaNutrientVector.CARBS * 10 + 1;
+            case 1079: return UsdaNutrientVector.FIBER * 10;
+            case 2000: return UsdaNutrientVector.SUGARS * 10;
+            case 1063: return UsdaNutrientVector.SUGARS * 10 + 1;
+            case 1004: return UsdaNutrientVector.FAT * 10;
+            case 1003: return UsdaNutrientVector.PROTEIN * 10;
+            case 1008: return UsdaNutrientVector.KCAL * 10;
+            case 2048: return UsdaNutrientVector.KCAL * 10 + 1;
+            case 2047: return UsdaNutrientVector.KCAL * 10 + 2;
+            default:   return NONE;
+        }
+    }
+}
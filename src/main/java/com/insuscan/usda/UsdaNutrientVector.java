@@ -0,0 +1,68 @@
+package com.insuscan.usda;
+
+import com.insuscan.boundary.NutritionInfo;
+
+/**
+ * One USDA food reduced to a fixed nutrient vector (per 100 g), stored as a flat
+ * float array indexed by the constants below. Missing nutrients are NaN.
+ */
+public final class UsdaNutrientVector {
+
+    public static final int CARBS = 0;
+    public static final int FIBER = 1;
+    public static final int SUGARS = 2;
+    public static final int FAT = 3;
+    public static final int PROTEIN = 4;
+    public static final int KCAL = 5;
+    public static final int SIZE = 6;
+
+    private final int fdcId;
+    private final String description;
+    private final float[] values;
+
+    UsdaNutrientVector(int fdcId, String description, float[] values) {
+        this.fdcId = fdcId;
+        this.description = description;
+        this.values = values;
+    }
+
+    public int getFdcId() { return fdcId; }
+
+    public String getDescription() { return description; }
+
+    // NaN when USDA did not report the nutrient
+    public float get(int nutrient) {
+        return values[nutrient];
+    }
+
+    public boolean has(int nutrient) {
+        return !Float.isNaN(values[nutrient]);
+    }
+
+    // Total carbs minus fibre; equals total carbs when fibre is unknown
+    public float netCarbs() {
+        float carbs = has(CARBS) ? values[CARBS] : 0f;
+        if (!has(FIBER)) {
+            return carbs;
+        }
+        return Math.max(0f, carbs - values[FIBER]);
+    }
+
+    public NutritionInfo toNutritionInfo() {
+        NutritionInfo info = new NutritionInfo();
+        info.setFound(true);
+        info.setFdcId(String.valueOf(fdcId));
+        info.setFoodName(description);
+        info.setCarbsPer100g(has(CARBS) ? values[CARBS] : 0f);
+        info.setFiberPer100g(boxed(FIBER));
+        info.setSugarsPer100g(boxed(SUGARS));
+        info.setFatPer100g(boxed(FAT));
+        info.setProteinPer100g(boxed(PROTEIN));
+        info.setKcalPer100g(boxed(KCAL));
+        return info;
+    }
+
+    private Float boxed(int nutrient) {
+        return has(nutrient) ? values[nutrient] : null;
+    }
+}
@@ -80,6 +80,25 @@ public class ApiLogger {
             imageHash.substring(0, Math.min(8, imageHash.length())));
     }
 
+    public void openaiCoalesced(String imageHash) {
+        log.info("[OPENAI] IN-FLIGHT HIT - joining running analysis (hash: {}...)", 
+            imageHash.substring(0, Math.min(8, imageHash.length())));
+    }
+
+    public void judgeCacheHit(String foodName, String fdcId) {
+        log.info("[JUDGE] CACHE HIT - '{}' -> {} (no LLM call)", foodName, fdcId);
+    }
+
+    public void judgePreRanked(String foodName, String fdcId) {
+        log.info("[JUDGE] PRE-RANKED - '{}' -> {} (obvious match, no LLM call)", foodName, fdcId);
+    }
+
+    public void imagePreprocessed(int originalBytes, int processedBytes, int width, int height, long timeMs) {
+        long saved = (long) originalBytes - processedBytes;
+        log.info("[OPENAI] Image preprocessed: {} KB -> {} KB ({}x{}, saved {} KB) in {}ms",
+            originalBytes / 1024, processedBytes / 1024, width, height, saved / 1024, timeMs);
+    }
+
     public void openaiResponseReceived(long timeMs, int responseLength) {
         log.info("[OPENAI] Response received in {}ms ({} chars)", timeMs, responseLength);
     }
@@ -156,6 +175,10 @@ public class ApiLogger {
             timeMs, resultCount, totalHits);
     }
 
+    public void usdaLocalHit(String query, int resultCount, long elapsedMicros) {
+        log.info("[USDA] Local mirror answered '{}' in {}us - {} results", query, elapsedMicros, resultCount);
+    }
+
     public void usdaSearchResults(List<?> results) {
         if (results.isEmpty()) {
             log.info("[USDA] No results from API");
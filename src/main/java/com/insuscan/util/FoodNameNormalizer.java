@@ -3,20 +3,44 @@ package com.insuscan.util;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Normalizes food names for better matching with nutrition databases.
  * Handles synonyms, common variations, and fuzzy matching.
+ *
+ * Resolution order (deterministic, independent of map iteration order):
+ * 1. exact synonym key, 2. exact canonical name (so normalize is idempotent),
+ * 3. leftmost-longest synonym found as whole words in the input,
+ * 4. input found as whole words inside a synonym key (shortest key wins),
+ * 5. the cleaned input, capitalized.
+ * Steps 3 and 4 work on plural-stemmed word tokens (FoodTokenizer), so "pineapple"
+ * does not match "apple" while "bananas" and "hamburgers" still find their keys.
  */
 @Component
 public class FoodNameNormalizer {
 
-    // Map of common food variations to normalized names
+    // Map of common food variations to normalized names (insertion ordered)
     private static final Map<String, String> FOOD_SYNONYMS = initFoodSynonyms();
-    
+
+    // Canonical names; already-normalized input maps to itself
+    private static final Set<String> CANONICAL_NAMES = new HashSet<>(FOOD_SYNONYMS.values());
+
+    // Word-level Aho-Corasick automaton over the synonym keys
+    private static final SynonymMatcher SYNONYM_MATCHER = new SynonymMatcher(FOOD_SYNONYMS.keySet());
+
+    // Every contiguous word run of a synonym key -> shortest key containing it
+    private static final Map<String, String> KEY_FRAGMENTS = initKeyFragments();
+
     // Map of normalized names to search terms for USDA API
     private static final Map<String, List<String>> SEARCH_TERMS = initSearchTerms();
 
+    private static final Pattern LEADING_QUANTITY = Pattern.compile(
+            "^(a |an |the |some |piece of |pieces of |cup of |cups of |bowl of |bowls of )");
+    private static final Pattern TRAILING_STATE = Pattern.compile(
+            "(, cooked|, raw|, fried|, grilled|, baked|, roasted|, steamed)$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     /**
      * Normalize a food name for better database matching
      * @param foodName Raw food name from vision
@@ -28,24 +52,32 @@ public class FoodNameNormalizer {
         }
 
         String normalized = foodName.toLowerCase().trim();
-        
+
         // Remove common prefixes/suffixes
-        normalized = normalized.replaceAll("^(a |an |the |some |piece of |pieces of |cup of |cups of |bowl of |bowls of )", "");
-        normalized = normalized.replaceAll("(, cooked|, raw|, fried|, grilled|, baked|, roasted|, steamed)$", "");
-        normalized = normalized.replaceAll("\\s+", " "); // Normalize whitespace
-        
+        normalized = LEADING_QUANTITY.matcher(normalized).replaceFirst("");
+        normalized = TRAILING_STATE.matcher(normalized).replaceFirst("");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" "); // Normalize whitespace
+
         // Check synonyms map
-        if (FOOD_SYNONYMS.containsKey(normalized)) {
-            return FOOD_SYNONYMS.get(normalized);
+        String synonym = FOOD_SYNONYMS.get(normalized);
+        if (synonym != null) {
+            return synonym;
         }
-        
-        // Check partial matches in synonyms
-        for (Map.Entry<String, String> entry : FOOD_SYNONYMS.entrySet()) {
-            if (normalized.contains(entry.getKey()) || entry.getKey().contains(normalized)) {
-                return entry.getValue();
-            }
+        if (CANONICAL_NAMES.contains(normalized)) {
+            return normalized;
         }
-        
+
+        // Synonym keys appearing as whole words in the name ("grilled chicken breast")
+        List<String> tokens = FoodTokenizer.tokenize(normalized);
+        String key = SYNONYM_MATCHER.findLeftmostLongest(tokens);
+        if (key == null && !tokens.isEmpty()) {
+            // Name is part of a key ("breast" -> "chicken breast")
+            key = KEY_FRAGMENTS.get(String.join(" ", tokens));
+        }
+        if (key != null) {
+            return FOOD_SYNONYMS.get(key);
+        }
+
         // Return capitalized version for consistency
         return capitalizeWords(normalized);
     }
@@ -58,8 +90,9 @@ public class FoodNameNormalizer {
     public List<String> getSearchTerms(String normalizedName) {
         String normalized = normalize(normalizedName);
         
-        if (SEARCH_TERMS.containsKey(normalized.toLowerCase())) {
-            return new ArrayList<>(SEARCH_TERMS.get(normalized.toLowerCase()));
+        List<String> known = SEARCH_TERMS.get(normalized.toLowerCase());
+        if (known != null) {
+            return new ArrayList<>(known);
         }
         
         // Default: return normalized name and original
@@ -89,23 +122,129 @@ public class FoodNameNormalizer {
 
     private static String capitalizeWords(String str) {
         if (str == null || str.isEmpty()) return str;
-        
-        String[] words = str.split("\\s+");
-        StringBuilder result = new StringBuilder();
-        for (String word : words) {
-            if (word.length() > 0) {
-                result.append(Character.toUpperCase(word.charAt(0)));
-                if (word.length() > 1) {
-                    result.append(word.substring(1));
-                }
-                result.append(" ");
+
+        // Input is already whitespace-collapsed
+        StringBuilder result = new StringBuilder(str.length());
+        boolean wordStart = true;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == ' ') {
+                wordStart = true;
+                result.append(c);
+            } else {
+                result.append(wordStart ? Character.toUpperCase(c) : c);
+                wordStart = false;
             }
         }
         return result.toString().trim();
     }
 
+    private static Map<String, String> initKeyFragments() {
+        Map<String, String> fragments = new HashMap<>();
+        for (String key : FOOD_SYNONYMS.keySet()) {
+            List<String> words = FoodTokenizer.tokenize(key);
+            for (int from = 0; from < words.size(); from++) {
+                for (int to = from + 1; to <= words.size(); to++) {
+                    if (from == 0 && to == words.size()) continue; // whole key = exact match
+                    String fragment = String.join(" ", words.subList(from, to));
+                    String current = fragments.get(fragment);
+                    // Shortest key wins; ties keep the first declared
+                    if (current == null || key.length() < current.length()) {
+                        fragments.put(fragment, key);
+                    }
+                }
+            }
+        }
+        return fragments;
+    }
+
+    /**
+     * Aho-Corasick automaton whose alphabet is words: one pass over the input's
+     * tokens finds every synonym key occurring as a contiguous word run.
+     */
+    static final class SynonymMatcher {
+
+        private static final class Node {
+            final Map<String, Node> next = new HashMap<>();
+            Node fail;
+            Node output;    // nearest proper suffix node that ends a key
+            String key;     // key ending exactly here
+            int depth;      // words from the root
+        }
+
+        private final Node root = new Node();
+
+        SynonymMatcher(Collection<String> keys) {
+            for (String key : keys) {
+                Node node = root;
+                for (String word : FoodTokenizer.tokenize(key)) {
+                    Node child = node.next.get(word);
+                    if (child == null) {
+                        child = new Node();
+                        child.depth = node.depth + 1;
+                        node.next.put(word, child);
+                    }
+                    node = child;
+                }
+                if (node != root && node.key == null) {
+                    node.key = key;
+                }
+            }
+
+            // Breadth-first fail links
+            Deque<Node> queue = new ArrayDeque<>();
+            for (Node child : root.next.values()) {
+                child.fail = root;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                for (Map.Entry<String, Node> edge : node.next.entrySet()) {
+                    Node child = edge.getValue();
+                    Node fail = node.fail;
+                    while (fail != null && !fail.next.containsKey(edge.getKey())) {
+                        fail = fail.fail;
+                    }
+                    child.fail = fail == null ? root : fail.next.get(edge.getKey());
+                    child.output = child.fail.key != null ? child.fail : child.fail.output;
+                    queue.add(child);
+                }
+            }
+        }
+
+        /**
+         * Key starting at the earliest word; the longest one when several start there.
+         * Null when no key occurs.
+         */
+        String findLeftmostLongest(List<String> tokens) {
+            String best = null;
+            int bestStart = Integer.MAX_VALUE;
+            int bestLength = 0;
+
+            Node node = root;
+            for (int i = 0; i < tokens.size(); i++) {
+                String word = tokens.get(i);
+                while (node != root && !node.next.containsKey(word)) {
+                    node = node.fail;
+                }
+                Node next = node.next.get(word);
+                node = next != null ? next : root;
+
+                for (Node match = node.key != null ? node : node.output; match != null; match = match.output) {
+                    int start = i - match.depth + 1;
+                    if (start < bestStart || (start == bestStart && match.depth > bestLength)) {
+                        best = match.key;
+                        bestStart = start;
+                        bestLength = match.depth;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
     private static Map<String, String> initFoodSynonyms() {
-        Map<String, String> synonyms = new HashMap<>();
+        Map<String, String> synonyms = new LinkedHashMap<>();
         
         // Pasta variations
         synonyms.put("pasta", "pasta");
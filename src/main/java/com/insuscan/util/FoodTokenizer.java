@@ -0,0 +1,52 @@
+package com.insuscan.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word tokens for food names, shared by every matcher that compares them
+ * (FoodNameNormalizer, PortionEstimator, CandidatePreRanker), so one input
+ * splits and stems the same way on every path.
+ *
+ * Tokens are lower-cased letter/digit runs; anything else separates words
+ * ("chicken, grilled"). Each token gets a crude English plural strip, so
+ * "bananas", "tomatoes" and "strawberries" equal their singular forms.
+ */
+public final class FoodTokenizer {
+
+    private FoodTokenizer() {}
+
+    // Stemmed word tokens; empty for null or blank input
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(stem(text.substring(start, i).toLowerCase(Locale.ROOT)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Plural strip for one lower-case word
+    public static String stem(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";   // strawberries -> strawberry
+        }
+        if (word.length() > 4 && word.endsWith("oes")) {
+            return word.substring(0, word.length() - 2);         // potatoes -> potato
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);         // bananas -> banana, not hummus
+        }
+        return word;
+    }
+}
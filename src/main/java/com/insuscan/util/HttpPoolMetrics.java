@@ -0,0 +1,77 @@
+package com.insuscan.util;
+
+import com.insuscan.boundary.HttpPoolStatsBoundary;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects Reactor Netty connection pool gauges without Micrometer: each pool
+ * (one per upstream + remote address) registers its ConnectionPoolMetrics here,
+ * and WebClientConfig counts newly opened connections per upstream.
+ *
+ * Under steady load connectionsOpened should stop growing - every request reuses
+ * a pooled keep-alive connection and no TLS handshake happens per scan.
+ */
+@Component
+public class HttpPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, Registered> pools = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> opened = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(key(poolName, id, remoteAddress), new Registered(poolName, String.valueOf(remoteAddress), metrics));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(key(poolName, id, remoteAddress));
+    }
+
+    public void connectionOpened(String poolName) {
+        opened.computeIfAbsent(poolName, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    public List<HttpPoolStatsBoundary> getStats() {
+        List<HttpPoolStatsBoundary> stats = new ArrayList<>();
+        for (Registered pool : pools.values()) {
+            HttpPoolStatsBoundary boundary = new HttpPoolStatsBoundary();
+            boundary.setName(pool.name);
+            boundary.setRemoteAddress(pool.remoteAddress);
+            boundary.setAcquired(pool.metrics.acquiredSize());
+            boundary.setIdle(pool.metrics.idleSize());
+            boundary.setAllocated(pool.metrics.allocatedSize());
+            boundary.setPendingAcquire(pool.metrics.pendingAcquireSize());
+            boundary.setMaxAllocated(pool.metrics.maxAllocatedSize());
+            boundary.setMaxPendingAcquire(pool.metrics.maxPendingAcquireSize());
+            AtomicLong count = opened.get(pool.name);
+            boundary.setConnectionsOpened(count != null ? count.get() : 0);
+            stats.add(boundary);
+        }
+        return stats;
+    }
+
+    private static String key(String poolName, String id, SocketAddress remoteAddress) {
+        return poolName + "|" + id + "|" + remoteAddress;
+    }
+
+    private static class Registered {
+        final String name;
+        final String remoteAddress;
+        final ConnectionPoolMetrics metrics;
+
+        Registered(String name, String remoteAddress, ConnectionPoolMetrics metrics) {
+            this.name = name;
+            this.remoteAddress = remoteAddress;
+            this.metrics = metrics;
+        }
+    }
+}
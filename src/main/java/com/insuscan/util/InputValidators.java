@@ -120,6 +120,17 @@ public class InputValidators {
         }
     }
 
+    // Max items per page for cursor-paginated endpoints
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Validate page size and throw if out of range
+    public static void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InsuScanInvalidInputException(
+                "Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + size);
+        }
+    }
+
     // Validate user name (letters, spaces, hyphens only)
     public static boolean isValidUserName(String name) {
         if (name == null || name.trim().isEmpty()) {
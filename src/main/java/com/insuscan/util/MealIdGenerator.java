@@ -1,92 +1,110 @@
 package com.insuscan.util;
 
-import com.insuscan.crud.MealRepository;
-import com.insuscan.data.MealEntity;
+import com.insuscan.crud.SequenceRepository;
+import com.insuscan.exception.InsuScanUpstreamUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generates readable meal IDs in format: systemId_YYYYMMDD_XXX
  * Example: insuscan_20260112_001
+ *
+ * Sequences come from a SequenceRepository counter per systemId_YYYYMMDD (a Firestore
+ * transaction by default). Each node leases a block of values at a time and hands them out
+ * from memory, so most ids cost no storage call and two nodes never get the same id.
+ * Unused values of a lease (e.g. on restart) are skipped, leaving gaps.
+ * If no block can be leased the call fails with a retryable 503 instead of guessing a value.
  */
 @Component
 public class MealIdGenerator {
 
     private static final Logger log = LoggerFactory.getLogger(MealIdGenerator.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
-    private static final Pattern MEAL_ID_PATTERN = Pattern.compile("^(.+)_(\\d{8})_(\\d+)$");
-    
-    private final MealRepository mealRepository;
 
-    public MealIdGenerator(MealRepository mealRepository) {
-        this.mealRepository = mealRepository;
+    private final SequenceRepository sequenceRepository;
+
+    @Value("${insuscan.meal-id.block-size:20}")
+    private int blockSize;
+
+    // Current lease; replaced when exhausted or when the day changes
+    private volatile Lease lease;
+
+    public MealIdGenerator(SequenceRepository sequenceRepository) {
+        this.sequenceRepository = sequenceRepository;
     }
 
     /**
      * Generate a new meal ID with format: systemId_YYYYMMDD_XXX
-     * 
+     *
      * @param systemId The system identifier (e.g., "insuscan")
      * @return A new meal ID like "insuscan_20260112_001"
+     * @throws InsuScanUpstreamUnavailableException if the sequence store cannot be reached
      */
     public String generateMealId(String systemId) {
         String datePrefix = LocalDate.now().format(DATE_FORMATTER);
         String baseId = systemId + "_" + datePrefix;
-        
-        // Find the highest sequence number for today
-        int nextSequence = getNextSequenceNumber(baseId);
-        
+
+        int nextSequence = nextSequence(baseId);
+
         // Format with leading zeros (001, 002, etc.)
         String sequence = String.format("%03d", nextSequence);
-        
+
         String mealId = baseId + "_" + sequence;
         log.debug("Generated meal ID: {}", mealId);
-        
+
         return mealId;
     }
 
-    /**
-     * Get the next sequence number for a given date prefix
-     * Queries existing meals to find the highest sequence and returns next number
-     */
-    private int getNextSequenceNumber(String baseId) {
-        try {
-            int maxSequence = 0;
-            
-            // Query recent meals (last 200 should cover most of today's meals)
-            // We'll filter by ID prefix to find meals from today
-            List<MealEntity> recentMeals = mealRepository.findAllRecent(200);
-            
-            // Extract sequence numbers from meal IDs matching our pattern
-            for (MealEntity meal : recentMeals) {
-                String mealId = meal.getId();
-                if (mealId != null && mealId.startsWith(baseId + "_")) {
-                    Matcher matcher = MEAL_ID_PATTERN.matcher(mealId);
-                    if (matcher.matches()) {
-                        try {
-                            int sequence = Integer.parseInt(matcher.group(3));
-                            if (sequence > maxSequence) {
-                                maxSequence = sequence;
-                            }
-                        } catch (NumberFormatException e) {
-                            // Skip invalid sequence numbers
-                            log.debug("Invalid sequence in meal ID: {}", mealId);
-                        }
-                    }
+    private int nextSequence(String baseId) {
+        // Fast path: lock-free take from the current lease
+        Lease current = lease;
+        if (current != null && current.baseId.equals(baseId)) {
+            int value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+        }
+
+        synchronized (this) {
+            // Another thread may have renewed the lease while we waited
+            current = lease;
+            if (current != null && current.baseId.equals(baseId)) {
+                int value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    return value;
                 }
             }
-            
-            return maxSequence + 1;
-            
-        } catch (Exception e) {
-            log.warn("Error finding next sequence number, starting from 1: {}", e.getMessage());
-            return 1;
+
+            try {
+                int start = sequenceRepository.reserveBlock(baseId, blockSize);
+                log.debug("Leased meal id block {}..{} for {}", start, start + blockSize - 1, baseId);
+                Lease renewed = new Lease(baseId, start, start + blockSize);
+                int value = renewed.next.getAndIncrement();
+                lease = renewed;
+                return value;
+            } catch (Exception e) {
+                // Any value not leased from the counter could be handed out again elsewhere
+                log.warn("Could not lease meal id block for {}: {}", baseId, e.getMessage());
+                throw new InsuScanUpstreamUnavailableException("Meal id sequence unavailable, retry later", e);
+            }
+        }
+    }
+
+    private static class Lease {
+        final String baseId;
+        final AtomicInteger next;
+        final int end;  // exclusive
+
+        Lease(String baseId, int start, int end) {
+            this.baseId = baseId;
+            this.next = new AtomicInteger(start);
+            this.end = end;
         }
     }
 }
@@ -3,6 +3,7 @@ package com.insuscan.util;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Estimates portion sizes based on food type, confidence scores, and typical serving sizes.
@@ -16,6 +17,13 @@ public class PortionEstimator {
     // Food category mapping
     private static final Map<String, String> FOOD_CATEGORIES = initFoodCategories();
 
+    // Word/suffix index over FOOD_CATEGORIES keys
+    static final CategoryIndex CATEGORY_INDEX = new CategoryIndex(FOOD_CATEGORIES);
+
+    // Names repeat across scans (vision output is a small vocabulary); cleared when full
+    private static final int MAX_CACHED_CATEGORIES = 10_000;
+    private final Map<String, String> categoryCache = new ConcurrentHashMap<>();
+
     /**
      * Estimate portion size for a food item based on type and confidence
      * 
@@ -84,24 +92,22 @@ public class PortionEstimator {
     }
 
     /**
-     * Get food category for portion estimation
+     * Get food category for portion estimation; memoised per name, so each food
+     * is categorised once no matter how often a scan asks.
      */
-    private String getFoodCategory(String foodName) {
-        String nameLower = foodName.toLowerCase();
-        
-        // Check direct mapping
-        if (FOOD_CATEGORIES.containsKey(nameLower)) {
-            return FOOD_CATEGORIES.get(nameLower);
+    String getFoodCategory(String foodName) {
+        if (foodName == null) {
+            return "other";
         }
-        
-        // Check partial matches
-        for (Map.Entry<String, String> entry : FOOD_CATEGORIES.entrySet()) {
-            if (nameLower.contains(entry.getKey()) || entry.getKey().contains(nameLower)) {
-                return entry.getValue();
+        String category = categoryCache.get(foodName);
+        if (category == null) {
+            category = CATEGORY_INDEX.resolve(foodName);
+            if (categoryCache.size() >= MAX_CACHED_CATEGORIES) {
+                categoryCache.clear();
             }
+            categoryCache.put(foodName, category);
         }
-        
-        return "other";
+        return category;
     }
 
     /**
@@ -192,6 +198,104 @@ public class PortionEstimator {
         }
     }
     
+    /**
+     * Deterministic category lookup, replacing bidirectional contains() over a HashMap.
+     * Words come from FoodTokenizer: lower-cased and plural-stemmed ("tomatoes" = "tomato"). Priority:
+     * 1. exact key
+     * 2. key found as a whole-word run in the name; most words, then longest, then rightmost
+     *    ("grilled chicken breast" -> "chicken breast")
+     * 3. key word as the suffix of a compound word, longest suffix first ("cornbread" -> bread)
+     * 4. name found as whole words inside a key, shortest key first ("wing" -> "chicken wing")
+     */
+    static final class CategoryIndex {
+        private static final int MIN_SUFFIX_LENGTH = 4;
+
+        private final Map<String, String> exact = new HashMap<>();
+        private final Map<String, String> phrases = new HashMap<>();       // stemmed key -> category
+        private final Map<String, String> singleWords = new HashMap<>();   // stemmed one-word key -> category
+        private final Map<String, String> fragments = new HashMap<>();     // stemmed key fragment -> category
+        private final int maxKeyWords;
+
+        CategoryIndex(Map<String, String> categories) {
+            int maxWords = 1;
+            Map<String, Integer> fragmentKeyLength = new HashMap<>();
+            for (Map.Entry<String, String> entry : categories.entrySet()) {
+                String key = entry.getKey();
+                String category = entry.getValue();
+                exact.putIfAbsent(key, category);
+
+                List<String> words = FoodTokenizer.tokenize(key);
+                String phrase = String.join(" ", words);
+                phrases.putIfAbsent(phrase, category);
+                if (words.size() == 1) {
+                    singleWords.putIfAbsent(phrase, category);
+                }
+                maxWords = Math.max(maxWords, words.size());
+
+                for (int from = 0; from < words.size(); from++) {
+                    for (int to = from + 1; to <= words.size(); to++) {
+                        if (from == 0 && to == words.size()) continue;
+                        String fragment = String.join(" ", words.subList(from, to));
+                        Integer current = fragmentKeyLength.get(fragment);
+                        if (current == null || key.length() < current) {
+                            fragmentKeyLength.put(fragment, key.length());
+                            fragments.put(fragment, category);
+                        }
+                    }
+                }
+            }
+            this.maxKeyWords = maxWords;
+        }
+
+        String resolve(String foodName) {
+            String name = foodName.toLowerCase(Locale.ROOT).trim();
+            String category = exact.get(name);
+            if (category != null) {
+                return category;
+            }
+
+            List<String> words = FoodTokenizer.tokenize(name);
+            if (words.isEmpty()) {
+                return "other";
+            }
+
+            // Whole-word runs, longest first; among equal word counts prefer the longer
+            // phrase, then the rightmost (the head noun in English dish names)
+            for (int size = Math.min(maxKeyWords, words.size()); size >= 1; size--) {
+                String best = null;
+                for (int from = 0; from + size <= words.size(); from++) {
+                    String phrase = String.join(" ", words.subList(from, from + size));
+                    if (phrases.containsKey(phrase) && (best == null || phrase.length() >= best.length())) {
+                        best = phrase;
+                    }
+                }
+                if (best != null) {
+                    return phrases.get(best);
+                }
+            }
+
+            // Compound words ending in a key word
+            String bestSuffix = null;
+            for (String word : words) {
+                for (int start = 1; start + MIN_SUFFIX_LENGTH <= word.length(); start++) {
+                    String suffix = word.substring(start);
+                    if (singleWords.containsKey(suffix)) {
+                        if (bestSuffix == null || suffix.length() > bestSuffix.length()) {
+                            bestSuffix = suffix;
+                        }
+                        break; // later starts are shorter
+                    }
+                }
+            }
+            if (bestSuffix != null) {
+                return singleWords.get(bestSuffix);
+            }
+
+            category = fragments.get(String.join(" ", words));
+            return category != null ? category : "other";
+        }
+    }
+
     private static class PortionRange {
         final float min;
         final float max;
@@ -240,7 +344,7 @@ public class PortionEstimator {
     }
 
     private static Map<String, String> initFoodCategories() {
-        Map<String, String> categories = new HashMap<>();
+        Map<String, String> categories = new LinkedHashMap<>();
         
         // Grains
         categories.put("pasta", "pasta");
@@ -0,0 +1,65 @@
+package com.insuscan.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one in-flight execution.
+ * The first caller (leader) starts the call; callers arriving while it is running
+ * share its result. Once it finishes the key is released, so later calls run again
+ * (results are cached elsewhere, e.g. VisionCacheService).
+ *
+ * A cancelled subscriber never cancels the shared call - other callers may still be waiting.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                return Mono.fromFuture(existing, true);
+            }
+
+            executions.incrementAndGet();
+            future.whenComplete((v, e) -> inFlight.remove(key, future));
+            try {
+                call.get().subscribe(
+                        future::complete,
+                        future::completeExceptionally,
+                        () -> future.complete(null));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    // True if the key currently has a call running
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    // Calls that actually ran
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    // Calls that joined an already-running execution instead of starting their own
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
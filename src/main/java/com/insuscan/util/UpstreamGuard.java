@@ -0,0 +1,348 @@
+package com.insuscan.util;
+
+import com.insuscan.boundary.UpstreamStateBoundary;
+import com.insuscan.exception.InsuScanUpstreamUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resilience wrapper for calls to one upstream API (OpenAI, USDA):
+ *
+ * - Bulkhead: at most max-concurrent calls in flight; extra calls fail fast instead of queueing
+ * - Adaptive timeout: per-attempt timeout = percentile of recent successful latencies x multiplier,
+ *   clamped to [min, max]; max is used until enough samples exist
+ * - Circuit breaker: opens when the failure rate over the last N calls passes the threshold,
+ *   fails fast while open, lets one trial call through after open-ms
+ * - 429 retry: exponential backoff with jitter, honouring Retry-After when present
+ * - Caller cancellation (e.g. the scan deadline) after at least the current adaptive timeout
+ *   counts as a timeout for the breaker; one after min-timeout is only a latency sample (the
+ *   call was slow, not failed); earlier cancellations (client gone, sibling failed) are ignored
+ *
+ * Fail-fast errors are InsuScanUpstreamUnavailableException; callers map them to their fallback.
+ * The wrapped Mono must be cold (re-subscribable) so retries issue a new request.
+ */
+public class UpstreamGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Tunables, filled in by UpstreamGuards from insuscan.resilience.<name>.*
+    public static class Settings {
+        public int maxConcurrent = 32;
+        public long minTimeoutMs = 1000;
+        public long maxTimeoutMs = 20000;
+        public double timeoutPercentile = 0.99;
+        public double timeoutMultiplier = 2.0;
+        public int latencyWindow = 200;
+        public int minLatencySamples = 20;
+        public int breakerWindow = 20;
+        public int breakerMinCalls = 10;
+        public double breakerFailureRate = 0.5;
+        public long breakerOpenMs = 30000;
+        public int maxRetries = 2;
+        public long retryBaseBackoffMs = 500;
+        public long retryMaxBackoffMs = 8000;
+    }
+
+    // Breaker admission results
+    private static final int REJECTED = 0;
+    private static final int ADMITTED = 1;
+    private static final int TRIAL = 2;
+
+    // Recompute the adaptive timeout every this many latency samples, not on every call
+    private static final int TIMEOUT_REFRESH_SAMPLES = 10;
+
+    private final String name;
+    private final Settings settings;
+    private final Semaphore bulkhead;
+
+    // Guarded by "this"
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyNext;
+    private int samplesSinceRefresh;
+    private final boolean[] outcomes;   // true = failure
+    private int outcomeCount;
+    private int outcomeNext;
+    private int failuresInWindow;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private volatile long timeoutMs;
+    private volatile long p50Ms;
+    private volatile long p99Ms;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejectedOpen = new AtomicLong();
+    private final AtomicLong rejectedBulkhead = new AtomicLong();
+
+    public UpstreamGuard(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.maxConcurrent);
+        this.latencies = new long[settings.latencyWindow];
+        this.outcomes = new boolean[settings.breakerWindow];
+        this.timeoutMs = settings.maxTimeoutMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Run the call through breaker, bulkhead, adaptive timeout and 429 retry
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            int admission = admit();
+            if (admission == REJECTED) {
+                rejectedOpen.incrementAndGet();
+                return Mono.error(new InsuScanUpstreamUnavailableException(name + " circuit open"));
+            }
+            boolean trial = admission == TRIAL;
+            if (!bulkhead.tryAcquire()) {
+                rejectedBulkhead.incrementAndGet();
+                if (trial) releaseTrial();
+                return Mono.error(new InsuScanUpstreamUnavailableException(name + " bulkhead full"));
+            }
+            calls.incrementAndGet();
+            Duration timeout = Duration.ofMillis(timeoutMs);
+            long admittedAt = System.nanoTime();
+
+            Mono<T> attempt = Mono.defer(() -> {
+                long start = System.nanoTime();
+                return call.timeout(timeout)
+                        .doOnSuccess(value -> recordLatency((System.nanoTime() - start) / 1_000_000));
+            });
+
+            return attempt
+                    .retryWhen(rateLimitRetry())
+                    .doOnSuccess(value -> recordOutcome(false))
+                    .doOnError(this::onError)
+                    .doOnCancel(() -> onCancel(trial, (System.nanoTime() - admittedAt) / 1_000_000))
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    public synchronized State getState() {
+        refreshState(System.currentTimeMillis());
+        return state;
+    }
+
+    public UpstreamStateBoundary snapshot() {
+        UpstreamStateBoundary boundary = new UpstreamStateBoundary();
+        boundary.setName(name);
+        synchronized (this) {
+            refreshState(System.currentTimeMillis());
+            boundary.setState(state.name());
+            boundary.setFailureRate(outcomeCount == 0 ? 0.0 : (double) failuresInWindow / outcomeCount);
+        }
+        boundary.setInFlight(settings.maxConcurrent - bulkhead.availablePermits());
+        boundary.setMaxConcurrent(settings.maxConcurrent);
+        boundary.setTimeoutMs(timeoutMs);
+        boundary.setP50LatencyMs(p50Ms);
+        boundary.setP99LatencyMs(p99Ms);
+        boundary.setCalls(calls.get());
+        boundary.setFailures(failures.get());
+        boundary.setTimeouts(timeouts.get());
+        boundary.setRetries(retries.get());
+        boundary.setRejectedOpen(rejectedOpen.get());
+        boundary.setRejectedBulkhead(rejectedBulkhead.get());
+        return boundary;
+    }
+
+    // ===== Circuit breaker =====
+
+    private synchronized int admit() {
+        refreshState(System.currentTimeMillis());
+        if (state == State.CLOSED) {
+            return ADMITTED;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return TRIAL;
+        }
+        return REJECTED;
+    }
+
+    // OPEN -> HALF_OPEN once the open period has passed (caller holds the lock)
+    private void refreshState(long now) {
+        if (state == State.OPEN && now - openedAt >= settings.breakerOpenMs) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+    }
+
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    private void onError(Throwable e) {
+        if (e instanceof TimeoutException) {
+            timeouts.incrementAndGet();
+        }
+        boolean upstreamFault = isUpstreamFault(e);
+        if (upstreamFault) {
+            failures.incrementAndGet();
+        }
+        recordOutcome(upstreamFault);
+    }
+
+    // Only a call cut off after the current timeout failed: we would have timed it out too.
+    // One cut off after min-timeout was slow - its elapsed time is a lower bound of its latency -
+    // but a healthy upstream has calls like that whenever clients leave, so it is no failure.
+    private void onCancel(boolean trial, long elapsedMs) {
+        if (elapsedMs >= timeoutMs) {
+            timeouts.incrementAndGet();
+            failures.incrementAndGet();
+            recordLatency(elapsedMs);
+            recordOutcome(true);
+            return;
+        }
+        if (elapsedMs >= settings.minTimeoutMs) {
+            recordLatency(elapsedMs);
+        }
+        if (trial) releaseTrial();
+    }
+
+    private synchronized void recordOutcome(boolean failure) {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (failure) {
+                open();
+            } else {
+                state = State.CLOSED;
+                Arrays.fill(outcomes, false);
+                outcomeCount = 0;
+                outcomeNext = 0;
+                failuresInWindow = 0;
+                log.info("[RESILIENCE] {} circuit closed", name);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // a call started before the circuit opened
+        }
+
+        if (outcomeCount == outcomes.length) {
+            if (outcomes[outcomeNext]) failuresInWindow--;
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeNext] = failure;
+        if (failure) failuresInWindow++;
+        outcomeNext = (outcomeNext + 1) % outcomes.length;
+
+        if (outcomeCount >= settings.breakerMinCalls
+                && (double) failuresInWindow / outcomeCount >= settings.breakerFailureRate) {
+            open();
+        }
+    }
+
+    // Caller holds the lock
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        log.warn("[RESILIENCE] {} circuit opened ({}/{} recent calls failed), failing fast for {}ms",
+                name, failuresInWindow, outcomeCount, settings.breakerOpenMs);
+    }
+
+    // Server errors, throttling, timeouts and connection failures count; other 4xx are our fault
+    static boolean isUpstreamFault(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) e).getStatusCode().value();
+            return status >= 500 || status == 429 || status == 408;
+        }
+        return true;
+    }
+
+    // ===== Adaptive timeout =====
+
+    private void recordLatency(long elapsedMs) {
+        long[] window = null;
+        synchronized (this) {
+            latencies[latencyNext] = elapsedMs;
+            latencyNext = (latencyNext + 1) % latencies.length;
+            if (latencyCount < latencies.length) latencyCount++;
+            if (++samplesSinceRefresh >= TIMEOUT_REFRESH_SAMPLES && latencyCount >= settings.minLatencySamples) {
+                samplesSinceRefresh = 0;
+                window = Arrays.copyOf(latencies, latencyCount);
+            }
+        }
+        if (window == null) {
+            return;
+        }
+        Arrays.sort(window);
+        p50Ms = percentile(window, 0.50);
+        p99Ms = percentile(window, 0.99);
+        long adaptive = (long) (percentile(window, settings.timeoutPercentile) * settings.timeoutMultiplier);
+        timeoutMs = Math.max(settings.minTimeoutMs, Math.min(settings.maxTimeoutMs, adaptive));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // ===== 429 retry =====
+
+    private Retry rateLimitRetry() {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable failure = signal.failure();
+            if (!isRateLimited(failure) || signal.totalRetries() >= settings.maxRetries) {
+                return Mono.error(failure);
+            }
+            retries.incrementAndGet();
+            Duration delay = backoff(signal.totalRetries(), retryAfterMs(failure));
+            log.debug("[RESILIENCE] {} rate limited, retry {} in {}ms", name, signal.totalRetries() + 1, delay.toMillis());
+            return Mono.delay(delay);
+        }));
+    }
+
+    private static boolean isRateLimited(Throwable e) {
+        return e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().value() == 429;
+    }
+
+    // Exponential backoff with "equal jitter"; Retry-After is a floor, max-backoff the ceiling
+    private Duration backoff(long retry, long retryAfterMs) {
+        long exponential = settings.retryBaseBackoffMs << Math.min(retry, 16);
+        long capped = Math.min(settings.retryMaxBackoffMs, exponential);
+        long jittered = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        return Duration.ofMillis(Math.min(settings.retryMaxBackoffMs, Math.max(jittered, retryAfterMs)));
+    }
+
+    // OpenAI sends retry-after-ms and/or retry-after (seconds); 0 when absent or unparsable
+    private static long retryAfterMs(Throwable e) {
+        HttpHeaders headers = ((WebClientResponseException) e).getHeaders();
+        try {
+            String millis = headers.getFirst("retry-after-ms");
+            if (millis != null) {
+                return (long) Double.parseDouble(millis.trim());
+            }
+            String seconds = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (seconds != null) {
+                return (long) (Double.parseDouble(seconds.trim()) * 1000);
+            }
+        } catch (NumberFormatException ignored) {
+            // HTTP-date form; fall back to our own backoff
+        }
+        return 0;
+    }
+}
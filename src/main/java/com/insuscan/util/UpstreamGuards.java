@@ -0,0 +1,74 @@
+package com.insuscan.util;
+
+import com.insuscan.boundary.UpstreamStateBoundary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The shared UpstreamGuard instances, one per remote client:
+ * openai-vision (image analysis), openai-judge (semantic matching) and usda.
+ * Vision and judge calls go to the same host but differ ~10x in latency, so each
+ * gets its own timeout statistics, bulkhead and breaker.
+ *
+ * Settings come from insuscan.resilience.<name>.*, see application.properties.
+ */
+@Component
+public class UpstreamGuards {
+
+    public static final String OPENAI_VISION = "openai-vision";
+    public static final String OPENAI_JUDGE = "openai-judge";
+    public static final String USDA = "usda";
+
+    private final Environment environment;
+    private final UpstreamGuard openAiVision;
+    private final UpstreamGuard openAiJudge;
+    private final UpstreamGuard usda;
+
+    public UpstreamGuards(Environment environment) {
+        this.environment = environment;
+        this.openAiVision = create(OPENAI_VISION, 16, 60000);
+        this.openAiJudge = create(OPENAI_JUDGE, 32, 20000);
+        this.usda = create(USDA, 32, 10000);
+    }
+
+    public UpstreamGuard openAiVision() {
+        return openAiVision;
+    }
+
+    public UpstreamGuard openAiJudge() {
+        return openAiJudge;
+    }
+
+    public UpstreamGuard usda() {
+        return usda;
+    }
+
+    public List<UpstreamStateBoundary> getStates() {
+        List<UpstreamStateBoundary> states = new ArrayList<>();
+        states.add(openAiVision.snapshot());
+        states.add(openAiJudge.snapshot());
+        states.add(usda.snapshot());
+        return states;
+    }
+
+    private UpstreamGuard create(String name, int defaultMaxConcurrent, long defaultMaxTimeoutMs) {
+        String prefix = "insuscan.resilience." + name + ".";
+        UpstreamGuard.Settings settings = new UpstreamGuard.Settings();
+        settings.maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent);
+        settings.minTimeoutMs = environment.getProperty(prefix + "timeout.min-ms", Long.class, settings.minTimeoutMs);
+        settings.maxTimeoutMs = environment.getProperty(prefix + "timeout.max-ms", Long.class, defaultMaxTimeoutMs);
+        settings.timeoutPercentile = environment.getProperty(prefix + "timeout.percentile", Double.class, settings.timeoutPercentile);
+        settings.timeoutMultiplier = environment.getProperty(prefix + "timeout.multiplier", Double.class, settings.timeoutMultiplier);
+        settings.breakerWindow = environment.getProperty(prefix + "breaker.window", Integer.class, settings.breakerWindow);
+        settings.breakerMinCalls = environment.getProperty(prefix + "breaker.min-calls", Integer.class, settings.breakerMinCalls);
+        settings.breakerFailureRate = environment.getProperty(prefix + "breaker.failure-rate", Double.class, settings.breakerFailureRate);
+        settings.breakerOpenMs = environment.getProperty(prefix + "breaker.open-ms", Long.class, settings.breakerOpenMs);
+        settings.maxRetries = environment.getProperty(prefix + "retry.max-retries", Integer.class, settings.maxRetries);
+        settings.retryBaseBackoffMs = environment.getProperty(prefix + "retry.base-backoff-ms", Long.class, settings.retryBaseBackoffMs);
+        settings.retryMaxBackoffMs = environment.getProperty(prefix + "retry.max-backoff-ms", Long.class, settings.retryMaxBackoffMs);
+        return new UpstreamGuard(name, settings);
+    }
+}
@@ -0,0 +1,90 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+import com.insuscan.data.MealEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Write-behind back-pressure: once max-pending is reached new meals are written directly,
+ * but a meal that is still pending must stay in the buffer.
+ */
+class FirestoreMealRepositoryWriteBehindTest {
+
+    @TempDir
+    Path journalDir;
+
+    private Firestore firestore;
+    private DocumentReference document;
+    private FirestoreMealRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        firestore = mock(Firestore.class);
+        CollectionReference collection = mock(CollectionReference.class);
+        document = mock(DocumentReference.class);
+        when(firestore.collection(anyString())).thenReturn(collection);
+        when(collection.document(anyString())).thenReturn(document);
+        when(document.set(anyMap())).thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+        repository = new FirestoreMealRepository(firestore, new ObjectMapper());
+        ReflectionTestUtils.setField(repository, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(repository, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(repository, "writeBehindBatchSize", 500);
+        ReflectionTestUtils.setField(repository, "writeBehindMaxPending", 1);
+        ReflectionTestUtils.setField(repository, "journalFsync", false);
+        repository.initWriteBehind();
+    }
+
+    private static MealEntity meal(String id, float carbs) {
+        MealEntity meal = new MealEntity();
+        meal.setId(id);
+        meal.setUserId("insuscan_a@example.com");
+        meal.setTotalCarbs(carbs);
+        return meal;
+    }
+
+    @Test
+    void pendingMealIsStillBufferedWhenFull() {
+        repository.save(meal("m1", 10));
+        repository.save(meal("m1", 20));
+        repository.saveAsync(meal("m1", 30)).block();
+
+        verify(firestore, never()).collection(anyString());
+        assertThat(repository.findById("m1").orElseThrow().getTotalCarbs()).isEqualTo(30f);
+    }
+
+    @Test
+    void newMealIsWrittenDirectlyWhenFull() {
+        repository.save(meal("m1", 10));
+
+        repository.save(meal("m2", 15));
+
+        verify(document).set(anyMap());
+        assertThat(repository.findById("m1").orElseThrow().getTotalCarbs()).isEqualTo(10f);
+    }
+
+    @Test
+    void createOfPendingIdFailsWhenFull() {
+        repository.save(meal("m1", 10));
+
+        assertThatThrownBy(() -> repository.create(meal("m1", 20)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.findById("m1").orElseThrow().getTotalCarbs()).isEqualTo(10f);
+    }
+}
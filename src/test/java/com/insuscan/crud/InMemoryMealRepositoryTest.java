@@ -0,0 +1,103 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.MealEntity;
+import com.insuscan.data.MealSummaryEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory backend against the MealRepository contract that FirestoreMealRepository
+ * gets from its queries: scannedAt desc then id desc, meals without scannedAt left out.
+ */
+class InMemoryMealRepositoryTest {
+
+    private static final String USER = "insuscan_a@example.com";
+    private static final long T0 = 1_760_000_000_000L;
+
+    private InMemoryMealRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryMealRepository(new ObjectMapper());
+        repository.save(meal("m1", USER, T0));
+        repository.save(meal("m2", USER, T0 + 1000));
+        repository.save(meal("m3", USER, T0 + 1000));   // same time as m2: id breaks the tie
+        repository.save(meal("m4", USER, T0 + 2000));
+        repository.save(meal("m5", USER, null));
+        repository.save(meal("other", "insuscan_b@example.com", T0 + 5000));
+    }
+
+    private static MealEntity meal(String id, String userId, Long scannedAt) {
+        MealEntity meal = new MealEntity();
+        meal.setId(id);
+        meal.setUserId(userId);
+        meal.setScannedAt(scannedAt != null ? new Date(scannedAt) : null);
+        return meal;
+    }
+
+    private static List<String> ids(List<MealEntity> meals) {
+        return meals.stream().map(MealEntity::getId).toList();
+    }
+
+    @Test
+    void newestFirstQueriesLeaveOutMealsWithoutScannedAt() {
+        assertThat(ids(repository.findByUserId(USER))).containsExactly("m4", "m3", "m2", "m1");
+        assertThat(ids(repository.findRecentByUserId(USER, 10))).containsExactly("m4", "m3", "m2", "m1");
+        assertThat(ids(repository.findByUserId(USER, 1, 2))).containsExactly("m2", "m1");
+        assertThat(repository.findRecentSummariesByUserId(USER, 10))
+                .extracting(MealSummaryEntity::getId).containsExactly("m4", "m3", "m2", "m1");
+        assertThat(ids(repository.findAllRecent(10))).containsExactly("other", "m4", "m3", "m2", "m1");
+    }
+
+    @Test
+    void mealWithoutScannedAtIsStillStoredAndCounted() {
+        assertThat(repository.findById("m5")).isPresent();
+        assertThat(repository.countByUserId(USER)).isEqualTo(5);
+    }
+
+    @Test
+    void keysetPagesWalkTheWholeHistoryOnce() {
+        CursorPage<MealEntity> first = repository.findByUserIdAfter(USER, null, 3);
+        assertThat(ids(first.getItems())).containsExactly("m4", "m3", "m2");
+        assertThat(first.hasMore()).isTrue();
+
+        CursorPage<MealEntity> second = repository.findByUserIdAfter(USER, first.getNextPageToken(), 3);
+        assertThat(ids(second.getItems())).containsExactly("m1");
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void dateRangesAreHalfOpenForPagingAndInclusiveForTheLegacyQuery() {
+        Date from = new Date(T0);
+        Date to = new Date(T0 + 2000);
+
+        assertThat(ids(repository.findByUserIdAndDateRange(USER, from, to, 0, 10)))
+                .containsExactly("m3", "m2", "m1");
+        assertThat(ids(repository.findByUserIdAndDateRange(USER, from, to)))
+                .containsExactly("m4", "m3", "m2", "m1");
+        assertThat(ids(repository.findByUserIdAndDateRangeAfter(USER, from, to, null, 10).getItems()))
+                .containsExactly("m3", "m2", "m1");
+    }
+
+    @Test
+    void resavingWithNewTimeMovesTheMeal() {
+        repository.save(meal("m1", USER, T0 + 3000));
+
+        assertThat(ids(repository.findRecentByUserId(USER, 2))).containsExactly("m1", "m4");
+        assertThat(repository.countByUserId(USER)).isEqualTo(5);
+    }
+
+    @Test
+    void returnedMealsAreCopies() {
+        MealEntity loaded = repository.findById("m1").orElseThrow();
+        loaded.setTotalCarbs(99f);
+
+        assertThat(repository.findById("m1").orElseThrow().getTotalCarbs()).isNotEqualTo(99f);
+    }
+}
@@ -0,0 +1,116 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.DailyRollupEntity;
+import com.insuscan.data.MealEntity;
+import com.insuscan.enums.MealStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryMealRollupRepositoryTest {
+
+    private static final String USER = "insuscan_a@example.com";
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private final InMemoryMealRollupRepository rollups =
+            new InMemoryMealRollupRepository(new InMemoryMealRepository(new ObjectMapper()));
+
+    private static MealEntity meal(String id, LocalDate day, float carbs, float dose) {
+        MealEntity meal = new MealEntity();
+        meal.setId(id);
+        meal.setUserId(USER);
+        meal.setScannedAt(Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+        meal.setStatus(MealStatus.CONFIRMED);
+        meal.setTotalCarbs(carbs);
+        meal.setRecommendedDose(dose);
+        meal.setActualDose(dose);
+        return meal;
+    }
+
+    private DailyRollupEntity day(LocalDate day) {
+        List<DailyRollupEntity> found = rollups.findByUserIdAndDayRange(USER, day, day);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Test
+    void sumsTheDaysEntries() {
+        MealEntity sick = meal("m2", DAY, 30, 2);
+        sick.setWasSickMode(true);
+        rollups.record(meal("m1", DAY, 45.5f, 3));
+        rollups.record(sick);
+
+        DailyRollupEntity rollup = day(DAY);
+        assertThat(rollup.getMealCount()).isEqualTo(2);
+        assertThat(rollup.getTotalCarbs()).isEqualTo(75.5f);
+        assertThat(rollup.getTotalRecommendedDose()).isEqualTo(5f);
+        assertThat(rollup.getTotalActualDose()).isEqualTo(5f);
+        assertThat(rollup.getSickModeCount()).isEqualTo(1);
+        assertThat(rollup.getStressModeCount()).isZero();
+    }
+
+    @Test
+    void recordingAgainReplacesTheEntry() {
+        rollups.record(meal("m1", DAY, 45, 3));
+        rollups.record(meal("m1", DAY, 60, 4));
+
+        assertThat(day(DAY).getMealCount()).isEqualTo(1);
+        assertThat(day(DAY).getTotalCarbs()).isEqualTo(60f);
+    }
+
+    @Test
+    void mealThatNoLongerCountsIsTakenOut() {
+        MealEntity meal = meal("m1", DAY, 45, 3);
+        rollups.record(meal);
+        rollups.record(meal("m2", DAY, 20, 1));
+
+        meal.setStatus(MealStatus.FAILED);
+        rollups.record(meal);
+
+        assertThat(day(DAY).getMealCount()).isEqualTo(1);
+        assertThat(day(DAY).getTotalCarbs()).isEqualTo(20f);
+    }
+
+    @Test
+    void removingTheLastEntryDropsTheDay() {
+        MealEntity meal = meal("m1", DAY, 45, 3);
+        rollups.record(meal);
+
+        rollups.remove(meal);
+        rollups.remove(meal);
+
+        assertThat(day(DAY)).isNull();
+    }
+
+    @Test
+    void rangeIsInclusiveAndOldestFirst() {
+        rollups.record(meal("m1", DAY.minusDays(1), 10, 1));
+        rollups.record(meal("m2", DAY, 20, 1));
+        rollups.record(meal("m3", DAY.plusDays(1), 30, 1));
+
+        assertThat(rollups.findByUserIdAndDayRange(USER, DAY.minusDays(1), DAY))
+                .extracting(DailyRollupEntity::getDay)
+                .containsExactly(DAY.minusDays(1), DAY);
+        assertThat(rollups.findByUserIdAndDayRange("insuscan_b@example.com", DAY, DAY)).isEmpty();
+    }
+
+    @Test
+    void removeOrphansKeepsOnlyTheGivenMeals() {
+        rollups.record(meal("m1", DAY, 10, 1));
+        rollups.record(meal("m2", DAY, 20, 1));
+        rollups.record(meal("m3", DAY.plusDays(1), 30, 1));
+
+        int removed = rollups.removeOrphans(USER, Set.of("m1"));
+
+        assertThat(removed).isEqualTo(2);
+        assertThat(day(DAY).getMealCount()).isEqualTo(1);
+        assertThat(day(DAY).getTotalCarbs()).isEqualTo(10f);
+        assertThat(day(DAY.plusDays(1))).isNull();
+    }
+}
@@ -0,0 +1,45 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.UserEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryUserRepositoryTest {
+
+    private final InMemoryUserRepository repository = new InMemoryUserRepository(new ObjectMapper());
+
+    private static UserEntity user(String id) {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    void listenerSeesUpdatesAndDeletesButNotCreations() {
+        List<String> changes = new ArrayList<>();
+        repository.listenForChanges((id, user) -> changes.add(id + (user == null ? ":deleted" : ":updated")));
+
+        repository.save(user("insuscan_a@example.com"));
+        repository.save(user("insuscan_a@example.com"));
+        repository.deleteById("insuscan_a@example.com");
+
+        assertThat(changes).containsExactly("insuscan_a@example.com:updated", "insuscan_a@example.com:deleted");
+    }
+
+    @Test
+    void removedRegistrationStopsCallbacks() {
+        List<String> changes = new ArrayList<>();
+        Registration registration = repository.listenForChanges((id, user) -> changes.add(id));
+        repository.save(user("insuscan_a@example.com"));
+
+        registration.remove();
+        repository.save(user("insuscan_a@example.com"));
+
+        assertThat(changes).isEmpty();
+    }
+}
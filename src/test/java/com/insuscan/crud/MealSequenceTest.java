@@ -0,0 +1,65 @@
+package com.insuscan.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.data.MealEntity;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MealSequenceTest {
+
+    private final InMemoryMealRepository meals = new InMemoryMealRepository(new ObjectMapper());
+    private final InMemorySequenceRepository sequences = new InMemorySequenceRepository(meals);
+
+    private static MealEntity meal(String id) {
+        MealEntity meal = new MealEntity();
+        meal.setId(id);
+        meal.setUserId("insuscan_a@example.com");
+        return meal;
+    }
+
+    @Test
+    void sequenceOfReadsNumericSuffix() {
+        assertThat(MealDocuments.sequenceOf("insuscan_20260112_007")).isEqualTo(7);
+        assertThat(MealDocuments.sequenceOf("insuscan_20260112_1000")).isEqualTo(1000);
+        assertThat(MealDocuments.sequenceOf("insuscan_3f2a-uuid")).isZero();
+        assertThat(MealDocuments.sequenceOf("insuscan_20260112_99999999999999999999")).isZero();
+    }
+
+    @Test
+    void newCounterStartsAboveNumericMaximumNotLexicographic() {
+        meals.save(meal("insuscan_20260112_999"));
+        meals.save(meal("insuscan_20260112_1000"));
+        meals.save(meal("insuscan_20260113_5000"));
+
+        assertThat(sequences.reserveBlock("insuscan_20260112", 20)).isEqualTo(1001);
+        assertThat(sequences.reserveBlock("insuscan_20260112", 20)).isEqualTo(1021);
+    }
+
+    @Test
+    void newCounterWithoutMealsStartsAtOne() {
+        assertThat(sequences.reserveBlock("insuscan_20260112", 20)).isEqualTo(1);
+    }
+
+    @Test
+    void createRejectsTakenId() {
+        meals.create(meal("insuscan_20260112_001"));
+
+        assertThatThrownBy(() -> meals.create(meal("insuscan_20260112_001")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(meals.countByUserId("insuscan_a@example.com")).isEqualTo(1);
+    }
+
+    @Test
+    void saveStillOverwrites() {
+        meals.create(meal("insuscan_20260112_001"));
+        MealEntity updated = meal("insuscan_20260112_001");
+        updated.setTotalCarbs(42f);
+
+        meals.save(updated);
+
+        assertThat(meals.findById("insuscan_20260112_001")).get()
+                .extracting(MealEntity::getTotalCarbs).isEqualTo(42f);
+    }
+}
@@ -0,0 +1,66 @@
+package com.insuscan.image;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDataTest {
+
+    private static byte[] image(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    // Hands out at most 7 bytes per read, like a slow network stream
+    private static InputStream trickling(byte[] bytes) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {100_000, 1, 50_000, 200_000, -1})
+    void readsTheWholeStreamWhateverTheHint(long sizeHint) throws IOException {
+        byte[] bytes = image(100_000);
+
+        ImageData data = ImageData.fromStream(new ByteArrayInputStream(bytes), sizeHint, "image/png");
+
+        assertThat(data.size()).isEqualTo(bytes.length);
+        assertThat(data.openStream().readAllBytes()).isEqualTo(bytes);
+        assertThat(data.getHash()).isEqualTo(ImageData.fromBytes(bytes, "image/png").getHash());
+        assertThat(data.getMimeType()).isEqualTo("image/png");
+    }
+
+    @Test
+    void shortReadsAndTheEofProbeKeepEveryByte() throws IOException {
+        byte[] bytes = image(1_001);
+
+        ImageData exact = ImageData.fromStream(trickling(bytes), 1_001, null);
+        ImageData tooSmall = ImageData.fromStream(trickling(bytes), 1_000, null);
+
+        assertThat(exact.openStream().readAllBytes()).isEqualTo(bytes);
+        assertThat(tooSmall.openStream().readAllBytes()).isEqualTo(bytes);
+        assertThat(tooSmall.getHash()).isEqualTo(exact.getHash());
+    }
+
+    @Test
+    void emptyStreamGivesEmptyImage() throws IOException {
+        ImageData data = ImageData.fromStream(new ByteArrayInputStream(new byte[0]), 10, null);
+
+        assertThat(data.size()).isZero();
+        assertThat(data.getMimeType()).isEqualTo("image/jpeg");
+    }
+}
@@ -0,0 +1,131 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.FoodRecognitionResult.RecognizedFoodItem;
+import com.insuscan.boundary.NutritionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JudgeVerdictCacheTest {
+
+    private static final String MODEL = "gpt-4o-mini";
+
+    private JudgeVerdictCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JudgeVerdictCache(new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlDays", 30L);
+    }
+
+    private static RecognizedFoodItem item(String name, String base, String state, String... flags) {
+        RecognizedFoodItem item = new RecognizedFoodItem(name, 0.9f, 100f);
+        item.setBaseIngredient(base);
+        item.setVisualState(state);
+        item.setRiskFlags(new ArrayList<>(List.of(flags)));
+        return item;
+    }
+
+    private static List<NutritionInfo> candidates(String... fdcIds) {
+        return Arrays.stream(fdcIds).map(id -> {
+            NutritionInfo info = new NutritionInfo();
+            info.setFdcId(id);
+            return info;
+        }).toList();
+    }
+
+    @Test
+    void keyIncludesItemNameAlongsideBaseIngredient() {
+        String pudding = cache.keyFor(MODEL, item("Rice pudding", "rice", "BOILED"), candidates("1", "2"));
+        String fried = cache.keyFor(MODEL, item("Fried rice", "rice", "BOILED"), candidates("1", "2"));
+
+        assertThat(pudding).isNotEqualTo(fried);
+    }
+
+    @Test
+    void keyIgnoresCaseWhitespaceAndOrdering() {
+        String a = cache.keyFor(MODEL, item("Fried  Rice", "Rice", "fried", "OIL", "HIGH_FAT"),
+                candidates("2", "1"));
+        String b = cache.keyFor(MODEL, item("fried rice ", " rice", "FRIED", "high_fat", "oil"),
+                candidates("1", " 2"));
+
+        assertThat(a).isEqualTo(b);
+    }
+
+    @Test
+    void keyDependsOnModelStateFlagsAndCandidates() {
+        String base = cache.keyFor(MODEL, item("Potato", "potato", "ROASTED"), candidates("1", "2"));
+
+        assertThat(cache.keyFor("gpt-4o", item("Potato", "potato", "ROASTED"), candidates("1", "2")))
+                .isNotEqualTo(base);
+        assertThat(cache.keyFor(MODEL, item("Potato", "potato", "BOILED"), candidates("1", "2")))
+                .isNotEqualTo(base);
+        assertThat(cache.keyFor(MODEL, item("Potato", "potato", "ROASTED", "OIL"), candidates("1", "2")))
+                .isNotEqualTo(base);
+        assertThat(cache.keyFor(MODEL, item("Potato", "potato", "ROASTED"), candidates("1", "3")))
+                .isNotEqualTo(base);
+    }
+
+    @Test
+    void storesVerdictsAndCountsHitsAndMisses() {
+        assertThat(cache.get("k1")).isNull();
+        cache.put("k1", "170434");
+
+        assertThat(cache.get("k1")).isEqualTo("170434");
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void estimatedBytesFollowsEntriesThroughEviction() {
+        cache.put("k1", "1");
+        long one = cache.getStats().getEstimatedBytes();
+        cache.put("k2", "2");
+        cache.put("k3", "3");
+
+        assertThat(one).isPositive();
+        assertThat(cache.getStats().getEntries()).isEqualTo(2);
+        assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+        assertThat(cache.getStats().getEstimatedBytes()).isEqualTo(2 * one);
+        assertThat(cache.get("k1")).isNull();
+    }
+
+    @Test
+    void replacingAnEntryDoesNotDoubleCountItsSize() {
+        cache.put("k1", "1");
+        long one = cache.getStats().getEstimatedBytes();
+        cache.put("k1", "2");
+
+        assertThat(cache.getStats().getEstimatedBytes()).isEqualTo(one);
+    }
+
+    @Test
+    void diskTierServesVerdictsAfterRestart(@TempDir Path dir) {
+        ReflectionTestUtils.setField(cache, "diskEnabled", true);
+        ReflectionTestUtils.setField(cache, "diskDir", dir.toString());
+        cache.initDiskTier();
+        cache.put("k1", "170434");
+
+        JudgeVerdictCache restarted = new JudgeVerdictCache(new ObjectMapper());
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        ReflectionTestUtils.setField(restarted, "maxEntries", 2);
+        ReflectionTestUtils.setField(restarted, "ttlDays", 30L);
+        ReflectionTestUtils.setField(restarted, "diskEnabled", true);
+        ReflectionTestUtils.setField(restarted, "diskDir", dir.toString());
+        restarted.initDiskTier();
+
+        assertThat(restarted.get("k1")).isEqualTo("170434");
+        assertThat(restarted.getStats().getDiskHits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.MealStatsBoundary;
+import com.insuscan.crud.InMemoryMealRepository;
+import com.insuscan.crud.InMemoryMealRollupRepository;
+import com.insuscan.data.MealEntity;
+import com.insuscan.enums.MealStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MealStatsServiceImplTest {
+
+    private static final String SYSTEM_ID = "insuscan";
+    private static final String EMAIL = "a@example.com";
+    private static final String USER = SYSTEM_ID + "_" + EMAIL;
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private InMemoryMealRepository meals;
+    private FlakyRollups rollups;
+    private MealStatsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meals = new InMemoryMealRepository(new ObjectMapper());
+        rollups = new FlakyRollups(meals);
+        service = new MealStatsServiceImpl(rollups, meals);
+        ReflectionTestUtils.setField(service, "maxDays", 366);
+    }
+
+    private static MealEntity meal(String id, LocalDate day, float carbs) {
+        MealEntity meal = new MealEntity();
+        meal.setId(id);
+        meal.setUserId(USER);
+        meal.setScannedAt(Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+        meal.setStatus(MealStatus.CONFIRMED);
+        meal.setTotalCarbs(carbs);
+        return meal;
+    }
+
+    @Test
+    void rebuildRepairsStaleAndOrphanedEntries() {
+        MealEntity kept = meal("m1", DAY, 40);
+        meals.save(kept);
+        rollups.record(meal("m1", DAY, 10));          // stale entry of an existing meal
+        rollups.record(meal("gone", DAY, 99));        // meal deleted without its rollup
+        rollups.record(meal("gone2", DAY.plusDays(1), 5));
+
+        int read = service.rebuildForUser(SYSTEM_ID, EMAIL);
+
+        MealStatsBoundary stats = service.getStats(SYSTEM_ID, EMAIL, DAY, DAY.plusDays(1));
+        assertThat(read).isEqualTo(1);
+        assertThat(stats.getMealCount()).isEqualTo(1);
+        assertThat(stats.getTotalCarbs()).isEqualTo(40f);
+        assertThat(stats.getDays()).hasSize(1);
+    }
+
+    @Test
+    void statsSumAcrossDays() {
+        service.mealSaved(meal("m1", DAY, 40));
+        service.mealSaved(meal("m2", DAY.plusDays(2), 25.5f));
+        service.mealDeleted(meal("m1", DAY, 40));
+        service.mealSaved(meal("m3", DAY, 12));
+        service.stopRollupWriter(); // waits for the queued writes
+
+        MealStatsBoundary stats = service.getStats(SYSTEM_ID, EMAIL, DAY, DAY.plusDays(2));
+        assertThat(stats.getMealCount()).isEqualTo(2);
+        assertThat(stats.getTotalCarbs()).isEqualTo(37.5f);
+    }
+
+    @Test
+    void failedWriteIsKeptAndRetried() {
+        rollups.failing = true;
+        service.mealSaved(meal("m1", DAY, 40));
+        awaitWriter();
+        assertThat(service.getUsersWithFailedRollups()).containsExactly(USER);
+
+        rollups.failing = false;
+        service.retryFailedWrites();
+        service.stopRollupWriter();
+
+        assertThat(service.getUsersWithFailedRollups()).isEmpty();
+        assertThat(service.getStats(SYSTEM_ID, EMAIL, DAY, DAY).getTotalCarbs()).isEqualTo(40f);
+    }
+
+    @Test
+    void newerWriteWinsOverAnOlderFailure() {
+        rollups.failing = true;
+        service.mealSaved(meal("m1", DAY, 40));
+        awaitWriter();
+
+        rollups.failing = false;
+        service.mealSaved(meal("m1", DAY, 55));
+        service.retryFailedWrites();
+        service.stopRollupWriter();
+
+        assertThat(service.getUsersWithFailedRollups()).isEmpty();
+        assertThat(service.getStats(SYSTEM_ID, EMAIL, DAY, DAY).getTotalCarbs()).isEqualTo(55f);
+    }
+
+    @Test
+    void rebuildClearsEarlierFailures() {
+        rollups.failing = true;
+        meals.save(meal("m1", DAY, 40));
+        service.mealSaved(meal("m1", DAY, 40));
+        awaitWriter();
+
+        rollups.failing = false;
+        service.rebuildForUser(SYSTEM_ID, EMAIL);
+
+        assertThat(service.getUsersWithFailedRollups()).isEmpty();
+        assertThat(service.getStats(SYSTEM_ID, EMAIL, DAY, DAY).getTotalCarbs()).isEqualTo(40f);
+    }
+
+    // Queues a no-op behind everything submitted so far and waits for it
+    private void awaitWriter() {
+        CountDownLatch done = new CountDownLatch(1);
+        ((Executor) ReflectionTestUtils.getField(service, "rollupWriter")).execute(done::countDown);
+        try {
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // In-memory rollups whose record can be made to fail
+    private static class FlakyRollups extends InMemoryMealRollupRepository {
+        volatile boolean failing;
+
+        FlakyRollups(InMemoryMealRepository meals) {
+            super(meals);
+        }
+
+        @Override
+        public void record(MealEntity meal) {
+            if (failing) {
+                throw new RuntimeException("rollup store unavailable");
+            }
+            super.record(meal);
+        }
+    }
+}
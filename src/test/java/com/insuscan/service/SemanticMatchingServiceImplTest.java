@@ -0,0 +1,107 @@
+package com.insuscan.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insuscan.boundary.FoodRecognitionResult.RecognizedFoodItem;
+import com.insuscan.boundary.NutritionInfo;
+import com.insuscan.util.ApiLogger;
+import com.insuscan.util.UpstreamGuards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch judge fallbacks: a failed or late LLM call never costs per-item calls, and
+ * verdicts resolved locally survive it.
+ */
+class SemanticMatchingServiceImplTest {
+
+    private static final String MODEL = "gpt-4o-mini";
+
+    private final AtomicInteger judgeCalls = new AtomicInteger();
+    private Mono<ClientResponse> judgeResponse;
+
+    private JudgeVerdictCache verdictCache;
+    private CandidatePreRanker preRanker;
+    private SemanticMatchingServiceImpl service;
+
+    private final RecognizedFoodItem rice = item("Rice", "rice");
+    private final RecognizedFoodItem chicken = item("Chicken", "chicken");
+    private final RecognizedFoodItem beans = item("Beans", "beans");
+    private final Map<RecognizedFoodItem, List<NutritionInfo>> candidates = Map.of(
+            rice, List.of(candidate("r1", "Rice, white, cooked"), candidate("r2", "Rice, brown, cooked")),
+            chicken, List.of(candidate("c1", "Chicken, breast, roasted"), candidate("c2", "Chicken, thigh, roasted")),
+            beans, List.of(candidate("b1", "Beans, black, boiled"), candidate("b2", "Beans, pinto, boiled")));
+
+    @BeforeEach
+    void setUp() {
+        verdictCache = new JudgeVerdictCache(new ObjectMapper());
+        ReflectionTestUtils.setField(verdictCache, "enabled", true);
+        ReflectionTestUtils.setField(verdictCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(verdictCache, "ttlDays", 30L);
+        preRanker = new CandidatePreRanker();
+
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            judgeCalls.incrementAndGet();
+            return judgeResponse;
+        });
+        service = new SemanticMatchingServiceImpl(builder, new ObjectMapper(), new ApiLogger(), verdictCache,
+                preRanker, new UpstreamGuards(new MockEnvironment()), "http://judge.test");
+        ReflectionTestUtils.setField(service, "openAiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "openAiModel", MODEL);
+    }
+
+    private static RecognizedFoodItem item(String name, String base) {
+        RecognizedFoodItem item = new RecognizedFoodItem(name, 0.9f, 100f);
+        item.setBaseIngredient(base);
+        return item;
+    }
+
+    private static NutritionInfo candidate(String fdcId, String name) {
+        NutritionInfo info = new NutritionInfo();
+        info.setFdcId(fdcId);
+        info.setFoodName(name);
+        return info;
+    }
+
+    private String localGuess(RecognizedFoodItem item) {
+        return preRanker.bestGuess(item, candidates.get(item));
+    }
+
+    @Test
+    void failedBatchCallFallsBackToLocalScoreWithoutPerItemCalls() {
+        judgeResponse = Mono.error(new IOException("connection reset"));
+
+        Map<RecognizedFoodItem, String> verdicts =
+                service.findBestMatchesAsync(List.of(rice, chicken, beans), candidates).block();
+
+        assertThat(judgeCalls).hasValue(1);
+        assertThat(verdicts).containsEntry(rice, localGuess(rice))
+                .containsEntry(chicken, localGuess(chicken))
+                .containsEntry(beans, localGuess(beans));
+    }
+
+    @Test
+    void lateJudgeKeepsCachedVerdicts() {
+        verdictCache.put(verdictCache.keyFor(MODEL, rice, candidates.get(rice)), "r2");
+        judgeResponse = Mono.never();
+
+        Map<RecognizedFoodItem, String> verdicts = service.findBestMatchesAsync(
+                List.of(rice, chicken, beans), candidates, Duration.ofMillis(50)).block(Duration.ofSeconds(5));
+
+        assertThat(verdicts).containsEntry(rice, "r2")
+                .containsEntry(chicken, localGuess(chicken))
+                .containsEntry(beans, localGuess(beans));
+    }
+}
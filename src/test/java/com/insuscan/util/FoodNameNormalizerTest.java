@@ -0,0 +1,54 @@
+package com.insuscan.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FoodNameNormalizerTest {
+
+    private final FoodNameNormalizer normalizer = new FoodNameNormalizer();
+
+    @ParameterizedTest
+    @CsvSource({
+            "bananas, banana",
+            "apples, apple",
+            "hamburgers, ground beef",
+            "noodle, noodles",
+            "Strawberries, strawberry",
+            "sweet potatoes, potato",
+            "chicken wings, chicken wings",
+            "Carrots, carrot"
+    })
+    void pluralAndSingularFormsFindTheirSynonym(String input, String expected) {
+        assertThat(normalizer.normalize(input)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "spagetti, spaghetti",
+            "a bowl of rice, rice",
+            "'Salmon, grilled', salmon",
+            "grilled chicken breast, grilled chicken",
+            "breast, chicken breast",
+            "steak, beef steak"
+    })
+    void resolvesSynonymsAndWordRuns(String input, String expected) {
+        assertThat(normalizer.normalize(input)).isEqualTo(expected);
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        assertThat(normalizer.normalize("pineapple")).isEqualTo("Pineapple");
+        assertThat(normalizer.normalize("hummus")).isEqualTo("Hummus");
+    }
+
+    @Test
+    void isIdempotent() {
+        for (String input : new String[]{"bananas", "hamburgers", "penne", "fries", "mashed potatoes"}) {
+            String once = normalizer.normalize(input);
+            assertThat(normalizer.normalize(once)).isEqualTo(once);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.insuscan.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FoodTokenizerTest {
+
+    @Test
+    void splitsOnNonWordCharactersAndLowerCases() {
+        assertThat(FoodTokenizer.tokenize("Chicken, GRILLED (skinless)"))
+                .containsExactly("chicken", "grilled", "skinless");
+        assertThat(FoodTokenizer.tokenize("  ")).isEmpty();
+        assertThat(FoodTokenizer.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void stemsPlurals() {
+        assertThat(FoodTokenizer.tokenize("bananas tomatoes strawberries noodles"))
+                .containsExactly("banana", "tomato", "strawberry", "noodle");
+    }
+
+    @Test
+    void leavesNonPluralEndingsAlone() {
+        assertThat(FoodTokenizer.tokenize("hummus swiss asparagus gas pies"))
+                .containsExactly("hummus", "swiss", "asparagus", "gas", "pie");
+    }
+
+    @Test
+    void singularAndPluralGiveTheSameTokens() {
+        assertThat(FoodTokenizer.tokenize("French fries")).isEqualTo(FoodTokenizer.tokenize("french fry"));
+        assertThat(FoodTokenizer.tokenize("Potatoes, baked")).isEqualTo(FoodTokenizer.tokenize("potato baked"));
+    }
+}
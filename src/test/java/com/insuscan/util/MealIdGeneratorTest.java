@@ -0,0 +1,121 @@
+package com.insuscan.util;
+
+import com.insuscan.crud.SequenceRepository;
+import com.insuscan.exception.InsuScanUpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MealIdGeneratorTest {
+
+    private static final String TODAY = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+    private MealIdGenerator generator(SequenceRepository repository, int blockSize) {
+        MealIdGenerator generator = new MealIdGenerator(repository);
+        ReflectionTestUtils.setField(generator, "blockSize", blockSize);
+        return generator;
+    }
+
+    @Test
+    void handsOutLeasedBlockBeforeLeasingAgain() {
+        List<Integer> leases = new ArrayList<>();
+        AtomicInteger counter = new AtomicInteger(1);
+        MealIdGenerator generator = generator((counterId, blockSize) -> {
+            int start = counter.getAndAdd(blockSize);
+            leases.add(start);
+            return start;
+        }, 3);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(generator.generateMealId("insuscan"));
+        }
+
+        assertThat(ids).containsExactly(
+                "insuscan_" + TODAY + "_001",
+                "insuscan_" + TODAY + "_002",
+                "insuscan_" + TODAY + "_003",
+                "insuscan_" + TODAY + "_004",
+                "insuscan_" + TODAY + "_005");
+        assertThat(leases).containsExactly(1, 4);
+    }
+
+    @Test
+    void usesOneCounterPerSystemAndDay() {
+        List<String> counters = new ArrayList<>();
+        MealIdGenerator generator = generator((counterId, blockSize) -> {
+            counters.add(counterId);
+            return 1;
+        }, 10);
+
+        generator.generateMealId("insuscan");
+        generator.generateMealId("other");
+
+        assertThat(counters).containsExactly("insuscan_" + TODAY, "other_" + TODAY);
+    }
+
+    @Test
+    void sequencesAboveThreeDigitsAreNotTruncated() {
+        MealIdGenerator generator = generator((counterId, blockSize) -> 1000, 10);
+
+        assertThat(generator.generateMealId("insuscan")).isEqualTo("insuscan_" + TODAY + "_1000");
+    }
+
+    @Test
+    void failedLeaseIsRetryableErrorNotAGuessedId() {
+        MealIdGenerator generator = generator((counterId, blockSize) -> {
+            throw new RuntimeException("Firestore unavailable");
+        }, 10);
+
+        assertThatThrownBy(() -> generator.generateMealId("insuscan"))
+                .isInstanceOf(InsuScanUpstreamUnavailableException.class);
+    }
+
+    @Test
+    void recoversAfterFailedLease() {
+        AtomicInteger calls = new AtomicInteger();
+        MealIdGenerator generator = generator((counterId, blockSize) -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new RuntimeException("Firestore unavailable");
+            }
+            return 7;
+        }, 10);
+
+        assertThatThrownBy(() -> generator.generateMealId("insuscan"))
+                .isInstanceOf(InsuScanUpstreamUnavailableException.class);
+        assertThat(generator.generateMealId("insuscan")).isEqualTo("insuscan_" + TODAY + "_007");
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger(1);
+        MealIdGenerator generator = generator((counterId, blockSize) -> counter.getAndAdd(blockSize), 5);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    ids.add(generator.generateMealId("insuscan"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ids).hasSize(8 * 200);
+    }
+}
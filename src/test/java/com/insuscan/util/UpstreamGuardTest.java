@@ -0,0 +1,194 @@
+package com.insuscan.util;
+
+import com.insuscan.exception.InsuScanUpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamGuardTest {
+
+    private static UpstreamGuard.Settings settings() {
+        UpstreamGuard.Settings settings = new UpstreamGuard.Settings();
+        settings.maxConcurrent = 4;
+        settings.minTimeoutMs = 30;
+        settings.maxTimeoutMs = 2000;
+        settings.breakerWindow = 4;
+        settings.breakerMinCalls = 4;
+        settings.breakerFailureRate = 0.5;
+        settings.breakerOpenMs = 50;
+        settings.maxRetries = 0;
+        return settings;
+    }
+
+    private static Mono<String> failing() {
+        return Mono.error(new IllegalStateException("connection reset"));
+    }
+
+    private static void callQuietly(UpstreamGuard guard, Mono<String> call) {
+        try {
+            guard.protect(call).block();
+        } catch (RuntimeException ignored) {
+            // outcome is what the test looks at
+        }
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        callQuietly(guard, Mono.just("ok"));
+        callQuietly(guard, Mono.just("ok"));
+        callQuietly(guard, failing());
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+
+        callQuietly(guard, failing());
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+    }
+
+    @Test
+    void failsFastWhileOpenWithoutCallingUpstream() {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        for (int i = 0; i < 4; i++) callQuietly(guard, failing());
+
+        AtomicInteger subscribed = new AtomicInteger();
+        Mono<String> call = Mono.fromCallable(() -> {
+            subscribed.incrementAndGet();
+            return "ok";
+        });
+
+        assertThatThrownBy(() -> guard.protect(call).block())
+                .isInstanceOf(InsuScanUpstreamUnavailableException.class);
+        assertThat(subscribed).hasValue(0);
+        assertThat(guard.snapshot().getRejectedOpen()).isEqualTo(1);
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        for (int i = 0; i < 4; i++) callQuietly(guard, failing());
+        Thread.sleep(80);
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.HALF_OPEN);
+
+        assertThat(guard.protect(Mono.just("ok")).block()).isEqualTo("ok");
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.snapshot().getFailureRate()).isZero();
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        for (int i = 0; i < 4; i++) callQuietly(guard, failing());
+        Thread.sleep(80);
+
+        callQuietly(guard, failing());
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsUpstreamFaults() {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        WebClientResponseException badRequest =
+                WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY, new byte[0], null);
+        for (int i = 0; i < 6; i++) callQuietly(guard, Mono.error(badRequest));
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.snapshot().getFailures()).isZero();
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondMaxConcurrent() {
+        UpstreamGuard.Settings settings = settings();
+        settings.maxConcurrent = 1;
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+
+        Disposable inFlight = guard.protect(Mono.never()).subscribe();
+        try {
+            assertThatThrownBy(() -> guard.protect(Mono.just("ok")).block())
+                    .isInstanceOf(InsuScanUpstreamUnavailableException.class);
+            assertThat(guard.snapshot().getRejectedBulkhead()).isEqualTo(1);
+        } finally {
+            inFlight.dispose();
+        }
+        assertThat(guard.protect(Mono.just("ok")).block()).isEqualTo("ok");
+    }
+
+    @Test
+    void callsCancelledAfterTheCurrentTimeoutCountAsTimeouts() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+
+        for (int i = 0; i < 4; i++) {
+            Disposable call = guard.protect(Mono.never()).subscribe();
+            // The adaptive timeout dropped while the call was running (admitted with 2000ms)
+            ReflectionTestUtils.setField(guard, "timeoutMs", 30L);
+            Thread.sleep(40);
+            call.dispose();
+        }
+
+        assertThat(guard.snapshot().getTimeouts()).isEqualTo(4);
+        assertThat(guard.snapshot().getFailures()).isEqualTo(4);
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+    }
+
+    @Test
+    void slowCancellationBeforeTheTimeoutIsOnlyALatencySample() {
+        UpstreamGuard.Settings settings = settings();
+        settings.minLatencySamples = 1;
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+
+        for (int i = 0; i < 10; i++) {
+            // Guard timeout is 2000ms; the caller gives up after 60ms and uses its fallback
+            String result = guard.protect(Mono.<String>never())
+                    .timeout(Duration.ofMillis(60))
+                    .onErrorResume(e -> Mono.just("fallback"))
+                    .block();
+            assertThat(result).isEqualTo("fallback");
+        }
+
+        assertThat(guard.snapshot().getTimeouts()).isZero();
+        assertThat(guard.snapshot().getFailures()).isZero();
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.snapshot().getP50LatencyMs()).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void slowCancelledTrialLeavesTheCircuitHalfOpen() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", settings());
+        for (int i = 0; i < 4; i++) callQuietly(guard, failing());
+        Thread.sleep(80);
+
+        guard.protect(Mono.<String>never())
+                .timeout(Duration.ofMillis(40))
+                .onErrorResume(e -> Mono.just("fallback"))
+                .block();
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.HALF_OPEN);
+        assertThat(guard.protect(Mono.just("ok")).block()).isEqualTo("ok");
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+    }
+
+    @Test
+    void earlyCancellationIsNeutral() {
+        UpstreamGuard.Settings settings = settings();
+        settings.minTimeoutMs = 10_000;
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+
+        for (int i = 0; i < 4; i++) {
+            guard.protect(Mono.never()).subscribe().dispose();
+        }
+
+        assertThat(guard.snapshot().getFailures()).isZero();
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.snapshot().getInFlight()).isZero();
+    }
+}